@@ -0,0 +1,87 @@
+package si.mazi.rescu;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.MediaType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import si.mazi.rescu.benchmarks.PipelineService;
+import si.mazi.rescu.serialization.ToStringRequestWriter;
+import si.mazi.rescu.serialization.jackson.DefaultJacksonObjectMapperFactory;
+import si.mazi.rescu.serialization.jackson.JacksonRequestWriter;
+
+/**
+ * Time to bind the arguments of a call and sign it, {@link RestInvocation#create}, for the methods of
+ * {@link PipelineService}: a path param, query params, a form, a form signed with {@link HmacPostBodyDigest} (which
+ * writes the body to sign it) and a JSON body. This is in the rescu package because {@code create} is
+ * package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestInvocationBenchmark {
+
+    @Param({"path", "query", "form", "signedForm", "json"})
+    public String method;
+
+    private RequestWriterResolver requestWriterResolver;
+    private RestMethodMetadata metadata;
+    private Object[] args;
+
+    @Setup
+    public void setUp() throws Exception {
+        requestWriterResolver = new RequestWriterResolver();
+        requestWriterResolver.addWriter(MediaType.APPLICATION_FORM_URLENCODED, new FormUrlEncodedRequestWriter());
+        requestWriterResolver.addWriter(MediaType.APPLICATION_JSON,
+                new JacksonRequestWriter(new DefaultJacksonObjectMapperFactory().createObjectMapper()));
+        requestWriterResolver.addWriter(MediaType.TEXT_PLAIN, new ToStringRequestWriter());
+
+        Method javaMethod;
+        switch (method) {
+            case "path":
+                javaMethod = PipelineService.class.getMethod("ticker", String.class);
+                args = new Object[]{"btc_usd"};
+                break;
+            case "query":
+                javaMethod = PipelineService.class.getMethod("trades", String.class, Long.class, Integer.class, String.class);
+                args = new Object[]{"btc_usd", 1_500_000_000_000L, 500, "desc"};
+                break;
+            case "form":
+            case "signedForm":
+                javaMethod = PipelineService.class.getMethod("placeOrder", String.class, ParamsDigest.class,
+                        SynchronizedValueFactory.class, String.class, String.class, BigDecimal.class, BigDecimal.class);
+                ParamsDigest signer = method.equals("form") ? null : HmacPostBodyDigest.createInstance(PipelineService.SECRET);
+                args = new Object[]{"api-key", signer, new PipelineService.Nonce(), "btc_usd", "buy",
+                        new BigDecimal("64000.50"), new BigDecimal("0.125")};
+                break;
+            case "json":
+                javaMethod = PipelineService.class.getMethod("placeOrders", String.class, java.util.List.class);
+                args = new Object[]{"api-key", PipelineService.Order.ladder(10)};
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown method: " + method);
+        }
+        metadata = RestMethodMetadata.create(javaMethod, "https://api.example.com", "api/v1", null);
+    }
+
+    @Benchmark
+    public RestInvocation create() {
+        return RestInvocation.create(requestWriterResolver, metadata, args, null);
+    }
+}
@@ -0,0 +1,117 @@
+package si.mazi.rescu.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+
+import si.mazi.rescu.ClientConfig;
+import si.mazi.rescu.InvocationExecutors;
+import si.mazi.rescu.RestProxyFactory;
+import si.mazi.rescu.archive.OverflowPolicy;
+
+/**
+ * Latency of calls against a local server, issued at a fixed rate of {@link #requestsPerSecond}, with and without
+ * a request/response logger. The logger has trace enabled, so every call is serialized to JSON, but on the
+ * archive writer thread; the latency distributions (see the percentiles) should be the same in all modes.
+ *
+ * The pacing happens before each call and is not measured. A call that is late because the previous one took
+ * too long starts the schedule anew, so this measures service time only; it is not meant for overload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Dsun.net.httpserver.nodelay=true"})
+public class ArchivingBenchmark {
+
+    @Param({"off", "drop", "block"})
+    public String archiving;
+
+    @Param({"5000"})
+    public int requestsPerSecond;
+
+    private LoopbackServer server;
+    private LoopbackService service;
+    private final AtomicLong archivedChars = new AtomicLong();
+    private long interval;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new LoopbackServer(LoopbackService.TICKER_JSON, 0);
+        ClientConfig config = new ClientConfig();
+        config.setInvocationExecutor(InvocationExecutors.callerThread());
+        Logger logger = null;
+        if (!archiving.equals("off")) {
+            config.setArchiveOverflowPolicy(OverflowPolicy.valueOf(archiving.toUpperCase()));
+            logger = discardingTraceLogger();
+        }
+        service = RestProxyFactory.createProxy(LoopbackService.class, server.getBaseUrl(), config, logger, logger, null, null);
+        interval = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        next = System.nanoTime();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void pace() {
+        next += interval;
+        long now = System.nanoTime();
+        if (next < now) {
+            next = now;
+            return;
+        }
+        while (next - now > 50_000) {
+            LockSupport.parkNanos(next - now - 50_000);
+            now = System.nanoTime();
+        }
+        while (System.nanoTime() < next) {
+            // spin for the last few microseconds, parking is too coarse
+        }
+    }
+
+    @Benchmark
+    public LoopbackService.Ticker call() throws Exception {
+        return service.getTicker("btc_usd");
+    }
+
+    /**
+     * A logger with trace enabled that only counts what it is given, so that the archive writer does all the work
+     * of serializing without any I/O.
+     */
+    private Logger discardingTraceLogger() {
+        return (Logger) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Logger.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return "archive";
+                case "isTraceEnabled":
+                    return true;
+                case "trace":
+                    archivedChars.addAndGet(String.valueOf(args[0]).length());
+                    return null;
+                default:
+                    return method.getReturnType() == boolean.class ? false : null;
+            }
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package si.mazi.rescu.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import si.mazi.rescu.NumericColumns;
+import si.mazi.rescu.NumericColumns.ColumnType;
+import si.mazi.rescu.serialization.jackson.DefaultJacksonObjectMapperFactory;
+
+/**
+ * Time to parse a response of {@value #ROWS} candles, {@code [ts, open, high, low, close, volume]} each, into
+ * {@code List<List<BigDecimal>>}, into an array of DTOs and into a reused {@link NumericColumns}. The body is a
+ * String, as rescu reads it. Run with {@code -prof gc} to compare the allocation per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CandlesParsingBenchmark {
+
+    static final int ROWS = 10_000;
+
+    private ObjectMapper mapper;
+    private ObjectReader columnsReader;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        mapper = new DefaultJacksonObjectMapperFactory().createObjectMapper();
+        NumericColumns columns = new NumericColumns(ColumnType.LONG, ColumnType.fixedPoint(2), ColumnType.fixedPoint(2),
+                ColumnType.fixedPoint(2), ColumnType.fixedPoint(2), ColumnType.DOUBLE);
+        columnsReader = mapper.readerForUpdating(columns);
+        json = createCandles();
+    }
+
+    static String createCandles() {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder("[");
+        long price = 6_400_000;
+        for (int i = 0; i < ROWS; i++) {
+            long open = price;
+            long close = open + random.nextInt(2001) - 1000;
+            long high = Math.max(open, close) + random.nextInt(500);
+            long low = Math.min(open, close) - random.nextInt(500);
+            price = close;
+            json.append(i > 0 ? "," : "")
+                    .append('[').append(1_700_000_000_000L + i * 60_000L)
+                    .append(",\"").append(BigDecimal.valueOf(open, 2).toPlainString())
+                    .append("\",\"").append(BigDecimal.valueOf(high, 2).toPlainString())
+                    .append("\",\"").append(BigDecimal.valueOf(low, 2).toPlainString())
+                    .append("\",\"").append(BigDecimal.valueOf(close, 2).toPlainString())
+                    .append("\",\"").append(BigDecimal.valueOf(random.nextInt(100_000_000), 6).toPlainString())
+                    .append("\"]");
+        }
+        return json.append(']').toString();
+    }
+
+    @Benchmark
+    public List<List<BigDecimal>> bigDecimalLists() throws Exception {
+        return mapper.readValue(json, new TypeReference<List<List<BigDecimal>>>() { });
+    }
+
+    @Benchmark
+    public Candle[] dtoArray() throws Exception {
+        return mapper.readValue(json, Candle[].class);
+    }
+
+    @Benchmark
+    public NumericColumns numericColumns() throws Exception {
+        return columnsReader.readValue(json);
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"timestamp", "open", "high", "low", "close", "volume"})
+    public static class Candle {
+        public long timestamp;
+        public double open;
+        public double high;
+        public double low;
+        public double close;
+        public double volume;
+    }
+}
@@ -0,0 +1,97 @@
+package si.mazi.rescu.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares two JMH JSON results, eg. of the same benchmarks on two commits: prints the score and the allocation per
+ * operation of each benchmark in both, and the change. Run with
+ * {@code java -cp benchmarks.jar si.mazi.rescu.benchmarks.CompareResults base.json new.json}.
+ */
+public final class CompareResults {
+
+    static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CompareResults <base result json> <new result json>");
+            System.exit(2);
+        }
+        System.out.print(compare(read(new File(args[0])), read(new File(args[1]))));
+    }
+
+    static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            results.put(key(result), result);
+        }
+        return results;
+    }
+
+    private static String key(JsonNode result) {
+        StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                .replaceFirst("^si\\.mazi\\.rescu\\.(benchmarks\\.)?", ""));
+        JsonNode params = result.path("params");
+        for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> param = it.next();
+            key.append(key.indexOf(":") < 0 ? ":" : ",").append(param.getKey()).append('=').append(param.getValue().asText());
+        }
+        return key.toString();
+    }
+
+    static String compare(Map<String, JsonNode> base, Map<String, JsonNode> current) {
+        StringBuilder report = new StringBuilder(String.format("%-60s %14s %14s %8s %12s %12s %8s%n", "benchmark",
+                "base", "new", "change", "base B/op", "new B/op", "change"));
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode now = entry.getValue();
+            JsonNode was = base.get(entry.getKey());
+            String unit = now.path("primaryMetric").path("scoreUnit").asText();
+            double score = now.path("primaryMetric").path("score").asDouble();
+            double allocation = allocation(now);
+            if (was == null) {
+                report.append(String.format("%-60s %14s %14s %8s %12s %12s %8s%n", entry.getKey(), "-",
+                        format(score, unit), "", "-", format(allocation, ""), ""));
+                continue;
+            }
+            double baseScore = was.path("primaryMetric").path("score").asDouble();
+            double baseAllocation = allocation(was);
+            report.append(String.format("%-60s %14s %14s %8s %12s %12s %8s%n", entry.getKey(),
+                    format(baseScore, unit), format(score, unit), change(baseScore, score),
+                    format(baseAllocation, ""), format(allocation, ""), change(baseAllocation, allocation)));
+        }
+        for (String removed : base.keySet()) {
+            if (!current.containsKey(removed)) {
+                report.append(String.format("%-60s (not in the new results)%n", removed));
+            }
+        }
+        return report.toString();
+    }
+
+    private static double allocation(JsonNode result) {
+        JsonNode metric = result.path("secondaryMetrics").path(ALLOCATION);
+        return metric.isMissingNode() ? Double.NaN : metric.path("score").asDouble();
+    }
+
+    private static String format(double value, String unit) {
+        if (Double.isNaN(value)) {
+            return "-";
+        }
+        return String.format(value >= 100 ? "%.0f" : "%.3f", value) + (unit.isEmpty() ? "" : " " + unit);
+    }
+
+    private static String change(double base, double current) {
+        if (Double.isNaN(base) || Double.isNaN(current) || base == 0) {
+            return "";
+        }
+        return String.format("%+.1f%%", (current - base) / base * 100);
+    }
+}
@@ -0,0 +1,111 @@
+package si.mazi.rescu.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import si.mazi.rescu.ClientConfig;
+import si.mazi.rescu.InvocationExecutors;
+import si.mazi.rescu.RestInterface;
+import si.mazi.rescu.RestProxyFactory;
+
+/**
+ * Time to create a client and make its first call in a fresh JVM, against a loopback server that answers at once:
+ * with the client class and metadata generated by rescu-processor, and with a dynamic proxy and the metadata read from
+ * the annotations by reflection (the processor skips private interfaces). Both pay for loading rescu, Jackson and the
+ * HTTP client, so the difference is what the generated client saves. The server answers one request over a plain socket
+ * before the measurement, so the time its own first response takes (the JDK server loads its date formatting and locale
+ * data then) isn't counted as the client's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 20, jvmArgsAppend = {"-Dsun.net.httpserver.nodelay=true"})
+public class FirstCallBenchmark {
+
+    @Path("api")
+    @Produces(MediaType.APPLICATION_JSON)
+    public interface GeneratedTickerService extends RestInterface {
+
+        @GET
+        @Path("{pair}/ticker")
+        Map<String, Object> ticker(@PathParam("pair") String pair, @QueryParam("depth") int depth) throws IOException;
+    }
+
+    @Path("api")
+    @Produces(MediaType.APPLICATION_JSON)
+    private interface ReflectiveTickerService extends RestInterface {
+
+        @GET
+        @Path("{pair}/ticker")
+        Map<String, Object> ticker(@PathParam("pair") String pair, @QueryParam("depth") int depth) throws IOException;
+    }
+
+    private LoopbackServer server;
+    private ClientConfig config;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new LoopbackServer(LoopbackService.TICKER_JSON, 0);
+        config = new ClientConfig();
+        config.setInvocationExecutor(InvocationExecutors.callerThread());
+        warmUpServer();
+    }
+
+    private void warmUpServer() throws IOException {
+        URL url = new URL(server.getBaseUrl());
+        try (Socket socket = new Socket(url.getHost(), url.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write("GET /api HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            byte[] discard = new byte[4096];
+            while (in.read(discard) >= 0) {
+                // read the whole response so the server has written it before the measurement starts
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> generatedClient() throws IOException {
+        return RestProxyFactory.createProxy(GeneratedTickerService.class, server.getBaseUrl(), config, null, null, null, null)
+                .ticker("btc_usd", 10);
+    }
+
+    @Benchmark
+    public Map<String, Object> dynamicProxy() throws IOException {
+        return RestProxyFactory.createProxy(ReflectiveTickerService.class, server.getBaseUrl(), config, null, null, null, null)
+                .ticker("btc_usd", 10);
+    }
+}
@@ -0,0 +1,76 @@
+package si.mazi.rescu.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import si.mazi.rescu.HmacDigest;
+
+/**
+ * Signatures per second of a form body under 32 threads: with a shared {@link HmacDigest}, with a {@link Mac} created
+ * for each signature, and with one {@code Mac} shared under a lock. The last two return the signature unencoded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+public class HmacDigestBenchmark {
+
+    private static final String BODY = "nonce=1500000000000123&pair=btc_usd&type=buy&rate=64000.50&amount=0.125"
+            + "&post_only=true&client_order_id=3f2a9c4e-7d51-4b1e-9a0c-5e8d2f6b7c31";
+
+    @Param({HmacDigest.HMAC_SHA256, HmacDigest.HMAC_SHA512})
+    public String algorithm;
+
+    @Param({"HEX", "BASE64"})
+    public HmacDigest.Encoding encoding;
+
+    private byte[] key;
+    private HmacDigest digest;
+    private Mac sharedMac;
+
+    @Setup
+    public void setUp() throws Exception {
+        key = PipelineService.SECRET.getBytes(StandardCharsets.UTF_8);
+        digest = HmacDigest.createInstance(algorithm, key, encoding);
+        sharedMac = Mac.getInstance(algorithm);
+        sharedMac.init(new SecretKeySpec(key, algorithm));
+    }
+
+    @Benchmark
+    public String pooled() {
+        return digest.digest(BODY);
+    }
+
+    @Benchmark
+    public byte[] macPerCall() throws Exception {
+        Mac mac = Mac.getInstance(algorithm);
+        mac.init(new SecretKeySpec(key, algorithm));
+        return mac.doFinal(BODY.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public byte[] synchronizedMac() {
+        synchronized (sharedMac) {
+            return sharedMac.doFinal(BODY.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package si.mazi.rescu.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import si.mazi.rescu.ClientConfig;
+import si.mazi.rescu.InvocationExecutors;
+import si.mazi.rescu.RestProxyFactory;
+
+/**
+ * Throughput of {@value #CALLS} concurrent blocking calls against a local server with
+ * the different {@link ClientConfig#setInvocationExecutor invocation executors},
+ * issued from a virtual thread or a platform thread per call. The caller-thread
+ * executor with virtual callers is the way to make many calls at once without a
+ * platform thread each; the virtual callers need JDK 21 or newer, so pass
+ * {@code -p callers=platform} on older JDKs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Dhttp.maxConnections=1000"})
+public class InvocationExecutorBenchmark {
+
+    static final int CALLS = 10_000;
+
+    @Param({"fixed-pool", "caller-thread"})
+    public String mode;
+
+    @Param({"virtual", "platform"})
+    public String callers;
+
+    @Param({"1000"})
+    public long serverLatencyMicros;
+
+    private LoopbackServer server;
+    private ExecutorService invocationPool;
+    private ExecutorService callerThreads;
+    private LoopbackService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new LoopbackServer(LoopbackService.TICKER_JSON, serverLatencyMicros);
+        ClientConfig config = new ClientConfig();
+        switch (mode) {
+            case "fixed-pool":
+                invocationPool = InvocationExecutors.fixedThreadPool(3);
+                config.setInvocationExecutor(invocationPool);
+                break;
+            case "caller-thread":
+                config.setInvocationExecutor(InvocationExecutors.callerThread());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        service = RestProxyFactory.createProxy(LoopbackService.class, server.getBaseUrl(), config, null, null, null, null);
+        callerThreads = "virtual".equals(callers) ? newVirtualThreadPerTaskExecutor() : Executors.newCachedThreadPool();
+    }
+
+    /**
+     * Looks up {@code Executors.newVirtualThreadPerTaskExecutor()}, which can't be
+     * referenced directly as the benchmarks are compiled for Java 8.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() throws Exception {
+        Method factory;
+        try {
+            factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads require JDK 21 or newer; pass -p callers=platform.", e);
+        }
+        return (ExecutorService) factory.invoke(null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+        if (invocationPool != null) {
+            invocationPool.shutdownNow();
+        }
+        callerThreads.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public int concurrentCalls() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(CALLS);
+        AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < CALLS; i++) {
+            callerThreads.execute(() -> {
+                try {
+                    service.getTicker("btc_usd");
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " of " + CALLS + " calls failed.");
+        }
+        return CALLS;
+    }
+}
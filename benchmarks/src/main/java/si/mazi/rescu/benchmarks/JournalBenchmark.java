@@ -0,0 +1,135 @@
+package si.mazi.rescu.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import si.mazi.rescu.archive.AsyncArchiver;
+import si.mazi.rescu.archive.JournalArchiver;
+import si.mazi.rescu.archive.JournalOptions;
+import si.mazi.rescu.archive.OverflowPolicy;
+import si.mazi.rescu.serialization.jackson.JacksonRequestResponseLogger;
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequest;
+import si.mazi.rescu.serialization.jackson.serializers.HttpResponse;
+
+/**
+ * Write throughput, in records per second, of archiving requests/responses as JSON through a logback file appender
+ * versus into the binary journal, uncompressed and with compressed segments. Each operation archives
+ * {@value #RECORDS} typical order placement records and flushes. Logback flushes its stream after every record; the
+ * journal forces its segment to the disk once a second, at its default sync interval.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JournalBenchmark {
+
+    static final int RECORDS = 1000;
+
+    @Param({"logback", "journal", "journal-deflate"})
+    public String backend;
+
+    private final HttpRequest[] requests = new HttpRequest[RECORDS];
+    private final HttpResponse[] responses = new HttpResponse[RECORDS];
+
+    private Path directory;
+    private AsyncArchiver archiver;
+    private FileAppender<ILoggingEvent> appender;
+
+    @Setup(Level.Trial)
+    public void createRecords() {
+        long time = System.currentTimeMillis() * 1_000_000;
+        for (int i = 0; i < RECORDS; i++) {
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            headers.put("Content-Type", Collections.singletonList("application/x-www-form-urlencoded"));
+            headers.put("Key", Collections.singletonList("7f3c9a2e-41b6-4d0e-9b8a-2c5d6e7f8a9b"));
+            headers.put("Sign", Collections.singletonList("3b1e0f5c8d2a4f6e9b7c1d3e5f7a9b0c2d4e6f8a0b1c3d5e7f9a1b3c5d7e9f0a"));
+            requests[i] = new HttpRequest("https://api.example.com/v1/orders", "POST", headers,
+                    "pair=btc_usd&type=buy&price=64250.1" + i % 10 + "&amount=0.0" + i + "&nonce=" + (1700000000000L + i), time, 0);
+            responses[i] = new HttpResponse(200, "{\"success\":1,\"return\":{\"received\":0,\"remains\":0.0" + i
+                    + ",\"order_id\":" + (98765432L + i) + ",\"funds\":{\"usd\":\"12345.67\",\"btc\":\"0.52341\"}}}", time, 0);
+            responses[i].setTime(time + i * 1000L);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("rescu-journal-benchmark");
+        switch (backend) {
+            case "logback":
+                LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+                PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+                encoder.setContext(context);
+                encoder.setPattern("%msg%n");
+                encoder.start();
+                appender = new FileAppender<>();
+                appender.setContext(context);
+                appender.setFile(directory.resolve("archive.log").toString());
+                appender.setEncoder(encoder);
+                appender.start();
+                ch.qos.logback.classic.Logger logger = context.getLogger("archive." + directory.getFileName());
+                logger.addAppender(appender);
+                logger.setLevel(ch.qos.logback.classic.Level.TRACE);
+                logger.setAdditive(false);
+                archiver = new JacksonRequestResponseLogger(logger, AsyncArchiver.DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+                break;
+            case "journal":
+            case "journal-deflate":
+                archiver = new JournalArchiver(directory, new JournalOptions()
+                        .setOverflowPolicy(OverflowPolicy.BLOCK)
+                        .setCompressSegments(backend.equals("journal-deflate")));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown backend: " + backend);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        archiver.close();
+        if (appender != null) {
+            appender.stop();
+            appender = null;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Collections.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void archive() {
+        for (int i = 0; i < RECORDS; i++) {
+            archiver.archive(requests[i], responses[i]);
+        }
+        archiver.flush();
+    }
+}
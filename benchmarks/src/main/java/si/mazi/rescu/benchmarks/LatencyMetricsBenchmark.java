@@ -0,0 +1,70 @@
+package si.mazi.rescu.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import si.mazi.rescu.HttpMethod;
+import si.mazi.rescu.RestMethodMetadata;
+import si.mazi.rescu.metrics.LatencyHistogram;
+import si.mazi.rescu.metrics.LatencyMetrics;
+import si.mazi.rescu.metrics.MethodLatencies;
+import si.mazi.rescu.metrics.Phase;
+
+/**
+ * The cost of measuring a call's latencies: {@link #call()} records every phase the way the invocation handler does,
+ * which should take well under a microsecond, also with several threads recording into the same histograms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatencyMetricsBenchmark {
+
+    private static final Phase[] CALL_PHASES = {Phase.BIND, Phase.SIGN, Phase.SERIALIZE, Phase.CONNECT,
+            Phase.FIRST_BYTE, Phase.READ, Phase.DESERIALIZE};
+
+    private MethodLatencies latencies;
+    private LatencyHistogram histogram;
+
+    @Setup
+    public void setUp() {
+        RestMethodMetadata metadata = new RestMethodMetadata(String.class, HttpMethod.GET, "http://localhost", "api",
+                "ticker", RuntimeException.class, null, null, "getTicker", null, null);
+        latencies = new LatencyMetrics().register(metadata);
+        histogram = new LatencyHistogram();
+    }
+
+    @Benchmark
+    public void record() {
+        histogram.record(123_456);
+    }
+
+    @Benchmark
+    public long call() {
+        long start = System.nanoTime();
+        long time = start;
+        for (Phase phase : CALL_PHASES) {
+            time = latencies.record(phase, time);
+        }
+        return latencies.record(Phase.TOTAL, start);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long callContended() {
+        return call();
+    }
+}
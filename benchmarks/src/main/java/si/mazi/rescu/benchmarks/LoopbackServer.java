@@ -0,0 +1,81 @@
+package si.mazi.rescu.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process HTTP server on the loopback interface that answers every request
+ * with a fixed JSON body after a fixed delay. The delay doesn't block any server
+ * thread, so the server can hold many thousands of calls in flight at once.
+ */
+public class LoopbackServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ScheduledExecutorService responder;
+    private final byte[] body;
+    private final long latencyMicros;
+
+    public LoopbackServer(String body, long latencyMicros) throws IOException {
+        this.body = body.getBytes(StandardCharsets.UTF_8);
+        this.latencyMicros = latencyMicros;
+        this.responder = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "LoopbackResponder");
+            t.setDaemon(true);
+            return t;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16384);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "LoopbackServer");
+            t.setDaemon(true);
+            return t;
+        }));
+        this.server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] discard = new byte[4096];
+            while (in.read(discard) >= 0) {
+                // drain the request body so the connection may be reused
+            }
+        }
+        if (latencyMicros > 0) {
+            responder.schedule(() -> respond(exchange), latencyMicros, TimeUnit.MICROSECONDS);
+        } else {
+            respond(exchange);
+        }
+    }
+
+    private void respond(HttpExchange exchange) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        responder.shutdownNow();
+    }
+}
@@ -0,0 +1,56 @@
+package si.mazi.rescu.benchmarks;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import si.mazi.rescu.RestInterface;
+
+@Path("api")
+@Produces(MediaType.APPLICATION_JSON)
+public interface LoopbackService extends RestInterface {
+
+    String TICKER_JSON = "{\"last\":\"2.3456\",\"high\":\"2.5\",\"low\":\"2.1\",\"volume\":\"1234.56\"}";
+
+    @GET
+    @Path("{pair}/ticker")
+    Ticker getTicker(@PathParam("pair") String pair) throws IOException;
+
+    class Ticker {
+        private final BigDecimal last;
+        private final BigDecimal high;
+        private final BigDecimal low;
+        private final BigDecimal volume;
+
+        public Ticker(@JsonProperty("last") BigDecimal last, @JsonProperty("high") BigDecimal high,
+                      @JsonProperty("low") BigDecimal low, @JsonProperty("volume") BigDecimal volume) {
+            this.last = last;
+            this.high = high;
+            this.low = low;
+            this.volume = volume;
+        }
+
+        public BigDecimal getLast() {
+            return last;
+        }
+
+        public BigDecimal getHigh() {
+            return high;
+        }
+
+        public BigDecimal getLow() {
+            return low;
+        }
+
+        public BigDecimal getVolume() {
+            return volume;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package si.mazi.rescu.benchmarks;
+
+import java.lang.annotation.Annotation;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.FormParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import oauth.signpost.OAuthConsumer;
+import oauth.signpost.basic.DefaultOAuthConsumer;
+import si.mazi.rescu.HttpMethod;
+import si.mazi.rescu.Params;
+import si.mazi.rescu.RestInvocation;
+import si.mazi.rescu.RestMethodMetadata;
+import si.mazi.rescu.oauth.OAuthSigner;
+import si.mazi.rescu.oauth.RescuOAuthRequestAdapter;
+
+/**
+ * Time to sign a form POST with OAuth 1.0a: with {@link OAuthSigner}, from the bound params, and with a signpost
+ * consumer, as rescu does with an {@code OAuthConsumer} configured, on a new (unconnected) connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OAuthSignerBenchmark {
+
+    private static final String URL = "https://api.example.com/1.1/orders/create.json?include_entities=true";
+
+    private RestInvocation invocation;
+    private String body;
+    private URL url;
+    private OAuthSigner signer;
+    private OAuthConsumer consumer;
+
+    @Setup
+    public void setUp() throws Exception {
+        Map<Class<? extends Annotation>, Params> paramsMap = new HashMap<>();
+        paramsMap.put(QueryParam.class, Params.of("include_entities", true));
+        Params form = Params.of("pair", "btc_usd", "type", "buy", "rate", "64000.50", "amount", "0.125")
+                .add("client_order_id", "3f2a9c4e-7d51-4b1e-9a0c-5e8d2f6b7c31");
+        paramsMap.put(FormParam.class, form);
+        RestMethodMetadata metadata = new RestMethodMetadata(String.class, HttpMethod.POST,
+                "https://api.example.com", "/1.1", "orders/create.json", RuntimeException.class,
+                MediaType.APPLICATION_FORM_URLENCODED, MediaType.APPLICATION_JSON, "create",
+                new HashMap<>(), new Annotation[][] {});
+        invocation = new RestInvocation(paramsMap, Collections.emptyList(), metadata, "orders/create.json", URL,
+                "include_entities=true", "/1.1/orders/create.json", null);
+        body = form.asFormEncodedRequestBody();
+        url = new URL(URL);
+
+        signer = new OAuthSigner("consumer-key", "consumer-secret", "token", "token-secret");
+        consumer = new DefaultOAuthConsumer("consumer-key", "consumer-secret");
+        consumer.setTokenWithSecret("token", "token-secret");
+    }
+
+    @Benchmark
+    public String oAuthSigner() {
+        return signer.authorizationHeader(invocation);
+    }
+
+    @Benchmark
+    public String signpost() throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", MediaType.APPLICATION_FORM_URLENCODED);
+        consumer.sign(new RescuOAuthRequestAdapter(connection, body));
+        return connection.getRequestProperty("Authorization");
+    }
+}
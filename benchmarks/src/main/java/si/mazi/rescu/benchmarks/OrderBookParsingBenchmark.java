@@ -0,0 +1,126 @@
+package si.mazi.rescu.benchmarks;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import si.mazi.rescu.FixedPointDecimal;
+import si.mazi.rescu.serialization.jackson.DefaultJacksonObjectMapperFactory;
+
+/**
+ * Time to parse an order book of {@value #LEVELS} bids and as many asks, each level a {@code [price, quantity]}
+ * pair, into {@link BigDecimal}, {@code double} and {@link FixedPointDecimal} fields. Exchanges send the numbers
+ * either as JSON strings or as JSON numbers; both are measured. Run with {@code -prof gc} to compare the
+ * allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OrderBookParsingBenchmark {
+
+    static final int LEVELS = 5_000;
+
+    @Param({"string", "number"})
+    public String encoding;
+
+    private ObjectMapper mapper;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        mapper = new DefaultJacksonObjectMapperFactory().createObjectMapper();
+        json = createOrderBook(encoding.equals("string")).getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String createOrderBook(boolean quoted) {
+        Random random = new Random(42);
+        String quote = quoted ? "\"" : "";
+        StringBuilder json = new StringBuilder("{\"bids\":[");
+        for (int side = 0; side < 2; side++) {
+            if (side == 1) {
+                json.append("],\"asks\":[");
+            }
+            for (int i = 0; i < LEVELS; i++) {
+                long priceCents = 6_400_000 + (side == 0 ? -i : i + 1);
+                long quantity = 1 + random.nextInt(10_000_000);
+                json.append(i > 0 ? "," : "")
+                        .append('[').append(quote).append(BigDecimal.valueOf(priceCents, 2).toPlainString()).append(quote)
+                        .append(',').append(quote).append(BigDecimal.valueOf(quantity, 8).toPlainString()).append(quote)
+                        .append(']');
+            }
+        }
+        return json.append("]}").toString();
+    }
+
+    @Benchmark
+    public BigDecimalBook bigDecimal() throws Exception {
+        return mapper.readValue(json, BigDecimalBook.class);
+    }
+
+    @Benchmark
+    public DoubleBook doubleValue() throws Exception {
+        return mapper.readValue(json, DoubleBook.class);
+    }
+
+    @Benchmark
+    public FixedPointBook fixedPoint() throws Exception {
+        return mapper.readValue(json, FixedPointBook.class);
+    }
+
+    public static class BigDecimalBook {
+        public List<BigDecimalLevel> bids;
+        public List<BigDecimalLevel> asks;
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"price", "quantity"})
+    public static class BigDecimalLevel {
+        public BigDecimal price;
+        public BigDecimal quantity;
+    }
+
+    public static class DoubleBook {
+        public List<DoubleLevel> bids;
+        public List<DoubleLevel> asks;
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"price", "quantity"})
+    public static class DoubleLevel {
+        public double price;
+        public double quantity;
+    }
+
+    public static class FixedPointBook {
+        public List<FixedPointLevel> bids;
+        public List<FixedPointLevel> asks;
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"price", "quantity"})
+    public static class FixedPointLevel {
+        public FixedPointDecimal price;
+        public FixedPointDecimal quantity;
+    }
+}
@@ -0,0 +1,61 @@
+package si.mazi.rescu.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import si.mazi.rescu.Params;
+
+/**
+ * Time to encode {@link #size} query params with {@link Params#asQueryString()}, and to substitute path params with
+ * {@link Params#applyToPath}, which compiles a pattern per param.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParamsBenchmark {
+
+    @Param({"2", "10"})
+    public int size;
+
+    private Params queryParams;
+    private Params pathParams;
+    private String pathTemplate;
+
+    @Setup
+    public void setUp() {
+        queryParams = Params.of();
+        StringBuilder path = new StringBuilder("api/v1");
+        pathParams = Params.of();
+        for (int i = 0; i < size; i++) {
+            queryParams.add("param" + i, i % 2 == 0 ? "a value/" + i : BigDecimal.valueOf(i, 4));
+            pathParams.add("segment" + i, i % 2 == 0 ? "btc_usd" : "id " + i);
+            path.append("/{segment").append(i).append('}');
+        }
+        pathTemplate = path.toString();
+    }
+
+    @Benchmark
+    public String asQueryString() {
+        return queryParams.asQueryString();
+    }
+
+    @Benchmark
+    public String applyToPath() {
+        return pathParams.applyToPath(pathTemplate);
+    }
+}
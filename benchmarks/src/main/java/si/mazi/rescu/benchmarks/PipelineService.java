@@ -0,0 +1,103 @@
+package si.mazi.rescu.benchmarks;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import si.mazi.rescu.ParamsDigest;
+import si.mazi.rescu.RestInterface;
+import si.mazi.rescu.SynchronizedValueFactory;
+
+/**
+ * Methods of increasing complexity, from a single path param to a signed form and a JSON body, for the benchmarks of
+ * the request side of a call.
+ */
+@Path("api/v1")
+@Produces(MediaType.APPLICATION_JSON)
+public interface PipelineService extends RestInterface {
+
+    String SECRET = "9WkB3zUil6h5pXrqUX7XT57c+g2rxxemeGYv3aBSW4hlkwSIgmul+mC3yxwU8fPtQsR8jTpyI2xo7WznjhTf4g==";
+
+    @GET
+    @Path("{pair}/ticker")
+    Map<String, Object> ticker(@PathParam("pair") String pair) throws IOException;
+
+    @GET
+    @Path("{pair}/trades")
+    Map<String, Object> trades(@PathParam("pair") String pair, @QueryParam("since") Long since,
+            @QueryParam("limit") Integer limit, @QueryParam("sort") String sort) throws IOException;
+
+    @POST
+    @Path("private/order")
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    Map<String, Object> placeOrder(@HeaderParam("Key") String key, @HeaderParam("Sign") ParamsDigest signer,
+            @FormParam("nonce") SynchronizedValueFactory<Long> nonce, @FormParam("pair") String pair,
+            @FormParam("side") String side, @FormParam("price") BigDecimal price,
+            @FormParam("amount") BigDecimal amount) throws IOException;
+
+    @POST
+    @Path("private/orders")
+    @Consumes(MediaType.APPLICATION_JSON)
+    Map<String, Object> placeOrders(@HeaderParam("Key") String key, List<Order> orders) throws IOException;
+
+    class Order {
+        private final String pair;
+        private final String side;
+        private final BigDecimal price;
+        private final BigDecimal amount;
+
+        public Order(String pair, String side, BigDecimal price, BigDecimal amount) {
+            this.pair = pair;
+            this.side = side;
+            this.price = price;
+            this.amount = amount;
+        }
+
+        public String getPair() {
+            return pair;
+        }
+
+        public String getSide() {
+            return side;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public static List<Order> ladder(int count) {
+            List<Order> orders = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                orders.add(new Order("btc_usd", i % 2 == 0 ? "buy" : "sell", BigDecimal.valueOf(6_400_000 + i, 2),
+                        BigDecimal.valueOf(125_000 + i, 8)));
+            }
+            return orders;
+        }
+    }
+
+    class Nonce implements SynchronizedValueFactory<Long> {
+        private long nonce = 1_500_000_000_000L;
+
+        @Override
+        public Long createValue() {
+            return ++nonce;
+        }
+    }
+}
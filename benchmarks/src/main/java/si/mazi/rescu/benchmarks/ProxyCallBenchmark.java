@@ -0,0 +1,70 @@
+package si.mazi.rescu.benchmarks;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import si.mazi.rescu.ClientConfig;
+import si.mazi.rescu.HmacPostBodyDigest;
+import si.mazi.rescu.InvocationExecutors;
+import si.mazi.rescu.ParamsDigest;
+import si.mazi.rescu.RestProxyFactory;
+
+/**
+ * Time of a whole proxy call against an in-process server on the loopback interface that answers at once: the
+ * pipeline from the proxy to the returned object, plus a loopback HTTP exchange. The calls are made on the caller's
+ * thread, so nothing is handed over between threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProxyCallBenchmark {
+
+    private LoopbackServer server;
+    private PipelineService service;
+    private ParamsDigest signer;
+    private PipelineService.Nonce nonce;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new LoopbackServer(LoopbackService.TICKER_JSON, 0);
+        ClientConfig config = new ClientConfig();
+        config.setInvocationExecutor(InvocationExecutors.callerThread());
+        service = RestProxyFactory.createProxy(PipelineService.class, server.getBaseUrl(), config, null, null, null, null);
+        signer = HmacPostBodyDigest.createInstance(PipelineService.SECRET);
+        nonce = new PipelineService.Nonce();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> get() throws IOException {
+        return service.ticker("btc_usd");
+    }
+
+    @Benchmark
+    public Map<String, Object> signedPost() throws IOException {
+        return service.placeOrder("api-key", signer, nonce, "btc_usd", "buy", new BigDecimal("64000.50"),
+                new BigDecimal("0.125"));
+    }
+}
@@ -0,0 +1,97 @@
+package si.mazi.rescu.benchmarks;
+
+import java.lang.annotation.Annotation;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.FormParam;
+import javax.ws.rs.core.MediaType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import si.mazi.rescu.FormUrlEncodedRequestWriter;
+import si.mazi.rescu.HmacPostBodyDigest;
+import si.mazi.rescu.HttpMethod;
+import si.mazi.rescu.Params;
+import si.mazi.rescu.RequestWriterResolver;
+import si.mazi.rescu.RestInvocation;
+import si.mazi.rescu.RestMethodMetadata;
+import si.mazi.rescu.serialization.jackson.DefaultJacksonObjectMapperFactory;
+import si.mazi.rescu.serialization.jackson.JacksonRequestWriter;
+
+/**
+ * Time to write request bodies of {@link #size} form params or JSON orders with {@link FormUrlEncodedRequestWriter} and
+ * {@link JacksonRequestWriter}, and to sign the form with {@link HmacPostBodyDigest}, which writes it too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBodyBenchmark {
+
+    @Param({"5", "50"})
+    public int size;
+
+    private FormUrlEncodedRequestWriter formWriter;
+    private JacksonRequestWriter jsonWriter;
+    private HmacPostBodyDigest digest;
+    private RestInvocation form;
+    private RestInvocation json;
+
+    @Setup
+    public void setUp() {
+        RequestWriterResolver requestWriterResolver = new RequestWriterResolver();
+        formWriter = new FormUrlEncodedRequestWriter();
+        jsonWriter = new JacksonRequestWriter(new DefaultJacksonObjectMapperFactory().createObjectMapper());
+        requestWriterResolver.addWriter(MediaType.APPLICATION_FORM_URLENCODED, formWriter);
+        requestWriterResolver.addWriter(MediaType.APPLICATION_JSON, jsonWriter);
+        digest = HmacPostBodyDigest.createInstance(PipelineService.SECRET);
+
+        Params formParams = Params.of("nonce", 1_500_000_000_000L);
+        for (int i = 1; i < size; i++) {
+            formParams.add("param" + i, i % 2 == 0 ? "value with spaces & symbols " + i : BigDecimal.valueOf(i, 4));
+        }
+        Map<Class<? extends Annotation>, Params> formParamsMap = RestInvocation.createEmptyParamsMap(null);
+        formParamsMap.put(FormParam.class, formParams);
+        form = new RestInvocation(formParamsMap, Collections.emptyList(), metadata(MediaType.APPLICATION_FORM_URLENCODED),
+                null, null, null, null, requestWriterResolver);
+
+        json = new RestInvocation(RestInvocation.createEmptyParamsMap(null),
+                Collections.singletonList(PipelineService.Order.ladder(size)), metadata(MediaType.APPLICATION_JSON),
+                null, null, null, null, requestWriterResolver);
+    }
+
+    private static RestMethodMetadata metadata(String reqContentType) {
+        return new RestMethodMetadata(String.class, HttpMethod.POST, "https://api.example.com", "api/v1", "orders",
+                RuntimeException.class, reqContentType, MediaType.APPLICATION_JSON, "placeOrders", null, null);
+    }
+
+    @Benchmark
+    public String formUrlEncoded() {
+        return formWriter.writeBody(form);
+    }
+
+    @Benchmark
+    public String json() {
+        return jsonWriter.writeBody(json);
+    }
+
+    @Benchmark
+    public String hmacPostBodyDigest() {
+        return digest.digestParams(form);
+    }
+}
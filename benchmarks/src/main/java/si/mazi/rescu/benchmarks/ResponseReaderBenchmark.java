@@ -0,0 +1,72 @@
+package si.mazi.rescu.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import si.mazi.rescu.InvocationResult;
+import si.mazi.rescu.RestMethodMetadata;
+import si.mazi.rescu.serialization.jackson.DefaultJacksonObjectMapperFactory;
+import si.mazi.rescu.serialization.jackson.JacksonResponseReader;
+
+/**
+ * Time to read the JSON payloads of rescu's tests (packaged from {@code src/test/resources}) with
+ * {@link JacksonResponseReader}, the way a call of a method returning a map reads its response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseReaderBenchmark {
+
+    @Param({"example-ticker.json", "example-accountinfo-data.json", "example-generic.json",
+            "example-ticker-streaming-data.json"})
+    public String payload;
+
+    private JacksonResponseReader reader;
+    private RestMethodMetadata metadata;
+    private InvocationResult response;
+
+    @Setup
+    public void setUp() throws Exception {
+        reader = new JacksonResponseReader(new DefaultJacksonObjectMapperFactory().createObjectMapper(), false);
+        metadata = RestMethodMetadata.create(PipelineService.class.getMethod("ticker", String.class),
+                "https://api.example.com", "api/v1", null);
+        response = new InvocationResult(readResource(payload), 200);
+    }
+
+    static String readResource(String name) throws IOException {
+        try (InputStream in = ResponseReaderBenchmark.class.getResourceAsStream("/" + name)) {
+            if (in == null) {
+                throw new IOException("Missing resource " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int n; (n = in.read(buffer)) >= 0; ) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public Object read() throws IOException {
+        return reader.read(response, metadata);
+    }
+}
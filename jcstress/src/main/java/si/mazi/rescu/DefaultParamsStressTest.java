@@ -0,0 +1,70 @@
+package si.mazi.rescu;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE_INTERESTING;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.LL_Result;
+
+/**
+ * The default params of a {@link ClientConfig} are shared by the invocations of all the proxies created with it.
+ * Binding an invocation adds its params to the {@link Params} of their type, and for a type with defaults that is the
+ * defaults' own instance, so concurrent calls can see each other's params; this is reported as interesting rather than
+ * forbidden while it is so.
+ */
+@JCStressTest
+@Description("Two threads bind calls with different header params, on a config with a default header param.")
+@Outcome(id = "1, 2", expect = ACCEPTABLE, desc = "Each call has its own header.")
+@Outcome(expect = ACCEPTABLE_INTERESTING, desc = "A call has the other's header, or binding failed.")
+@State
+public class DefaultParamsStressTest {
+
+    @Path("api")
+    public interface Service {
+
+        @GET
+        @Path("orders")
+        String orders(@HeaderParam("Nonce") long nonce);
+    }
+
+    private static final RestMethodMetadata ORDERS;
+
+    static {
+        try {
+            ORDERS = RestMethodMetadata.create(Service.class.getMethod("orders", long.class), "https://api.example.com",
+                    "api", null);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final ClientConfig config = new ClientConfig().addDefaultParam(HeaderParam.class, "Key", "api-key");
+
+    @Actor
+    public void call1(LL_Result r) {
+        r.r1 = nonce(1);
+    }
+
+    @Actor
+    public void call2(LL_Result r) {
+        r.r2 = nonce(2);
+    }
+
+    private String nonce(long nonce) {
+        try {
+            RestInvocation invocation = RestInvocation.create(null, ORDERS, new Object[] {nonce},
+                    config.getDefaultParamsMap());
+            return invocation.getHttpHeadersFromParams().get("Nonce");
+        } catch (RuntimeException e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package si.mazi.rescu;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.MediaType;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.ZZ_Result;
+
+/**
+ * One {@link HmacPostBodyDigest} is usually shared by all the calls of an exchange client. It signs with pooled clones
+ * of a {@link javax.crypto.Mac}, which isn't thread-safe, so no two threads may get the same clone at once.
+ */
+@JCStressTest
+@Description("Two threads sign different request bodies with the same digest.")
+@Outcome(id = "true, true", expect = ACCEPTABLE, desc = "Each body got its own signature.")
+@Outcome(expect = FORBIDDEN, desc = "A Mac was used by both threads at once: a signature is wrong.")
+@State
+public class HmacPostBodyDigestStressTest {
+
+    @Path("api")
+    public interface Service {
+
+        @POST
+        @Path("order")
+        @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+        String order(@FormParam("amount") String amount);
+    }
+
+    private static final String SECRET = "c2VjcmV0LWtleS1mb3ItdGhlLXN0cmVzcy10ZXN0cw==";
+
+    private static final RestInvocation ORDER_1 = invocation("1.5");
+    private static final RestInvocation ORDER_2 = invocation("250");
+    private static final String SIGNATURE_1 = HmacPostBodyDigest.createInstance(SECRET).digestParams(ORDER_1);
+    private static final String SIGNATURE_2 = HmacPostBodyDigest.createInstance(SECRET).digestParams(ORDER_2);
+
+    private final HmacPostBodyDigest digest = HmacPostBodyDigest.createInstance(SECRET);
+
+    @Actor
+    public void sign1(ZZ_Result r) {
+        r.r1 = signs(ORDER_1, SIGNATURE_1);
+    }
+
+    @Actor
+    public void sign2(ZZ_Result r) {
+        r.r2 = signs(ORDER_2, SIGNATURE_2);
+    }
+
+    private boolean signs(RestInvocation invocation, String signature) {
+        try {
+            return signature.equals(digest.digestParams(invocation));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    static RestInvocation invocation(String amount) {
+        RequestWriterResolver writers = new RequestWriterResolver();
+        writers.addWriter(MediaType.APPLICATION_FORM_URLENCODED, new FormUrlEncodedRequestWriter());
+        try {
+            RestMethodMetadata metadata = RestMethodMetadata.create(Service.class.getMethod("order", String.class),
+                    "https://api.example.com", "api", null);
+            return RestInvocation.create(writers, metadata, new Object[] {amount}, null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package si.mazi.rescu.archive;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+import org.openjdk.jcstress.infra.results.I_Result;
+import org.openjdk.jcstress.infra.results.ZZ_Result;
+
+/**
+ * The queue between the threads making calls and the archiver's writer thread.
+ */
+public class MpscRingBufferStressTest {
+
+    @JCStressTest
+    @Description("Two producers offer into a buffer with room for both.")
+    @Outcome(id = {"1, 2", "2, 1"}, expect = ACCEPTABLE, desc = "Both elements are queued, in either order.")
+    @Outcome(expect = FORBIDDEN, desc = "An element was lost or queued twice.")
+    @State
+    public static class Producers {
+
+        private final MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(2);
+
+        @Actor
+        public void producer1() {
+            buffer.offer(1);
+        }
+
+        @Actor
+        public void producer2() {
+            buffer.offer(2);
+        }
+
+        @Arbiter
+        public void consumer(II_Result r) {
+            r.r1 = value(buffer.poll());
+            r.r2 = value(buffer.poll());
+        }
+    }
+
+    @JCStressTest
+    @Description("Two producers offer into a buffer with room for one.")
+    @Outcome(id = {"true, false", "false, true"}, expect = ACCEPTABLE, desc = "Exactly one element is queued.")
+    @Outcome(expect = FORBIDDEN, desc = "Both or neither were queued.")
+    @State
+    public static class Full {
+
+        private final MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(1);
+
+        @Actor
+        public void producer1(ZZ_Result r) {
+            r.r1 = buffer.offer(1);
+        }
+
+        @Actor
+        public void producer2(ZZ_Result r) {
+            r.r2 = buffer.offer(2);
+        }
+    }
+
+    @JCStressTest
+    @Description("The consumer polls while a producer offers an element whose field is set after construction.")
+    @Outcome(id = "-1", expect = ACCEPTABLE, desc = "The element isn't queued yet.")
+    @Outcome(id = "42", expect = ACCEPTABLE, desc = "The element is seen with its field.")
+    @Outcome(expect = FORBIDDEN, desc = "The element is seen before its field was published.")
+    @State
+    public static class Publication {
+
+        private final MpscRingBuffer<Message> buffer = new MpscRingBuffer<>(4);
+
+        @Actor
+        public void producer() {
+            Message message = new Message();
+            message.value = 42;
+            buffer.offer(message);
+        }
+
+        @Actor
+        public void consumer(I_Result r) {
+            Message message = buffer.poll();
+            r.r1 = message == null ? -1 : message.value;
+        }
+    }
+
+    static class Message {
+        int value;
+    }
+
+    private static int value(Integer element) {
+        return element == null ? -1 : element;
+    }
+}
@@ -0,0 +1,155 @@
+package si.mazi.rescu.metrics;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+import org.openjdk.jcstress.infra.results.JJJ_Result;
+import org.openjdk.jcstress.infra.results.JJ_Result;
+
+import si.mazi.rescu.RestMethodMetadata;
+
+/**
+ * The latency histograms and invocation metrics, which every call through a proxy records into.
+ */
+public class MetricsStressTest {
+
+    @Path("api")
+    public interface Service {
+
+        @GET
+        @Path("ticker")
+        String ticker();
+    }
+
+    private static final RestMethodMetadata TICKER;
+
+    static {
+        try {
+            TICKER = RestMethodMetadata.create(Service.class.getMethod("ticker"), "https://api.example.com", "api", null);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @JCStressTest
+    @Description("Two threads record into a histogram.")
+    @Outcome(id = "2, 10", expect = ACCEPTABLE, desc = "Both values are counted.")
+    @Outcome(expect = FORBIDDEN, desc = "A value was lost.")
+    @State
+    public static class HistogramRecords {
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        @Actor
+        public void actor1() {
+            histogram.record(10);
+        }
+
+        @Actor
+        public void actor2() {
+            histogram.record(1000);
+        }
+
+        @Arbiter
+        public void arbiter(JJ_Result r) {
+            HistogramSnapshot snapshot = histogram.snapshot();
+            r.r1 = snapshot.getCount();
+            r.r2 = snapshot.getMin();
+        }
+    }
+
+    @JCStressTest
+    @Description("An interval snapshot is taken while a value is recorded, then another one.")
+    @Outcome(id = {"0, 1", "1, 0"}, expect = ACCEPTABLE, desc = "The value is in exactly one interval.")
+    @Outcome(expect = FORBIDDEN, desc = "The value was lost or counted in both intervals.")
+    @State
+    public static class HistogramIntervals {
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        @Actor
+        public void recorder() {
+            histogram.record(10);
+        }
+
+        @Actor
+        public void reporter(JJ_Result r) {
+            r.r1 = histogram.intervalSnapshot().getCount();
+        }
+
+        @Arbiter
+        public void arbiter(JJ_Result r) {
+            r.r2 = histogram.intervalSnapshot().getCount();
+        }
+    }
+
+    @JCStressTest
+    @Description("Two proxies register the same method at once, as on their first calls.")
+    @Outcome(id = "1, 1", expect = ACCEPTABLE, desc = "They share one MethodMetrics, exported once.")
+    @Outcome(expect = FORBIDDEN, desc = "They got different metrics, or the metrics were exported twice.")
+    @State
+    public static class Registration {
+
+        private final AtomicInteger exported = new AtomicInteger();
+        private final InvocationMetrics metrics = new InvocationMetrics(m -> exported.incrementAndGet());
+        private MethodMetrics metrics1;
+        private MethodMetrics metrics2;
+
+        @Actor
+        public void proxy1() {
+            metrics1 = metrics.register(Service.class, TICKER);
+        }
+
+        @Actor
+        public void proxy2() {
+            metrics2 = metrics.register(Service.class, TICKER);
+        }
+
+        @Arbiter
+        public void arbiter(II_Result r) {
+            r.r1 = metrics1 == metrics2 ? 1 : 0;
+            r.r2 = exported.get();
+        }
+    }
+
+    @JCStressTest
+    @Description("Two calls of a method start and end at once.")
+    @Outcome(id = "2, 0, 1", expect = ACCEPTABLE, desc = "Both calls are counted, and neither is in flight.")
+    @Outcome(expect = FORBIDDEN, desc = "A call was lost.")
+    @State
+    public static class Counters {
+
+        private final MethodMetrics metrics = new MethodMetrics(Service.class.getName(), "ticker", "api.example.com");
+
+        @Actor
+        public void call1() {
+            metrics.started();
+            metrics.ended(1000, false);
+        }
+
+        @Actor
+        public void call2() {
+            metrics.started();
+            metrics.ended(1000, true);
+        }
+
+        @Arbiter
+        public void arbiter(JJJ_Result r) {
+            r.r1 = metrics.getRequests();
+            r.r2 = metrics.getInFlight();
+            r.r3 = metrics.getErrors();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package si.mazi.rescu.serialization.jackson.serializers;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE_INTERESTING;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.ZZ_Result;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * Jackson creates a deserializer once per property and mapper, and the mapper is shared by all the calls of a proxy.
+ * {@link SqlTimeDeserializer} parses with a {@link SimpleDateFormat}, which isn't thread-safe, so concurrent responses
+ * can get wrong times; this is reported as interesting rather than forbidden while it is so.
+ */
+@JCStressTest
+@Description("Two threads read different times through the same mapper.")
+@Outcome(id = "true, true", expect = ACCEPTABLE, desc = "Each time is read right.")
+@Outcome(expect = ACCEPTABLE_INTERESTING, desc = "The shared SimpleDateFormat was used by both threads at once.")
+@State
+public class SqlTimeDeserializerStressTest {
+
+    public static class Trade {
+
+        @JsonDeserialize(using = SqlTimeDeserializer.class)
+        public Date time;
+    }
+
+    private static final String TRADE_1 = "{\"time\":\"2015-03-01 12:30:45\"}";
+    private static final String TRADE_2 = "{\"time\":\"2019-11-28 03:05:09\"}";
+    private static final Date TIME_1 = parse("2015-03-01 12:30:45");
+    private static final Date TIME_2 = parse("2019-11-28 03:05:09");
+
+    /** Shared by all the runs, as a proxy's mapper is, and warmed up so that the deserializer is created once. */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static {
+        read(TRADE_1, TIME_1);
+    }
+
+    @Actor
+    public void read1(ZZ_Result r) {
+        r.r1 = read(TRADE_1, TIME_1);
+    }
+
+    @Actor
+    public void read2(ZZ_Result r) {
+        r.r2 = read(TRADE_2, TIME_2);
+    }
+
+    private static boolean read(String json, Date expected) {
+        try {
+            return expected.equals(MAPPER.readValue(json, Trade.class).time);
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static Date parse(String time) {
+        try {
+            return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(time);
+        } catch (ParseException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
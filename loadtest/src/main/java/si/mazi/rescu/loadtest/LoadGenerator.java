@@ -0,0 +1,93 @@
+package si.mazi.rescu.loadtest;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import si.mazi.rescu.metrics.LatencyHistogram;
+
+/**
+ * Makes calls at a fixed rate, the way independent clients would: each call is due at its own time, whether or not the
+ * earlier calls have ended, and its response time is measured from when it was due rather than from when a thread got
+ * around to making it. So a stall that holds up the calls behind it shows in their response times too, instead of
+ * being hidden by the generator slowing down (the "coordinated omission" of closed-loop load generators). The time
+ * from a call actually starting to it ending is recorded separately as its service time.
+ */
+public class LoadGenerator {
+
+    /**
+     * Runs the calls and waits for the last of them to end.
+     *
+     * @param call the call to make; it fails if it throws
+     */
+    public LoadResult run(Callable<?> call, LoadOptions options) throws InterruptedException {
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(options.getThreads(), options.getThreads(), 0,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "LoadGenerator");
+                    t.setDaemon(true);
+                    return t;
+                });
+        workers.prestartAllCoreThreads();
+
+        LatencyHistogram responseTimes = new LatencyHistogram();
+        LatencyHistogram serviceTimes = new LatencyHistogram();
+        LongAdder calls = new LongAdder();
+        LongAdder failures = new LongAdder();
+        AtomicLong lastEnd = new AtomicLong();
+
+        int rate = options.getRequestsPerSecond();
+        long start = System.nanoTime();
+        long measuredFrom = start + TimeUnit.MILLISECONDS.toNanos(options.getWarmupMillis());
+        long end = measuredFrom + TimeUnit.MILLISECONDS.toNanos(options.getDurationMillis());
+        long maxBacklog = 0;
+        for (long i = 0; ; i++) {
+            long due = start + i * 1_000_000_000L / rate;
+            if (due >= end) {
+                break;
+            }
+            waitUntil(due);
+            boolean measured = due >= measuredFrom;
+            if (measured) {
+                maxBacklog = Math.max(maxBacklog, workers.getQueue().size());
+            }
+            workers.execute(() -> {
+                long began = System.nanoTime();
+                boolean failed = false;
+                try {
+                    call.call();
+                } catch (Throwable e) {
+                    failed = true;
+                }
+                long ended = System.nanoTime();
+                if (measured) {
+                    responseTimes.record(ended - due);
+                    serviceTimes.record(ended - began);
+                    calls.increment();
+                    if (failed) {
+                        failures.increment();
+                    }
+                    lastEnd.accumulateAndGet(ended, Math::max);
+                }
+            });
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+            workers.shutdownNow();
+            throw new IllegalStateException("The calls didn't end within a minute of the last one being due");
+        }
+        long measuredNanos = Math.max(end, lastEnd.get()) - measuredFrom;
+        return new LoadResult(rate, calls.sum(), failures.sum(), measuredNanos, maxBacklog,
+                responseTimes.snapshot(), serviceTimes.snapshot());
+    }
+
+    private static void waitUntil(long due) {
+        // A call that is already late is made at once; its lateness counts in its response time.
+        for (long left; (left = due - System.nanoTime()) > 0; ) {
+            LockSupport.parkNanos(left);
+        }
+    }
+}
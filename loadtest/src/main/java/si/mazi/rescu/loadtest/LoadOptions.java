@@ -0,0 +1,64 @@
+package si.mazi.rescu.loadtest;
+
+/**
+ * Settings of a {@link LoadGenerator} run.
+ */
+public class LoadOptions {
+
+    private int requestsPerSecond = 1000;
+    private long warmupMillis = 2000;
+    private long durationMillis = 10_000;
+    private int threads = 256;
+
+    public int getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * Sets the rate at which requests are started, whether or not the earlier ones have ended; default 1000.
+     */
+    public LoadOptions setRequestsPerSecond(int requestsPerSecond) {
+        if (requestsPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + requestsPerSecond);
+        }
+        this.requestsPerSecond = requestsPerSecond;
+        return this;
+    }
+
+    public long getWarmupMillis() {
+        return warmupMillis;
+    }
+
+    /**
+     * Sets how long requests are made at the rate before they are measured; default 2 seconds.
+     */
+    public LoadOptions setWarmupMillis(long warmupMillis) {
+        this.warmupMillis = warmupMillis;
+        return this;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Sets how long requests are made and measured after the warmup; default 10 seconds.
+     */
+    public LoadOptions setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+        return this;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets how many calls may be in flight at once; default 256. Requests that are due while all the threads are
+     * busy wait in a queue, and the wait counts in their response time.
+     */
+    public LoadOptions setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+}
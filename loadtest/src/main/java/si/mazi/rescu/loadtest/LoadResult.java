@@ -0,0 +1,104 @@
+package si.mazi.rescu.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import si.mazi.rescu.metrics.HistogramSnapshot;
+
+/**
+ * The outcome of a {@link LoadGenerator} run, counting only the calls that were due after the warmup.
+ */
+public class LoadResult {
+
+    private final int requestsPerSecond;
+    private final long calls;
+    private final long failures;
+    private final long measuredNanos;
+    private final long maxBacklog;
+    private final HistogramSnapshot responseTimes;
+    private final HistogramSnapshot serviceTimes;
+
+    LoadResult(int requestsPerSecond, long calls, long failures, long measuredNanos, long maxBacklog,
+            HistogramSnapshot responseTimes, HistogramSnapshot serviceTimes) {
+        this.requestsPerSecond = requestsPerSecond;
+        this.calls = calls;
+        this.failures = failures;
+        this.measuredNanos = measuredNanos;
+        this.maxBacklog = maxBacklog;
+        this.responseTimes = responseTimes;
+        this.serviceTimes = serviceTimes;
+    }
+
+    public int getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return the calls that ended per second, from the end of the warmup to the last call ending
+     */
+    public double getThroughput() {
+        return measuredNanos == 0 ? 0 : calls * 1e9 / measuredNanos;
+    }
+
+    /**
+     * @return the most calls that were waiting for a thread when a call was due; if it is large, the client couldn't
+     * keep up with the rate
+     */
+    public long getMaxBacklog() {
+        return maxBacklog;
+    }
+
+    /**
+     * @return the times from the calls being due to them ending, in nanoseconds
+     */
+    public HistogramSnapshot getResponseTimes() {
+        return responseTimes;
+    }
+
+    /**
+     * @return the times from the calls starting to them ending, in nanoseconds
+     */
+    public HistogramSnapshot getServiceTimes() {
+        return serviceTimes;
+    }
+
+    /**
+     * @return the result as a map of plain values, for writing as JSON; the times are in microseconds
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("requestsPerSecond", requestsPerSecond);
+        map.put("calls", calls);
+        map.put("failures", failures);
+        map.put("throughput", getThroughput());
+        map.put("maxBacklog", maxBacklog);
+        map.put("responseTimeMicros", percentiles(responseTimes));
+        map.put("serviceTimeMicros", percentiles(serviceTimes));
+        return map;
+    }
+
+    private static Map<String, Object> percentiles(HistogramSnapshot snapshot) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("mean", snapshot.getMean() / 1000);
+        map.put("p50", snapshot.getValueAtPercentile(50) / 1000.0);
+        map.put("p90", snapshot.getValueAtPercentile(90) / 1000.0);
+        map.put("p99", snapshot.getValueAtPercentile(99) / 1000.0);
+        map.put("p99.9", snapshot.getValueAtPercentile(99.9) / 1000.0);
+        map.put("max", snapshot.getMax() / 1000.0);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rate=%d/s calls=%d failures=%d throughput=%.1f/s maxBacklog=%d%n  response time: %s%n  service time:  %s",
+                requestsPerSecond, calls, failures, getThroughput(), maxBacklog, responseTimes, serviceTimes);
+    }
+}
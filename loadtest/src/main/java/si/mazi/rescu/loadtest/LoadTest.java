@@ -0,0 +1,193 @@
+package si.mazi.rescu.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import si.mazi.rescu.ClientConfig;
+import si.mazi.rescu.HttpConnectionFactory;
+import si.mazi.rescu.InvocationExecutors;
+import si.mazi.rescu.RestProxyFactory;
+import si.mazi.rescu.faults.Fault;
+import si.mazi.rescu.faults.FaultInjectingConnectionFactory;
+import si.mazi.rescu.faults.FaultRule;
+
+/**
+ * Drives a {@link StandInService} proxy at a fixed rate against a {@link StandInServer}, writes the result as JSON and
+ * compares its p99 response time with a stored baseline. The settings are system properties:
+ * <ul>
+ * <li>{@code loadtest.rate} (requests per second, default 1000), {@code loadtest.warmupMillis} (2000),
+ * {@code loadtest.durationMillis} (10000) and {@code loadtest.threads} (256), see {@link LoadOptions};</li>
+ * <li>{@code loadtest.latencyMicros} (1000), {@code loadtest.jitterMicros} (0), {@code loadtest.payloadBytes} (512),
+ * {@code loadtest.errorRate} (0) and {@code loadtest.seed} (42), see {@link StandInOptions};</li>
+ * <li>{@code loadtest.delayProbability} and {@code loadtest.delayMillis}, {@code loadtest.resetProbability},
+ * {@code loadtest.tooManyRequestsProbability} and {@code loadtest.tooManyRequestsBurst}, the faults injected into the
+ * connections with a {@link FaultInjectingConnectionFactory} seeded with {@code loadtest.seed} (none by default);</li>
+ * <li>{@code loadtest.result}, where the result is written (default {@code target/loadtest-result.json});</li>
+ * <li>{@code loadtest.baseline}, the baseline (default {@code loadtest-baseline.json}), and
+ * {@code loadtest.updateBaseline}, whether to store the result as the baseline rather than compare it (false);</li>
+ * <li>{@code loadtest.maxP99Regression}, how much higher than the baseline's the p99 may be, eg. 0.25 for 25% (the
+ * default).</li>
+ * </ul>
+ * The run fails if the p99 regressed by more, if the baseline was measured with other settings, or if there is no
+ * baseline: it is of the machine it was measured on, so it isn't kept in the repository and the first run on a machine
+ * has to store it.
+ */
+public final class LoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions load = new LoadOptions()
+                .setRequestsPerSecond(Integer.getInteger("loadtest.rate", 1000))
+                .setWarmupMillis(Long.getLong("loadtest.warmupMillis", 2000))
+                .setDurationMillis(Long.getLong("loadtest.durationMillis", 10_000))
+                .setThreads(Integer.getInteger("loadtest.threads", 256));
+        StandInOptions server = new StandInOptions()
+                .setLatencyMicros(Long.getLong("loadtest.latencyMicros", 1000))
+                .setJitterMicros(Long.getLong("loadtest.jitterMicros", 0))
+                .setPayloadBytes(Integer.getInteger("loadtest.payloadBytes", 512))
+                .setErrorRate(Double.parseDouble(System.getProperty("loadtest.errorRate", "0")))
+                .setSeed(Long.getLong("loadtest.seed", 42));
+        FaultInjectingConnectionFactory faults = faults(server.getSeed());
+        File resultFile = new File(System.getProperty("loadtest.result", "target/loadtest-result.json"));
+        File baselineFile = new File(System.getProperty("loadtest.baseline", "loadtest-baseline.json"));
+        double maxRegression = Double.parseDouble(System.getProperty("loadtest.maxP99Regression", "0.25"));
+
+        // Keep a connection per thread alive, rather than the default five.
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(load.getThreads()));
+        }
+
+        LoadResult result = run(load, server, faults);
+        log.info("Load test result:\n{}", result);
+
+        Map<String, Object> output = new LinkedHashMap<>();
+        output.put("settings", settings(load, server, faults));
+        output.put("result", result.toMap());
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        write(mapper, resultFile, output);
+
+        if (Boolean.getBoolean("loadtest.updateBaseline")) {
+            write(mapper, baselineFile, output);
+            log.info("Stored the result as the baseline in {}", baselineFile);
+            return;
+        }
+        if (!baselineFile.exists()) {
+            throw new IllegalStateException("There is no baseline in " + baselineFile
+                    + "; run with -Dloadtest.updateBaseline=true to store this result as the baseline");
+        }
+        Map<?, ?> baseline = mapper.readValue(baselineFile, Map.class);
+        // Compared as they were read back, so that eg. a long that fits an int matches.
+        if (!mapper.readValue(mapper.writeValueAsBytes(settings(load, server, faults)), Map.class).equals(baseline.get("settings"))) {
+            throw new IllegalStateException("The baseline in " + baselineFile + " was measured with other settings: "
+                    + baseline.get("settings") + "; run with -Dloadtest.updateBaseline=true to replace it");
+        }
+        double baselineP99 = ((Number) ((Map<?, ?>) ((Map<?, ?>) baseline.get("result")).get("responseTimeMicros"))
+                .get("p99")).doubleValue();
+        String regression = checkP99(baselineP99, result.getResponseTimes().getValueAtPercentile(99) / 1000.0,
+                maxRegression);
+        if (regression != null) {
+            throw new IllegalStateException(regression);
+        }
+        log.info("The p99 response time is within {}% of the baseline's", Math.round(maxRegression * 100));
+    }
+
+    /**
+     * Runs a stand-in server and drives a proxy calling it.
+     */
+    public static LoadResult run(LoadOptions load, StandInOptions server) throws IOException, InterruptedException {
+        return run(load, server, null);
+    }
+
+    /**
+     * Runs a stand-in server and drives a proxy calling it through the connection factory, eg. one injecting faults.
+     *
+     * @param connectionFactory the factory, or null for the default one
+     */
+    public static LoadResult run(LoadOptions load, StandInOptions server, HttpConnectionFactory connectionFactory)
+            throws IOException, InterruptedException {
+        try (StandInServer standIn = new StandInServer(server)) {
+            ClientConfig config = new ClientConfig();
+            config.setInvocationExecutor(InvocationExecutors.callerThread());
+            config.setHttpConnectionFactory(connectionFactory);
+            StandInService service = RestProxyFactory.createProxy(StandInService.class, standIn.getBaseUrl(), config,
+                    null, null, null, null);
+            return new LoadGenerator().run(() -> service.getTrades("btc_usd", 100), load);
+        }
+    }
+
+    /**
+     * @return why the p99 regressed, or null if it is within the allowed regression of the baseline's
+     */
+    static String checkP99(double baselineP99Micros, double p99Micros, double maxRegression) {
+        double limit = baselineP99Micros * (1 + maxRegression);
+        if (p99Micros <= limit) {
+            return null;
+        }
+        return String.format("The p99 response time regressed from %.1f us to %.1f us, more than the allowed %.0f%%",
+                baselineP99Micros, p99Micros, maxRegression * 100);
+    }
+
+    /**
+     * @return the factory injecting the faults set with system properties, or null if none are
+     */
+    private static FaultInjectingConnectionFactory faults(long seed) {
+        FaultInjectingConnectionFactory faults = new FaultInjectingConnectionFactory(seed);
+        double delay = Double.parseDouble(System.getProperty("loadtest.delayProbability", "0"));
+        if (delay > 0) {
+            faults.addRule(new FaultRule(Fault.delay(Long.getLong("loadtest.delayMillis", 100)))
+                    .setProbability(delay));
+        }
+        double reset = Double.parseDouble(System.getProperty("loadtest.resetProbability", "0"));
+        if (reset > 0) {
+            faults.addRule(new FaultRule(Fault.reset()).setProbability(reset));
+        }
+        double tooManyRequests = Double.parseDouble(System.getProperty("loadtest.tooManyRequestsProbability", "0"));
+        if (tooManyRequests > 0) {
+            faults.addRule(new FaultRule(Fault.tooManyRequests(1)).setProbability(tooManyRequests)
+                    .setBurst(Integer.getInteger("loadtest.tooManyRequestsBurst", 1)));
+        }
+        return faults.getRules().isEmpty() ? null : faults;
+    }
+
+    private static Map<String, Object> settings(LoadOptions load, StandInOptions server,
+            FaultInjectingConnectionFactory faults) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("rate", load.getRequestsPerSecond());
+        settings.put("durationMillis", load.getDurationMillis());
+        settings.put("threads", load.getThreads());
+        settings.put("latencyMicros", server.getLatencyMicros());
+        settings.put("jitterMicros", server.getJitterMicros());
+        settings.put("payloadBytes", server.getPayloadBytes());
+        settings.put("errorRate", server.getErrorRate());
+        if (faults != null) {
+            List<String> rules = new ArrayList<>();
+            for (FaultRule rule : faults.getRules()) {
+                rules.add(rule.toString());
+            }
+            settings.put("faults", rules);
+        }
+        return settings;
+    }
+
+    private static void write(ObjectMapper mapper, File file, Object value) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Failed to create " + dir);
+        }
+        mapper.writeValue(file, value);
+    }
+}
@@ -0,0 +1,90 @@
+package si.mazi.rescu.loadtest;
+
+/**
+ * Settings of a {@link StandInServer}.
+ */
+public class StandInOptions {
+
+    private long latencyMicros = 1000;
+    private long jitterMicros = 0;
+    private int payloadBytes = 512;
+    private double errorRate = 0;
+    private int errorStatus = 503;
+    private long seed = 42;
+
+    public long getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    /**
+     * Sets how long the server takes to answer each request; default 1 ms. The wait doesn't hold a server thread.
+     */
+    public StandInOptions setLatencyMicros(long latencyMicros) {
+        this.latencyMicros = latencyMicros;
+        return this;
+    }
+
+    public long getJitterMicros() {
+        return jitterMicros;
+    }
+
+    /**
+     * Sets the most that is randomly added to the latency of a request; default 0.
+     */
+    public StandInOptions setJitterMicros(long jitterMicros) {
+        this.jitterMicros = jitterMicros;
+        return this;
+    }
+
+    public int getPayloadBytes() {
+        return payloadBytes;
+    }
+
+    /**
+     * Sets the approximate size of the JSON array of trades that the server answers with; default 512 bytes.
+     */
+    public StandInOptions setPayloadBytes(int payloadBytes) {
+        this.payloadBytes = payloadBytes;
+        return this;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * Sets the share of the requests, from 0 to 1, that are answered with the {@link #setErrorStatus error status};
+     * default 0.
+     */
+    public StandInOptions setErrorRate(double errorRate) {
+        if (!(errorRate >= 0 && errorRate <= 1)) {
+            throw new IllegalArgumentException("Error rate must be from 0 to 1: " + errorRate);
+        }
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    public int getErrorStatus() {
+        return errorStatus;
+    }
+
+    /**
+     * Sets the HTTP status of the injected errors; default 503.
+     */
+    public StandInOptions setErrorStatus(int errorStatus) {
+        this.errorStatus = errorStatus;
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the seed of the jitter and of choosing the errors, so that runs are repeatable; default 42.
+     */
+    public StandInOptions setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+}
@@ -0,0 +1,111 @@
+package si.mazi.rescu.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process HTTP server on the loopback interface standing in for an exchange's API: it answers every request with
+ * a JSON array of trades after the configured latency, or with an error status at the configured rate. The latency
+ * doesn't hold any server thread, so the server keeps up with many thousands of requests per second.
+ */
+public class StandInServer implements AutoCloseable {
+
+    private static final byte[] ERROR_BODY = "{\"error\":\"Injected by the stand-in server\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final StandInOptions options;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ScheduledExecutorService responder;
+    private final byte[] payload;
+    // Guarded by itself.
+    private final Random random;
+
+    public StandInServer(StandInOptions options) throws IOException {
+        this.options = options;
+        this.payload = createPayload(options.getPayloadBytes());
+        this.random = new Random(options.getSeed());
+        this.responder = Executors.newScheduledThreadPool(2, daemon("StandInResponder"));
+        this.handlers = Executors.newFixedThreadPool(4, daemon("StandInServer"));
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16384);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(handlers);
+        this.server.start();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    static byte[] createPayload(int bytes) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; json.length() < bytes - 1 || i == 0; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"id\":").append(1_000_000 + i)
+                    .append(",\"price\":\"").append(64_000 + i % 100).append(".25\",\"amount\":\"0.0125\"}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] discard = new byte[4096];
+            while (in.read(discard) >= 0) {
+                // drain the request body so the connection may be reused
+            }
+        }
+        long delayMicros;
+        boolean error;
+        synchronized (random) {
+            delayMicros = options.getLatencyMicros()
+                    + (options.getJitterMicros() > 0 ? (long) (random.nextDouble() * options.getJitterMicros()) : 0);
+            error = options.getErrorRate() > 0 && random.nextDouble() < options.getErrorRate();
+        }
+        int status = error ? options.getErrorStatus() : 200;
+        byte[] body = error ? ERROR_BODY : payload;
+        if (delayMicros > 0) {
+            responder.schedule(() -> respond(exchange, status, body), delayMicros, TimeUnit.MICROSECONDS);
+        } else {
+            respond(exchange, status, body);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        responder.shutdownNow();
+        handlers.shutdownNow();
+    }
+}
@@ -0,0 +1,27 @@
+package si.mazi.rescu.loadtest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import si.mazi.rescu.RestInterface;
+
+/**
+ * The rest interface that the load test calls the {@link StandInServer} with.
+ */
+@Path("api")
+@Produces(MediaType.APPLICATION_JSON)
+public interface StandInService extends RestInterface {
+
+    @GET
+    @Path("{pair}/trades")
+    List<Map<String, Object>> getTrades(@PathParam("pair") String pair, @QueryParam("limit") Integer limit)
+            throws IOException;
+}
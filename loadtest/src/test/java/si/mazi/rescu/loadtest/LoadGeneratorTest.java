@@ -0,0 +1,74 @@
+package si.mazi.rescu.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import si.mazi.rescu.faults.Fault;
+import si.mazi.rescu.faults.FaultInjectingConnectionFactory;
+import si.mazi.rescu.faults.FaultRule;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void testMeasuresFromWhenCallsAreDue() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        // One thread at 200 calls per second; the 50th call stalls for 200 ms, holding up the ~40 calls due meanwhile.
+        LoadResult result = new LoadGenerator().run(() -> {
+            if (calls.incrementAndGet() == 50) {
+                Thread.sleep(200);
+            }
+            return null;
+        }, new LoadOptions().setRequestsPerSecond(200).setWarmupMillis(0).setDurationMillis(1000).setThreads(1));
+
+        assertThat(result.getCalls()).isEqualTo(200);
+        assertThat(result.getFailures()).isEqualTo(0);
+        // A closed-loop generator would only see the one slow call, below the 99th percentile.
+        assertThat(result.getServiceTimes().getValueAtPercentile(90)).isLessThan(20_000_000L);
+        assertThat(result.getResponseTimes().getValueAtPercentile(90)).isGreaterThan(20_000_000L);
+        assertThat(result.getResponseTimes().getMax()).isGreaterThanOrEqualTo(190_000_000L);
+        assertThat(result.getMaxBacklog()).isGreaterThan(10);
+    }
+
+    @Test
+    public void testDrivesTheStandInServer() throws Exception {
+        LoadResult result = LoadTest.run(
+                new LoadOptions().setRequestsPerSecond(100).setWarmupMillis(500).setDurationMillis(1000).setThreads(16),
+                new StandInOptions().setLatencyMicros(2000).setErrorRate(0.1).setSeed(7));
+
+        assertThat(result.getCalls()).isEqualTo(100);
+        assertThat(result.getFailures()).isBetween(2L, 25L);
+        assertThat(result.getThroughput()).isBetween(50.0, 110.0);
+        assertThat(result.getServiceTimes().getValueAtPercentile(50)).isGreaterThanOrEqualTo(2_000_000L);
+        assertThat(result.toMap()).containsKeys("throughput", "responseTimeMicros", "serviceTimeMicros");
+    }
+
+    @Test
+    public void testInjectsFaults() throws Exception {
+        FaultInjectingConnectionFactory faults = new FaultInjectingConnectionFactory(3)
+                .addRule(new FaultRule(Fault.delay(50)).setProbability(0.05))
+                .addRule(new FaultRule(Fault.reset()).setProbability(0.1));
+        LoadResult result = LoadTest.run(
+                new LoadOptions().setRequestsPerSecond(100).setWarmupMillis(0).setDurationMillis(1000).setThreads(16),
+                new StandInOptions().setLatencyMicros(1000), faults);
+
+        assertThat(result.getFailures()).isEqualTo(faults.getRules().get(1).getInjectedCount());
+        assertThat(result.getFailures()).isGreaterThan(0);
+        assertThat(result.getServiceTimes().getMax()).isGreaterThanOrEqualTo(50_000_000L);
+    }
+
+    @Test
+    public void testChecksP99Regression() {
+        assertThat(LoadTest.checkP99(1000, 1200, 0.25)).isNull();
+        assertThat(LoadTest.checkP99(1000, 800, 0.25)).isNull();
+        assertThat(LoadTest.checkP99(1000, 1300, 0.25)).contains("regressed from 1000.0 us to 1300.0 us");
+    }
+
+    @Test
+    public void testCreatesPayloadsOfTheGivenSize() {
+        assertThat(StandInServer.createPayload(10).length).isLessThan(100);
+        assertThat(StandInServer.createPayload(10_000).length).isBetween(10_000, 10_100);
+    }
+}
@@ -0,0 +1,57 @@
+package si.mazi.rescu.nativesample;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpServer;
+
+import si.mazi.rescu.ClientConfig;
+import si.mazi.rescu.InvocationExecutors;
+import si.mazi.rescu.RestProxyFactory;
+
+/**
+ * Calls {@link TickerService} through a rescu client against a server on the loopback interface. Exits with
+ * status 1 if the response isn't what the server sent, so that running the native executable is a test of
+ * the generated native-image config.
+ */
+public class NativeSample {
+
+    static final String TICKER_JSON = "{\"pair\":\"BTC-USD\",\"last\":\"64123.45\",\"side\":\"sell\"}";
+
+    public static void main(String[] args) throws IOException {
+        Ticker ticker = run();
+        if (!"BTC-USD".equals(ticker.getPair())
+                || new BigDecimal("64123.45").compareTo(ticker.getLast()) != 0
+                || ticker.getSide() != Ticker.Side.sell) {
+            System.err.println("Unexpected ticker: " + ticker.getPair() + " " + ticker.getLast() + " " + ticker.getSide());
+            System.exit(1);
+        }
+        System.out.println("OK: " + ticker.getPair() + " " + ticker.getLast() + " " + ticker.getSide());
+    }
+
+    static Ticker run() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/ticker/BTC-USD", exchange -> {
+            byte[] body = TICKER_JSON.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            ClientConfig config = new ClientConfig();
+            config.setInvocationExecutor(InvocationExecutors.callerThread());
+            String baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+            TickerService service = RestProxyFactory.createProxy(TickerService.class, baseUrl, config, null, null, null, null);
+            return service.getTicker("BTC-USD");
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package si.mazi.rescu.nativesample;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class Ticker {
+
+    private final String pair;
+    private final BigDecimal last;
+    private final Side side;
+
+    @JsonCreator
+    public Ticker(@JsonProperty("pair") String pair, @JsonProperty("last") BigDecimal last, @JsonProperty("side") Side side) {
+        this.pair = pair;
+        this.last = last;
+        this.side = side;
+    }
+
+    public String getPair() {
+        return pair;
+    }
+
+    public BigDecimal getLast() {
+        return last;
+    }
+
+    public Side getSide() {
+        return side;
+    }
+
+    public enum Side {
+        buy, sell
+    }
+}
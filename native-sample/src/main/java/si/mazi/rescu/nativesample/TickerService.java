@@ -0,0 +1,20 @@
+package si.mazi.rescu.nativesample;
+
+import java.io.IOException;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import si.mazi.rescu.RestInterface;
+
+@Path("api")
+@Produces(MediaType.APPLICATION_JSON)
+public interface TickerService extends RestInterface {
+
+    @GET
+    @Path("ticker/{pair}")
+    Ticker getTicker(@PathParam("pair") String pair) throws IOException;
+}
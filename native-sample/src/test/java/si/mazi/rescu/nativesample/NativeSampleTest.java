@@ -0,0 +1,50 @@
+package si.mazi.rescu.nativesample;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Scanner;
+
+import org.testng.annotations.Test;
+
+import si.mazi.rescu.RestProxyFactory;
+
+public class NativeSampleTest {
+
+    @Test
+    public void testCallOnJvm() throws Exception {
+        Ticker ticker = NativeSample.run();
+
+        assertThat(ticker.getPair()).isEqualTo("BTC-USD");
+        assertThat(ticker.getLast()).isEqualByComparingTo(new BigDecimal("64123.45"));
+        assertThat(ticker.getSide()).isEqualTo(Ticker.Side.sell);
+    }
+
+    @Test
+    public void testGeneratedClientIsUsed() throws Exception {
+        assertThat(RestProxyFactory.createProxy(TickerService.class, "http://localhost").getClass().getName())
+                .isEqualTo(TickerService.class.getName() + "$$RescuClient");
+    }
+
+    @Test
+    public void testNativeImageConfigIsGenerated() throws Exception {
+        assertThat(readResource("/META-INF/native-image/rescu-generated/reflect-config.json"))
+                .contains("\"name\": \"si.mazi.rescu.nativesample.TickerService\"")
+                .contains("\"name\": \"si.mazi.rescu.nativesample.TickerService$$RescuClient\"")
+                .contains("\"name\": \"si.mazi.rescu.nativesample.Ticker\"")
+                .contains("\"name\": \"si.mazi.rescu.nativesample.Ticker$Side\"");
+        assertThat(readResource("/META-INF/native-image/rescu-generated/proxy-config.json"))
+                .contains("si.mazi.rescu.nativesample.TickerService");
+        assertThat(readResource("/META-INF/native-image/com.github.mmazi/rescu/reflect-config.json"))
+                .contains("si.mazi.rescu.HttpStatusExceptionSupport");
+    }
+
+    private static String readResource(String name) {
+        InputStream in = NativeSampleTest.class.getResourceAsStream(name);
+        assertThat(in).as(name).isNotNull();
+        try (Scanner scanner = new Scanner(in, "UTF-8").useDelimiter("\\A")) {
+            return scanner.hasNext() ? scanner.next() : "";
+        }
+    }
+}
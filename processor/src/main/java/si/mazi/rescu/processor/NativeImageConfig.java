@@ -0,0 +1,361 @@
+package si.mazi.rescu.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Elements;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Collects what GraalVM native-image needs to know about the rest interfaces of one compilation and writes it as
+ * {@code reflect-config.json} and {@code proxy-config.json}. Registered are:
+ * <ul>
+ *     <li>the rest interfaces themselves, whose methods and annotations rescu reads in runtime;</li>
+ *     <li>the generated clients and metadata factories, which rescu looks up by name;</li>
+ *     <li>the DTO graph: return types, request body parameter types and declared exception types, and
+ *     transitively the types of their fields, constructor parameters, getters and setters, supertypes and the
+ *     classes referenced from Jackson annotations (eg. {@code @JsonDeserialize(using = ...)}).</li>
+ * </ul>
+ * A proxy config is written for every rest interface so that the dynamic proxy fallback works as well.
+ *
+ * Types from the JDK and Jackson are never registered; they are either built into the image or configured
+ * by their own libraries. As the config is written once per compilation, incremental compilation of only
+ * some of the rest interfaces will produce an incomplete config; do a full build before building the image.
+ */
+class NativeImageConfig {
+
+    private static final String[] SKIPPED_PACKAGES = {"java.", "javax.", "jdk.", "sun.", "com.fasterxml.jackson."};
+
+    private final ProcessingEnvironment env;
+
+    /** Binary class names of the rest interfaces, for the proxy config. */
+    private final Set<String> proxyInterfaces = new TreeSet<>();
+    private final Map<String, Entry> reflected = new TreeMap<>();
+    private final Set<String> visited = new HashSet<>();
+
+    NativeImageConfig(ProcessingEnvironment env) {
+        this.env = env;
+    }
+
+    boolean isEmpty() {
+        return proxyInterfaces.isEmpty();
+    }
+
+    void addRestInterface(TypeElement type, List<RestMethodModel> methods, boolean clientGenerated) {
+        Elements elements = env.getElementUtils();
+        String name = binaryName(type);
+        proxyInterfaces.add(name);
+        entry(name).allDeclaredMethods().allPublicMethods();
+        visited.add(name);
+        for (TypeMirror superInterface : type.getInterfaces()) {
+            addInterfaceHierarchy(superInterface);
+        }
+
+        if (clientGenerated) {
+            String client = elements.getPackageOf(type).getQualifiedName().toString();
+            client = (client.isEmpty() ? "" : client + ".") + RestInterfaceProcessor.getClientSimpleName(elements, type);
+            entry(client).constructor("java.lang.reflect.InvocationHandler");
+            entry(client + "$MetadataFactory").constructor();
+        }
+
+        for (RestMethodModel m : methods) {
+            visit(m.returnType);
+            for (TypeMirror thrown : m.thrownTypes) {
+                visit(thrown);
+            }
+            List<? extends VariableElement> params = m.method.getParameters();
+            for (int i = 0; i < params.size(); i++) {
+                if (!hasJaxRsAnnotation(params.get(i))) {
+                    // Unannotated parameters are written as the request body.
+                    visit(m.paramTypes.get(i));
+                }
+            }
+        }
+    }
+
+    /** Rescu reads annotations from superinterfaces too, eg. {@code @Produces}. */
+    private void addInterfaceHierarchy(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        String name = binaryName(element);
+        if (isSkipped(name) || name.equals(RestInterfaceProcessor.REST_INTERFACE) || !visited.add(name)) {
+            return;
+        }
+        entry(name).allDeclaredMethods().allPublicMethods();
+        for (TypeMirror superInterface : element.getInterfaces()) {
+            addInterfaceHierarchy(superInterface);
+        }
+    }
+
+    private void visit(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                visit(((ArrayType) type).getComponentType());
+                return;
+            case WILDCARD:
+                WildcardType wildcard = (WildcardType) type;
+                if (wildcard.getExtendsBound() != null) {
+                    visit(wildcard.getExtendsBound());
+                }
+                return;
+            case DECLARED:
+                break;
+            default:
+                return;
+        }
+        DeclaredType declared = (DeclaredType) type;
+        for (TypeMirror typeArgument : declared.getTypeArguments()) {
+            visit(typeArgument);
+        }
+        TypeElement element = (TypeElement) declared.asElement();
+        String name = binaryName(element);
+        if (isSkipped(name) || !visited.add(name)) {
+            return;
+        }
+        entry(name).allDeclaredConstructors().allPublicConstructors()
+                .allDeclaredFields().allDeclaredMethods().allPublicMethods();
+
+        visit(element.getSuperclass());
+        for (TypeMirror superInterface : element.getInterfaces()) {
+            visit(superInterface);
+        }
+        visitJacksonAnnotations(element);
+        for (Element member : element.getEnclosedElements()) {
+            if (member.getModifiers().contains(Modifier.STATIC)
+                    && !(member.getKind() == ElementKind.METHOD && hasJacksonAnnotation(member))) {
+                // Only static @JsonCreator factories are of interest. Nested types are visited where they're used
+                // as property types or referenced from annotations, eg. builders with @JsonDeserialize(builder = ...).
+                continue;
+            }
+            switch (member.getKind()) {
+                case FIELD:
+                    visitJacksonAnnotations(member);
+                    visit(member.asType());
+                    break;
+                case CONSTRUCTOR:
+                case METHOD:
+                    ExecutableElement executable = (ExecutableElement) member;
+                    if (!isProperty(executable)) {
+                        break;
+                    }
+                    visitJacksonAnnotations(executable);
+                    visit(executable.getReturnType());
+                    for (VariableElement param : executable.getParameters()) {
+                        visitJacksonAnnotations(param);
+                        visit(param.asType());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @return true for the constructors and methods that Jackson may use to create or (de)serialize instances.
+     */
+    private static boolean isProperty(ExecutableElement executable) {
+        if (executable.getModifiers().contains(Modifier.PRIVATE) && !hasJacksonAnnotation(executable)) {
+            return false;
+        }
+        if (executable.getKind() == ElementKind.CONSTRUCTOR || hasJacksonAnnotation(executable)) {
+            return true;
+        }
+        String name = executable.getSimpleName().toString();
+        int params = executable.getParameters().size();
+        return (params == 0 && (name.startsWith("get") || name.startsWith("is")))
+                || (params == 1 && name.startsWith("set"));
+    }
+
+    private void visitJacksonAnnotations(Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (isJackson(annotation)) {
+                visitClassValues(annotation);
+            }
+        }
+    }
+
+    /**
+     * Visits the classes referenced from an annotation, including those in arrays and in nested annotations such
+     * as {@code @JsonSubTypes.Type}. Only explicitly set values are considered, so eg. the default
+     * {@code JsonDeserializer.None} is not.
+     */
+    private void visitClassValues(AnnotationMirror annotation) {
+        for (AnnotationValue value : annotation.getElementValues().values()) {
+            visitClassValue(value.getValue());
+        }
+    }
+
+    private void visitClassValue(Object value) {
+        if (value instanceof TypeMirror) {
+            visit((TypeMirror) value);
+        } else if (value instanceof AnnotationMirror) {
+            visitClassValues((AnnotationMirror) value);
+        } else if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                visitClassValue(((AnnotationValue) item).getValue());
+            }
+        }
+    }
+
+    private static boolean hasJacksonAnnotation(Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (isJackson(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isJackson(AnnotationMirror annotation) {
+        return annotationName(annotation).startsWith("com.fasterxml.jackson.");
+    }
+
+    private static boolean hasJaxRsAnnotation(Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (annotationName(annotation).startsWith("javax.ws.rs.")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String annotationName(AnnotationMirror annotation) {
+        return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private static boolean isSkipped(String className) {
+        for (String prefix : SKIPPED_PACKAGES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String binaryName(TypeElement type) {
+        return env.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private Entry entry(String className) {
+        return reflected.computeIfAbsent(className, Entry::new);
+    }
+
+    void write(String directory) throws IOException {
+        StringBuilder reflect = new StringBuilder("[\n");
+        String separator = "";
+        for (Entry entry : reflected.values()) {
+            reflect.append(separator);
+            entry.appendTo(reflect);
+            separator = ",\n";
+        }
+        reflect.append("\n]\n");
+        writeResource(directory + "/reflect-config.json", reflect);
+
+        StringBuilder proxy = new StringBuilder("[\n");
+        separator = "";
+        for (String intf : proxyInterfaces) {
+            proxy.append(separator).append("  {\n    \"interfaces\": [").append(quote(intf)).append("]\n  }");
+            separator = ",\n";
+        }
+        proxy.append("\n]\n");
+        writeResource(directory + "/proxy-config.json", proxy);
+    }
+
+    private void writeResource(String path, CharSequence content) throws IOException {
+        FileObject file = env.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", path);
+        try (Writer w = file.openWriter()) {
+            w.append(content);
+        }
+    }
+
+    private static String quote(String s) {
+        // Binary class names never contain characters that need escaping.
+        return '"' + s + '"';
+    }
+
+    private static final class Entry {
+
+        private final String name;
+        private final Set<String> flags = new TreeSet<>();
+        private final Set<String> constructors = new TreeSet<>();
+
+        Entry(String name) {
+            this.name = name;
+        }
+
+        Entry allDeclaredConstructors() {
+            flags.add("allDeclaredConstructors");
+            return this;
+        }
+
+        Entry allPublicConstructors() {
+            flags.add("allPublicConstructors");
+            return this;
+        }
+
+        Entry allDeclaredFields() {
+            flags.add("allDeclaredFields");
+            return this;
+        }
+
+        Entry allDeclaredMethods() {
+            flags.add("allDeclaredMethods");
+            return this;
+        }
+
+        Entry allPublicMethods() {
+            flags.add("allPublicMethods");
+            return this;
+        }
+
+        Entry constructor(String... parameterTypes) {
+            StringBuilder params = new StringBuilder();
+            for (String parameterType : parameterTypes) {
+                params.append(params.length() > 0 ? ", " : "").append(quote(parameterType));
+            }
+            constructors.add(params.toString());
+            return this;
+        }
+
+        void appendTo(StringBuilder json) {
+            json.append("  {\n    \"name\": ").append(quote(name));
+            for (String flag : flags) {
+                json.append(",\n    ").append(quote(flag)).append(": true");
+            }
+            if (!constructors.isEmpty()) {
+                json.append(",\n    \"methods\": [");
+                String separator = "";
+                for (String params : constructors) {
+                    json.append(separator).append("\n      {\"name\": \"<init>\", \"parameterTypes\": [").append(params).append("]}");
+                    separator = ",";
+                }
+                json.append("\n    ]");
+            }
+            json.append("\n  }");
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package si.mazi.rescu.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a client class for each {@code @Path}-annotated interface that extends {@code si.mazi.rescu.RestInterface}.
+ * For {@code com.example.FooApi}, {@code com.example.FooApi$$RescuClient} implements the interface by delegating to
+ * an {@code InvocationHandler}, so {@code RestProxyFactory} doesn't need to create a dynamic proxy; its nested
+ * {@code MetadataFactory} creates the {@code RestMethodMetadata} from the paths, content types, exception types and
+ * parameter bindings resolved here, so no annotations need to be read by reflection on the first call of each method.
+ *
+ * Just add rescu-processor to the compile classpath (or the annotation processor path) of the project that
+ * declares the rest interfaces. Without the generated classes rescu falls back to dynamic proxies.
+ *
+ * The processor also writes the GraalVM native-image {@code reflect-config.json} and {@code proxy-config.json}
+ * for the rest interfaces and their DTOs to {@value #DEFAULT_NATIVE_IMAGE_DIR}, where native-image picks them up
+ * from the jar; see {@link NativeImageConfig}. The options {@value #NATIVE_IMAGE_OPTION} (set to {@code false} to
+ * disable) and {@value #NATIVE_IMAGE_DIR_OPTION} control this.
+ */
+@SupportedAnnotationTypes("javax.ws.rs.Path")
+@SupportedOptions({RestInterfaceProcessor.NATIVE_IMAGE_OPTION, RestInterfaceProcessor.NATIVE_IMAGE_DIR_OPTION})
+public class RestInterfaceProcessor extends AbstractProcessor {
+
+    static final String REST_INTERFACE = "si.mazi.rescu.RestInterface";
+    static final String CLIENT_SUFFIX = "$$RescuClient";
+
+    /** Set to {@code false} to not write the GraalVM native-image config. */
+    static final String NATIVE_IMAGE_OPTION = "rescu.nativeImage";
+    /** The directory (in the class output) to write the native-image config to. */
+    static final String NATIVE_IMAGE_DIR_OPTION = "rescu.nativeImage.dir";
+    static final String DEFAULT_NATIVE_IMAGE_DIR = "META-INF/native-image/rescu-generated";
+
+    private NativeImageConfig nativeImageConfig;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        if (!"false".equals(processingEnv.getOptions().get(NATIVE_IMAGE_OPTION))) {
+            nativeImageConfig = new NativeImageConfig(processingEnv);
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Elements elements = processingEnv.getElementUtils();
+        TypeElement restInterface = elements.getTypeElement(REST_INTERFACE);
+        TypeElement path = elements.getTypeElement("javax.ws.rs.Path");
+        if (restInterface == null || path == null) {
+            return false;
+        }
+        if (roundEnv.processingOver()) {
+            writeNativeImageConfig();
+            return false;
+        }
+        for (TypeElement type : getRestInterfaces(roundEnv.getElementsAnnotatedWith(path), restInterface)) {
+            List<RestMethodModel> methods = getRestMethods(type);
+            boolean generateClient = type.getTypeParameters().isEmpty() && isAccessibleFromPackage(type);
+            if (generateClient) {
+                try {
+                    writeClient(type, methods);
+                } catch (IOException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write the rescu client: " + e, type);
+                }
+            } else {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "Not generating a rescu client for a generic or private interface; a dynamic proxy will be used.", type);
+            }
+            if (nativeImageConfig != null) {
+                nativeImageConfig.addRestInterface(type, methods, generateClient);
+            }
+        }
+        // Other processors may be interested in @Path too.
+        return false;
+    }
+
+    private void writeNativeImageConfig() {
+        if (nativeImageConfig == null || nativeImageConfig.isEmpty()) {
+            return;
+        }
+        String directory = processingEnv.getOptions().get(NATIVE_IMAGE_DIR_OPTION);
+        try {
+            nativeImageConfig.write(directory != null ? directory : DEFAULT_NATIVE_IMAGE_DIR);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write the native-image config: " + e);
+        }
+    }
+
+    List<TypeElement> getRestInterfaces(Set<? extends Element> annotated, TypeElement restInterface) {
+        Types types = processingEnv.getTypeUtils();
+        List<TypeElement> restInterfaces = new ArrayList<>();
+        for (Element element : annotated) {
+            if (element.getKind() != ElementKind.INTERFACE) {
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            if (types.isAssignable(types.erasure(type.asType()), restInterface.asType())) {
+                restInterfaces.add(type);
+            }
+        }
+        return restInterfaces;
+    }
+
+    private static boolean isAccessibleFromPackage(TypeElement type) {
+        for (Element e = type; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the abstract methods of the interface, including the inherited ones; these are the methods that a
+     * dynamic proxy would pass to the invocation handler.
+     */
+    List<RestMethodModel> getRestMethods(TypeElement type) {
+        List<RestMethodModel> methods = new ArrayList<>();
+        for (Element member : processingEnv.getElementUtils().getAllMembers(type)) {
+            if (member.getKind() == ElementKind.METHOD
+                    && member.getEnclosingElement().getKind() == ElementKind.INTERFACE
+                    && member.getModifiers().contains(Modifier.ABSTRACT)) {
+                methods.add(new RestMethodModel((ExecutableElement) member, processingEnv));
+            }
+        }
+        return methods;
+    }
+
+    static String getClientSimpleName(Elements elements, TypeElement type) {
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        return (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + CLIENT_SUFFIX;
+    }
+
+    private void writeClient(TypeElement type, List<RestMethodModel> methods) throws IOException {
+        Elements elements = processingEnv.getElementUtils();
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String className = getClientSimpleName(elements, type);
+        String intfName = type.getQualifiedName().toString();
+
+        StringBuilder src = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            src.append("package ").append(packageName).append(";\n\n");
+        }
+        src.append("/**\n * Generated by ").append(getClass().getName()).append(" from {@link ").append(intfName).append("}; do not edit.\n */\n");
+        src.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        src.append("public final class ").append(className).append(" implements ").append(intfName).append(" {\n\n");
+
+        src.append("    private static final java.lang.reflect.Method[] METHODS;\n\n");
+        src.append("    static {\n");
+        src.append("        try {\n");
+        src.append("            METHODS = new java.lang.reflect.Method[] {\n");
+        for (RestMethodModel m : methods) {
+            src.append("                ").append(intfName).append(".class.getMethod(").append(elements.getConstantExpression(m.name));
+            for (TypeMirror paramType : m.paramTypes) {
+                src.append(", ").append(erasure(paramType)).append(".class");
+            }
+            src.append("),\n");
+        }
+        src.append("            };\n");
+        src.append("        } catch (java.lang.NoSuchMethodException e) {\n");
+        src.append("            throw new java.lang.NoSuchMethodError(e.getMessage());\n");
+        src.append("        }\n");
+        src.append("    }\n\n");
+
+        src.append("    private final java.lang.reflect.InvocationHandler handler;\n\n");
+        src.append("    public ").append(className).append("(java.lang.reflect.InvocationHandler handler) {\n");
+        src.append("        this.handler = handler;\n");
+        src.append("    }\n");
+
+        for (int i = 0; i < methods.size(); i++) {
+            writeMethod(src, methods.get(i), i);
+        }
+
+        src.append("\n    public static final class MetadataFactory implements si.mazi.rescu.RestMethodMetadataFactory {\n\n");
+        src.append("        @Override\n");
+        src.append("        public si.mazi.rescu.RestMethodMetadata create(java.lang.reflect.Method method, String baseUrl, String intfacePath) {\n");
+        src.append("            for (int i = 0; i < METHODS.length; i++) {\n");
+        src.append("                if (METHODS[i].equals(method)) {\n");
+        src.append("                    return create(i, method, baseUrl, intfacePath);\n");
+        src.append("                }\n");
+        src.append("            }\n");
+        src.append("            return null;\n");
+        src.append("        }\n\n");
+        src.append("        private static si.mazi.rescu.RestMethodMetadata create(int index, java.lang.reflect.Method method, String baseUrl, String intfacePath) {\n");
+        src.append("            switch (index) {\n");
+        for (int i = 0; i < methods.size(); i++) {
+            RestMethodModel m = methods.get(i);
+            if (!m.resolved) {
+                continue;
+            }
+            src.append("                case ").append(i).append(":\n");
+            src.append("                    return si.mazi.rescu.RestMethodMetadata.create(method, baseUrl, intfacePath, si.mazi.rescu.HttpMethod.")
+                    .append(m.httpMethod).append(", ")
+                    .append(elements.getConstantExpression(m.pathTemplate)).append(", ")
+                    .append(m.exceptionType == null ? "null" : m.exceptionType + ".class").append(", ")
+                    .append(m.reqContentType == null ? "null" : elements.getConstantExpression(m.reqContentType)).append(", ")
+                    .append(m.resContentType == null ? "null" : elements.getConstantExpression(m.resContentType)).append(",\n")
+                    .append("                            new boolean[] {").append(join(m.unannotatedParams, "")).append("}, ")
+                    .append("new int[] {").append(join(m.boundParamIndexes, "")).append("}, ")
+                    .append("new java.lang.Class[] {").append(join(m.boundParamTypes, ".class")).append("}, ")
+                    .append("new java.lang.String[] {").append(joinConstants(elements, m.boundParamNames)).append("},\n")
+                    .append("                            new java.lang.Class[] {").append(join(m.methodNameParamTypes, ".class")).append("}, ")
+                    .append("new java.lang.String[] {").append(joinConstants(elements, m.methodNameParamNames)).append("});\n");
+        }
+        src.append("                default:\n");
+        src.append("                    return null;\n");
+        src.append("            }\n");
+        src.append("        }\n");
+        src.append("    }\n");
+        src.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+        try (Writer w = file.openWriter()) {
+            w.write(src.toString());
+        }
+    }
+
+    private void writeMethod(StringBuilder src, RestMethodModel m, int index) {
+        ExecutableElement method = m.method;
+        src.append("\n    @Override\n");
+        src.append("    public ").append(erasure(m.returnType)).append(' ').append(m.name).append('(');
+        for (int i = 0; i < m.paramTypes.size(); i++) {
+            if (i > 0) {
+                src.append(", ");
+            }
+            String paramType = erasure(m.paramTypes.get(i));
+            if (method.isVarArgs() && i == m.paramTypes.size() - 1) {
+                paramType = paramType.substring(0, paramType.length() - 2) + "...";
+            }
+            src.append(paramType).append(" arg").append(i);
+        }
+        src.append(')');
+        List<String> rethrown = getCheckedExceptions(m.thrownTypes);
+        if (!m.thrownTypes.isEmpty()) {
+            src.append(" throws ");
+            for (int i = 0; i < m.thrownTypes.size(); i++) {
+                src.append(i > 0 ? ", " : "").append(erasure(m.thrownTypes.get(i)));
+            }
+        }
+        src.append(" {\n");
+        src.append("        try {\n");
+        String call = "handler.invoke(this, METHODS[" + index + "], " + getArgsArray(m.paramTypes.size()) + ")";
+        if (m.returnType.getKind() == TypeKind.VOID) {
+            src.append("            ").append(call).append(";\n");
+        } else {
+            src.append("            return (").append(boxedErasure(m.returnType)).append(") ").append(call).append(";\n");
+        }
+        src.append("        } catch (java.lang.RuntimeException | java.lang.Error e) {\n");
+        src.append("            throw e;\n");
+        boolean throwsThrowable = false;
+        for (String exception : rethrown) {
+            src.append("        } catch (").append(exception).append(" e) {\n");
+            src.append("            throw e;\n");
+            throwsThrowable |= exception.equals("java.lang.Throwable");
+        }
+        if (!throwsThrowable) {
+            src.append("        } catch (java.lang.Throwable t) {\n");
+            src.append("            throw new java.lang.reflect.UndeclaredThrowableException(t);\n");
+        }
+        src.append("        }\n");
+        src.append("    }\n");
+    }
+
+    private static String join(List<?> values, String suffix) {
+        StringBuilder joined = new StringBuilder();
+        for (Object value : values) {
+            joined.append(joined.length() > 0 ? ", " : "").append(value).append(suffix);
+        }
+        return joined.toString();
+    }
+
+    private static String joinConstants(Elements elements, List<String> values) {
+        StringBuilder joined = new StringBuilder();
+        for (String value : values) {
+            joined.append(joined.length() > 0 ? ", " : "").append(elements.getConstantExpression(value));
+        }
+        return joined.toString();
+    }
+
+    private static String getArgsArray(int count) {
+        if (count == 0) {
+            // Same as what a dynamic proxy passes.
+            return "null";
+        }
+        StringBuilder args = new StringBuilder("new java.lang.Object[] {");
+        for (int i = 0; i < count; i++) {
+            args.append(i > 0 ? ", " : "").append("arg").append(i);
+        }
+        return args.append('}').toString();
+    }
+
+    /**
+     * @return the declared checked exceptions that need their own catch clause, ie. without the ones that are
+     * subclasses of other declared exceptions.
+     */
+    private List<String> getCheckedExceptions(List<TypeMirror> thrownTypes) {
+        Types types = processingEnv.getTypeUtils();
+        Elements elements = processingEnv.getElementUtils();
+        TypeMirror runtimeException = elements.getTypeElement("java.lang.RuntimeException").asType();
+        TypeMirror error = elements.getTypeElement("java.lang.Error").asType();
+        List<String> checked = new ArrayList<>();
+        for (TypeMirror thrown : thrownTypes) {
+            if (types.isSubtype(thrown, runtimeException) || types.isSubtype(thrown, error)) {
+                continue;
+            }
+            boolean covered = false;
+            for (TypeMirror other : thrownTypes) {
+                covered |= other != thrown && !types.isSameType(other, thrown) && types.isSubtype(thrown, other);
+            }
+            if (!covered && !checked.contains(erasure(thrown))) {
+                checked.add(erasure(thrown));
+            }
+        }
+        return Collections.unmodifiableList(checked);
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private String boxedErasure(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return erasure(type);
+    }
+}
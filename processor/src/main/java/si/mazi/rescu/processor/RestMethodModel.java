@@ -0,0 +1,181 @@
+package si.mazi.rescu.processor;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * What the processor resolves at compile time about one method of a rest interface: the same values that
+ * {@code RestMethodMetadata.create(Method, ...)} reads from the JAX-RS annotations in runtime.
+ */
+class RestMethodModel {
+
+    private static final List<String> HTTP_METHODS = Arrays.asList("GET", "POST", "PUT", "OPTIONS", "HEAD", "DELETE");
+    /** Mirrors {@code RestInvocation.PARAM_ANNOTATION_CLASSES}. */
+    private static final List<String> PARAM_ANNOTATIONS = Arrays.asList(
+            "javax.ws.rs.QueryParam", "javax.ws.rs.PathParam", "javax.ws.rs.FormParam", "javax.ws.rs.HeaderParam");
+
+    final ExecutableElement method;
+    final String name;
+    final List<TypeMirror> paramTypes = new ArrayList<>();
+    final TypeMirror returnType;
+    final List<TypeMirror> thrownTypes;
+
+    /**
+     * False if the annotations are invalid for rescu; such methods are left to the reflective path so that
+     * the same error is reported in runtime as without the generated client.
+     */
+    boolean resolved;
+    String httpMethod;
+    String pathTemplate;
+    String exceptionType;
+    String reqContentType;
+    String resContentType;
+
+    // The parameter bindings, as RestMethodMetadata resolves them from the annotations.
+    final List<Boolean> unannotatedParams = new ArrayList<>();
+    final List<Integer> boundParamIndexes = new ArrayList<>();
+    final List<String> boundParamTypes = new ArrayList<>();
+    final List<String> boundParamNames = new ArrayList<>();
+    final List<String> methodNameParamTypes = new ArrayList<>();
+    final List<String> methodNameParamNames = new ArrayList<>();
+
+    RestMethodModel(ExecutableElement method, ProcessingEnvironment env) {
+        this.method = method;
+        this.name = method.getSimpleName().toString();
+        for (VariableElement param : method.getParameters()) {
+            paramTypes.add(param.asType());
+        }
+        this.returnType = method.getReturnType();
+        this.thrownTypes = new ArrayList<>(method.getThrownTypes());
+        this.resolved = resolve(env);
+    }
+
+    private boolean resolve(ProcessingEnvironment env) {
+        Elements elements = env.getElementUtils();
+        Types types = env.getTypeUtils();
+
+        for (String m : HTTP_METHODS) {
+            if (findAnnotation(method, "javax.ws.rs." + m) != null) {
+                if (httpMethod != null) {
+                    return false;
+                }
+                httpMethod = m;
+            }
+        }
+        if (httpMethod == null) {
+            return false;
+        }
+
+        AnnotationMirror path = findAnnotation(method, "javax.ws.rs.Path");
+        pathTemplate = path == null ? "" : (String) getValue(elements, path);
+
+        reqContentType = getFirstFromMethodOrClass(elements, "javax.ws.rs.Consumes");
+        resContentType = getFirstFromMethodOrClass(elements, "javax.ws.rs.Produces");
+
+        TypeMirror ioException = elements.getTypeElement("java.io.IOException").asType();
+        TypeMirror runtimeException = elements.getTypeElement("java.lang.RuntimeException").asType();
+        for (TypeMirror thrown : thrownTypes) {
+            if (!types.isSubtype(thrown, ioException)) {
+                if (!types.isSubtype(thrown, runtimeException) || exceptionType != null) {
+                    return false;
+                }
+                exceptionType = types.erasure(thrown).toString();
+            }
+        }
+
+        List<? extends VariableElement> params = method.getParameters();
+        for (int i = 0; i < params.size(); i++) {
+            boolean unannotated = true;
+            for (AnnotationMirror ann : params.get(i).getAnnotationMirrors()) {
+                // Only the annotations that reflection sees count.
+                unannotated &= !isRuntimeRetained(ann);
+                String type = getTypeName(ann);
+                if (PARAM_ANNOTATIONS.contains(type)) {
+                    boundParamIndexes.add(i);
+                    boundParamTypes.add(type);
+                    boundParamNames.add((String) getValue(elements, ann));
+                }
+            }
+            unannotatedParams.add(unannotated);
+        }
+        for (AnnotationMirror ann : method.getAnnotationMirrors()) {
+            String type = getTypeName(ann);
+            if (PARAM_ANNOTATIONS.contains(type)) {
+                methodNameParamTypes.add(type);
+                methodNameParamNames.add((String) getValue(elements, ann));
+            }
+        }
+        return true;
+    }
+
+    private static String getTypeName(AnnotationMirror ann) {
+        return ((TypeElement) ann.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private static boolean isRuntimeRetained(AnnotationMirror ann) {
+        Retention retention = ann.getAnnotationType().asElement().getAnnotation(Retention.class);
+        return retention != null && retention.value() == RetentionPolicy.RUNTIME;
+    }
+
+    /**
+     * Mirrors {@code AnnotationUtils.getFromMethodOrClass}: the method, then the interface that declares it,
+     * then that interface's direct superinterfaces.
+     */
+    private String getFirstFromMethodOrClass(Elements elements, String annotationName) {
+        AnnotationMirror ann = findAnnotation(method, annotationName);
+        TypeElement declaring = (TypeElement) method.getEnclosingElement();
+        if (ann == null) {
+            ann = findAnnotation(declaring, annotationName);
+        }
+        for (TypeMirror intf : declaring.getInterfaces()) {
+            if (ann != null) {
+                break;
+            }
+            if (intf.getKind() == TypeKind.DECLARED) {
+                ann = findAnnotation(((DeclaredType) intf).asElement(), annotationName);
+            }
+        }
+        if (ann == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        List<? extends AnnotationValue> values = (List<? extends AnnotationValue>) getValue(elements, ann);
+        return values.isEmpty() ? null : (String) values.get(0).getValue();
+    }
+
+    static AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static Object getValue(Elements elements, AnnotationMirror mirror) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : elements.getElementValuesWithDefaults(mirror).entrySet()) {
+            if (e.getKey().getSimpleName().contentEquals("value")) {
+                return e.getValue().getValue();
+            }
+        }
+        return null;
+    }
+}
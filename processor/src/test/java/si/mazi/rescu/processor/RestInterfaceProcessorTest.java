@@ -0,0 +1,264 @@
+package si.mazi.rescu.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import si.mazi.rescu.RestInterface;
+import si.mazi.rescu.RestMethodMetadata;
+import si.mazi.rescu.RestMethodMetadataFactory;
+import si.mazi.rescu.RestProxyFactory;
+
+public class RestInterfaceProcessorTest {
+
+    private static final String SAMPLE_SERVICE = ""
+            + "package sample;\n"
+            + "import java.io.IOException;\n"
+            + "import java.math.BigDecimal;\n"
+            + "import java.util.List;\n"
+            + "import java.util.Map;\n"
+            + "import javax.ws.rs.*;\n"
+            + "import javax.ws.rs.core.MediaType;\n"
+            + "import si.mazi.rescu.RestInterface;\n"
+            + "@Path(\"api/{version}\")\n"
+            + "@Produces(MediaType.APPLICATION_JSON)\n"
+            + "public interface SampleService extends BaseService {\n"
+            + "    @POST @Path(\"buy/\") @Consumes(MediaType.APPLICATION_FORM_URLENCODED)\n"
+            + "    Map<String, Object> buy(@FormParam(\"user\") String user, @FormParam(\"amount\") BigDecimal amount) throws IOException, SampleException;\n"
+            + "    @GET @Path(\"list\")\n"
+            + "    List<String> list(@QueryParam(\"ids\") int... ids);\n"
+            + "    @GET @Path(\"count\")\n"
+            + "    int count() throws Exception;\n"
+            + "    void notRest();\n"
+            + "    @GET @Path(\"ticker\")\n"
+            + "    Ticker ticker(@QueryParam(\"pair\") Pair pair);\n"
+            + "    @POST @Path(\"order\") @FormParam(\"method\") @Consumes(MediaType.APPLICATION_JSON)\n"
+            + "    Map<String, Object> order(@HeaderParam(\"Key\") @FormParam(\"key\") String key, @Deprecated String body, String other) throws IOException;\n"
+            + "    default String hello() { return \"hello\"; }\n"
+            + "}\n";
+
+    private static final String BASE_SERVICE = ""
+            + "package sample;\n"
+            + "import javax.ws.rs.*;\n"
+            + "import si.mazi.rescu.RestInterface;\n"
+            + "@Consumes(\"text/plain\")\n"
+            + "public interface BaseService extends RestInterface {\n"
+            + "    @DELETE @Path(\"order/{id}\")\n"
+            + "    void cancel(@PathParam(\"id\") long id);\n"
+            + "}\n";
+
+    private static final String TICKER = ""
+            + "package sample;\n"
+            + "import com.fasterxml.jackson.annotation.*;\n"
+            + "import com.fasterxml.jackson.databind.annotation.JsonDeserialize;\n"
+            + "public class Ticker {\n"
+            + "    @JsonDeserialize(using = PriceDeserializer.class)\n"
+            + "    private final Price last;\n"
+            + "    @JsonCreator\n"
+            + "    public Ticker(@JsonProperty(\"last\") Price last) { this.last = last; }\n"
+            + "    public Price getLast() { return last; }\n"
+            + "    public static class Price { public java.math.BigDecimal value; }\n"
+            + "}\n";
+
+    private static final String PRICE_DESERIALIZER = ""
+            + "package sample;\n"
+            + "public class PriceDeserializer extends com.fasterxml.jackson.databind.JsonDeserializer<Ticker.Price> {\n"
+            + "    public Ticker.Price deserialize(com.fasterxml.jackson.core.JsonParser p, com.fasterxml.jackson.databind.DeserializationContext c) {\n"
+            + "        return null;\n"
+            + "    }\n"
+            + "}\n";
+
+    private static final String PAIR = ""
+            + "package sample;\n"
+            + "public class Pair { }\n";
+
+    private static final String SAMPLE_EXCEPTION = ""
+            + "package sample;\n"
+            + "public class SampleException extends RuntimeException { }\n";
+
+    private Path outputDir;
+    private ClassLoader loader;
+    private Class<? extends RestInterface> service;
+
+    @BeforeClass
+    public void compileSample() throws Exception {
+        Path sourceDir = Files.createTempDirectory("rescu-processor-src");
+        outputDir = Files.createTempDirectory("rescu-processor-out");
+        List<File> sources = new ArrayList<>();
+        sources.add(write(sourceDir, "SampleService.java", SAMPLE_SERVICE));
+        sources.add(write(sourceDir, "BaseService.java", BASE_SERVICE));
+        sources.add(write(sourceDir, "SampleException.java", SAMPLE_EXCEPTION));
+        sources.add(write(sourceDir, "Ticker.java", TICKER));
+        sources.add(write(sourceDir, "PriceDeserializer.java", PRICE_DESERIALIZER));
+        sources.add(write(sourceDir, "Pair.java", PAIR));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        List<String> options = Arrays.asList(
+                "-classpath", System.getProperty("java.class.path"),
+                "-d", outputDir.toString(),
+                "-s", outputDir.toString());
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                fileManager.getJavaFileObjectsFromFiles(sources));
+        task.setProcessors(Collections.singletonList(new RestInterfaceProcessor()));
+        Assert.assertTrue(task.call(), diagnostics.getDiagnostics().toString());
+
+        loader = new URLClassLoader(new URL[]{outputDir.toUri().toURL()}, getClass().getClassLoader());
+        //noinspection unchecked
+        service = (Class<? extends RestInterface>) loader.loadClass("sample.SampleService");
+    }
+
+    @Test
+    public void testGeneratedClientIsUsed() throws Exception {
+        assertThat(outputDir.resolve("sample/SampleService$$RescuClient.java").toFile()).exists();
+        // rescu requires @Path on the interface itself.
+        assertThat(outputDir.resolve("sample/BaseService$$RescuClient.java").toFile()).doesNotExist();
+
+        Object proxy = RestProxyFactory.createProxy(service, "https://example.com");
+        assertThat(proxy.getClass().getName()).isEqualTo("sample.SampleService$$RescuClient");
+        assertThat(service.getMethod("hello").invoke(proxy)).isEqualTo("hello");
+    }
+
+    @Test
+    public void testGeneratedMetadataMatchesReflection() throws Exception {
+        RestMethodMetadataFactory factory = (RestMethodMetadataFactory) loader
+                .loadClass("sample.SampleService$$RescuClient$MetadataFactory").getDeclaredConstructor().newInstance();
+
+        for (Method method : Arrays.asList(
+                service.getMethod("buy", String.class, BigDecimal.class),
+                service.getMethod("list", int[].class),
+                service.getMethod("order", String.class, String.class, String.class),
+                service.getMethod("cancel", long.class))) {
+            RestMethodMetadata generated = factory.create(method, "https://example.com", "api/{version}");
+            RestMethodMetadata reflected = RestMethodMetadata.create(method, "https://example.com", "api/{version}", null);
+            assertThat(generated).isNotNull();
+            assertThat(generated.getHttpMethod()).isEqualTo(reflected.getHttpMethod());
+            assertThat(generated.getMethodPathTemplate()).isEqualTo(reflected.getMethodPathTemplate());
+            assertThat(generated.getReqContentType()).isEqualTo(reflected.getReqContentType());
+            assertThat(generated.getResContentType()).isEqualTo(reflected.getResContentType());
+            assertThat(generated.getExceptionType()).isEqualTo(reflected.getExceptionType());
+            assertThat(generated.getReturnType()).isEqualTo(reflected.getReturnType());
+            assertThat(generated.getMethodName()).isEqualTo(reflected.getMethodName());
+            for (String bindings : Arrays.asList("getUnannotatedParams", "getBoundParamIndexes", "getBoundParamTypes",
+                    "getBoundParamNames", "getMethodNameParamTypes", "getMethodNameParamNames")) {
+                assertThat(getBindings(generated, bindings)).as(method.getName() + " " + bindings)
+                        .isEqualTo(getBindings(reflected, bindings));
+            }
+            // Only read when asked for.
+            assertThat(generated.getParameterAnnotations()).isEqualTo(reflected.getParameterAnnotations());
+            assertThat(generated.getMethodAnnotationMap()).isEqualTo(reflected.getMethodAnnotationMap());
+        }
+        assertThat(factory.create(service.getMethod("buy", String.class, BigDecimal.class), null, null).getExceptionType().getName())
+                .isEqualTo("sample.SampleException");
+        // Methods that rescu can't handle are left to the reflective path, which reports the error.
+        assertThat(factory.create(service.getMethod("notRest"), null, null)).isNull();
+        assertThat(factory.create(service.getMethod("count"), null, null)).isNull();
+    }
+
+    /**
+     * The bindings are package-private in rescu, which this test can't see.
+     */
+    private static Object getBindings(RestMethodMetadata metadata, String getter) throws Exception {
+        Method method = RestMethodMetadata.class.getDeclaredMethod(getter);
+        method.setAccessible(true);
+        return method.invoke(metadata);
+    }
+
+    @Test
+    public void testDelegatesToHandler() throws Exception {
+        List<Object> calls = new ArrayList<>();
+        InvocationHandler handler = (proxy, method, args) -> {
+            calls.add(method);
+            calls.add(args);
+            return method.getName().equals("count") ? 42 : null;
+        };
+        Object client = loader.loadClass("sample.SampleService$$RescuClient")
+                .getConstructor(InvocationHandler.class).newInstance(handler);
+
+        Method buy = service.getMethod("buy", String.class, BigDecimal.class);
+        buy.invoke(client, "john", BigDecimal.TEN);
+        assertThat(calls.get(0)).isEqualTo(buy);
+        assertThat((Object[]) calls.get(1)).containsExactly("john", BigDecimal.TEN);
+
+        Method list = service.getMethod("list", int[].class);
+        int[] ids = {1, 2};
+        list.invoke(client, (Object) ids);
+        assertThat((Object[]) calls.get(3)).containsExactly((Object) ids);
+
+        assertThat(service.getMethod("count").invoke(client)).isEqualTo(42);
+        assertThat(calls.get(5)).isNull();
+    }
+
+    @Test
+    public void testUndeclaredExceptionIsWrapped() throws Exception {
+        InvocationHandler handler = (proxy, method, args) -> {
+            throw new IOException("not declared on cancel");
+        };
+        Object client = loader.loadClass("sample.SampleService$$RescuClient")
+                .getConstructor(InvocationHandler.class).newInstance(handler);
+        try {
+            service.getMethod("cancel", long.class).invoke(client, 1L);
+            Assert.fail("Expected an exception");
+        } catch (java.lang.reflect.InvocationTargetException e) {
+            assertThat(e.getCause()).isInstanceOf(UndeclaredThrowableException.class);
+            assertThat(e.getCause().getCause()).isInstanceOf(IOException.class);
+        }
+    }
+
+    @Test
+    public void testNativeImageConfig() throws Exception {
+        String reflectConfig = read(outputDir.resolve("META-INF/native-image/rescu-generated/reflect-config.json"));
+        String proxyConfig = read(outputDir.resolve("META-INF/native-image/rescu-generated/proxy-config.json"));
+
+        assertThat(proxyConfig).contains("\"interfaces\": [\"sample.SampleService\"]");
+        assertThat(reflectConfig)
+                .contains("\"name\": \"sample.SampleService\"")
+                .contains("\"name\": \"sample.BaseService\"")
+                .contains("\"name\": \"sample.SampleService$$RescuClient\"")
+                .contains("\"parameterTypes\": [\"java.lang.reflect.InvocationHandler\"]")
+                .contains("\"name\": \"sample.SampleService$$RescuClient$MetadataFactory\"")
+                .contains("\"name\": \"sample.SampleException\"")
+                .contains("\"name\": \"sample.Ticker\"")
+                .contains("\"name\": \"sample.Ticker$Price\"")
+                .contains("\"name\": \"sample.PriceDeserializer\"")
+                // Query parameters are converted with toString(), not Jackson.
+                .doesNotContain("sample.Pair")
+                .doesNotContain("java.math.BigDecimal")
+                .doesNotContain("si.mazi.rescu.RestInterface");
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    private static File write(Path dir, String name, String source) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+}
@@ -28,6 +28,11 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.ws.rs.FormParam;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+
 /**
  * @author Matija Mazi <br>
  */
@@ -42,8 +47,18 @@ public final class AnnotationUtils {
         if (!annotationClass.isInstance(ann)) {
             return null;
         }
+        // The common cases don't need reflection, which also keeps them working in a native image.
+        if (ann instanceof QueryParam) {
+            return ((QueryParam) ann).value();
+        } else if (ann instanceof PathParam) {
+            return ((PathParam) ann).value();
+        } else if (ann instanceof FormParam) {
+            return ((FormParam) ann).value();
+        } else if (ann instanceof HeaderParam) {
+            return ((HeaderParam) ann).value();
+        }
         try {
-            return (String) ann.getClass().getMethod("value").invoke(ann);
+            return (String) annotationClass.getMethod("value").invoke(ann);
         } catch (Exception e) {
             throw new RuntimeException("Can't access element 'value' in  " + annotationClass + ". This is probably a bug in rescu.", e);
         }
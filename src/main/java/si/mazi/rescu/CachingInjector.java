@@ -0,0 +1,154 @@
+package si.mazi.rescu;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import si.mazi.rescu.InjectableParametersMapper.Injector;
+
+/**
+ * Caches the value of another injector, for values that are expensive to get and valid for a while, such as session
+ * tokens or listen keys. The value is got again once the time to live has passed; before that, during the refresh-ahead
+ * time (a fifth of the time to live unless set), the first call that finds the value due starts getting the next one on
+ * a background thread, and the calls keep getting the cached one meanwhile. Only one thread gets a value at a time:
+ * calls that find the value expired wait for it.
+ * <p>
+ * The injected parameter's annotations are those of the wrapped injector's {@code get()} method:
+ * <pre>
+ * builder.add("listenKey", new CachingInjector&lt;&gt;(listenKeyInjector, 30, TimeUnit.MINUTES))
+ * </pre>
+ */
+public class CachingInjector<T> implements Injector<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingInjector.class);
+
+    private final Injector<T> delegate;
+    private final long ttlNanos;
+    private volatile long refreshAheadNanos;
+    private volatile Executor refreshExecutor;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Entry<T> entry;
+
+    public CachingInjector(Injector<T> delegate, long ttl, TimeUnit unit) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("Time to live must be positive: " + ttl);
+        }
+        this.delegate = delegate;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.refreshAheadNanos = ttlNanos / 5;
+    }
+
+    /**
+     * @param refreshAhead how long before the value expires to get the next one in the background; 0 for never
+     */
+    public CachingInjector<T> setRefreshAhead(long refreshAhead, TimeUnit unit) {
+        long nanos = unit.toNanos(refreshAhead);
+        if (nanos < 0 || nanos >= ttlNanos) {
+            throw new IllegalArgumentException("Refresh-ahead must be less than the time to live: " + refreshAhead);
+        }
+        this.refreshAheadNanos = nanos;
+        return this;
+    }
+
+    /**
+     * @param refreshExecutor runs the refreshes ahead of expiry; by default, a daemon thread shared by all instances
+     */
+    public CachingInjector<T> setRefreshExecutor(Executor refreshExecutor) {
+        this.refreshExecutor = refreshExecutor;
+        return this;
+    }
+
+    public Injector<T> getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Drops the cached value, eg. when the server has rejected it; the next call gets a new one.
+     */
+    public void invalidate() {
+        entry = null;
+    }
+
+    @Override
+    public T get() {
+        Entry<T> cached = entry;
+        if (cached != null) {
+            long now = nanoTime();
+            if (now - cached.expiresNanos < 0) {
+                if (refreshAheadNanos > 0 && now - cached.expiresNanos + refreshAheadNanos >= 0
+                        && refreshing.compareAndSet(false, true)) {
+                    refreshInBackground(cached);
+                }
+                return cached.value;
+            }
+        }
+        return load();
+    }
+
+    private synchronized T load() {
+        Entry<T> cached = entry;
+        if (cached != null && nanoTime() - cached.expiresNanos < 0) {
+            // Got by the thread we waited for.
+            return cached.value;
+        }
+        return store(delegate.get());
+    }
+
+    private T store(T value) {
+        entry = new Entry<>(value, nanoTime() + ttlNanos);
+        return value;
+    }
+
+    private void refreshInBackground(Entry<T> due) {
+        Runnable refresh = () -> {
+            try {
+                synchronized (this) {
+                    if (entry == due) {
+                        store(delegate.get());
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to refresh the value of {}; using the cached one until it expires", delegate, e);
+            } finally {
+                refreshing.set(false);
+            }
+        };
+        Executor executor = refreshExecutor;
+        try {
+            (executor == null ? RefreshThread.EXECUTOR : executor).execute(refresh);
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+            log.warn("Failed to schedule a refresh of {}", delegate, e);
+        }
+    }
+
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private static final class Entry<T> {
+        final T value;
+        final long expiresNanos;
+
+        Entry(T value, long expiresNanos) {
+            this.value = value;
+            this.expiresNanos = expiresNanos;
+        }
+    }
+
+    /**
+     * The default refresh thread; started on first use.
+     */
+    private static final class RefreshThread {
+        static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("rescu-injector-refresh").setDaemon(true).build());
+    }
+}
@@ -24,6 +24,14 @@ package si.mazi.rescu;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import oauth.signpost.OAuthConsumer;
+import si.mazi.rescu.oauth.OAuthSigner;
+import si.mazi.rescu.archive.ArchivePolicy;
+import si.mazi.rescu.archive.AsyncArchiver;
+import si.mazi.rescu.archive.OverflowPolicy;
+import si.mazi.rescu.archive.RequestResponseArchiver;
+import si.mazi.rescu.metrics.CostMetrics;
+import si.mazi.rescu.metrics.InvocationMetrics;
+import si.mazi.rescu.metrics.LatencyMetrics;
 import si.mazi.rescu.serialization.jackson.DefaultJacksonObjectMapperFactory;
 import si.mazi.rescu.serialization.jackson.JacksonConfigureListener;
 import si.mazi.rescu.serialization.jackson.JacksonObjectMapperFactory;
@@ -31,8 +39,11 @@ import si.mazi.rescu.serialization.jackson.JacksonObjectMapperFactory;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLSocketFactory;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 public class ClientConfig {
 
@@ -48,6 +59,18 @@ public class ClientConfig {
     private boolean ignoreHttpErrorCodes;
     private boolean wrapUnexpectedExceptions;
     private OAuthConsumer oAuthConsumer;
+    private OAuthSigner oAuthSigner;
+    private Executor invocationExecutor = null;
+    private int archiveCapacity = AsyncArchiver.DEFAULT_CAPACITY;
+    private OverflowPolicy archiveOverflowPolicy = OverflowPolicy.DROP;
+    private RequestResponseArchiver requestResponseArchiver = null;
+    private RequestResponseArchiver errorArchiver = null;
+    private ArchivePolicy archivePolicy = null;
+    private HttpConnectionFactory httpConnectionFactory = HttpConnectionFactory.DEFAULT;
+    private LatencyMetrics latencyMetrics = null;
+    private InvocationMetrics invocationMetrics = null;
+    private CostMetrics costMetrics = null;
+    private final List<InvocationListener> invocationListeners = new ArrayList<>();
 
     public ClientConfig() {
         httpConnTimeout = Config.getHttpConnTimeout();
@@ -209,4 +232,180 @@ public class ClientConfig {
         this.oAuthConsumer = oAuthConsumer;
     }
 
+    public OAuthSigner getOAuthSigner() {
+        return oAuthSigner;
+    }
+
+    /**
+     * @param oAuthSigner signs the calls with OAuth 1.0a HMAC-SHA1 from their bound params; a faster alternative to
+     * {@link #setOAuthConsumer(OAuthConsumer) a signpost consumer}, which shouldn't be set as well
+     */
+    public void setOAuthSigner(OAuthSigner oAuthSigner) {
+        this.oAuthSigner = oAuthSigner;
+    }
+
+    /**
+     * @return the executor that waits for and maps the responses, or null if
+     * each proxy should use its own pool of threads.
+     * @see InvocationExecutors
+     */
+    public Executor getInvocationExecutor() {
+        return invocationExecutor;
+    }
+
+    /**
+     * Sets the executor that waits for and maps the responses. The request is always
+     * sent on the calling thread. If null (the default), each proxy creates its own
+     * pool of 3 threads.
+     *
+     * @param invocationExecutor the invocationExecutor to set
+     * @see InvocationExecutors#callerThread()
+     */
+    public void setInvocationExecutor(Executor invocationExecutor) {
+        this.invocationExecutor = invocationExecutor;
+    }
+
+    public int getArchiveCapacity() {
+        return archiveCapacity;
+    }
+
+    /**
+     * Sets how many requests/responses may wait to be written to the request/response
+     * and error loggers before the {@link #setArchiveOverflowPolicy overflow policy} applies.
+     *
+     * @param archiveCapacity the archiveCapacity to set
+     * @see AsyncArchiver
+     */
+    public void setArchiveCapacity(int archiveCapacity) {
+        this.archiveCapacity = archiveCapacity;
+    }
+
+    public OverflowPolicy getArchiveOverflowPolicy() {
+        return archiveOverflowPolicy;
+    }
+
+    /**
+     * Sets whether requests/responses are dropped (the default) or the calling thread waits
+     * when the request/response or error logger can't keep up.
+     *
+     * @param archiveOverflowPolicy the archiveOverflowPolicy to set
+     */
+    public void setArchiveOverflowPolicy(OverflowPolicy archiveOverflowPolicy) {
+        this.archiveOverflowPolicy = archiveOverflowPolicy;
+    }
+
+    public RequestResponseArchiver getRequestResponseArchiver() {
+        return requestResponseArchiver;
+    }
+
+    /**
+     * Sets the archiver for the requests/responses of successful calls, eg. a
+     * {@link si.mazi.rescu.archive.JournalArchiver}. If set, it is used instead of the
+     * request/response logger passed to {@link RestProxyFactory}.
+     *
+     * @param requestResponseArchiver the requestResponseArchiver to set
+     */
+    public void setRequestResponseArchiver(RequestResponseArchiver requestResponseArchiver) {
+        this.requestResponseArchiver = requestResponseArchiver;
+    }
+
+    public RequestResponseArchiver getErrorArchiver() {
+        return errorArchiver;
+    }
+
+    /**
+     * Sets the archiver for the requests/responses of failed calls. If set, it is used
+     * instead of the error logger passed to {@link RestProxyFactory}.
+     *
+     * @param errorArchiver the errorArchiver to set
+     */
+    public void setErrorArchiver(RequestResponseArchiver errorArchiver) {
+        this.errorArchiver = errorArchiver;
+    }
+
+    public ArchivePolicy getArchivePolicy() {
+        return archivePolicy;
+    }
+
+    /**
+     * Sets which calls are archived, and how much of their requests/responses: sample rates,
+     * body truncation and the request headers to keep. By default, all calls are archived whole.
+     *
+     * @param archivePolicy the archivePolicy to set
+     */
+    public void setArchivePolicy(ArchivePolicy archivePolicy) {
+        this.archivePolicy = archivePolicy;
+    }
+
+    public HttpConnectionFactory getHttpConnectionFactory() {
+        return httpConnectionFactory;
+    }
+
+    /**
+     * Sets the factory of the connections that invocations are sent through, eg. to record
+     * the exchanges or to replay recorded ones (see {@link si.mazi.rescu.replay}).
+     *
+     * @param httpConnectionFactory the httpConnectionFactory to set
+     */
+    public void setHttpConnectionFactory(HttpConnectionFactory httpConnectionFactory) {
+        this.httpConnectionFactory = httpConnectionFactory;
+    }
+
+    public LatencyMetrics getLatencyMetrics() {
+        return latencyMetrics;
+    }
+
+    /**
+     * Sets where the latencies of the calls are collected, by method and phase of the call.
+     * If null (the default), they are not measured.
+     *
+     * @param latencyMetrics the latencyMetrics to set
+     */
+    public void setLatencyMetrics(LatencyMetrics latencyMetrics) {
+        this.latencyMetrics = latencyMetrics;
+    }
+
+    public InvocationMetrics getInvocationMetrics() {
+        return invocationMetrics;
+    }
+
+    /**
+     * Sets where the calls are counted, by method and host: requests, errors, calls in flight,
+     * body sizes and latency. If null (the default), they are not counted.
+     *
+     * @param invocationMetrics the invocationMetrics to set
+     */
+    public void setInvocationMetrics(InvocationMetrics invocationMetrics) {
+        this.invocationMetrics = invocationMetrics;
+    }
+
+    public CostMetrics getCostMetrics() {
+        return costMetrics;
+    }
+
+    /**
+     * Sets where the CPU time and allocation of creating the calls, writing the requests and
+     * reading the responses are collected, by method. If null (the default), they are not measured.
+     *
+     * @param costMetrics the costMetrics to set
+     */
+    public void setCostMetrics(CostMetrics costMetrics) {
+        this.costMetrics = costMetrics;
+    }
+
+    public List<InvocationListener> getInvocationListeners() {
+        return invocationListeners;
+    }
+
+    /**
+     * Adds a listener of the events of the calls of the proxies created with this config,
+     * eg. for tracing. Listeners are called in the order they are added.
+     *
+     * @param invocationListener the invocationListener to add
+     */
+    public ClientConfig addInvocationListener(InvocationListener invocationListener) {
+        invocationListeners.add(invocationListener);
+        return this;
+    }
+
 }
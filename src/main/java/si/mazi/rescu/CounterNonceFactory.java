@@ -0,0 +1,24 @@
+package si.mazi.rescu;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nonces counting up from an initial value, without locking. The count isn't kept over restarts; see
+ * {@link PersistentNonceFactory} for that, or {@link TimeNonceFactory} for nonces that grow with the clock.
+ */
+public class CounterNonceFactory implements SynchronizedValueFactory<Long> {
+
+    private final AtomicLong last;
+
+    /**
+     * @param initialValue the first nonce
+     */
+    public CounterNonceFactory(long initialValue) {
+        this.last = new AtomicLong(initialValue - 1);
+    }
+
+    @Override
+    public Long createValue() {
+        return last.incrementAndGet();
+    }
+}
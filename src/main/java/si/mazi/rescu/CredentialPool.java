@@ -0,0 +1,221 @@
+package si.mazi.rescu;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads the calls of a proxy over several API keys, to get past the rate limit of a single key. Added as an
+ * {@link Interceptor} of the proxy, the pool picks a credential for each call: the one with the most tokens left in its
+ * token bucket, and of those the one with fewest calls in flight. If no credential has a token left, the call waits
+ * for the first one to refill. Within the call, {@link #current()} is the picked credential, for the injectors of the
+ * API key and nonce and for the {@link #digest()}:
+ * <pre>
+ * new InjectableParametersBuilder&lt;&gt;(ExchangeApi.class)
+ *     .add("apiKey", new Injector&lt;String&gt;() {
+ *         &#64;HeaderParam("apiKey") public String get() { return pool.current().getApiKey(); }
+ *     })
+ *     .add("nonce", new Injector&lt;SynchronizedValueFactory&lt;?&gt;&gt;() {
+ *         &#64;FormParam("nonce") public SynchronizedValueFactory&lt;?&gt; get() { return pool.current().getNonceFactory(); }
+ *     })
+ * </pre>
+ * Each credential has its own nonce factory, and as calls are sent under the lock of their nonce factory, the calls
+ * of different credentials don't wait for each other.
+ */
+public class CredentialPool implements Interceptor {
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final List<Credential> credentials = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Credential> current = new ThreadLocal<>();
+    private final ParamsDigest digest = invocation -> current().getDigest().digestParams(invocation);
+
+    /**
+     * @param permitsPerSecond the rate limit of each key
+     * @param burst how many calls a key may make at once after being idle; its tokens when added
+     */
+    public CredentialPool(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive: " + permitsPerSecond + ", " + burst);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+    }
+
+    /**
+     * @param digest signs the calls made with this key
+     * @param nonceFactory the nonces of this key, independent of the other keys'
+     */
+    public Credential add(String apiKey, ParamsDigest digest, SynchronizedValueFactory<?> nonceFactory) {
+        Credential credential = new Credential(apiKey, digest, nonceFactory, burst, nanoTime());
+        credentials.add(credential);
+        return credential;
+    }
+
+    /**
+     * The credentials in the order they were added, with their usage.
+     */
+    public List<Credential> getCredentials() {
+        return Collections.unmodifiableList(credentials);
+    }
+
+    /**
+     * @return the credential picked for the call in progress on this thread
+     * @throws IllegalStateException if no call of a proxy intercepted by this pool is in progress
+     */
+    public Credential current() {
+        Credential credential = current.get();
+        if (credential == null) {
+            throw new IllegalStateException("No call with a pooled credential in progress");
+        }
+        return credential;
+    }
+
+    /**
+     * Signs with the digest of the {@link #current()} credential; can be injected, or passed as an argument.
+     */
+    public ParamsDigest digest() {
+        return digest;
+    }
+
+    @Override
+    public Object aroundInvoke(InvocationHandler invocationHandler, Object proxy, Method method, Object[] args)
+            throws Throwable {
+        if (method.getDeclaringClass().equals(Object.class)) {
+            return invocationHandler.invoke(proxy, method, args);
+        }
+        Credential credential = acquire();
+        Credential outer = current.get();
+        current.set(credential);
+        try {
+            return invocationHandler.invoke(proxy, method, args);
+        } finally {
+            credential.release();
+            if (outer == null) {
+                current.remove();
+            } else {
+                current.set(outer);
+            }
+        }
+    }
+
+    Credential acquire() throws InterruptedException {
+        Credential picked = null;
+        long waitNanos;
+        synchronized (this) {
+            long now = nanoTime();
+            for (Credential credential : credentials) {
+                credential.refill(now, permitsPerSecond, burst);
+                if (picked == null || credential.tokens > picked.tokens
+                        || credential.tokens == picked.tokens && credential.inFlight.get() < picked.inFlight.get()) {
+                    picked = credential;
+                }
+            }
+            if (picked == null) {
+                throw new IllegalStateException("No credentials in the pool");
+            }
+            // Taken now, so that the calls that come next pick other credentials, even if this call has to wait.
+            picked.tokens -= 1;
+            waitNanos = picked.tokens < 0 ? (long) Math.ceil(-picked.tokens / permitsPerSecond * 1e9) : 0;
+            picked.calls++;
+            picked.waitedNanos += waitNanos;
+            picked.inFlight.incrementAndGet();
+        }
+        if (waitNanos > 0) {
+            try {
+                await(waitNanos);
+            } catch (InterruptedException e) {
+                picked.release();
+                throw e;
+            }
+        }
+        return picked;
+    }
+
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    void await(long nanos) throws InterruptedException {
+        TimeUnit.NANOSECONDS.sleep(nanos);
+    }
+
+    /**
+     * An API key in a {@link CredentialPool}, with its usage.
+     */
+    public static class Credential {
+
+        private final String apiKey;
+        private final ParamsDigest digest;
+        private final SynchronizedValueFactory<?> nonceFactory;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        // Guarded by the pool.
+        private volatile double tokens;
+        private long refilledNanos;
+        private volatile long calls;
+        private volatile long waitedNanos;
+
+        Credential(String apiKey, ParamsDigest digest, SynchronizedValueFactory<?> nonceFactory, int tokens,
+                long nowNanos) {
+            this.apiKey = apiKey;
+            this.digest = digest;
+            this.nonceFactory = nonceFactory;
+            this.tokens = tokens;
+            this.refilledNanos = nowNanos;
+        }
+
+        private void refill(long nowNanos, double permitsPerSecond, int burst) {
+            tokens = Math.min(burst, tokens + (nowNanos - refilledNanos) / 1e9 * permitsPerSecond);
+            refilledNanos = nowNanos;
+        }
+
+        void release() {
+            inFlight.decrementAndGet();
+        }
+
+        public String getApiKey() {
+            return apiKey;
+        }
+
+        public ParamsDigest getDigest() {
+            return digest;
+        }
+
+        public SynchronizedValueFactory<?> getNonceFactory() {
+            return nonceFactory;
+        }
+
+        /**
+         * The tokens left at the last call; negative while calls are waiting for this key.
+         */
+        public double getTokens() {
+            return tokens;
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        /**
+         * The total time calls have waited for this key to refill.
+         */
+        public long getWaitedNanos() {
+            return waitedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Credential{" + apiKey.substring(0, Math.min(4, apiKey.length())) + "..., calls=" + calls
+                    + ", inFlight=" + inFlight + ", tokens=" + tokens + "}";
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package si.mazi.rescu;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import si.mazi.rescu.serialization.jackson.serializers.FixedPointDecimalDeserializer;
+import si.mazi.rescu.serialization.jackson.serializers.FixedPointDecimalSerializer;
+
+/**
+ * An immutable decimal number stored as a {@code long} unscaled value and a scale of 0 to {@value #MAX_SCALE}; its
+ * value is {@code unscaledValue / 10^scale}. It's meant for prices and quantities in exchange payloads, where it is
+ * much cheaper to parse, hold and compare than {@link BigDecimal}. Use {@link #toBigDecimal()} for arithmetic.
+ *
+ * Jackson reads it from JSON numbers and strings directly from the parser's buffer (see
+ * {@link FixedPointDecimalDeserializer}) and writes it as a JSON number; {@link Params} formats it in plain notation.
+ * Values that don't fit, ie. with more than 18-19 significant digits or more than {@value #MAX_SCALE} fraction digits
+ * other than trailing zeros, are rejected with a {@link NumberFormatException}, never rounded.
+ *
+ * Like {@link BigDecimal#compareTo}, but unlike {@link BigDecimal#equals}, {@link #equals} and {@link #compareTo}
+ * ignore the scale: 1.5 equals 1.50.
+ */
+@JsonSerialize(using = FixedPointDecimalSerializer.class)
+@JsonDeserialize(using = FixedPointDecimalDeserializer.class)
+public final class FixedPointDecimal extends Number implements Comparable<FixedPointDecimal> {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int MAX_SCALE = 18;
+
+    /** The maximum number of characters that {@link #getChars} writes. */
+    public static final int MAX_CHARS = 21;
+
+    public static final FixedPointDecimal ZERO = new FixedPointDecimal(0, 0);
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final long unscaledValue;
+    private final int scale;
+
+    private FixedPointDecimal(long unscaledValue, int scale) {
+        this.unscaledValue = unscaledValue;
+        this.scale = scale;
+    }
+
+    public static FixedPointDecimal valueOf(long unscaledValue, int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale must be between 0 and " + MAX_SCALE + ": " + scale);
+        }
+        return new FixedPointDecimal(unscaledValue, scale);
+    }
+
+    public static FixedPointDecimal valueOf(long value) {
+        return value == 0 ? ZERO : new FixedPointDecimal(value, 0);
+    }
+
+    /**
+     * @throws NumberFormatException if the value doesn't fit; see the class description.
+     */
+    public static FixedPointDecimal valueOf(BigDecimal value) {
+        BigDecimal v = value;
+        if (v.scale() > MAX_SCALE) {
+            v = v.stripTrailingZeros();
+        }
+        if (v.scale() < 0) {
+            v = v.setScale(0);
+        }
+        if (v.scale() > MAX_SCALE || v.unscaledValue().bitLength() > 63) {
+            throw new NumberFormatException("Value out of range for FixedPointDecimal: " + value.toPlainString());
+        }
+        return new FixedPointDecimal(v.unscaledValue().longValue(), v.scale());
+    }
+
+    /**
+     * Parses a decimal number, optionally signed and with an exponent, as in "-0.015", "12" or "1.5E-3".
+     *
+     * @throws NumberFormatException if the text is not a number or the value doesn't fit.
+     */
+    public static FixedPointDecimal parse(CharSequence text) {
+        String s = text.toString();
+        return parse(s.toCharArray(), 0, s.length());
+    }
+
+    /**
+     * Parses a decimal number from a range of a character array without allocating anything other than the result.
+     *
+     * @see #parse(CharSequence)
+     * @throws NumberFormatException if the text is not a number or the value doesn't fit.
+     */
+    public static FixedPointDecimal parse(char[] chars, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        if (length <= 0) {
+            throw new NumberFormatException("Empty number");
+        }
+        boolean negative = false;
+        if (chars[i] == '-' || chars[i] == '+') {
+            negative = chars[i] == '-';
+            i++;
+        }
+        // Accumulated as a negative number, so that Long.MIN_VALUE fits.
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+        // Zeros in the fraction are only applied when followed by another digit, so that trailing zeros that
+        // don't fit can be dropped without changing the value.
+        int pendingZeros = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (fraction && c == '0') {
+                    pendingZeros++;
+                    continue;
+                }
+                for (; pendingZeros > 0; pendingZeros--) {
+                    mantissa = appendDigit(mantissa, 0, chars, offset, length);
+                    scale++;
+                }
+                mantissa = appendDigit(mantissa, c - '0', chars, offset, length);
+                if (fraction) {
+                    scale++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if ((c == 'e' || c == 'E') && digits > 0) {
+                break;
+            } else {
+                throw invalid(chars, offset, length);
+            }
+        }
+        if (digits == 0) {
+            throw invalid(chars, offset, length);
+        }
+        if (i < end) {
+            scale -= parseExponent(chars, i + 1, end, offset, length);
+        }
+        for (; pendingZeros > 0 && scale < MAX_SCALE && mantissa >= Long.MIN_VALUE / 10; pendingZeros--) {
+            mantissa *= 10;
+            scale++;
+        }
+        for (; scale < 0; scale++) {
+            mantissa = appendDigit(mantissa, 0, chars, offset, length);
+        }
+        for (; scale > MAX_SCALE && mantissa % 10 == 0; scale--) {
+            mantissa /= 10;
+        }
+        if (scale > MAX_SCALE) {
+            throw outOfRange(chars, offset, length);
+        }
+        if (!negative) {
+            if (mantissa == Long.MIN_VALUE) {
+                throw outOfRange(chars, offset, length);
+            }
+            mantissa = -mantissa;
+        }
+        return mantissa == 0 && scale == 0 ? ZERO : new FixedPointDecimal(mantissa, scale);
+    }
+
+    /**
+     * Parses a decimal number as a {@code long} in units of {@code 10^-scale}, eg. "1.5" with scale 2 as 150, without
+     * allocating anything. Accepts the same syntax as {@link #parse(CharSequence)}.
+     *
+     * @throws NumberFormatException if the text is not a number, has nonzero digits beyond the scale or doesn't fit.
+     */
+    public static long parseUnscaled(char[] chars, int offset, int length, int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale must be between 0 and " + MAX_SCALE + ": " + scale);
+        }
+        int i = offset;
+        int end = offset + length;
+        if (length <= 0) {
+            throw new NumberFormatException("Empty number");
+        }
+        boolean negative = false;
+        if (chars[i] == '-' || chars[i] == '+') {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digitsScale = 0;
+        int digits = 0;
+        int pendingZeros = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (fraction && c == '0') {
+                    pendingZeros++;
+                    continue;
+                }
+                for (; pendingZeros > 0; pendingZeros--) {
+                    mantissa = appendDigit(mantissa, 0, chars, offset, length);
+                    digitsScale++;
+                }
+                mantissa = appendDigit(mantissa, c - '0', chars, offset, length);
+                if (fraction) {
+                    digitsScale++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if ((c == 'e' || c == 'E') && digits > 0) {
+                break;
+            } else {
+                throw invalid(chars, offset, length);
+            }
+        }
+        if (digits == 0) {
+            throw invalid(chars, offset, length);
+        }
+        if (i < end) {
+            digitsScale -= parseExponent(chars, i + 1, end, offset, length);
+        }
+        for (; digitsScale < scale; digitsScale++) {
+            mantissa = appendDigit(mantissa, 0, chars, offset, length);
+        }
+        for (; digitsScale > scale; digitsScale--) {
+            if (mantissa % 10 != 0) {
+                throw new NumberFormatException("More than " + scale + " fraction digits: " + new String(chars, offset, length));
+            }
+            mantissa /= 10;
+        }
+        if (!negative) {
+            if (mantissa == Long.MIN_VALUE) {
+                throw outOfRange(chars, offset, length);
+            }
+            mantissa = -mantissa;
+        }
+        return mantissa;
+    }
+
+    /**
+     * @return 10^exponent, for exponents from 0 to {@value #MAX_SCALE}
+     */
+    public static long powerOfTen(int exponent) {
+        return POWERS_OF_TEN[exponent];
+    }
+
+    private static long appendDigit(long negativeMantissa, int digit, char[] chars, int offset, int length) {
+        if (negativeMantissa < Long.MIN_VALUE / 10
+                || (negativeMantissa == Long.MIN_VALUE / 10 && digit > -(Long.MIN_VALUE % 10))) {
+            throw outOfRange(chars, offset, length);
+        }
+        return negativeMantissa * 10 - digit;
+    }
+
+    private static int parseExponent(char[] chars, int i, int end, int offset, int length) {
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        if (i == end) {
+            throw invalid(chars, offset, length);
+        }
+        int exponent = 0;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                throw invalid(chars, offset, length);
+            }
+            exponent = exponent * 10 + (c - '0');
+            if (exponent > 1000) {
+                throw outOfRange(chars, offset, length);
+            }
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    private static NumberFormatException invalid(char[] chars, int offset, int length) {
+        return new NumberFormatException("Not a decimal number: " + new String(chars, offset, length));
+    }
+
+    private static NumberFormatException outOfRange(char[] chars, int offset, int length) {
+        return new NumberFormatException("Value out of range for FixedPointDecimal: " + new String(chars, offset, length));
+    }
+
+    public long getUnscaledValue() {
+        return unscaledValue;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public int signum() {
+        return Long.signum(unscaledValue);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(unscaledValue, scale);
+    }
+
+    @Override
+    public long longValue() {
+        return unscaledValue / POWERS_OF_TEN[scale];
+    }
+
+    @Override
+    public int intValue() {
+        return (int) longValue();
+    }
+
+    @Override
+    public double doubleValue() {
+        // Exact when both the unscaled value and the power of ten are exactly representable, as with most prices.
+        if (unscaledValue > -(1L << 53) && unscaledValue < (1L << 53)) {
+            return unscaledValue / (double) POWERS_OF_TEN[scale];
+        }
+        return toBigDecimal().doubleValue();
+    }
+
+    @Override
+    public float floatValue() {
+        return (float) doubleValue();
+    }
+
+    /**
+     * Writes the value in plain notation (never with an exponent) to the buffer, which must have at least
+     * {@link #MAX_CHARS} characters available from the offset.
+     *
+     * @return the number of characters written
+     */
+    public int getChars(char[] buffer, int offset) {
+        int pos = offset + MAX_CHARS;
+        // Negative, so that Long.MIN_VALUE works too.
+        long v = unscaledValue > 0 ? -unscaledValue : unscaledValue;
+        int digits = 0;
+        while (true) {
+            if (digits == scale && scale > 0) {
+                buffer[--pos] = '.';
+            }
+            buffer[--pos] = (char) ('0' - v % 10);
+            v /= 10;
+            digits++;
+            if (v == 0 && digits > scale) {
+                break;
+            }
+        }
+        if (unscaledValue < 0) {
+            buffer[--pos] = '-';
+        }
+        int length = offset + MAX_CHARS - pos;
+        System.arraycopy(buffer, pos, buffer, offset, length);
+        return length;
+    }
+
+    /**
+     * @return the value in plain notation, keeping the scale, eg. "0.0010"
+     */
+    @Override
+    public String toString() {
+        char[] buffer = new char[MAX_CHARS];
+        return new String(buffer, 0, getChars(buffer, 0));
+    }
+
+    @Override
+    public int compareTo(FixedPointDecimal other) {
+        if (scale == other.scale) {
+            return Long.compare(unscaledValue, other.unscaledValue);
+        }
+        int signum = signum();
+        if (signum != other.signum()) {
+            return Integer.compare(signum, other.signum());
+        }
+        if (scale < other.scale) {
+            return -other.compareTo(this);
+        }
+        // Bring the other value to this scale, if it fits.
+        long factor = POWERS_OF_TEN[scale - other.scale];
+        long limit = Long.MAX_VALUE / factor;
+        if (other.unscaledValue >= -limit && other.unscaledValue <= limit) {
+            return Long.compare(unscaledValue, other.unscaledValue * factor);
+        }
+        // The other value is larger in magnitude than any value with this scale.
+        return signum > 0 ? -1 : 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof FixedPointDecimal && compareTo((FixedPointDecimal) o) == 0);
+    }
+
+    @Override
+    public int hashCode() {
+        long v = unscaledValue;
+        int s = scale;
+        for (; s > 0 && v % 10 == 0; s--) {
+            v /= 10;
+        }
+        return 31 * Long.hashCode(v) + s;
+    }
+}
@@ -0,0 +1,60 @@
+package si.mazi.rescu;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import si.mazi.rescu.metrics.Phase;
+
+/**
+ * The Java Flight Recorder event of a call, {@code rescu.Invocation}, with the times of its phases, the sizes of the
+ * bodies and the response status. The event is implemented in the Java 11 part of the multi-release jar; it is
+ * enabled and given a threshold with the usual recording settings. If it isn't enabled in any running recording,
+ * and always on Java 8, {@link #start} returns null and calls are not slowed down.
+ */
+abstract class FlightRecording {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecording.class);
+
+    private static final Factory FACTORY = loadFactory();
+
+    interface Factory {
+        FlightRecording start(RestMethodMetadata methodMetadata);
+    }
+
+    /**
+     * @return the recording of a call of the given method that is starting now, or null if events aren't recorded
+     */
+    static FlightRecording start(RestMethodMetadata methodMetadata) {
+        return FACTORY == null ? null : FACTORY.start(methodMetadata);
+    }
+
+    private static Factory loadFactory() {
+        try {
+            return (Factory) Class.forName("si.mazi.rescu.JfrRecordings").getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException | LinkageError e) {
+            // Java 8, or a runtime without the jdk.jfr module.
+            return null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Failed to load the flight recorder events", e);
+            return null;
+        }
+    }
+
+    /**
+     * @param nanos the time spent waiting for the lock of the call's {@link SynchronizedValueFactory}
+     */
+    abstract void locked(long nanos);
+
+    abstract void phase(Phase phase, long nanos);
+
+    abstract void requestBody(String body);
+
+    abstract void response(InvocationResult result);
+
+    abstract void failed(Throwable failure);
+
+    /**
+     * Commits the event, if it is over the threshold.
+     */
+    abstract void end();
+}
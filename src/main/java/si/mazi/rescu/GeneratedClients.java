@@ -0,0 +1,96 @@
+package si.mazi.rescu;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Looks up the client classes generated at compile time by the rescu annotation processor. For a rest
+ * interface {@code com.example.FooApi}, the processor generates {@code com.example.FooApi$$RescuClient},
+ * which implements the interface by delegating to an {@link InvocationHandler}, and its nested
+ * {@code MetadataFactory}.
+ */
+final class GeneratedClients {
+
+    static final String CLIENT_SUFFIX = "$$RescuClient";
+    static final String METADATA_FACTORY_SUFFIX = CLIENT_SUFFIX + "$MetadataFactory";
+
+    private static final Logger log = LoggerFactory.getLogger(GeneratedClients.class);
+
+    private static final Map<Class<?>, Constructor<?>> clientConstructors = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Boolean> missing = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, RestMethodMetadataFactory> metadataFactories = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Boolean> missingMetadataFactories = new ConcurrentHashMap<>();
+
+    private GeneratedClients() throws InstantiationException {
+        throw new InstantiationException("This class is not for instantiation");
+    }
+
+    /**
+     * @return an instance of the generated client for the interface, or null if none was generated.
+     */
+    static <I> I newClient(Class<I> restInterface, InvocationHandler handler) {
+        Constructor<?> constructor = clientConstructors.get(restInterface);
+        if (constructor == null) {
+            if (missing.containsKey(restInterface)) {
+                return null;
+            }
+            Class<?> clientClass = load(restInterface, CLIENT_SUFFIX);
+            if (clientClass == null || !restInterface.isAssignableFrom(clientClass)) {
+                missing.put(restInterface, Boolean.TRUE);
+                return null;
+            }
+            try {
+                constructor = clientClass.getConstructor(InvocationHandler.class);
+            } catch (NoSuchMethodException e) {
+                log.warn("Ignoring generated client {} without an InvocationHandler constructor.", clientClass.getName());
+                missing.put(restInterface, Boolean.TRUE);
+                return null;
+            }
+            clientConstructors.put(restInterface, constructor);
+        }
+        try {
+            return restInterface.cast(constructor.newInstance(handler));
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new RuntimeException("Could not instantiate the generated client " + constructor.getDeclaringClass().getName(), e);
+        }
+    }
+
+    /**
+     * @return the generated metadata factory for the interface, or null if none was generated. The factory keeps no
+     * state, so one instance is shared by all the handlers of the interface.
+     */
+    static RestMethodMetadataFactory metadataFactory(Class<?> restInterface) {
+        RestMethodMetadataFactory factory = metadataFactories.get(restInterface);
+        if (factory != null || missingMetadataFactories.containsKey(restInterface)) {
+            return factory;
+        }
+        Class<?> factoryClass = load(restInterface, METADATA_FACTORY_SUFFIX);
+        if (factoryClass == null || !RestMethodMetadataFactory.class.isAssignableFrom(factoryClass)) {
+            missingMetadataFactories.put(restInterface, Boolean.TRUE);
+            return null;
+        }
+        try {
+            factory = (RestMethodMetadataFactory) factoryClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            log.warn("Could not instantiate the generated metadata factory " + factoryClass.getName(), e);
+            missingMetadataFactories.put(restInterface, Boolean.TRUE);
+            return null;
+        }
+        metadataFactories.put(restInterface, factory);
+        return factory;
+    }
+
+    private static Class<?> load(Class<?> restInterface, String suffix) {
+        try {
+            return Class.forName(restInterface.getName() + suffix, true, restInterface.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package si.mazi.rescu;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * A {@link ParamsDigest} giving the HMAC of the request body, hex or Base64 encoded, eg. for a signature header. It is
+ * thread-safe and may be shared by all the calls of a proxy.
+ * <p>
+ * The key is set up once, in a {@link Mac} that is cloned for each thread that signs while the others are busy; the
+ * clones are pooled, so signing neither creates a {@code Mac} nor locks. The signature is encoded straight into the
+ * returned string.
+ * <p>
+ * For APIs that sign something other than the body, override {@link #getMessage}.
+ */
+public class HmacDigest implements ParamsDigest {
+
+    public static final String HMAC_SHA1 = "HmacSHA1";
+    public static final String HMAC_SHA256 = "HmacSHA256";
+    public static final String HMAC_SHA384 = "HmacSHA384";
+    public static final String HMAC_SHA512 = "HmacSHA512";
+
+    public enum Encoding {
+        /** Lower case hex. */
+        HEX,
+        /** Base64 with padding, without line breaks. */
+        BASE64
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final char[] BASE64_DIGITS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final int POOL_SIZE = poolSize(Runtime.getRuntime().availableProcessors());
+
+    private final SecretKeySpec key;
+    private final Mac prototype;
+    private final Encoding encoding;
+    private final AtomicReferenceArray<Signer> pool = new AtomicReferenceArray<>(POOL_SIZE);
+
+    /**
+     * @throws IllegalArgumentException if the algorithm isn't available or the key is invalid for it
+     */
+    protected HmacDigest(String algorithm, byte[] key, Encoding encoding) throws IllegalArgumentException {
+        if (encoding == null) {
+            throw new NullPointerException("encoding");
+        }
+        this.key = new SecretKeySpec(key, algorithm);
+        this.prototype = createMac(algorithm, this.key);
+        this.encoding = encoding;
+    }
+
+    public static HmacDigest createInstance(String algorithm, byte[] key, Encoding encoding)
+            throws IllegalArgumentException {
+        return new HmacDigest(algorithm, key, encoding);
+    }
+
+    public static HmacDigest sha256Hex(byte[] key) {
+        return createInstance(HMAC_SHA256, key, Encoding.HEX);
+    }
+
+    public static HmacDigest sha256Base64(byte[] key) {
+        return createInstance(HMAC_SHA256, key, Encoding.BASE64);
+    }
+
+    public static HmacDigest sha384Hex(byte[] key) {
+        return createInstance(HMAC_SHA384, key, Encoding.HEX);
+    }
+
+    public static HmacDigest sha384Base64(byte[] key) {
+        return createInstance(HMAC_SHA384, key, Encoding.BASE64);
+    }
+
+    public static HmacDigest sha512Hex(byte[] key) {
+        return createInstance(HMAC_SHA512, key, Encoding.HEX);
+    }
+
+    public static HmacDigest sha512Base64(byte[] key) {
+        return createInstance(HMAC_SHA512, key, Encoding.BASE64);
+    }
+
+    public String getAlgorithm() {
+        return prototype.getAlgorithm();
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    @Override
+    public String digestParams(RestInvocation restInvocation) {
+        return digest(getMessage(restInvocation));
+    }
+
+    /**
+     * @return what is signed: the request body, or the empty string if there is none
+     */
+    protected String getMessage(RestInvocation restInvocation) {
+        String body = restInvocation.getRequestBody();
+        return body == null ? "" : body;
+    }
+
+    /**
+     * @return the encoded HMAC of the message's UTF-8 bytes
+     */
+    public String digest(String message) {
+        Signer signer = acquire();
+        String signature = signer.sign(message, encoding);
+        release(signer);
+        return signature;
+    }
+
+    private Signer acquire() {
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            int index = (start + i) & (POOL_SIZE - 1);
+            Signer signer = pool.get(index);
+            if (signer != null && pool.compareAndSet(index, signer, null)) {
+                return signer;
+            }
+        }
+        return new Signer(cloneMac());
+    }
+
+    private void release(Signer signer) {
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            int index = (start + i) & (POOL_SIZE - 1);
+            if (pool.get(index) == null && pool.compareAndSet(index, null, signer)) {
+                return;
+            }
+        }
+        // The pool is full; leave the signer to the garbage collector.
+    }
+
+    private Mac cloneMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            // Some providers can't clone; initializing a new Mac is slower but equivalent.
+            return createMac(prototype.getAlgorithm(), key);
+        }
+    }
+
+    private static Mac createMac(String algorithm, SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(algorithm);
+            mac.init(key);
+            return mac;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Algorithm not available: " + algorithm, e);
+        } catch (InvalidKeyException e) {
+            throw new IllegalArgumentException("Invalid key for hmac initialization.", e);
+        }
+    }
+
+    static int poolSize(int processors) {
+        int size = Integer.highestOneBit(Math.max(1, processors * 2));
+        return size < processors * 2 ? size << 1 : size;
+    }
+
+    /**
+     * A {@code Mac} with the buffers for signing with it; used by one thread at a time.
+     */
+    private static final class Signer {
+
+        private final Mac mac;
+        private final byte[] signature;
+        private final char[] chars;
+
+        Signer(Mac mac) {
+            this.mac = mac;
+            this.signature = new byte[mac.getMacLength()];
+            this.chars = new char[Math.max(signature.length * 2, (signature.length + 2) / 3 * 4)];
+        }
+
+        String sign(String message, Encoding encoding) {
+            mac.update(message.getBytes(StandardCharsets.UTF_8));
+            try {
+                mac.doFinal(signature, 0);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException(e);
+            }
+            return encoding == Encoding.HEX ? hex() : base64();
+        }
+
+        private String hex() {
+            int n = 0;
+            for (byte b : signature) {
+                chars[n++] = HEX_DIGITS[b >> 4 & 0xf];
+                chars[n++] = HEX_DIGITS[b & 0xf];
+            }
+            return new String(chars, 0, n);
+        }
+
+        private String base64() {
+            int n = 0;
+            int i = 0;
+            for (; i + 2 < signature.length; i += 3) {
+                int bits = (signature[i] & 0xff) << 16 | (signature[i + 1] & 0xff) << 8 | signature[i + 2] & 0xff;
+                chars[n++] = BASE64_DIGITS[bits >> 18];
+                chars[n++] = BASE64_DIGITS[bits >> 12 & 0x3f];
+                chars[n++] = BASE64_DIGITS[bits >> 6 & 0x3f];
+                chars[n++] = BASE64_DIGITS[bits & 0x3f];
+            }
+            int left = signature.length - i;
+            if (left > 0) {
+                int bits = (signature[i] & 0xff) << 16 | (left == 2 ? (signature[i + 1] & 0xff) << 8 : 0);
+                chars[n++] = BASE64_DIGITS[bits >> 18];
+                chars[n++] = BASE64_DIGITS[bits >> 12 & 0x3f];
+                chars[n++] = left == 2 ? BASE64_DIGITS[bits >> 6 & 0x3f] : '=';
+                chars[n++] = '=';
+            }
+            return new String(chars, 0, n);
+        }
+    }
+}
@@ -23,13 +23,8 @@ package si.mazi.rescu;
 
 import net.iharder.Base64;
 
-import javax.crypto.Mac;
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 
 /**
  * <p>
@@ -40,11 +35,13 @@ import java.security.NoSuchAlgorithmException;
  * This may be used for REST APIs where some parameters' values must be digests of other parameters. An example is the MtGox API v1, where the Rest-Sign header parameter must be a digest of the
  * request body (which is composed of @FormParams).
  * </p>
+ * <p>
+ * It is the Base64 HmacSHA512 {@link HmacDigest}, with a Base64 key, and is thread-safe.
+ * </p>
  */
 public final class HmacPostBodyDigest implements ParamsDigest {
 
-    private static final String HMAC_SHA_512 = "HmacSHA512";
-    private final Mac mac;
+    private final HmacDigest digest;
 
     /**
      * Constructor
@@ -54,15 +51,9 @@ public final class HmacPostBodyDigest implements ParamsDigest {
     private HmacPostBodyDigest(String secretKeyBase64) throws IllegalArgumentException {
 
         try {
-            SecretKey secretKey = new SecretKeySpec(Base64.decode(secretKeyBase64.getBytes(StandardCharsets.UTF_8)), HMAC_SHA_512);
-            mac = Mac.getInstance(HMAC_SHA_512);
-            mac.init(secretKey);
+            digest = HmacDigest.sha512Base64(Base64.decode(secretKeyBase64.getBytes(StandardCharsets.UTF_8)));
         } catch (IOException e) {
             throw new IllegalArgumentException("Could not decode Base 64 string", e);
-        } catch (InvalidKeyException e) {
-            throw new IllegalArgumentException("Invalid key for hmac initialization.", e);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Illegal algorithm for post body digest. Check the implementation.");
         }
     }
 
@@ -73,7 +64,6 @@ public final class HmacPostBodyDigest implements ParamsDigest {
 
     public String digestParams(RestInvocation restInvocation) {
 
-        mac.update(restInvocation.getRequestBody().getBytes(StandardCharsets.UTF_8));
-        return Base64.encodeBytes(mac.doFinal()).trim();
+        return digest.digest(restInvocation.getRequestBody());
     }
-}
\ No newline at end of file
+}
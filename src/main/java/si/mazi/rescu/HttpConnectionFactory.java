@@ -0,0 +1,27 @@
+package si.mazi.rescu;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+
+/**
+ * Opens the connections that rest invocations are sent through; set with
+ * {@link ClientConfig#setHttpConnectionFactory}. The connection is configured (method, headers, timeouts, SSL) and
+ * used by rescu after it is returned, and must not be connected yet. See {@link si.mazi.rescu.replay} for
+ * implementations that record and replay exchanges.
+ */
+public interface HttpConnectionFactory {
+
+    /**
+     * The default factory, connecting to the url through the proxy.
+     */
+    HttpConnectionFactory DEFAULT = (invocation, url, proxy) -> (HttpURLConnection) url.openConnection(proxy);
+
+    /**
+     * @param invocation the invocation being sent, or null if the connection is not for a rest proxy call
+     * @param url the invocation url
+     * @param proxy the proxy configured in {@link ClientConfig}, or {@link Proxy#NO_PROXY}
+     */
+    HttpURLConnection openConnection(RestInvocation invocation, URL url, Proxy proxy) throws IOException;
+}
@@ -70,6 +70,7 @@ class HttpTemplate {
 	private final SSLSocketFactory sslSocketFactory;
 	private final HostnameVerifier hostnameVerifier;
 	private final OAuthConsumer oAuthConsumer;
+	private final HttpConnectionFactory connectionFactory;
 
 	private Map<String, List<String>> recentRequestProperties;
 
@@ -84,7 +85,16 @@ class HttpTemplate {
 			Integer proxyPort, SSLSocketFactory sslSocketFactory,
 			HostnameVerifier hostnameVerifier, OAuthConsumer oAuthConsumer
 			) {
+		this(connTimeout, readTimeout, proxyHost, proxyPort, sslSocketFactory,
+				hostnameVerifier, oAuthConsumer, HttpConnectionFactory.DEFAULT);
+	}
+
+	HttpTemplate(int connTimeout, int readTimeout, String proxyHost,
+			Integer proxyPort, SSLSocketFactory sslSocketFactory,
+			HostnameVerifier hostnameVerifier, OAuthConsumer oAuthConsumer,
+			HttpConnectionFactory connectionFactory) {
 		this.connTimeout = connTimeout;
+		this.connectionFactory = connectionFactory == null ? HttpConnectionFactory.DEFAULT : connectionFactory;
 		this.readTimeout = readTimeout;
 		this.sslSocketFactory = sslSocketFactory;
 		this.hostnameVerifier = hostnameVerifier;
@@ -112,6 +122,15 @@ class HttpTemplate {
 	HttpURLConnection send(String urlString, String requestBody,
 			Map<String, String> httpHeaders, HttpMethod method)
 					throws IOException {
+		return send(null, urlString, requestBody, httpHeaders, method);
+	}
+
+	/**
+	 * @param invocation the invocation being sent, passed to the {@link HttpConnectionFactory}; may be null
+	 */
+	HttpURLConnection send(RestInvocation invocation, String urlString, String requestBody,
+			Map<String, String> httpHeaders, HttpMethod method)
+					throws IOException {
 		log.debug("Executing {} request at {}", method, urlString);
 		log.trace("Request body = {}", requestBody);
 		log.trace("Request headers = {}", httpHeaders);
@@ -119,11 +138,11 @@ class HttpTemplate {
 		preconditionNotNull(urlString, "urlString cannot be null");
 		preconditionNotNull(httpHeaders, "httpHeaders should not be null");
 
-		int contentLength = requestBody == null
-				? 0
-						: requestBody.getBytes().length;
+		// encoded once, for both the Content-Length and the body written
+		byte[] body = requestBody == null ? null : requestBody.getBytes(StandardCharsets.UTF_8);
+		int contentLength = body == null ? 0 : body.length;
 		// this doesn't connect the connection
-		HttpURLConnection connection = configureURLConnection(method, urlString,
+		HttpURLConnection connection = configureURLConnection(invocation, method, urlString,
 				httpHeaders, contentLength);
 		if (oAuthConsumer != null) {
 			HttpRequest request = new RescuOAuthRequestAdapter(connection,
@@ -140,7 +159,7 @@ class HttpTemplate {
 		if (contentLength > 0) {
 			// Write the request body
 			OutputStream out = connection.getOutputStream();
-			out.write(requestBody.getBytes(CHARSET_UTF_8));
+			out.write(body);
 			out.flush();
 		}
 		return connection;
@@ -168,6 +187,8 @@ class HttpTemplate {
 	 * Provides an internal convenience method to allow easy overriding by test
 	 * classes
 	 *
+	 * @param invocation
+	 *            The invocation being sent, or null
 	 * @param method
 	 *            The HTTP method (e.g. GET, POST etc)
 	 * @param urlString
@@ -180,7 +201,7 @@ class HttpTemplate {
 	 * @throws IOException
 	 *             If something goes wrong
 	 */
-	private HttpURLConnection configureURLConnection(HttpMethod method,
+	private HttpURLConnection configureURLConnection(RestInvocation invocation, HttpMethod method,
 			String urlString, Map<String, String> httpHeaders,
 			int contentLength) throws IOException {
 
@@ -188,7 +209,9 @@ class HttpTemplate {
 		preconditionNotNull(urlString, "urlString cannot be null");
 		preconditionNotNull(httpHeaders, "httpHeaders cannot be null");
 
-		HttpURLConnection connection = getHttpURLConnection(urlString);
+		HttpURLConnection connection = invocation == null
+				? getHttpURLConnection(urlString)
+				: getHttpURLConnection(invocation, urlString);
 		connection.setRequestMethod(method.name());
 
 		Map<String, String> headerKeyValues = new HashMap<>(defaultHttpHeaders);
@@ -214,8 +237,12 @@ class HttpTemplate {
 
 	protected HttpURLConnection getHttpURLConnection(String urlString)
 			throws IOException {
-		HttpURLConnection connection = (HttpURLConnection) new URL(urlString)
-				.openConnection(proxy);
+		return getHttpURLConnection(null, urlString);
+	}
+
+	protected HttpURLConnection getHttpURLConnection(RestInvocation invocation, String urlString)
+			throws IOException {
+		HttpURLConnection connection = connectionFactory.openConnection(invocation, new URL(urlString), proxy);
 
 		if (readTimeout > 0) {
 			connection.setReadTimeout(readTimeout);
@@ -126,7 +126,7 @@ public class InjectableParametersMapper<T extends RestInterface> {
       // interface is expecting
       Injector<?> providedInjector = injectors.get(definedInjectable.name());
       try {
-        Method providedInjectorGetter = providedInjector.getClass().getDeclaredMethod("get", new Class<?>[0]);
+        Method providedInjectorGetter = getGetter(providedInjector);
         checkInjectorGetter(providedInjectorGetter, definedInjectable, restInterface);
       } catch (NoSuchMethodException | SecurityException e) {
         throw new IllegalArgumentException(
@@ -209,7 +209,7 @@ public class InjectableParametersMapper<T extends RestInterface> {
   public Annotation[] getAnnotations(String name) {
     Injector<?> injector = injectors.get(name);
     try {
-      return injector.getClass().getDeclaredMethod("get", new Class<?>[] {}).getAnnotations();
+      return getGetter(injector).getAnnotations();
     } catch (NoSuchMethodException | SecurityException e) {
       logger.error("Failed to find annotations on injector's get method, returning empty array");
       return new Annotation[] {};
@@ -217,7 +217,23 @@ public class InjectableParametersMapper<T extends RestInterface> {
   }
 
   public Object getParam(String name) {
-    return injectors.get(name) == null ? null : injectors.get(name).get();
+    Injector<?> injector = injectors.get(name);
+    return injector == null ? null : injector.get();
+  }
+
+  Injector<?> getInjector(String name) {
+    return injectors.get(name);
+  }
+
+  /**
+   * The get method that is annotated for the injector: its own, or the wrapped
+   * injector's if it's a {@link CachingInjector}.
+   */
+  private static Method getGetter(Injector<?> injector) throws NoSuchMethodException {
+    while (injector instanceof CachingInjector) {
+      injector = ((CachingInjector<?>) injector).getDelegate();
+    }
+    return injector.getClass().getDeclaredMethod("get", new Class<?>[0]);
   }
 
 }
@@ -0,0 +1,65 @@
+package si.mazi.rescu;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Factory methods for the {@link Executor}s that may be set with
+ * {@link ClientConfig#setInvocationExecutor(Executor)}. The executor runs the
+ * part of each invocation that waits for, reads and maps the HTTP response.
+ *
+ * Any other {@code Executor} may be supplied as well; note that an executor
+ * set on a {@code ClientConfig} is shared by all proxies created with that
+ * config and is never shut down by rescu.
+ *
+ * The proxy methods block until the response is mapped, whichever executor
+ * runs that part, so an executor never frees the calling thread. To make many
+ * calls at once without holding a platform thread for each (JDK 21 or newer),
+ * call the proxy from virtual threads of your own and use the
+ * {@link #callerThread()} executor: the whole invocation then runs on the
+ * virtual thread, which releases its carrier while it waits for the response.
+ */
+public final class InvocationExecutors {
+
+    private static final Executor CALLER_THREAD = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public String toString() {
+            return "CallerThreadExecutor";
+        }
+    };
+
+    private InvocationExecutors() throws InstantiationException {
+        throw new InstantiationException("This class is not for instantiation");
+    }
+
+    /**
+     * @return an executor that runs the response handling directly on the thread
+     * that called the proxy method, without any hand-off to another thread. This
+     * is the executor to use when the proxy is called from virtual threads.
+     */
+    public static Executor callerThread() {
+        return CALLER_THREAD;
+    }
+
+    /**
+     * @return a new pool of the given number of threads; this is what rescu uses
+     * (with 3 threads, per proxy) when no executor is configured.
+     */
+    public static ExecutorService fixedThreadPool(int threads) {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("RestPollingThread-%d").build();
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    static boolean isCallerThread(Executor executor) {
+        return executor == CALLER_THREAD;
+    }
+}
@@ -0,0 +1,76 @@
+package si.mazi.rescu;
+
+import java.net.HttpURLConnection;
+
+/**
+ * Receives the events of the calls of rest proxies, eg. for tracing or metrics; register with
+ * {@link ClientConfig#addInvocationListener}. Unlike an {@link Interceptor}, which only sees the method and the
+ * arguments, a listener sees the invocation go through its phases.
+ * <p>
+ * The times are {@link System#nanoTime()}s. A call's events come in the order of the methods below, each at most once,
+ * and always end with {@link #invocationEnded}; a call that fails skips the rest of the events. They are called on
+ * the calling thread up to {@link #connected}, and on the thread that receives the response from then on (see
+ * {@link ClientConfig#setInvocationExecutor}), so listeners must be thread-safe; they should also be quick, since they
+ * add to the calls' latency. Exceptions thrown by listeners are logged and otherwise ignored.
+ */
+public interface InvocationListener {
+
+    /**
+     * The proxy was called.
+     */
+    default void invocationStarted(RestMethodMetadata methodMetadata, long nanoTime) {
+    }
+
+    /**
+     * The arguments were bound to the params and the {@link ParamsDigest}s were called.
+     */
+    default void invocationCreated(RestInvocation invocation, long nanoTime) {
+    }
+
+    /**
+     * The request body, if any, was written to a string.
+     */
+    default void requestBodyWritten(RestInvocation invocation, long nanoTime) {
+    }
+
+    /**
+     * A new connection was established or a pooled one was taken, and the request was sent; the JDK's
+     * {@link HttpURLConnection} doesn't tell which.
+     */
+    default void connected(RestInvocation invocation, HttpURLConnection connection, long nanoTime) {
+    }
+
+    /**
+     * The response status and headers were received.
+     */
+    default void responseReceived(RestInvocation invocation, int statusCode, long nanoTime) {
+    }
+
+    /**
+     * The response body was read.
+     */
+    default void responseRead(RestInvocation invocation, long nanoTime) {
+    }
+
+    /**
+     * The response body was mapped to the returned object.
+     */
+    default void responseMapped(RestInvocation invocation, long nanoTime) {
+    }
+
+    /**
+     * The call failed; it will throw the given exception, possibly wrapped.
+     *
+     * @param invocation null if the call failed before the invocation was created
+     */
+    default void invocationFailed(RestInvocation invocation, Throwable failure, long nanoTime) {
+    }
+
+    /**
+     * The call is about to return or throw.
+     *
+     * @param invocation null if the call failed before the invocation was created
+     */
+    default void invocationEnded(RestInvocation invocation, long nanoTime) {
+    }
+}
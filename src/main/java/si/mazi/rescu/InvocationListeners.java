@@ -0,0 +1,131 @@
+package si.mazi.rescu;
+
+import java.net.HttpURLConnection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Passes the events on to the registered listeners, in order, logging what they throw.
+ */
+final class InvocationListeners implements InvocationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(InvocationListeners.class);
+
+    private final InvocationListener[] listeners;
+
+    private InvocationListeners(List<InvocationListener> listeners) {
+        this.listeners = listeners.toArray(new InvocationListener[0]);
+    }
+
+    /**
+     * @return the listener of the given ones, or null if there are none
+     */
+    static InvocationListener of(List<InvocationListener> listeners) {
+        return listeners == null || listeners.isEmpty() ? null : new InvocationListeners(listeners);
+    }
+
+    private static void failed(InvocationListener listener, String event, RuntimeException e) {
+        log.warn("Invocation listener {} failed on {}", listener, event, e);
+    }
+
+    @Override
+    public void invocationStarted(RestMethodMetadata methodMetadata, long nanoTime) {
+        for (InvocationListener listener : listeners) {
+            try {
+                listener.invocationStarted(methodMetadata, nanoTime);
+            } catch (RuntimeException e) {
+                failed(listener, "invocationStarted", e);
+            }
+        }
+    }
+
+    @Override
+    public void invocationCreated(RestInvocation invocation, long nanoTime) {
+        for (InvocationListener listener : listeners) {
+            try {
+                listener.invocationCreated(invocation, nanoTime);
+            } catch (RuntimeException e) {
+                failed(listener, "invocationCreated", e);
+            }
+        }
+    }
+
+    @Override
+    public void requestBodyWritten(RestInvocation invocation, long nanoTime) {
+        for (InvocationListener listener : listeners) {
+            try {
+                listener.requestBodyWritten(invocation, nanoTime);
+            } catch (RuntimeException e) {
+                failed(listener, "requestBodyWritten", e);
+            }
+        }
+    }
+
+    @Override
+    public void connected(RestInvocation invocation, HttpURLConnection connection, long nanoTime) {
+        for (InvocationListener listener : listeners) {
+            try {
+                listener.connected(invocation, connection, nanoTime);
+            } catch (RuntimeException e) {
+                failed(listener, "connected", e);
+            }
+        }
+    }
+
+    @Override
+    public void responseReceived(RestInvocation invocation, int statusCode, long nanoTime) {
+        for (InvocationListener listener : listeners) {
+            try {
+                listener.responseReceived(invocation, statusCode, nanoTime);
+            } catch (RuntimeException e) {
+                failed(listener, "responseReceived", e);
+            }
+        }
+    }
+
+    @Override
+    public void responseRead(RestInvocation invocation, long nanoTime) {
+        for (InvocationListener listener : listeners) {
+            try {
+                listener.responseRead(invocation, nanoTime);
+            } catch (RuntimeException e) {
+                failed(listener, "responseRead", e);
+            }
+        }
+    }
+
+    @Override
+    public void responseMapped(RestInvocation invocation, long nanoTime) {
+        for (InvocationListener listener : listeners) {
+            try {
+                listener.responseMapped(invocation, nanoTime);
+            } catch (RuntimeException e) {
+                failed(listener, "responseMapped", e);
+            }
+        }
+    }
+
+    @Override
+    public void invocationFailed(RestInvocation invocation, Throwable failure, long nanoTime) {
+        for (InvocationListener listener : listeners) {
+            try {
+                listener.invocationFailed(invocation, failure, nanoTime);
+            } catch (RuntimeException e) {
+                failed(listener, "invocationFailed", e);
+            }
+        }
+    }
+
+    @Override
+    public void invocationEnded(RestInvocation invocation, long nanoTime) {
+        for (InvocationListener listener : listeners) {
+            try {
+                listener.invocationEnded(invocation, nanoTime);
+            } catch (RuntimeException e) {
+                failed(listener, "invocationEnded", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package si.mazi.rescu;
+
+import java.util.Arrays;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import si.mazi.rescu.serialization.jackson.serializers.NumericColumnsDeserializer;
+
+/**
+ * A table of numbers stored as one primitive array per column, for payloads that are arrays of numeric arrays,
+ * such as order books ({@code [[price, qty], ...]}) and candles ({@code [[ts, o, h, l, c, v], ...]}). Reading
+ * such a payload into a {@code NumericColumns} creates no objects per row or value.
+ *
+ * Each column is of one of the {@link ColumnType}s: {@code long}, fixed point (a {@code long} in units of
+ * {@code 10^-scale}) or {@code double}. With no column types given, every column is a {@code double} column and
+ * the number of columns is the length of the first row. Values in a row beyond the last column are ignored; JSON
+ * nulls, and missing values in rows that are too short, are stored as 0 in {@code long} columns and as NaN in
+ * {@code double} columns. Numbers may also be given as JSON strings.
+ *
+ * To reuse the arrays across calls, declare a parameter without annotations of this type (or a subclass) on the
+ * rest method, and return the same type: the response is then read into the argument, which is not sent in the
+ * request body. With a null argument, or without the parameter, a new instance is created; subclasses need a
+ * no-argument constructor for that.
+ *
+ * Instances are not thread-safe.
+ */
+@JsonDeserialize(using = NumericColumnsDeserializer.class)
+public class NumericColumns {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private ColumnType[] types;
+    private final boolean autoColumns;
+    private long[][] longColumns;
+    private double[][] doubleColumns;
+    private int rowCount;
+    private int capacity;
+
+    /**
+     * Creates columns that are all {@code double}, as many as there are values in the first row.
+     */
+    public NumericColumns() {
+        this(new ColumnType[0], true);
+    }
+
+    public NumericColumns(ColumnType... types) {
+        this(types.clone(), false);
+    }
+
+    private NumericColumns(ColumnType[] types, boolean autoColumns) {
+        this.types = types;
+        this.autoColumns = autoColumns;
+        this.longColumns = new long[types.length][];
+        this.doubleColumns = new double[types.length][];
+        for (int c = 0; c < types.length; c++) {
+            allocate(c, INITIAL_CAPACITY);
+        }
+        this.capacity = INITIAL_CAPACITY;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return types.length;
+    }
+
+    public ColumnType getColumnType(int column) {
+        return types[column];
+    }
+
+    /**
+     * @return the backing array of a {@code long} or fixed point column; only the first {@link #getRowCount()}
+     * elements are valid, and the array is replaced when the table grows.
+     */
+    public long[] getLongColumn(int column) {
+        if (types[column].isDouble()) {
+            throw new IllegalArgumentException("Column " + column + " is a double column");
+        }
+        return longColumns[column];
+    }
+
+    /**
+     * @return the backing array of a {@code double} column; only the first {@link #getRowCount()} elements are
+     * valid, and the array is replaced when the table grows.
+     */
+    public double[] getDoubleColumn(int column) {
+        if (!types[column].isDouble()) {
+            throw new IllegalArgumentException("Column " + column + " is not a double column");
+        }
+        return doubleColumns[column];
+    }
+
+    public long getLong(int row, int column) {
+        checkRow(row);
+        return types[column].isDouble() ? (long) doubleColumns[column][row] : longColumns[column][row];
+    }
+
+    /**
+     * @return the value as a {@code double}; for fixed point columns, the unscaled value divided by 10^scale.
+     */
+    public double getDouble(int row, int column) {
+        checkRow(row);
+        ColumnType type = types[column];
+        if (type.isDouble()) {
+            return doubleColumns[column][row];
+        }
+        long value = longColumns[column][row];
+        return type.getScale() == 0 ? value : value / (double) FixedPointDecimal.powerOfTen(type.getScale());
+    }
+
+    public void setLong(int row, int column, long value) {
+        checkRow(row);
+        if (types[column].isDouble()) {
+            doubleColumns[column][row] = value;
+        } else {
+            longColumns[column][row] = value;
+        }
+    }
+
+    public void setDouble(int row, int column, double value) {
+        checkRow(row);
+        if (!types[column].isDouble()) {
+            throw new IllegalArgumentException("Column " + column + " is not a double column");
+        }
+        doubleColumns[column][row] = value;
+    }
+
+    /**
+     * Appends a row with all values 0 (or NaN in {@code double} columns).
+     *
+     * @return the index of the new row
+     */
+    public int addRow() {
+        if (rowCount == capacity) {
+            grow(capacity * 2);
+        }
+        int row = rowCount++;
+        for (int c = 0; c < types.length; c++) {
+            if (types[c].isDouble()) {
+                doubleColumns[c][row] = Double.NaN;
+            } else {
+                longColumns[c][row] = 0;
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Removes all rows, keeping the arrays for reuse. If the columns were created without column types, they are
+     * removed too, and will be recreated from the next first row.
+     */
+    public void clear() {
+        rowCount = 0;
+        if (autoColumns) {
+            types = new ColumnType[0];
+        }
+    }
+
+    /**
+     * @return true if the columns are created from the first row; see {@link #NumericColumns()}.
+     */
+    public boolean isAutoColumns() {
+        return autoColumns;
+    }
+
+    /**
+     * Adds a {@code double} column while the table has no more than one row; used to read tables with
+     * {@link #isAutoColumns() automatic columns}.
+     *
+     * @return the index of the new column
+     */
+    public int addDoubleColumn() {
+        if (!autoColumns || rowCount > 1) {
+            throw new IllegalStateException("Columns can only be added to automatic columns, before the second row");
+        }
+        int column = types.length;
+        types = Arrays.copyOf(types, column + 1);
+        types[column] = ColumnType.DOUBLE;
+        if (column >= doubleColumns.length) {
+            longColumns = Arrays.copyOf(longColumns, column + 1);
+            doubleColumns = Arrays.copyOf(doubleColumns, column + 1);
+        }
+        if (doubleColumns[column] == null || doubleColumns[column].length < capacity) {
+            allocate(column, capacity);
+        }
+        for (int row = 0; row < rowCount; row++) {
+            doubleColumns[column][row] = Double.NaN;
+        }
+        return column;
+    }
+
+    private void allocate(int column, int size) {
+        if (types[column].isDouble()) {
+            doubleColumns[column] = new double[size];
+        } else {
+            longColumns[column] = new long[size];
+        }
+    }
+
+    private void grow(int newCapacity) {
+        for (int c = 0; c < types.length; c++) {
+            if (types[c].isDouble()) {
+                doubleColumns[c] = Arrays.copyOf(doubleColumns[c], newCapacity);
+            } else {
+                longColumns[c] = Arrays.copyOf(longColumns[c], newCapacity);
+            }
+        }
+        capacity = newCapacity;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + ", row count " + rowCount);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{columns=" + Arrays.toString(types) + ", rows=" + rowCount + '}';
+    }
+
+    /**
+     * The type of the values in a column of {@link NumericColumns}.
+     */
+    public static final class ColumnType {
+
+        /** Integers, eg. timestamps, stored as {@code long}. */
+        public static final ColumnType LONG = new ColumnType(false, 0);
+
+        /** Any numbers, stored as {@code double}. */
+        public static final ColumnType DOUBLE = new ColumnType(true, 0);
+
+        private static final ColumnType[] FIXED_POINT = new ColumnType[FixedPointDecimal.MAX_SCALE + 1];
+
+        static {
+            FIXED_POINT[0] = LONG;
+            for (int scale = 1; scale < FIXED_POINT.length; scale++) {
+                FIXED_POINT[scale] = new ColumnType(false, scale);
+            }
+        }
+
+        private final boolean isDouble;
+        private final int scale;
+
+        private ColumnType(boolean isDouble, int scale) {
+            this.isDouble = isDouble;
+            this.scale = scale;
+        }
+
+        /**
+         * Decimal numbers stored exactly as {@code long} in units of {@code 10^-scale}, like
+         * {@link FixedPointDecimal#getUnscaledValue()}; values with more fraction digits are rejected.
+         */
+        public static ColumnType fixedPoint(int scale) {
+            if (scale < 0 || scale > FixedPointDecimal.MAX_SCALE) {
+                throw new IllegalArgumentException("Scale must be between 0 and " + FixedPointDecimal.MAX_SCALE + ": " + scale);
+            }
+            return FIXED_POINT[scale];
+        }
+
+        public boolean isDouble() {
+            return isDouble;
+        }
+
+        /**
+         * @return the scale of a fixed point column; 0 for {@link #LONG} and {@link #DOUBLE} columns.
+         */
+        public int getScale() {
+            return scale;
+        }
+
+        @Override
+        public String toString() {
+            return isDouble ? "DOUBLE" : scale == 0 ? "LONG" : "FIXED_POINT(" + scale + ")";
+        }
+    }
+}
@@ -28,6 +28,7 @@ import java.net.URLEncoder;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -96,8 +97,11 @@ public final class Params implements Serializable {
         return this;
     }
 
-    private String toQueryString(boolean encode) {
-        StringBuilder b = new StringBuilder();
+    /**
+     * Passes the params that are set to the consumer as strings, in order, an {@link Iterable} value of a name ending in
+     * {@code []} as one param for each element: the name/value pairs of the query string or form body.
+     */
+    public void forEachParam(BiConsumer<String, String> consumer) {
         for (String paramName : data.keySet()) {
             if (isParamSet(paramName)) {
                 Object originalValue = getParamValue(paramName);
@@ -107,14 +111,20 @@ public final class Params implements Serializable {
                         ? (Iterable<Object>)originalValue
                         : Collections.singleton(originalValue);
                 for (Object paramValue : paramValues) {
-                    if (b.length() > 0) {
-                        b.append('&');
-                    }
-                    String paramValueAsString = toString(paramValue);
-                    b.append(paramName).append('=').append(urlEncode(paramValueAsString, encode));
+                    consumer.accept(paramName, toString(paramValue));
                 }
             }
         }
+    }
+
+    private String toQueryString(boolean encode) {
+        StringBuilder b = new StringBuilder();
+        forEachParam((paramName, paramValue) -> {
+            if (b.length() > 0) {
+                b.append('&');
+            }
+            b.append(paramName).append('=').append(urlEncode(paramValue, encode));
+        });
         return b.toString();
     }
 
@@ -167,6 +177,8 @@ public final class Params implements Serializable {
     String toString(Object paramValue) {
         if (paramValue instanceof BigDecimal) {
             return ((BigDecimal) paramValue).toPlainString();
+        } else if (paramValue instanceof FixedPointDecimal) {
+            return paramValue.toString();
         } else if (paramValue instanceof Iterable) {
             return iterableToString((Iterable) paramValue);
         } else if (paramValue instanceof java.sql.Date) {
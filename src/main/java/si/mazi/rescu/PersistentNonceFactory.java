@@ -0,0 +1,137 @@
+package si.mazi.rescu;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import si.mazi.rescu.utils.MappedBuffers;
+
+/**
+ * Nonces counting up, that carry on over restarts: blocks of them are reserved in a small memory-mapped file, which is
+ * forced to disk before any nonce of a block is handed out, so that a restart, even after a crash, starts above every
+ * nonce handed out before. At most a block of nonces is skipped by a restart. Within a block, creating a nonce is an
+ * atomic increment.
+ * <p>
+ * The file holds two copies of the reserved bound, written in turn, each with its complement to detect a torn write;
+ * it must not be shared by two factories at once.
+ */
+public class PersistentNonceFactory implements SynchronizedValueFactory<Long>, Closeable {
+
+    private static final int SLOT_SIZE = 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int blockSize;
+    private final AtomicLong next;
+    private volatile long reserved;
+    private volatile boolean closed;
+
+    /** The slot the bound was last written to; guarded by this. */
+    private int slot;
+
+    /**
+     * Counts from 1, or from where the file left off, in blocks of 1000.
+     */
+    public PersistentNonceFactory(Path file) throws IOException {
+        this(file, 1, 1000);
+    }
+
+    /**
+     * @param initialValue the first nonce, unless the file has reserved larger ones; eg. the current time in
+     * milliseconds, to start above the nonces of an earlier time-based factory
+     * @param blockSize how many nonces are reserved with each write to the file
+     * @throws IOException if the file can't be mapped, or isn't a nonce file
+     */
+    public PersistentNonceFactory(Path file, long initialValue, int blockSize) throws IOException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer mapped = null;
+        try {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, 2 * SLOT_SIZE);
+            this.buffer = mapped;
+            long first = initialValue;
+            // Mapping extends a new file with zeros, which is all there is if the first reserve didn't reach the disk.
+            if (!isZeros(buffer)) {
+                Long stored = null;
+                for (int i = 0; i < 2; i++) {
+                    long bound = buffer.getLong(i * SLOT_SIZE);
+                    if (bound == ~buffer.getLong(i * SLOT_SIZE + 8) && (stored == null || bound > stored)) {
+                        stored = bound;
+                        slot = i;
+                    }
+                }
+                if (stored == null) {
+                    throw new IOException("Not a nonce file, or corrupted: " + file);
+                }
+                first = Math.max(first, stored);
+            }
+            this.next = new AtomicLong(first);
+            synchronized (this) {
+                reserve(first + blockSize);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (mapped != null) {
+                MappedBuffers.unmap(mapped);
+            }
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static boolean isZeros(MappedByteBuffer buffer) {
+        for (int i = 0; i < 2 * SLOT_SIZE; i += 8) {
+            if (buffer.getLong(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Long createValue() {
+        if (closed) {
+            throw new IllegalStateException("Closed");
+        }
+        long value = next.getAndIncrement();
+        if (value >= reserved) {
+            synchronized (this) {
+                while (value >= reserved) {
+                    reserve(reserved + blockSize);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Writes the bound to the slot that wasn't written last and forces it to disk; the other slot keeps the previous
+     * bound in case this write is torn.
+     */
+    private void reserve(long bound) {
+        if (closed) {
+            throw new IllegalStateException("Closed");
+        }
+        slot = 1 - slot;
+        buffer.putLong(slot * SLOT_SIZE, bound);
+        buffer.putLong(slot * SLOT_SIZE + 8, ~bound);
+        buffer.force();
+        reserved = bound;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            // Unmapped at once, so that the file can be deleted or replaced, also on Windows.
+            MappedBuffers.unmap(buffer);
+            channel.close();
+        }
+    }
+}
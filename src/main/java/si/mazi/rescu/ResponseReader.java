@@ -51,9 +51,17 @@ public abstract class ResponseReader {
         return ignoreHttpErrorCodes;
     }
 
-    @SuppressWarnings("ThrowableResultOfMethodCallIgnored")
     public Object read(InvocationResult invocationResult, RestMethodMetadata methodMetadata)
             throws IOException {
+        return read(invocationResult, methodMetadata, null);
+    }
+
+    /**
+     * @param responseTarget if not null, the object to read the response into instead of creating a new one.
+     */
+    @SuppressWarnings("ThrowableResultOfMethodCallIgnored")
+    public Object read(InvocationResult invocationResult, RestMethodMetadata methodMetadata, Object responseTarget)
+            throws IOException {
         final String httpBody = invocationResult.getHttpBody();
         Exception normalParseFailCause = null;
         final boolean isHttpStatusPass = !invocationResult.isErrorStatusCode() || isIgnoreHttpErrorCodes();
@@ -62,7 +70,9 @@ public abstract class ResponseReader {
                 return null;
             } else {
                 try {
-                    return read(httpBody, methodMetadata.getReturnType());
+                    return responseTarget == null
+                            ? read(httpBody, methodMetadata.getReturnType())
+                            : readInto(httpBody, responseTarget);
                 } catch (IOException|RuntimeException e) {
                     normalParseFailCause = findCause(e, ExceptionalReturnContentException.class, JsonMappingException.class);
                     if (normalParseFailCause == null) {
@@ -106,6 +116,13 @@ public abstract class ResponseReader {
 
     protected abstract <T> T read(String httpBody, Type returnType) throws IOException, ExceptionalReturnContentException;
 
+    /**
+     * Reads the body into an existing object. Readers that can't do this throw an {@code UnsupportedOperationException}.
+     */
+    protected <T> T readInto(String httpBody, T target) throws IOException, ExceptionalReturnContentException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " can't read a response into an existing " + target.getClass().getName());
+    }
+
     protected abstract RuntimeException readException(String httpBody, Class<? extends RuntimeException> exceptionType) throws IOException;
 
     /**
@@ -29,6 +29,7 @@ import javax.ws.rs.FormParam;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
+import java.io.IOException;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.util.*;
@@ -59,6 +60,10 @@ public class RestInvocation implements Serializable {
     private final String queryString;
     private final String path;
     private final RequestWriter requestWriter;
+    private String baseUrl;
+    private transient Object responseTarget;
+    private transient FlightRecording flightRecording;
+    private transient IOException connectFailure;
 
     private Map<String, String> allHttpHeaders;
 
@@ -84,34 +89,57 @@ public class RestInvocation implements Serializable {
             RestMethodMetadata methodMetadata,
             Object[] args,
             Map<Class<? extends Annotation>, Params> defaultParamsMap) {
+        RestInvocation invocation = bind(requestWriterResolver, methodMetadata, args, defaultParamsMap);
+        invocation.digest();
+        return invocation;
+    }
+
+    /**
+     * Like {@link #create}, but leaves the {@link ParamsDigest}s to {@link #digest()}.
+     */
+    static RestInvocation bind(RequestWriterResolver requestWriterResolver,
+            RestMethodMetadata methodMetadata,
+            Object[] args,
+            Map<Class<? extends Annotation>, Params> defaultParamsMap) {
+        return bind(requestWriterResolver, methodMetadata, args, defaultParamsMap, null);
+    }
+
+    /**
+     * @param baseUrl the base URL to call, eg. the one chosen of several {@link si.mazi.rescu.endpoints.Endpoints},
+     * or null for that of the method metadata
+     */
+    static RestInvocation bind(RequestWriterResolver requestWriterResolver,
+            RestMethodMetadata methodMetadata,
+            Object[] args,
+            Map<Class<? extends Annotation>, Params> defaultParamsMap,
+            String baseUrl) {
 
         HashMap<Class<? extends Annotation>, Params> paramsMap = createEmptyParamsMap(defaultParamsMap);
 
         List<Object> unannanotatedParams = new ArrayList<>();
-        
-        Annotation[][] paramAnnotations = methodMetadata.getParameterAnnotations();
-        for (int i = 0; i < paramAnnotations.length; i++) {
-            Annotation[] paramAnns = paramAnnotations[i];
-            if (paramAnns.length == 0) {
+        // Not a part of the body; the response is read into it, or into a new instance if it's null.
+        int responseTargetIndex = methodMetadata.getResponseTargetIndex();
+        Object responseTarget = responseTargetIndex < 0 ? null : args[responseTargetIndex];
+
+        boolean[] unannotated = methodMetadata.getUnannotatedParams();
+        for (int i = 0; i < unannotated.length; i++) {
+            if (unannotated[i] && i != responseTargetIndex) {
                 unannanotatedParams.add(args[i]);
             }
-            for (Annotation paramAnn : paramAnns) {
-                String paramName = getParamName(paramAnn);
-                if (paramName != null) {
-                    paramsMap.get(paramAnn.annotationType()).add(paramName, args[i]);
-                }
-            }
         }
 
-        Map<Class<? extends Annotation>, Annotation> methodAnnotationMap = methodMetadata.getMethodAnnotationMap();
+        int[] boundIndexes = methodMetadata.getBoundParamIndexes();
+        Class<? extends Annotation>[] boundTypes = methodMetadata.getBoundParamTypes();
+        String[] boundNames = methodMetadata.getBoundParamNames();
+        for (int i = 0; i < boundIndexes.length; i++) {
+            paramsMap.get(boundTypes[i]).add(boundNames[i], args[boundIndexes[i]]);
+        }
 
         // Support using method name as a parameter.
-        for (Class<? extends Annotation> paramAnnotationClass : methodAnnotationMap.keySet()) {
-            Annotation annotation = methodAnnotationMap.get(paramAnnotationClass);
-            if (annotation != null) {
-                String paramName = getParamName(annotation);
-                paramsMap.get(paramAnnotationClass).add(paramName, methodMetadata.getMethodName());
-            }
+        Class<? extends Annotation>[] methodNameTypes = methodMetadata.getMethodNameParamTypes();
+        String[] methodNameNames = methodMetadata.getMethodNameParamNames();
+        for (int i = 0; i < methodNameTypes.length; i++) {
+            paramsMap.get(methodNameTypes[i]).add(methodNameNames[i], methodMetadata.getMethodName());
         }
 
         for (Params params : paramsMap.values()) {
@@ -124,7 +152,7 @@ public class RestInvocation implements Serializable {
         path = appendPath(path, methodPath);
 
         String queryString = paramsMap.get(QueryParam.class).asQueryString();
-        String invocationUrl = getInvocationUrl(methodMetadata.getBaseUrl(), path, queryString);
+        String invocationUrl = getInvocationUrl(baseUrl == null ? methodMetadata.getBaseUrl() : baseUrl, path, queryString);
 
         RestInvocation invocation = new RestInvocation(
                 paramsMap,
@@ -135,24 +163,31 @@ public class RestInvocation implements Serializable {
                 queryString,
                 path,
                 requestWriterResolver);
+        invocation.responseTarget = responseTarget;
+        invocation.baseUrl = baseUrl;
+
+        // Do some validation.
+        if (!unannanotatedParams.isEmpty() && Arrays.asList(HttpMethod.DELETE, HttpMethod.GET).contains(methodMetadata.getHttpMethod())) {
+            log.warn("{} request will contain a body. While this is allowed, the body should be ignored by the server. Is this intended? Method: {}", methodMetadata.getHttpMethod(), methodMetadata.getMethodName());
+        }
 
+        return invocation;
+    }
+
+    /**
+     * Replaces the {@link ParamsDigest}s with their digests of this invocation.
+     */
+    void digest() {
         for (int i = 0; i < unannanotatedParams.size(); i++) {
             Object param = unannanotatedParams.get(i);
             if (param instanceof ParamsDigest) {
-                unannanotatedParams.set(i, ((ParamsDigest) param).digestParams(invocation));
+                unannanotatedParams.set(i, ((ParamsDigest) param).digestParams(this));
             }
         }
 
         for (Params params : paramsMap.values()) {
-            params.digestAll(invocation);
+            params.digestAll(this);
         }
-
-        // Do some validation.
-        if (!unannanotatedParams.isEmpty() && Arrays.asList(HttpMethod.DELETE, HttpMethod.GET).contains(methodMetadata.getHttpMethod())) {
-            log.warn("{} request will contain a body. While this is allowed, the body should be ignored by the server. Is this intended? Method: {}", methodMetadata.getHttpMethod(), methodMetadata.getMethodName());
-        }
-
-        return invocation;
     }
 
     public static HashMap<Class<? extends Annotation>, Params> createEmptyParamsMap(Map<Class<? extends Annotation>, Params> defaultParamsMap) {
@@ -168,18 +203,6 @@ public class RestInvocation implements Serializable {
         return paramsMap;
     }
 
-    private static String getParamName(Annotation queryParam) {
-
-        for (Class<? extends Annotation> annotationClass : PARAM_ANNOTATION_CLASSES) {
-            String paramName = AnnotationUtils.getValueOrNull(annotationClass, queryParam);
-            if (paramName != null) {
-                return paramName;
-            }
-        }
-        // This is not one of the annotations in PARAM_ANNOTATION_CLASSES.
-        return null;
-    }
-
     static String getInvocationUrl(String baseUrl, String apiPath, String queryString) {
         String completeUrl = baseUrl;
         completeUrl = appendPath(completeUrl, apiPath);
@@ -294,7 +317,7 @@ public class RestInvocation implements Serializable {
      * (eg. http://www.example.com/) but may be longer.
      */
     public String getBaseUrl() {
-        return getMethodMetadata().getBaseUrl();
+        return baseUrl == null ? getMethodMetadata().getBaseUrl() : baseUrl;
     }
 
     /**
@@ -342,4 +365,32 @@ public class RestInvocation implements Serializable {
     public List<Object> getUnannanotatedParams() {
         return unannanotatedParams;
     }
+
+    /**
+     * @return the object that the response is to be read into, reusing it, or null if a new object is to be created;
+     * see {@link NumericColumns}.
+     */
+    public Object getResponseTarget() {
+        return responseTarget;
+    }
+
+    FlightRecording getFlightRecording() {
+        return flightRecording;
+    }
+
+    void setFlightRecording(FlightRecording flightRecording) {
+        this.flightRecording = flightRecording;
+    }
+
+    /**
+     * @return the failure to connect ahead of asking for the response when the call is timed, to be thrown where it
+     * would have been if the call wasn't
+     */
+    IOException getConnectFailure() {
+        return connectFailure;
+    }
+
+    void setConnectFailure(IOException connectFailure) {
+        this.connectFailure = connectFailure;
+    }
 }
@@ -25,12 +25,12 @@ import java.io.IOException;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.net.HttpURLConnection;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.function.Function;
 
 import javax.ws.rs.Path;
@@ -40,8 +40,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import si.mazi.rescu.InjectableParametersMapper.Injector;
+import si.mazi.rescu.archive.ArchivePolicy;
+import si.mazi.rescu.archive.RequestResponseArchiver;
+import si.mazi.rescu.endpoints.Endpoint;
+import si.mazi.rescu.endpoints.Endpoints;
+import si.mazi.rescu.metrics.CostMeter;
+import si.mazi.rescu.metrics.CostMetrics;
+import si.mazi.rescu.metrics.InvocationMetrics;
+import si.mazi.rescu.metrics.LatencyMetrics;
+import si.mazi.rescu.metrics.MethodCosts;
+import si.mazi.rescu.metrics.MethodLatencies;
+import si.mazi.rescu.metrics.MethodMetrics;
+import si.mazi.rescu.metrics.Phase;
+import si.mazi.rescu.oauth.OAuthSigner;
 import si.mazi.rescu.serialization.PlainTextResponseReader;
 import si.mazi.rescu.serialization.ToStringRequestWriter;
 import si.mazi.rescu.serialization.jackson.DefaultJacksonObjectMapperFactory;
@@ -59,46 +72,92 @@ public class RestInvocationHandler implements InvocationHandler {
 
 	private static final Logger log = LoggerFactory.getLogger(RestInvocationHandler.class);
 
+	private static final Object[] NO_ARGS = new Object[0];
+	private static final Injector<?>[] NO_INJECTORS = new Injector<?>[0];
+
 	private final ResponseReaderResolver responseReaderResolver;
 	private final RequestWriterResolver requestWriterResolver;
 
 	private final HttpTemplate httpTemplate;
+	private final Class<?> intface;
 	private final String intfacePath;
 	private final String baseUrl;
+	private final Endpoints endpoints;
 	private final ClientConfig config;
-	private final JacksonRequestResponseLogger archiver;
-	private final JacksonRequestResponseLogger errorArchiver;
+	private final RequestResponseArchiver archiver;
+	private final RequestResponseArchiver errorArchiver;
+	private final ArchivePolicy archivePolicy;
+	private final LatencyMetrics latencyMetrics;
+	private final InvocationMetrics invocationMetrics;
+	private final CostMetrics costMetrics;
+	private final InvocationListener listener;
 	private final long startNano;
 	private final long originTimeNanos;
 	private final InjectableParametersMapper<? extends RestInterface> injectors;
+	private final RestMethodMetadataFactory metadataFactory;
+	private final boolean overridesReceiveAndMapMetadata;
 
-	private final Map<Method, RestMethodMetadata> methodMetadataCache = new HashMap<>();
+	private final Map<Method, RestMethodMetadata> methodMetadataCache = new ConcurrentHashMap<>();
+	/** The metadata of the calls to each endpoint, so that they're measured under the endpoint's host. */
+	private final Map<Endpoint, Map<Method, RestMethodMetadata>> endpointMetadataCaches = new IdentityHashMap<>();
 
 	// Polling threads
-	private final ThreadFactory namedThreadFactory = new ThreadFactoryBuilder().setNameFormat("RestPollingThread-%d")
-			.build();
-	private final ExecutorService pollingThreads = Executors.newFixedThreadPool(3, namedThreadFactory);
+	private final Executor pollingThreads;
 
-  private Map<Method, String[]> methodInjectedArgsCache = new HashMap<>();
+  private final Map<Method, Injector<?>[]> methodInjectorsCache = new ConcurrentHashMap<>();
 
   private final Function<Object, Object> resultInterceptor;
 
 	<T extends RestInterface> RestInvocationHandler(Class<T> restInterface, String url, ClientConfig config, Logger requestResponseLogger,
 			Logger errorLogger, InjectableParametersMapper<T> injectors, Function<Object, Object> resultInterceptor) {
+		this(restInterface, url, null, config, requestResponseLogger, errorLogger, injectors, resultInterceptor);
+	}
+
+	<T extends RestInterface> RestInvocationHandler(Class<T> restInterface, Endpoints endpoints, ClientConfig config, Logger requestResponseLogger,
+			Logger errorLogger, InjectableParametersMapper<T> injectors, Function<Object, Object> resultInterceptor) {
+		this(restInterface, endpoints.getEndpoints().get(0).getBaseUrl(), endpoints, config, requestResponseLogger, errorLogger,
+				injectors, resultInterceptor);
+	}
+
+	private <T extends RestInterface> RestInvocationHandler(Class<T> restInterface, String url, Endpoints endpoints, ClientConfig config,
+			Logger requestResponseLogger, Logger errorLogger, InjectableParametersMapper<T> injectors, Function<Object, Object> resultInterceptor) {
+		intface = restInterface;
 		intfacePath = restInterface.getAnnotation(Path.class).value();
 		baseUrl = url;
-		archiver = requestResponseLogger == null ? null : new JacksonRequestResponseLogger(requestResponseLogger);
-		errorArchiver = errorLogger == null ? null : new JacksonRequestResponseLogger(errorLogger);
+		this.endpoints = endpoints;
+		if (endpoints != null) {
+			for (Endpoint endpoint : endpoints.getEndpoints()) {
+				endpointMetadataCaches.put(endpoint, new ConcurrentHashMap<>());
+			}
+		}
 		originTimeNanos = System.currentTimeMillis() * 1_000_000;
 		startNano = System.nanoTime();
 		this.injectors = injectors;
 		this.resultInterceptor = resultInterceptor;
+		// Injected params are only known in runtime so their annotations can't be resolved at compile time.
+		metadataFactory = injectors == null ? GeneratedClients.metadataFactory(restInterface) : null;
+		overridesReceiveAndMapMetadata = overridesReceiveAndMapMetadata(getClass());
 
 		if (config == null) {
 			config = new ClientConfig(); // default config
 		}
 
 		this.config = config;
+		archiver = config.getRequestResponseArchiver() != null ? config.getRequestResponseArchiver()
+				: requestResponseLogger == null ? null : new JacksonRequestResponseLogger(requestResponseLogger,
+						config.getArchiveCapacity(), config.getArchiveOverflowPolicy());
+		errorArchiver = config.getErrorArchiver() != null ? config.getErrorArchiver()
+				: errorLogger == null ? null : new JacksonRequestResponseLogger(errorLogger,
+						config.getArchiveCapacity(), config.getArchiveOverflowPolicy());
+		archivePolicy = config.getArchivePolicy() != null ? config.getArchivePolicy() : new ArchivePolicy();
+		latencyMetrics = config.getLatencyMetrics();
+		invocationMetrics = config.getInvocationMetrics();
+		costMetrics = config.getCostMetrics();
+		listener = InvocationListeners.of(config.getInvocationListeners());
+
+		pollingThreads = config.getInvocationExecutor() == null
+				? InvocationExecutors.fixedThreadPool(3)
+				: config.getInvocationExecutor();
 
 		// setup default readers/writers
 		JacksonObjectMapperFactory mapperFactory = config.getJacksonObjectMapperFactory();
@@ -124,125 +183,438 @@ public class RestInvocationHandler implements InvocationHandler {
 		// setup http client
 		httpTemplate = new HttpTemplate(this.config.getHttpConnTimeout(), this.config.getHttpReadTimeout(),
 				this.config.getProxyHost(), this.config.getProxyPort(), this.config.getSslSocketFactory(),
-				this.config.getHostnameVerifier(), this.config.getOAuthConsumer());
+				this.config.getHostnameVerifier(), this.config.getOAuthConsumer(), this.config.getHttpConnectionFactory());
 	}
 
 	@Override
 	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
 
-		HttpRequest request = new HttpRequest();
-		HttpResponse response = new HttpResponse();
 		if (method.getDeclaringClass().equals(Object.class)) {
 			return method.invoke(this, args);
 		}
 
-		RestMethodMetadata methodMetadata = getMetadata(method);
-		Object[] injectedArgs = getInjectedArgs(method);
-		args = Utils.arrayConcat(args == null ? new Object[0] : args, injectedArgs);
+		// Of the first endpoint until one is selected.
+		RestMethodMetadata methodMetadata = getMetadata(method, null);
+		final FlightRecording recording = FlightRecording.start(methodMetadata);
+		final boolean timed = methodMetadata.getLatencies() != null || methodMetadata.getMetrics() != null
+				|| listener != null || recording != null;
+		final long start = timed ? System.nanoTime() : 0;
+		if (listener != null) {
+			listener.invocationStarted(methodMetadata, start);
+		}
+		final boolean sampled = archiver != null && archivePolicy.isSampled(methodMetadata.getMethodName());
+		final HttpRequest request = new HttpRequest();
+		final HttpResponse response = new HttpResponse();
+		args = withInjectedArgs(method, args);
 
-		Object lock = getValueGenerator(args);
+		SynchronizedValueFactory<?> lock = getValueGenerator(args);
 		if (lock == null) {
-			lock = new Object(); // effectively no locking
+			// Nothing to lock; synchronizing on a new object anyway would pin a calling virtual thread to its carrier for
+			// the whole call before JDK 24.
+			return invokeLocked(method, args, methodMetadata, recording, timed, start, sampled, request, response);
 		}
 		synchronized (lock) {
-			RestInvocation invocation = RestInvocation.create(requestWriterResolver, methodMetadata, args, config.getDefaultParamsMap());
-			final HttpURLConnection connection = invokeHttp(invocation, request);
-
-			Future<Object> resultFuture = pollingThreads.submit(() -> {
-				try {
-					Object returned = receiveAndMap(methodMetadata, connection, response);
-					if (archiver != null) {
-						archiver.logRequestResponse(request, response);
-					}
-					return returned;
-				} catch (Exception e) {
-					//					e.printStackTrace();
-					if (errorArchiver != null) {
-						errorArchiver.logRequestResponse(request, response);
-					}
-					boolean shouldWrap = config.isWrapUnexpectedExceptions();
-					if (e instanceof InvocationAware) {
-						try {
-							((InvocationAware) e).setInvocation(invocation);
-							shouldWrap = false;
-						} catch (Exception ex) {
-							log.warn("Failed to set invocation on the InvocationAware", ex);
-						}
-					}
-					if (e instanceof HttpResponseAware && connection != null) {
-						try {
-							((HttpResponseAware) e).setResponseHeaders(connection.getHeaderFields());
-							shouldWrap = false;
-						} catch (Exception ex) {
-							log.warn("Failed to set response headers on the HttpReponseAware", ex);
-						}
+			return invokeLocked(method, args, methodMetadata, recording, timed, start, sampled, request, response);
+		}
+	}
+
+	/**
+	 * The part of {@link #invoke} run while holding the lock of the call's {@link SynchronizedValueFactory}, if it has
+	 * one: binds and sends the request, then waits for, reads and maps the response.
+	 */
+	private Object invokeLocked(Method method, Object[] args, RestMethodMetadata methodMetadata,
+			FlightRecording recording, boolean timed, long start, boolean sampled, HttpRequest request,
+			HttpResponse response) throws Throwable {
+		RestInvocation created = null;
+		HttpURLConnection sent;
+		// Chosen once the lock is held, so that the endpoint's latency doesn't include waiting for it.
+		final Endpoint endpoint = endpoints == null ? null : endpoints.select();
+		final long endpointStart = endpoint == null ? 0 : System.nanoTime();
+		final RestMethodMetadata endpointMetadata = endpoint == null ? methodMetadata : getMetadata(method, endpoint);
+		final MethodLatencies latencies = endpointMetadata.getLatencies();
+		final MethodMetrics metrics = endpointMetadata.getMetrics();
+		if (metrics != null) {
+			metrics.started();
+		}
+		try {
+			long time = timed ? System.nanoTime() : 0;
+			if (recording != null) {
+				recording.locked(time - start);
+			}
+			MethodCosts costs = endpointMetadata.getCosts();
+			CostMeter costMeter = costs == null ? null : costs.meter();
+			created = RestInvocation.bind(requestWriterResolver, endpointMetadata, args, config.getDefaultParamsMap(),
+					endpoint == null ? null : endpoint.getBaseUrl());
+			created.setFlightRecording(recording);
+			if (costMeter != null) {
+				costMeter.record(Phase.BIND);
+			}
+			if (timed) {
+				time = mark(latencies, recording, Phase.BIND, time);
+			}
+			created.digest();
+			if (costMeter != null) {
+				costMeter.record(Phase.SIGN);
+			}
+			if (timed) {
+				time = mark(latencies, recording, Phase.SIGN, time);
+				if (listener != null) {
+					listener.invocationCreated(created, time);
+				}
+			}
+			sent = invokeHttp(created, request);
+		} catch (Exception e) {
+			if (listener != null) {
+				long now = System.nanoTime();
+				listener.invocationFailed(created, e, now);
+				listener.invocationEnded(created, now);
+			}
+			if (recording != null) {
+				recording.failed(e);
+				recording.end();
+			}
+			if (metrics != null) {
+				metrics.ended(System.nanoTime() - start, true);
+			}
+			if (endpoint != null) {
+				endpoints.ended(endpoint, System.nanoTime() - endpointStart, e);
+			}
+			throw e;
+		}
+		final RestInvocation invocation = created;
+		final HttpURLConnection connection = sent;
+
+		Callable<Object> receive = () -> {
+			try {
+				if (invocation.getConnectFailure() != null) {
+					throw invocation.getConnectFailure();
+				}
+				Object returned = invocation.getResponseTarget() == null
+						? receiveAndMap(invocation, connection, response)
+						: receiveAndMapInto(invocation, connection, response);
+				if (sampled) {
+					archive(archiver, request, response);
+				}
+				return returned;
+			} catch (Exception e) {
+				//					e.printStackTrace();
+				if (listener != null) {
+					listener.invocationFailed(invocation, e, System.nanoTime());
+				}
+				if (recording != null) {
+					recording.failed(e);
+				}
+				if (errorArchiver != null && archivePolicy.isArchiveErrors()) {
+					archive(errorArchiver, request, response);
+				}
+				boolean shouldWrap = config.isWrapUnexpectedExceptions();
+				if (e instanceof InvocationAware) {
+					try {
+						((InvocationAware) e).setInvocation(invocation);
+						shouldWrap = false;
+					} catch (Exception ex) {
+						log.warn("Failed to set invocation on the InvocationAware", ex);
 					}
-					if (shouldWrap) {
-						return new AwareException(e, invocation);
+				}
+				if (e instanceof HttpResponseAware && connection != null) {
+					try {
+						((HttpResponseAware) e).setResponseHeaders(connection.getHeaderFields());
+						shouldWrap = false;
+					} catch (Exception ex) {
+						log.warn("Failed to set response headers on the HttpReponseAware", ex);
 					}
-					return e;
 				}
-			});
-			
-			// If they've defined a ResultInterceptor use it
-			Object result = resultFuture.get();
-			if (resultInterceptor != null) {
-			  result = resultInterceptor.apply(result);
+				if (shouldWrap) {
+					return new AwareException(e, invocation);
+				}
+				return e;
 			}
-			
-			// If the result is an exception, throw it, otherwise return the value
-			if (result instanceof Throwable) {
-				throw (Throwable) result;
+		};
+
+		Object result = null;
+		Throwable thrown = null;
+		try {
+			if (InvocationExecutors.isCallerThread(pollingThreads)) {
+				result = receive.call();
 			} else {
-				return result;
+				FutureTask<Object> resultFuture = new FutureTask<>(receive);
+				pollingThreads.execute(resultFuture);
+				result = resultFuture.get();
+			}
+		} catch (Throwable t) {
+			thrown = t;
+			throw t;
+		} finally {
+			if (timed) {
+				long end = mark(latencies, recording, Phase.TOTAL, start);
+				if (listener != null) {
+					listener.invocationEnded(invocation, end);
+				}
+				if (recording != null) {
+					recording.end();
+				}
+				if (metrics != null) {
+					metrics.ended(end - start, thrown != null || result instanceof Throwable);
+				}
+			}
+			if (endpoint != null) {
+				endpoints.ended(endpoint, System.nanoTime() - endpointStart,
+						thrown != null ? thrown : result instanceof Throwable ? (Throwable) result : null);
 			}
 		}
+
+		// If they've defined a ResultInterceptor use it
+		if (resultInterceptor != null) {
+		  result = resultInterceptor.apply(result);
+		}
+		
+		// If the result is an exception, throw it, otherwise return the value
+		if (result instanceof Throwable) {
+			throw (Throwable) result;
+		} else {
+			return result;
+		}
 	}
 
-  private Object[] getInjectedArgs(Method method) {
-    Object[] injectedArgs;
-    // If the method or class has any injectable parameters, get them
-    if (injectors != null) {
-      String[] injectedArgNames = methodInjectedArgsCache.get(method);
-      if (injectedArgNames == null) {
-        InjectableParam[] injectables = AnnotationUtils.getAllFromMethodAndClass(method, InjectableParam.class);
-        injectedArgNames = new String[injectables.length];
-        for (int i = 0; i < injectables.length; ++i) {
-          injectedArgNames[i] = injectables[i].name();
-        }
-        methodInjectedArgsCache.put(method, injectedArgNames);
-      }
-      injectedArgs = new Object[injectedArgNames.length];
-      for (int i = 0; i < injectedArgNames.length; ++i) {
-        injectedArgs[i] = injectors.getParam(injectedArgNames[i]);
+	/**
+	 * Records the time from the given start to now as the phase's latency, if the latencies are measured or the call
+	 * is flight recorded.
+	 *
+	 * @return now
+	 */
+	private static long mark(MethodLatencies latencies, FlightRecording recording, Phase phase, long startNanos) {
+		long now = latencies == null ? System.nanoTime() : latencies.record(phase, startNanos);
+		if (recording != null) {
+			recording.phase(phase, now - startNanos);
+		}
+		return now;
+	}
+
+	private void archive(RequestResponseArchiver archiver, HttpRequest request, HttpResponse response) {
+		archivePolicy.trim(request);
+		archivePolicy.trim(response);
+		archiver.archive(request, response);
+	}
+
+  /**
+   * @return the args followed by the values of the method's injectors, in an array
+   *         allocated once for both; the args themselves if there is nothing to inject
+   */
+  private Object[] withInjectedArgs(Method method, Object[] args) {
+    Injector<?>[] methodInjectors = getInjectors(method);
+    if (methodInjectors.length == 0) {
+      return args == null ? NO_ARGS : args;
+    }
+    int argCount = args == null ? 0 : args.length;
+    Object[] allArgs = new Object[argCount + methodInjectors.length];
+    if (argCount > 0) {
+      System.arraycopy(args, 0, allArgs, 0, argCount);
+    }
+    for (int i = 0; i < methodInjectors.length; ++i) {
+      allArgs[argCount + i] = methodInjectors[i] == null ? null : methodInjectors[i].get();
+    }
+    return allArgs;
+  }
+
+  private Injector<?>[] getInjectors(Method method) {
+    // If the method or class has any injectable parameters, get their injectors
+    if (injectors == null) {
+      return NO_INJECTORS;
+    }
+    Injector<?>[] methodInjectors = methodInjectorsCache.get(method);
+    if (methodInjectors == null) {
+      InjectableParam[] injectables = AnnotationUtils.getAllFromMethodAndClass(method, InjectableParam.class);
+      methodInjectors = new Injector<?>[injectables.length];
+      for (int i = 0; i < injectables.length; ++i) {
+        methodInjectors[i] = injectors.getInjector(injectables[i].name());
       }
-    } else {
-      injectedArgs = new Object[0];
+      methodInjectorsCache.put(method, methodInjectors);
     }
-    return injectedArgs;
+    return methodInjectors;
   }
 
+	/**
+	 * @param request filled in with the request data for archiving
+	 */
   protected HttpURLConnection invokeHttp(final RestInvocation invocation, HttpRequest request) throws IOException {
 		RestMethodMetadata methodMetadata = invocation.getMethodMetadata();
 
+		MethodLatencies latencies = methodMetadata.getLatencies();
+		MethodMetrics metrics = methodMetadata.getMetrics();
+		FlightRecording recording = invocation.getFlightRecording();
+		boolean timed = latencies != null || listener != null || recording != null;
+		long time = timed ? System.nanoTime() : 0;
+
+		MethodCosts costs = methodMetadata.getCosts();
+		CostMeter costMeter = costs == null ? null : costs.meter();
 		RequestWriter requestWriter = requestWriterResolver.resolveWriter(invocation.getMethodMetadata());
 		final String requestBody = requestWriter.writeBody(invocation);
+		if (costMeter != null) {
+			costMeter.record(Phase.SERIALIZE);
+		}
+		if (metrics != null) {
+			metrics.requestWritten(requestBody);
+		}
+		if (recording != null) {
+			recording.requestBody(requestBody);
+		}
+		if (timed) {
+			time = mark(latencies, recording, Phase.SERIALIZE, time);
+			if (listener != null) {
+				listener.requestBodyWritten(invocation, time);
+			}
+		}
 
-		// this doesn't connect the connection
-		HttpURLConnection conn = httpTemplate.send(invocation.getInvocationUrl(), requestBody,
-				invocation.getHttpHeadersFromParams(), methodMetadata.getHttpMethod());
+		Map<String, String> headers = invocation.getHttpHeadersFromParams();
+		OAuthSigner oAuthSigner = config.getOAuthSigner();
+		if (oAuthSigner != null) {
+			headers.put("Authorization", oAuthSigner.authorizationHeader(invocation));
+		}
+		// this doesn't connect the connection, unless there is a request body to write
+		HttpURLConnection conn = httpTemplate.send(invocation, invocation.getInvocationUrl(), requestBody,
+				headers, methodMetadata.getHttpMethod());
+		if (timed) {
+			// connect now rather than when the response is asked for, so that it doesn't count as the response time;
+			// a failure is thrown when the response is asked for, as it is when the call isn't timed
+			try {
+				conn.connect();
+				time = mark(latencies, recording, Phase.CONNECT, time);
+				if (listener != null) {
+					listener.connected(invocation, conn, time);
+				}
+			} catch (IOException e) {
+				invocation.setConnectFailure(e);
+			}
+		}
 		// log the request data
 		request.create(invocation.getInvocationUrl(), conn.getRequestMethod(), httpTemplate.getRecentRequestProperties(),
 				requestBody, originTimeNanos, startNano);
+		request.setPathTemplate(methodMetadata.getPathTemplate());
 		return conn;
 	}
 
+	protected Object receiveAndMap(RestInvocation invocation, HttpURLConnection connection, HttpResponse response)
+			throws IOException {
+		RestMethodMetadata methodMetadata = invocation.getMethodMetadata();
+		if (overridesReceiveAndMapMetadata) {
+			return receiveAndMap(methodMetadata, connection, response);
+		}
+		long time = awaitResponse(invocation, connection);
+		InvocationResult invocationResult = receive(connection, response);
+		time = responseRead(invocation, invocationResult, time);
+		CostMeter costMeter = methodMetadata.getCosts() == null ? null : methodMetadata.getCosts().meter();
+		Object result = mapInvocationResult(invocationResult, methodMetadata);
+		if (costMeter != null) {
+			costMeter.record(Phase.DESERIALIZE);
+		}
+		responseMapped(invocation, time);
+		return result;
+	}
+
+	/**
+	 * @deprecated Override {@link #receiveAndMap(RestInvocation, HttpURLConnection, HttpResponse)} instead. This one is
+	 * still called in its place if a subclass overrides it, but then the response phases are not timed.
+	 */
+	@Deprecated
 	protected Object receiveAndMap(RestMethodMetadata methodMetadata, HttpURLConnection connection, HttpResponse response)
 			throws IOException {
+		return mapInvocationResult(receive(connection, response), methodMetadata);
+	}
+
+	private static boolean overridesReceiveAndMapMetadata(Class<?> handlerClass) {
+		for (Class<?> c = handlerClass; c != RestInvocationHandler.class; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod("receiveAndMap", RestMethodMetadata.class, HttpURLConnection.class, HttpResponse.class);
+				return true;
+			} catch (NoSuchMethodException e) {
+				// not in this class
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Like {@link #receiveAndMap(RestInvocation, HttpURLConnection, HttpResponse)}, but reads the response into the invocation's {@link RestInvocation#getResponseTarget()
+	 * response target}.
+	 */
+	protected Object receiveAndMapInto(RestInvocation invocation, HttpURLConnection connection, HttpResponse response)
+			throws IOException {
+		RestMethodMetadata methodMetadata = invocation.getMethodMetadata();
+		long time = awaitResponse(invocation, connection);
+		InvocationResult invocationResult = receive(connection, response);
+		time = responseRead(invocation, invocationResult, time);
+		CostMeter costMeter = methodMetadata.getCosts() == null ? null : methodMetadata.getCosts().meter();
+		Object result = responseReaderResolver.resolveReader(methodMetadata)
+				.read(invocationResult, methodMetadata, invocation.getResponseTarget());
+		if (costMeter != null) {
+			costMeter.record(Phase.DESERIALIZE);
+		}
+		responseMapped(invocation, time);
+		return result;
+	}
+
+	/**
+	 * If the call is timed, waits for the response status so that the wait is measured apart from reading the body.
+	 *
+	 * @return the start of reading the body
+	 */
+	private long awaitResponse(RestInvocation invocation, HttpURLConnection connection) throws IOException {
+		MethodLatencies latencies = invocation.getMethodMetadata().getLatencies();
+		FlightRecording recording = invocation.getFlightRecording();
+		if (latencies == null && listener == null && recording == null) {
+			return 0;
+		}
+		long time = System.nanoTime();
+		if (connection != null) {
+			int statusCode = connection.getResponseCode();
+			time = mark(latencies, recording, Phase.FIRST_BYTE, time);
+			if (listener != null) {
+				listener.responseReceived(invocation, statusCode, time);
+			}
+		}
+		return time;
+	}
+
+	private long responseRead(RestInvocation invocation, InvocationResult invocationResult, long startNanos) {
+		MethodMetrics metrics = invocation.getMethodMetadata().getMetrics();
+		if (metrics != null) {
+			metrics.responseRead(invocationResult.getStatusCode(), invocationResult.getHttpBody());
+		}
+		MethodLatencies latencies = invocation.getMethodMetadata().getLatencies();
+		FlightRecording recording = invocation.getFlightRecording();
+		if (latencies == null && listener == null && recording == null) {
+			return 0;
+		}
+		long time = mark(latencies, recording, Phase.READ, startNanos);
+		if (recording != null) {
+			recording.response(invocationResult);
+		}
+		if (listener != null) {
+			listener.responseRead(invocation, time);
+		}
+		return time;
+	}
+
+	private void responseMapped(RestInvocation invocation, long startNanos) {
+		MethodLatencies latencies = invocation.getMethodMetadata().getLatencies();
+		FlightRecording recording = invocation.getFlightRecording();
+		if (latencies == null && listener == null && recording == null) {
+			return;
+		}
+		long time = mark(latencies, recording, Phase.DESERIALIZE, startNanos);
+		if (listener != null) {
+			listener.responseMapped(invocation, time);
+		}
+	}
+
+	/**
+	 * @param response filled in with the response data for archiving
+	 */
+	protected InvocationResult receive(HttpURLConnection connection, HttpResponse response) throws IOException {
 		InvocationResult invocationResult = httpTemplate.receive(connection);
 		// log the response data
 		response.create(invocationResult.getStatusCode(), invocationResult.getHttpBody(), originTimeNanos, startNano);
-		return mapInvocationResult(invocationResult, methodMetadata);
+		return invocationResult;
 	}
 
 	private static SynchronizedValueFactory getValueGenerator(Object[] args) {
@@ -261,11 +633,31 @@ public class RestInvocationHandler implements InvocationHandler {
 		return responseReaderResolver.resolveReader(methodMetadata).read(invocationResult, methodMetadata);
 	}
 
-	private RestMethodMetadata getMetadata(Method method) {
-		RestMethodMetadata metadata = methodMetadataCache.get(method);
+	/**
+	 * @param endpoint the endpoint called, whose base url the metadata (and so its metrics) are of; null for the
+	 *                 base url of the proxy
+	 */
+	private RestMethodMetadata getMetadata(Method method, Endpoint endpoint) {
+		Map<Method, RestMethodMetadata> cache = endpoint == null ? methodMetadataCache : endpointMetadataCaches.get(endpoint);
+		String baseUrl = endpoint == null ? this.baseUrl : endpoint.getBaseUrl();
+		RestMethodMetadata metadata = cache.get(method);
 		if (metadata == null) {
-			metadata = RestMethodMetadata.create(method, baseUrl, intfacePath, injectors);
-			methodMetadataCache.put(method, metadata);
+			if (metadataFactory != null) {
+				metadata = metadataFactory.create(method, baseUrl, intfacePath);
+			}
+			if (metadata == null) {
+				metadata = RestMethodMetadata.create(method, baseUrl, intfacePath, injectors);
+			}
+			if (latencyMetrics != null) {
+				metadata.setLatencies(latencyMetrics.register(metadata));
+			}
+			if (invocationMetrics != null) {
+				metadata.setMetrics(invocationMetrics.register(intface, metadata));
+			}
+			if (costMetrics != null) {
+				metadata.setCosts(costMetrics.register(metadata));
+			}
+			cache.put(method, metadata);
 		}
 		return metadata;
 	}
@@ -26,6 +26,7 @@ import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +44,10 @@ import javax.ws.rs.Produces;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import si.mazi.rescu.metrics.MethodCosts;
+import si.mazi.rescu.metrics.MethodLatencies;
+import si.mazi.rescu.metrics.MethodMetrics;
+
 /**
  * @author Matija Mazi
  *
@@ -61,12 +66,30 @@ public class RestMethodMetadata implements Serializable {
     private final String baseUrl;
     private final String intfacePath;
     private final String methodPathTemplate;
+    private final String pathTemplate;
     private final Class<? extends RuntimeException> exceptionType;
     private final String reqContentType;
     private final String resContentType;
     private final String methodName;
-    private final Map<Class<? extends Annotation>,Annotation> methodAnnotationMap;
-    private final Annotation[][] parameterAnnotations;
+    // Read from the method when first asked for if the metadata was created from bindings resolved at compile time.
+    private Map<Class<? extends Annotation>,Annotation> methodAnnotationMap;
+    private Annotation[][] parameterAnnotations;
+    private final transient Method method;
+
+    // Parameter bindings, resolved once from the annotations above (or at compile time) so that invocations don't need
+    // to inspect annotations.
+    private final boolean[] unannotatedParams;
+    private final int[] boundParamIndexes;
+    private final Class<? extends Annotation>[] boundParamTypes;
+    private final String[] boundParamNames;
+    private final Class<? extends Annotation>[] methodNameParamTypes;
+    private final String[] methodNameParamNames;
+    // The unannotated parameter that the response is read into (see NumericColumns), or -1.
+    private final int responseTargetIndex;
+
+    private transient MethodLatencies latencies;
+    private transient MethodMetrics metrics;
+    private transient MethodCosts costs;
 
     public RestMethodMetadata(Type returnType, HttpMethod httpMethod,
                               String baseUrl, String intfacePath, String methodPathTemplate,
@@ -74,6 +97,17 @@ public class RestMethodMetadata implements Serializable {
                               String resContentType, String methodName,
                               Map<Class<? extends Annotation>, Annotation> methodAnnotationMap,
                               Annotation[][] parameterAnnotations) {
+        this(returnType, httpMethod, baseUrl, intfacePath, methodPathTemplate, exceptionType, reqContentType,
+                resContentType, methodName, methodAnnotationMap, parameterAnnotations, null,
+                ParamBindings.resolve(parameterAnnotations, methodAnnotationMap));
+    }
+
+    private RestMethodMetadata(Type returnType, HttpMethod httpMethod,
+                               String baseUrl, String intfacePath, String methodPathTemplate,
+                               Class<? extends RuntimeException> exceptionType, String reqContentType,
+                               String resContentType, String methodName,
+                               Map<Class<? extends Annotation>, Annotation> methodAnnotationMap,
+                               Annotation[][] parameterAnnotations, Method method, ParamBindings bindings) {
         this.returnType = returnType;
         this.httpMethod = httpMethod;
         this.baseUrl = baseUrl;
@@ -83,8 +117,52 @@ public class RestMethodMetadata implements Serializable {
         this.methodName = methodName;
         this.methodAnnotationMap = methodAnnotationMap;
         this.parameterAnnotations = parameterAnnotations;
+        this.method = method;
         this.methodPathTemplate = methodPathTemplate == null ? "" : methodPathTemplate;
+        this.pathTemplate = RestInvocation.appendPath(intfacePath, this.methodPathTemplate);
         this.exceptionType = exceptionType;
+        this.unannotatedParams = bindings.unannotatedParams;
+        this.boundParamIndexes = bindings.boundParamIndexes;
+        this.boundParamTypes = bindings.boundParamTypes;
+        this.boundParamNames = bindings.boundParamNames;
+        this.methodNameParamTypes = bindings.methodNameParamTypes;
+        this.methodNameParamNames = bindings.methodNameParamNames;
+        this.responseTargetIndex = method == null ? -1 : getResponseTargetIndex(method.getParameterTypes(), unannotatedParams);
+    }
+
+    private static int getResponseTargetIndex(Class<?>[] parameterTypes, boolean[] unannotatedParams) {
+        for (int i = 0; i < parameterTypes.length && i < unannotatedParams.length; i++) {
+            if (unannotatedParams[i] && NumericColumns.class.isAssignableFrom(parameterTypes[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Creates the metadata from values that were already resolved from the JAX-RS annotations at compile time,
+     * including the parameter bindings, so no annotations are read from the method. This is used by generated rest
+     * clients.
+     *
+     * @param unannotatedParams for each parameter, whether it has no annotations (and so goes into the body, unless
+     * it's the {@link NumericColumns} that the response is read into)
+     * @param boundParamIndexes the parameter of each JAX-RS param annotation
+     * @param boundParamTypes the type of each JAX-RS param annotation
+     * @param boundParamNames the value of each JAX-RS param annotation
+     * @param methodNameParamTypes the JAX-RS param annotations on the method, whose param is the method name
+     * @param methodNameParamNames their values
+     */
+    public static RestMethodMetadata create(Method method, String baseUrl, String intfacePath, HttpMethod httpMethod,
+                                            String methodPathTemplate, Class<? extends RuntimeException> exceptionType,
+                                            String reqContentType, String resContentType,
+                                            boolean[] unannotatedParams, int[] boundParamIndexes,
+                                            Class<? extends Annotation>[] boundParamTypes, String[] boundParamNames,
+                                            Class<? extends Annotation>[] methodNameParamTypes, String[] methodNameParamNames) {
+        return new RestMethodMetadata(method.getGenericReturnType(), httpMethod,
+                baseUrl, intfacePath, methodPathTemplate, exceptionType,
+                reqContentType, resContentType, method.getName(), null, null, method,
+                new ParamBindings(unannotatedParams, boundParamIndexes, boundParamTypes, boundParamNames,
+                        methodNameParamTypes, methodNameParamNames));
     }
 
     public static RestMethodMetadata create(Method method, String baseUrl, String intfacePath, InjectableParametersMapper injectors) {
@@ -134,9 +212,26 @@ public class RestMethodMetadata implements Serializable {
 
         return new RestMethodMetadata(method.getGenericReturnType(), httpMethod,
                 baseUrl, intfacePath, methodPathTemplate, exceptionType,
-                reqContentType, resContentType, methodName, methodAnnotationMap, parameterAnnotations);
+                reqContentType, resContentType, methodName, methodAnnotationMap, parameterAnnotations, method,
+                ParamBindings.resolve(parameterAnnotations, methodAnnotationMap));
     }
     
+    private static String getParamName(Annotation paramAnn) {
+        for (Class<? extends Annotation> annotationClass : RestInvocation.PARAM_ANNOTATION_CLASSES) {
+            String paramName = AnnotationUtils.getValueOrNull(annotationClass, paramAnn);
+            if (paramName != null) {
+                return paramName;
+            }
+        }
+        // This is not one of the annotations in PARAM_ANNOTATION_CLASSES.
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Annotation>[] toArray(List<Class<? extends Annotation>> types) {
+        return types.toArray(new Class[types.size()]);
+    }
+
     static HttpMethod getHttpMethod(Method method) {
 
         HttpMethod httpMethod = null;
@@ -189,6 +284,50 @@ public class RestMethodMetadata implements Serializable {
         return methodPathTemplate;
     }
 
+    /**
+     * @return the interface and method paths joined as they are in invocation urls, with the path params unresolved,
+     * eg. {@code api/{version}/ticker}; identifies the method in archived requests.
+     */
+    public String getPathTemplate() {
+        return pathTemplate;
+    }
+
+    /**
+     * @return the latencies of this method's calls, or null if they are not measured
+     * @see ClientConfig#setLatencyMetrics
+     */
+    public MethodLatencies getLatencies() {
+        return latencies;
+    }
+
+    void setLatencies(MethodLatencies latencies) {
+        this.latencies = latencies;
+    }
+
+    /**
+     * @return the counters of this method's calls, or null if they are not counted
+     * @see ClientConfig#setInvocationMetrics
+     */
+    public MethodMetrics getMetrics() {
+        return metrics;
+    }
+
+    void setMetrics(MethodMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the CPU time and allocation of this method's calls, or null if they are not measured
+     * @see ClientConfig#setCostMetrics
+     */
+    public MethodCosts getCosts() {
+        return costs;
+    }
+
+    void setCosts(MethodCosts costs) {
+        this.costs = costs;
+    }
+
     /**
      * @return the exceptionType
      */
@@ -218,6 +357,9 @@ public class RestMethodMetadata implements Serializable {
      * @return the methodAnnotationMap
      */
     public Map<Class<? extends Annotation>,Annotation> getMethodAnnotationMap() {
+        if (methodAnnotationMap == null && method != null) {
+            methodAnnotationMap = AnnotationUtils.getMethodAnnotationMap(method, RestInvocation.PARAM_ANNOTATION_CLASSES);
+        }
         return methodAnnotationMap;
     }
 
@@ -225,6 +367,103 @@ public class RestMethodMetadata implements Serializable {
      * @return the parameterAnnotations
      */
     public Annotation[][] getParameterAnnotations() {
+        if (parameterAnnotations == null && method != null) {
+            parameterAnnotations = method.getParameterAnnotations();
+        }
         return parameterAnnotations;
     }
+
+    boolean[] getUnannotatedParams() {
+        return unannotatedParams;
+    }
+
+    int[] getBoundParamIndexes() {
+        return boundParamIndexes;
+    }
+
+    Class<? extends Annotation>[] getBoundParamTypes() {
+        return boundParamTypes;
+    }
+
+    String[] getBoundParamNames() {
+        return boundParamNames;
+    }
+
+    Class<? extends Annotation>[] getMethodNameParamTypes() {
+        return methodNameParamTypes;
+    }
+
+    String[] getMethodNameParamNames() {
+        return methodNameParamNames;
+    }
+
+    /**
+     * @return the index of the {@link NumericColumns} parameter that the response is read into, or -1 if there's none
+     */
+    int getResponseTargetIndex() {
+        return responseTargetIndex;
+    }
+
+    /**
+     * The parameter bindings of a method, as passed to the constructor.
+     */
+    private static final class ParamBindings {
+
+        final boolean[] unannotatedParams;
+        final int[] boundParamIndexes;
+        final Class<? extends Annotation>[] boundParamTypes;
+        final String[] boundParamNames;
+        final Class<? extends Annotation>[] methodNameParamTypes;
+        final String[] methodNameParamNames;
+
+        ParamBindings(boolean[] unannotatedParams, int[] boundParamIndexes,
+                Class<? extends Annotation>[] boundParamTypes, String[] boundParamNames,
+                Class<? extends Annotation>[] methodNameParamTypes, String[] methodNameParamNames) {
+            this.unannotatedParams = unannotatedParams;
+            this.boundParamIndexes = boundParamIndexes;
+            this.boundParamTypes = boundParamTypes;
+            this.boundParamNames = boundParamNames;
+            this.methodNameParamTypes = methodNameParamTypes;
+            this.methodNameParamNames = methodNameParamNames;
+        }
+
+        static ParamBindings resolve(Annotation[][] parameterAnnotations,
+                Map<Class<? extends Annotation>, Annotation> methodAnnotationMap) {
+            List<Integer> indexes = new ArrayList<>();
+            List<Class<? extends Annotation>> types = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            Annotation[][] paramAnnotations = parameterAnnotations == null ? new Annotation[0][] : parameterAnnotations;
+            boolean[] unannotatedParams = new boolean[paramAnnotations.length];
+            for (int i = 0; i < paramAnnotations.length; i++) {
+                unannotatedParams[i] = paramAnnotations[i].length == 0;
+                for (Annotation paramAnn : paramAnnotations[i]) {
+                    String paramName = getParamName(paramAnn);
+                    if (paramName != null) {
+                        indexes.add(i);
+                        types.add(paramAnn.annotationType());
+                        names.add(paramName);
+                    }
+                }
+            }
+            int[] boundParamIndexes = new int[indexes.size()];
+            for (int i = 0; i < boundParamIndexes.length; i++) {
+                boundParamIndexes[i] = indexes.get(i);
+            }
+            Class<? extends Annotation>[] boundParamTypes = toArray(types);
+            String[] boundParamNames = names.toArray(new String[names.size()]);
+
+            types.clear();
+            names.clear();
+            if (methodAnnotationMap != null) {
+                for (Map.Entry<Class<? extends Annotation>, Annotation> e : methodAnnotationMap.entrySet()) {
+                    if (e.getValue() != null) {
+                        types.add(e.getKey());
+                        names.add(getParamName(e.getValue()));
+                    }
+                }
+            }
+            return new ParamBindings(unannotatedParams, boundParamIndexes, boundParamTypes, boundParamNames,
+                    toArray(types), names.toArray(new String[names.size()]));
+        }
+    }
 }
@@ -0,0 +1,17 @@
+package si.mazi.rescu;
+
+import java.lang.reflect.Method;
+
+/**
+ * Creates the {@link RestMethodMetadata} for the methods of a {@link RestInterface} without
+ * reading the JAX-RS annotations by reflection. Implementations are generated at compile time
+ * by the rescu annotation processor (see {@link RestProxyFactory}).
+ */
+public interface RestMethodMetadataFactory {
+
+    /**
+     * @return the metadata for the method, or null if it couldn't be resolved at compile time, in which
+     * case rescu will read it from the annotations.
+     */
+    RestMethodMetadata create(Method method, String baseUrl, String intfacePath);
+}
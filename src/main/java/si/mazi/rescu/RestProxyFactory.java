@@ -27,6 +27,8 @@ import java.util.function.Function;
 
 import org.slf4j.Logger;
 
+import si.mazi.rescu.endpoints.Endpoints;
+
 /**
  * @author Matija Mazi
  * @see #createProxy(Class, InvocationHandler, Interceptor...)
@@ -50,6 +52,20 @@ public final class RestProxyFactory {
 		return createProxy(restInterface, wrap(new RestInvocationHandler(restInterface, baseUrl, config, requestResponseLogger, errorLogger, injectors, resultInterceptor), interceptors));
 	}
 
+	/**
+	 * Like {@link #createProxy(Class, String, ClientConfig, Logger, Logger, InjectableParametersMapper, Function, Interceptor...)},
+	 * but each call goes to one of the endpoints' base URLs, as chosen by their selector.
+	 *
+	 * @see Endpoints
+	 */
+	public static <I extends RestInterface> I createProxy(Class<I> restInterface, Endpoints endpoints, ClientConfig config, Logger requestResponseLogger, Logger errorLogger, InjectableParametersMapper<I> injectors, Function<Object, Object> resultInterceptor, Interceptor... interceptors) {
+		return createProxy(restInterface, wrap(new RestInvocationHandler(restInterface, endpoints, config, requestResponseLogger, errorLogger, injectors, resultInterceptor), interceptors));
+	}
+
+	public static <I extends RestInterface> I createProxy(Class<I> restInterface, Endpoints endpoints, ClientConfig config, Interceptor... interceptors) {
+		return createProxy(restInterface, endpoints, config, null, null, null, null, interceptors);
+	}
+
 	static InvocationHandler wrap(InvocationHandler handler, Interceptor... interceptors) {
 		for (Interceptor interceptor : interceptors) {
 			handler = new InterceptedInvocationHandler(interceptor, handler);
@@ -69,8 +85,17 @@ public final class RestProxyFactory {
 		return createProxy(restInterface, baseUrl, null, requestResponseLogger, errorLogger, null, resultInterceptor);
 	}
 
+	/**
+	 * If the rescu annotation processor generated a client class for restInterface at compile time, that class is used;
+	 * otherwise a dynamic {@link Proxy} is created.
+	 */
 	static <I extends RestInterface> I createProxy(Class<I> restInterface, InvocationHandler restInvocationHandler, Interceptor... interceptors) {
-		Object proxy = Proxy.newProxyInstance(restInterface.getClassLoader(), new Class[]{restInterface}, wrap(restInvocationHandler, interceptors));
+		InvocationHandler handler = wrap(restInvocationHandler, interceptors);
+		I client = GeneratedClients.newClient(restInterface, handler);
+		if (client != null) {
+			return client;
+		}
+		Object proxy = Proxy.newProxyInstance(restInterface.getClassLoader(), new Class[]{restInterface}, handler);
 		// noinspection unchecked
 		return (I) proxy;
 	}
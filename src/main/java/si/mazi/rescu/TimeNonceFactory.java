@@ -0,0 +1,45 @@
+package si.mazi.rescu;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nonces from the clock: the current time in milliseconds times {@link #TimeNonceFactory(int) valuesPerMillisecond},
+ * or one more than the previous nonce if that is larger, so that they never repeat when several are created in a
+ * millisecond, nor go back when the clock does. Creating them doesn't lock.
+ * <p>
+ * With one value per millisecond (the default), nonces created faster than one a millisecond run ahead of the clock
+ * until the rate drops; allow more values per millisecond if the API accepts larger nonces, eg. 1000 for
+ * microsecond-like nonces.
+ */
+public class TimeNonceFactory implements SynchronizedValueFactory<Long> {
+
+    private final int valuesPerMillisecond;
+    private final AtomicLong last = new AtomicLong();
+
+    public TimeNonceFactory() {
+        this(1);
+    }
+
+    public TimeNonceFactory(int valuesPerMillisecond) {
+        if (valuesPerMillisecond < 1) {
+            throw new IllegalArgumentException("Values per millisecond must be positive: " + valuesPerMillisecond);
+        }
+        this.valuesPerMillisecond = valuesPerMillisecond;
+    }
+
+    @Override
+    public Long createValue() {
+        long now = currentTimeMillis() * valuesPerMillisecond;
+        while (true) {
+            long previous = last.get();
+            long next = Math.max(now, previous + 1);
+            if (last.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
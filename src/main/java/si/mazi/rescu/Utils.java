@@ -43,4 +43,28 @@ public final class Utils {
       return concatted;
     }
 
+    /**
+     * @return the number of bytes of the given string in UTF-8, without encoding it; 0 for null
+     */
+    public static long utf8Length(String str) {
+        if (str == null) {
+            return 0;
+        }
+        long length = 0;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < str.length() && Character.isLowSurrogate(str.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
 }
@@ -0,0 +1,156 @@
+package si.mazi.rescu.archive;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequest;
+import si.mazi.rescu.serialization.jackson.serializers.HttpResponse;
+
+/**
+ * Decides which calls are archived, and how much of them; set with
+ * {@link si.mazi.rescu.ClientConfig#setArchivePolicy}. By default, every call is archived whole.
+ * <p>
+ * Whether a call is sampled is decided before it is sent. The bodies and headers of an archived call are trimmed
+ * before it is handed to the archiver, so that the archiver's buffer doesn't hold on to the full bodies until they are
+ * written.
+ */
+public class ArchivePolicy {
+
+    private volatile double sampleRate = 1;
+    private final Map<String, Double> methodSampleRates = new ConcurrentHashMap<>();
+    private volatile boolean archiveErrors = true;
+    private volatile int maxBodyLength = -1;
+    private volatile Set<String> headerAllowlist;
+
+    /**
+     * Sets the fraction, from 0 to 1, of the successful calls that are archived; default 1, all of them.
+     */
+    public ArchivePolicy setSampleRate(double sampleRate) {
+        this.sampleRate = checkRate(sampleRate);
+        return this;
+    }
+
+    /**
+     * Sets the sample rate of the calls of the rest interface methods with the given name, overriding the
+     * {@link #setSampleRate(double) default one}, eg. to archive a fraction of frequent order book calls but every
+     * order placement.
+     */
+    public ArchivePolicy setSampleRate(String methodName, double sampleRate) {
+        methodSampleRates.put(methodName, checkRate(sampleRate));
+        return this;
+    }
+
+    public double getSampleRate(String methodName) {
+        Double rate = methodName == null ? null : methodSampleRates.get(methodName);
+        return rate == null ? sampleRate : rate;
+    }
+
+    private static double checkRate(double rate) {
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException("Sample rate must be from 0 to 1: " + rate);
+        }
+        return rate;
+    }
+
+    /**
+     * @return whether a call of the method with the given name is to be archived if it succeeds
+     */
+    public boolean isSampled(String methodName) {
+        double rate = getSampleRate(methodName);
+        return rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    /**
+     * Sets whether every failed call goes to the error archiver, regardless of the sample rates (the default), or
+     * only the sampled ones.
+     */
+    public ArchivePolicy setArchiveErrors(boolean archiveErrors) {
+        this.archiveErrors = archiveErrors;
+        return this;
+    }
+
+    public boolean isArchiveErrors() {
+        return archiveErrors;
+    }
+
+    /**
+     * Sets the length, in characters, that request and response bodies are truncated to; the beginning and the end
+     * of a longer body are kept, with a marker of how much was cut out in between. Negative, the default, for no
+     * limit.
+     */
+    public ArchivePolicy setMaxBodyLength(int maxBodyLength) {
+        this.maxBodyLength = maxBodyLength;
+        return this;
+    }
+
+    public int getMaxBodyLength() {
+        return maxBodyLength;
+    }
+
+    /**
+     * Sets the request headers that are archived, case-insensitive; the others are left out. Null, the default, to
+     * archive all of them.
+     */
+    public ArchivePolicy setHeaderAllowlist(String... headerNames) {
+        if (headerNames == null) {
+            this.headerAllowlist = null;
+        } else {
+            Set<String> allowlist = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            Collections.addAll(allowlist, headerNames);
+            this.headerAllowlist = allowlist;
+        }
+        return this;
+    }
+
+    /**
+     * Truncates the body and leaves out the headers that are not allowed, in place.
+     */
+    public void trim(HttpRequest request) {
+        request.setBody(truncate(request.getBody()));
+        Set<String> allowlist = headerAllowlist;
+        Map<String, List<String>> headers = request.getHeaders();
+        if (allowlist != null && headers != null) {
+            Map<String, List<String>> allowed = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                if (header.getKey() != null && allowlist.contains(header.getKey())) {
+                    allowed.put(header.getKey(), header.getValue());
+                }
+            }
+            request.setHeaders(allowed);
+        }
+    }
+
+    /**
+     * Truncates the body, in place.
+     */
+    public void trim(HttpResponse response) {
+        response.setBody(truncate(response.getBody()));
+    }
+
+    String truncate(String body) {
+        int max = maxBodyLength;
+        if (body == null || max < 0 || body.length() <= max) {
+            return body;
+        }
+        int head = max / 2;
+        int tail = max - head;
+        if (head > 0 && Character.isHighSurrogate(body.charAt(head - 1))) {
+            head--;
+        }
+        if (tail > 0 && Character.isLowSurrogate(body.charAt(body.length() - tail))) {
+            tail--;
+        }
+        int cut = body.length() - head - tail;
+        return new StringBuilder(max + 32)
+                .append(body, 0, head)
+                .append("...[").append(cut).append(" chars truncated]...")
+                .append(body, body.length() - tail, body.length())
+                .toString();
+    }
+}
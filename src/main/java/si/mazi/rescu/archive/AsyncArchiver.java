@@ -0,0 +1,325 @@
+package si.mazi.rescu.archive;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequest;
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequestResponse;
+import si.mazi.rescu.serialization.jackson.serializers.HttpResponse;
+
+/**
+ * An archiver that writes off the calling thread. Archived items are put into a bounded, lock-free buffer; a single
+ * writer thread, shared by all instances, takes them out in batches every {@value #FLUSH_INTERVAL_MILLIS}
+ * milliseconds and passes them to {@link #write}. The archiving thread never wakes up the writer unless the buffer
+ * is full.
+ * <p>
+ * Items of one instance are written in the order they were archived, in FIFO order from the buffer. When the buffer
+ * is full, the {@link OverflowPolicy} decides whether an item is dropped or the archiving thread waits for the writer.
+ * <p>
+ * Only the writer thread, or a thread calling {@link #flush()} or {@link #close()}, calls {@link #write} and the
+ * other hooks, and never two at once. Items still buffered when the JVM exits are lost unless {@link #flush()} or
+ * {@link #close()} is called.
+ */
+public abstract class AsyncArchiver implements RequestResponseArchiver {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncArchiver.class);
+
+    /**
+     * The maximum number of items written at once before the writer moves on to other instances.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    static final long FLUSH_INTERVAL_MILLIS = 5;
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final String name;
+    private final MpscRingBuffer<HttpRequestResponse> buffer;
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * Whether this instance is queued for the writer; set by the archiving thread that finds it unset, and cleared
+     * by the writer before it drains the buffer, so that every archived item is seen by the writer.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean idleScheduled = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Guards the consumer side of the {@link #buffer}.
+     */
+    private final Object drainLock = new Object();
+    private final HttpRequestResponse[] batch = new HttpRequestResponse[BATCH_SIZE];
+    private boolean released;
+
+    /**
+     * @param name used in log messages
+     * @param capacity the maximum number of items waiting to be written; rounded up to a power of 2
+     */
+    protected AsyncArchiver(String name, int capacity, OverflowPolicy overflowPolicy) {
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Overflow policy must not be null");
+        }
+        this.name = name;
+        this.buffer = new MpscRingBuffer<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public void archive(HttpRequest request, HttpResponse response) {
+        HttpRequestResponse rr = new HttpRequestResponse(request, response);
+        if (closed) {
+            drop();
+            return;
+        }
+        if (!buffer.offer(rr)) {
+            // The writer itself must not wait for room, eg. when an appender makes rest calls.
+            if (overflowPolicy == OverflowPolicy.DROP || Writer.isWriterThread()) {
+                drop();
+                return;
+            }
+            do {
+                schedule();
+                Writer.wakeUp();
+                LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                if (closed) {
+                    drop();
+                    return;
+                }
+            } while (!buffer.offer(rr));
+        }
+        schedule();
+    }
+
+    /**
+     * Writes one item; exceptions are logged and the item is skipped.
+     */
+    protected abstract void write(HttpRequestResponse requestResponse) throws Exception;
+
+    /**
+     * Called after each batch of items has been written, eg. to flush or sync the output.
+     */
+    protected void endBatch() throws Exception {
+    }
+
+    /**
+     * Called by the writer thread on its next wakeup after {@link #scheduleIdle()}, whether or not anything was
+     * archived since, eg. to sync output that was left unsynced after the last batch.
+     */
+    protected void idle() throws Exception {
+    }
+
+    /**
+     * Asks the writer thread to call {@link #idle()} on its next wakeup; call again from there to be called on the
+     * following one too.
+     */
+    protected final void scheduleIdle() {
+        if (!idleScheduled.get() && idleScheduled.compareAndSet(false, true)) {
+            Writer.IDLE.add(this);
+        }
+    }
+
+    /**
+     * Called at the end of {@link #close()}, after all buffered items have been written, to release any resources.
+     * No more items are written afterwards.
+     */
+    protected void release() throws Exception {
+    }
+
+    /**
+     * @return false to discard the buffered items without calling {@link #write}, eg. if the output is disabled.
+     */
+    protected boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * @return the number of items that were not written because the buffer was full or this archiver was closed.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Writes all buffered items on the calling thread.
+     */
+    @Override
+    public void flush() {
+        synchronized (drainLock) {
+            if (released) {
+                return;
+            }
+            drainAll();
+        }
+    }
+
+    /**
+     * Writes all buffered items and stops accepting new ones; items archived afterwards are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (drainLock) {
+            if (released) {
+                return;
+            }
+            drainAll();
+            released = true;
+            try {
+                release();
+            } catch (Exception e) {
+                log.error("Failed to close the archive for {}", name, e);
+            }
+        }
+    }
+
+    private void drop() {
+        if (dropped.getAndIncrement() == 0) {
+            log.warn("Dropping request/response items for {}: {}", name,
+                    closed ? "the archiver is closed" : "the buffer of " + buffer.capacity() + " items is full");
+        }
+    }
+
+    private void schedule() {
+        if (!scheduled.get() && scheduled.compareAndSet(false, true)) {
+            Writer.SCHEDULED.add(this);
+        }
+    }
+
+    private void drainAll() {
+        while (drainBatch() > 0) {
+            // continue until empty
+        }
+    }
+
+    /**
+     * Called by the writer thread when this instance is taken from its queue.
+     */
+    private void drainFromWriter() {
+        scheduled.set(false);
+        int written;
+        synchronized (drainLock) {
+            written = released ? 0 : drainBatch();
+        }
+        if (written == BATCH_SIZE) {
+            // There may be more; let other instances have their turn first.
+            schedule();
+        }
+    }
+
+    /**
+     * Called by the writer thread when this instance is taken from its idle queue.
+     */
+    private void idleFromWriter() {
+        idleScheduled.set(false);
+        synchronized (drainLock) {
+            if (released) {
+                return;
+            }
+            try {
+                idle();
+            } catch (Exception e) {
+                log.error("Failed to archive requests/responses for {}", name, e);
+            }
+        }
+    }
+
+    /**
+     * @return the number of items taken out of the buffer.
+     */
+    private int drainBatch() {
+        int count = 0;
+        HttpRequestResponse rr;
+        while (count < BATCH_SIZE && (rr = buffer.poll()) != null) {
+            batch[count++] = rr;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        boolean enabled = isEnabled();
+        for (int i = 0; i < count; i++) {
+            if (enabled) {
+                try {
+                    write(batch[i]);
+                } catch (Exception e) {
+                    log.error("Failed to archive request/response for {}: {}", name, batch[i], e);
+                }
+            }
+            batch[i] = null;
+        }
+        if (enabled) {
+            try {
+                endBatch();
+            } catch (Exception e) {
+                log.error("Failed to archive requests/responses for {}", name, e);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The single writer thread shared by all instances; started on first use.
+     */
+    private static final class Writer {
+
+        private static final Queue<AsyncArchiver> SCHEDULED = new ConcurrentLinkedQueue<>();
+        private static final Queue<AsyncArchiver> IDLE = new ConcurrentLinkedQueue<>();
+
+        private static final Thread THREAD;
+
+        static {
+            THREAD = new Thread(Writer::run, "rescu-archive-writer");
+            THREAD.setDaemon(true);
+            THREAD.start();
+        }
+
+        static boolean isWriterThread() {
+            return Thread.currentThread() == THREAD;
+        }
+
+        static void wakeUp() {
+            LockSupport.unpark(THREAD);
+        }
+
+        private static void run() {
+            long interval = TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS);
+            while (true) {
+                AsyncArchiver archiver;
+                while ((archiver = SCHEDULED.poll()) != null) {
+                    try {
+                        archiver.drainFromWriter();
+                    } catch (RuntimeException e) {
+                        log.error("Unexpected error writing requests/responses", e);
+                    }
+                }
+                // Only those scheduled before this wakeup; the ones rescheduling themselves wait for the next.
+                for (int n = IDLE.size(); n > 0 && (archiver = IDLE.poll()) != null; n--) {
+                    try {
+                        archiver.idleFromWriter();
+                    } catch (RuntimeException e) {
+                        log.error("Unexpected error writing requests/responses", e);
+                    }
+                }
+                LockSupport.parkNanos(Writer.class, interval);
+            }
+        }
+    }
+}
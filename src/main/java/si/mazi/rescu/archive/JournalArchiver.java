@@ -0,0 +1,194 @@
+package si.mazi.rescu.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequestResponse;
+import si.mazi.rescu.utils.MappedBuffers;
+
+/**
+ * Archives requests and responses into an append-only binary journal: a directory of memory-mapped segment files,
+ * each holding length-prefixed, checksummed records (see {@link JournalFormat}). Records are encoded and copied into
+ * the mapped segment on the {@link AsyncArchiver} writer thread, and forced to the disk in batches (see
+ * {@link JournalOptions#setSyncIntervalMillis}); {@link #flush()} writes out the buffered records without forcing
+ * them. Segments are named {@code <name>-<number>.rjl}, or {@code .rjz} when
+ * {@link JournalOptions#setCompressSegments compressed}; an archiver never appends to existing segments, but starts
+ * with the number after the highest one in the directory.
+ * <p>
+ * Unless {@link JournalOptions#setIndexBucketMillis disabled}, each record is added to an index of the current
+ * segment by its path template and request time as it is written; the index is saved next to the segment when the
+ * segment is sealed (see {@link SegmentIndex}).
+ * <p>
+ * Use {@link JournalReader} to read the records back, {@link JournalQuery} to find them through the indexes, or
+ * {@link JournalToJson} to convert them to the JSON written by
+ * {@link si.mazi.rescu.serialization.jackson.JacksonRequestResponseLogger}.
+ */
+public class JournalArchiver extends AsyncArchiver {
+
+    private final Path directory;
+    private final JournalOptions options;
+    private final JournalFormat.RecordEncoder encoder = new JournalFormat.RecordEncoder();
+
+    private long nextSegmentNumber;
+    private Path segmentPath;
+    private MappedByteBuffer segment;
+    private SegmentIndex index;
+    private boolean unsynced;
+    private long lastSync = System.currentTimeMillis();
+
+    public JournalArchiver(Path directory) throws IOException {
+        this(directory, new JournalOptions());
+    }
+
+    public JournalArchiver(Path directory, JournalOptions options) throws IOException {
+        super(options.getName(), options.getCapacity(), options.getOverflowPolicy());
+        this.directory = directory;
+        this.options = options;
+        Files.createDirectories(directory);
+        List<Path> existing = JournalReader.listSegments(directory, options.getName());
+        nextSegmentNumber = existing.isEmpty() ? 0 : JournalReader.segmentNumber(existing.get(existing.size() - 1)) + 1;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    protected void write(HttpRequestResponse requestResponse) throws IOException {
+        ByteBuffer record = encoder.encode(requestResponse);
+        if (segment == null || segment.remaining() < record.remaining()) {
+            startSegment(record.remaining());
+        }
+        if (index != null) {
+            index.add(requestResponse.getRequest().getPathTemplate(), requestResponse.getRequest().getTime(), segment.position());
+        }
+        segment.put(record);
+        unsynced = true;
+    }
+
+    @Override
+    protected void endBatch() throws IOException {
+        syncIfDue();
+    }
+
+    /**
+     * Syncs the records of the last batch once the interval has passed, if no batch has come since to do it.
+     */
+    @Override
+    protected void idle() throws IOException {
+        syncIfDue();
+    }
+
+    private void syncIfDue() throws IOException {
+        long syncInterval = options.getSyncIntervalMillis();
+        if (unsynced && syncInterval >= 0) {
+            long now = System.currentTimeMillis();
+            if (now - lastSync >= syncInterval) {
+                force(segment);
+                unsynced = false;
+                lastSync = now;
+            } else {
+                scheduleIdle();
+            }
+        }
+    }
+
+    void force(MappedByteBuffer segment) {
+        segment.force();
+    }
+
+    @Override
+    protected void release() throws IOException {
+        sealSegment();
+    }
+
+    private void startSegment(int recordSize) throws IOException {
+        sealSegment();
+        int size = Math.max(options.getSegmentSize(), JournalFormat.HEADER_SIZE + recordSize);
+        segmentPath = directory.resolve(JournalReader.segmentFileName(options.getName(), nextSegmentNumber++, false));
+        try (FileChannel channel = FileChannel.open(segmentPath,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        JournalFormat.writeHeader(segment, (short) 0, System.currentTimeMillis());
+        long bucketMillis = options.getIndexBucketMillis();
+        index = bucketMillis > 0 ? new SegmentIndex(bucketMillis * 1_000_000) : null;
+    }
+
+    /**
+     * Forces the current segment to the disk, releases its mapping and truncates it to the written records, then
+     * replaces it with a compressed copy if configured, and saves its index.
+     */
+    private void sealSegment() throws IOException {
+        if (segment == null) {
+            return;
+        }
+        MappedByteBuffer sealed = segment;
+        Path sealedPath = segmentPath;
+        SegmentIndex sealedIndex = index;
+        segment = null;
+        segmentPath = null;
+        index = null;
+        if (unsynced && !options.isCompressSegments()) {
+            force(sealed);
+        }
+        unsynced = false;
+        long length = sealed.position();
+        MappedBuffers.unmap(sealed);
+        try (FileChannel channel = FileChannel.open(sealedPath, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+            if (!options.isCompressSegments()) {
+                channel.force(true);
+            }
+        }
+        if (options.isCompressSegments()) {
+            compress(sealedPath);
+        }
+        if (sealedIndex != null) {
+            sealedIndex.write(SegmentIndex.indexPath(sealedPath));
+        }
+    }
+
+    private void compress(Path sealedPath) throws IOException {
+        String fileName = sealedPath.getFileName().toString();
+        Path compressed = sealedPath.resolveSibling(
+                fileName.substring(0, fileName.length() - JournalFormat.SEGMENT_SUFFIX.length()) + JournalFormat.COMPRESSED_SEGMENT_SUFFIX);
+        Path tmp = compressed.resolveSibling(compressed.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sealedPath), 64 * 1024));
+                OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+            byte[] header = new byte[JournalFormat.HEADER_SIZE];
+            in.readFully(header);
+            ByteBuffer deflatedHeader = ByteBuffer.allocate(JournalFormat.HEADER_SIZE);
+            JournalFormat.writeHeader(deflatedHeader, JournalFormat.FLAG_DEFLATED, ByteBuffer.wrap(header).getLong(8));
+            out.write(deflatedHeader.array());
+            try (DeflaterOutputStream deflated = new DeflaterOutputStream(out, deflater, 64 * 1024)) {
+                byte[] chunk = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(chunk)) > 0) {
+                    deflated.write(chunk, 0, read);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, compressed, StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(sealedPath);
+    }
+}
@@ -0,0 +1,204 @@
+package si.mazi.rescu.archive;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequest;
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequestResponse;
+import si.mazi.rescu.serialization.jackson.serializers.HttpResponse;
+
+/**
+ * The binary layout of journal segments.
+ * <p>
+ * A segment starts with a {@value #HEADER_SIZE}-byte header: the magic number, the format version, the flags and the
+ * creation time in epoch millis. Records follow, each an {@code int} length of the payload, the CRC32 of the
+ * payload as an {@code int}, and the payload. An uncompressed segment is preallocated while it's written to, so a
+ * length of 0 or the end of the file marks its end. In a compressed segment, everything after the header is deflated.
+ * <p>
+ * The payload holds the {@value #RECORD_VERSION} record version byte, the request and response times, the status,
+ * the method, the url, the path template, the request headers and both bodies. Strings are written as their length
+ * in UTF-8 bytes and the bytes, with a length of -1 for null. All numbers are big-endian.
+ * <p>
+ * A sealed segment may have an index file next to it, see {@link SegmentIndex}.
+ */
+final class JournalFormat {
+
+    static final int MAGIC = 0x524A524E; // "RJRN"
+    static final short VERSION = 1;
+    static final short FLAG_DEFLATED = 1;
+    static final int HEADER_SIZE = 16;
+
+    /** The length and the checksum. */
+    static final int RECORD_OVERHEAD = 8;
+
+    static final byte RECORD_VERSION = 1;
+
+    static final String SEGMENT_SUFFIX = ".rjl";
+    static final String COMPRESSED_SEGMENT_SUFFIX = ".rjz";
+    static final String INDEX_SUFFIX = ".rji";
+
+    private JournalFormat() throws InstantiationException {
+        throw new InstantiationException("This class is not for instantiation");
+    }
+
+    static void writeHeader(ByteBuffer buffer, short flags, long createdMillis) {
+        buffer.putInt(MAGIC).putShort(VERSION).putShort(flags).putLong(createdMillis);
+    }
+
+    /**
+     * An encoder that reuses its buffer across records; not thread-safe.
+     */
+    static final class RecordEncoder {
+
+        private final CRC32 crc = new CRC32();
+        private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+        /**
+         * Encodes a whole record, including the length and the checksum, into a buffer that is valid until the next
+         * call.
+         */
+        ByteBuffer encode(HttpRequestResponse rr) {
+            buffer.clear();
+            buffer.position(RECORD_OVERHEAD);
+            HttpRequest request = rr.getRequest();
+            HttpResponse response = rr.getResponse();
+            ensureRemaining(1 + 8 + 8 + 4);
+            buffer.put(RECORD_VERSION);
+            buffer.putLong(request.getTime());
+            buffer.putLong(response.getTime());
+            buffer.putInt(response.getStatus());
+            putString(request.getMethod());
+            putString(request.getUrl());
+            putString(request.getPathTemplate());
+            putHeaders(request.getHeaders());
+            putString(request.getBody());
+            putString(response.getBody());
+
+            int payloadLength = buffer.position() - RECORD_OVERHEAD;
+            crc.reset();
+            crc.update(buffer.array(), buffer.arrayOffset() + RECORD_OVERHEAD, payloadLength);
+            buffer.putInt(0, payloadLength);
+            buffer.putInt(4, (int) crc.getValue());
+            buffer.flip();
+            return buffer;
+        }
+
+        private void putHeaders(Map<String, List<String>> headers) {
+            ensureRemaining(4);
+            if (headers == null) {
+                buffer.putInt(-1);
+                return;
+            }
+            buffer.putInt(headers.size());
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                putString(header.getKey());
+                List<String> values = header.getValue();
+                ensureRemaining(4);
+                if (values == null) {
+                    buffer.putInt(-1);
+                    continue;
+                }
+                buffer.putInt(values.size());
+                for (String value : values) {
+                    putString(value);
+                }
+            }
+        }
+
+        private void putString(String s) {
+            if (s == null) {
+                ensureRemaining(4);
+                buffer.putInt(-1);
+                return;
+            }
+            int length = s.length();
+            ensureRemaining(4 + length);
+            int start = buffer.position();
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset() + start + 4;
+            // Most of what is archived is ASCII, which needs no encoder.
+            for (int i = 0; i < length; i++) {
+                char c = s.charAt(i);
+                if (c >= 0x80) {
+                    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                    ensureRemaining(4 + bytes.length);
+                    buffer.putInt(bytes.length).put(bytes);
+                    return;
+                }
+                array[offset + i] = (byte) c;
+            }
+            buffer.putInt(length).position(start + 4 + length);
+        }
+
+        private void ensureRemaining(int bytes) {
+            if (buffer.remaining() < bytes) {
+                int capacity = buffer.capacity();
+                while (capacity - buffer.position() < bytes) {
+                    capacity *= 2;
+                }
+                ByteBuffer larger = ByteBuffer.allocate(capacity);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+
+    /**
+     * Decodes a payload whose checksum has been verified.
+     */
+    static HttpRequestResponse decode(ByteBuffer payload) {
+        byte version = payload.get();
+        if (version != RECORD_VERSION) {
+            throw new IllegalArgumentException("Unsupported record version " + version);
+        }
+        HttpRequest request = new HttpRequest();
+        HttpResponse response = new HttpResponse();
+        request.setTime(payload.getLong());
+        response.setTime(payload.getLong());
+        response.setStatus(payload.getInt());
+        request.setMethod(getString(payload));
+        request.setUrl(getString(payload));
+        request.setPathTemplate(getString(payload));
+        request.setHeaders(getHeaders(payload));
+        request.setBody(getString(payload));
+        response.setBody(getString(payload));
+        return new HttpRequestResponse(request, response);
+    }
+
+    private static Map<String, List<String>> getHeaders(ByteBuffer payload) {
+        int size = payload.getInt();
+        if (size < 0) {
+            return null;
+        }
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            String name = getString(payload);
+            int count = payload.getInt();
+            List<String> values = null;
+            if (count >= 0) {
+                values = new ArrayList<>(count);
+                for (int v = 0; v < count; v++) {
+                    values.add(getString(payload));
+                }
+            }
+            headers.put(name, values);
+        }
+        return headers;
+    }
+
+    static String getString(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String s = new String(payload.array(), payload.arrayOffset() + payload.position(), length, StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return s;
+    }
+}
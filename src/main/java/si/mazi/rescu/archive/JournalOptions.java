@@ -0,0 +1,108 @@
+package si.mazi.rescu.archive;
+
+/**
+ * Settings of a {@link JournalArchiver}.
+ */
+public class JournalOptions {
+
+    private String name = "journal";
+    private int segmentSize = 64 << 20;
+    private boolean compressSegments = false;
+    private long syncIntervalMillis = 1000;
+    private long indexBucketMillis = 60_000;
+    private int capacity = AsyncArchiver.DEFAULT_CAPACITY;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the prefix of the segment file names, which is also used in log messages; default "journal".
+     */
+    public JournalOptions setName(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Sets the size in bytes of the memory-mapped segment files; default 64 MiB. A record that doesn't fit in the
+     * rest of a segment starts a new one; a record larger than a segment gets a segment of its own. A segment is
+     * truncated to its records when it's sealed.
+     */
+    public JournalOptions setSegmentSize(int segmentSize) {
+        if (segmentSize <= JournalFormat.HEADER_SIZE + JournalFormat.RECORD_OVERHEAD) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    public boolean isCompressSegments() {
+        return compressSegments;
+    }
+
+    /**
+     * Sets whether full segments are deflated when a new one is started (and the last one on close). Request and
+     * response bodies, being mostly JSON, usually compress well; the cost is paid on the archiver's writer thread.
+     * Default off.
+     */
+    public JournalOptions setCompressSegments(boolean compressSegments) {
+        this.compressSegments = compressSegments;
+        return this;
+    }
+
+    public long getSyncIntervalMillis() {
+        return syncIntervalMillis;
+    }
+
+    /**
+     * Sets how often written records are forced to the disk; default every second, also when nothing is archived
+     * after them. With 0, they are forced after every batch the writer takes from the buffer; with a negative value,
+     * only when a segment is full and on close, leaving it to the OS otherwise. Records that are not yet forced survive a crash of the JVM, but not of the
+     * machine.
+     */
+    public JournalOptions setSyncIntervalMillis(long syncIntervalMillis) {
+        this.syncIntervalMillis = syncIntervalMillis;
+        return this;
+    }
+
+    public long getIndexBucketMillis() {
+        return indexBucketMillis;
+    }
+
+    /**
+     * Sets the length of the time buckets in which the segment indexes group the records of each path template;
+     * default a minute. Shorter buckets make queries for short time ranges read fewer records that are then
+     * filtered out, at the cost of larger indexes. With 0 or a negative value, segments are not indexed.
+     */
+    public JournalOptions setIndexBucketMillis(long indexBucketMillis) {
+        this.indexBucketMillis = indexBucketMillis;
+        return this;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @see AsyncArchiver#AsyncArchiver(String, int, OverflowPolicy)
+     */
+    public JournalOptions setCapacity(int capacity) {
+        this.capacity = capacity;
+        return this;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public JournalOptions setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+        return this;
+    }
+}
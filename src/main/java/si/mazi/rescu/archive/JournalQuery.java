@@ -0,0 +1,131 @@
+package si.mazi.rescu.archive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequest;
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequestResponse;
+
+/**
+ * Finds the records written by a {@link JournalArchiver} by path template and request time. Segments with an index
+ * (see {@link SegmentIndex}) are skipped when their time range doesn't overlap the query's, and otherwise only the
+ * records in the matching buckets are read. Segments without one, such as the one the archiver is writing to, or one
+ * left over from a crash, are read whole.
+ * <p>
+ * For example, to find the ticker requests of the last hour:
+ * <pre>{@code
+ * List<HttpRequestResponse> records = new JournalQuery(directory)
+ *         .setPathTemplate("api/{version}/ticker")
+ *         .setFromTime((System.currentTimeMillis() - 3_600_000) * 1_000_000)
+ *         .list();
+ * }</pre>
+ */
+public class JournalQuery {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalQuery.class);
+
+    private final Path directory;
+    private final String name;
+    private String pathTemplate;
+    private boolean anyTemplate = true;
+    private long fromTime = Long.MIN_VALUE;
+    private long toTime = Long.MAX_VALUE;
+
+    /**
+     * Queries all journals in a directory.
+     */
+    public JournalQuery(Path directory) {
+        this(directory, null);
+    }
+
+    /**
+     * Queries the journal with the given {@link JournalOptions#setName name} in a directory.
+     */
+    public JournalQuery(Path directory, String name) {
+        this.directory = directory;
+        this.name = name;
+    }
+
+    /**
+     * Limits the query to the records of the method with the given {@link
+     * si.mazi.rescu.RestMethodMetadata#getPathTemplate() path template}; null finds the records without one, which
+     * were not archived by a rest proxy. All templates match by default.
+     */
+    public JournalQuery setPathTemplate(String pathTemplate) {
+        this.pathTemplate = pathTemplate;
+        this.anyTemplate = false;
+        return this;
+    }
+
+    /**
+     * Limits the query to the requests sent at or after the given time, in nanos since the epoch as in
+     * {@link HttpRequest#getTime()}.
+     */
+    public JournalQuery setFromTime(long fromTime) {
+        this.fromTime = fromTime;
+        return this;
+    }
+
+    /**
+     * Limits the query to the requests sent before the given time, in nanos since the epoch as in
+     * {@link HttpRequest#getTime()}.
+     */
+    public JournalQuery setToTime(long toTime) {
+        this.toTime = toTime;
+        return this;
+    }
+
+    /**
+     * @return the matching records, in the order they were written.
+     */
+    public List<HttpRequestResponse> list() throws IOException {
+        List<HttpRequestResponse> found = new ArrayList<>();
+        for (Path segment : JournalReader.listSegments(directory, name)) {
+            SegmentIndex index = readIndex(segment);
+            try (JournalReader reader = new JournalReader(segment)) {
+                if (index == null) {
+                    HttpRequestResponse record;
+                    while ((record = reader.read()) != null) {
+                        addIfMatches(found, record);
+                    }
+                } else {
+                    int[] offsets = index.find(pathTemplate, anyTemplate, fromTime, toTime);
+                    if (offsets.length > 0) {
+                        for (HttpRequestResponse record : reader.readAt(segment, offsets)) {
+                            addIfMatches(found, record);
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private void addIfMatches(List<HttpRequestResponse> found, HttpRequestResponse record) {
+        HttpRequest request = record.getRequest();
+        if (request.getTime() >= fromTime && request.getTime() < toTime
+                && (anyTemplate || Objects.equals(pathTemplate, request.getPathTemplate()))) {
+            found.add(record);
+        }
+    }
+
+    private static SegmentIndex readIndex(Path segment) {
+        Path indexPath = SegmentIndex.indexPath(segment);
+        if (!Files.exists(indexPath)) {
+            return null;
+        }
+        try {
+            return SegmentIndex.read(indexPath);
+        } catch (IOException e) {
+            log.warn("Can't read the index of {}; reading the whole segment", segment, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package si.mazi.rescu.archive;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.InflaterInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequestResponse;
+
+/**
+ * Reads the records written by a {@link JournalArchiver}, in the order they were written, from a single segment file
+ * or from all segments in a directory. A record that is cut off or fails its checksum, as the last one may after a
+ * crash, ends its segment; reading continues with the next segment. Not thread-safe.
+ */
+public class JournalReader implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalReader.class);
+
+    private static final int MAX_RECORD_SIZE = Integer.MAX_VALUE - JournalFormat.HEADER_SIZE - JournalFormat.RECORD_OVERHEAD;
+
+    private final List<Path> segments;
+    private final CRC32 crc = new CRC32();
+    private int nextSegment;
+    private Path currentSegment;
+    private DataInputStream in;
+    private byte[] payload = new byte[4096];
+    private int lastLength;
+
+    /**
+     * @param path a segment file, or a directory, to read all segments in it
+     */
+    public JournalReader(Path path) throws IOException {
+        this.segments = Files.isDirectory(path) ? listSegments(path) : Collections.singletonList(path);
+    }
+
+    /**
+     * Reads the segments with the given {@link JournalOptions#setName name} in a directory.
+     */
+    public JournalReader(Path directory, String name) throws IOException {
+        this.segments = listSegments(directory, name);
+    }
+
+    /**
+     * @return the next record, or null if there are no more.
+     */
+    public HttpRequestResponse read() throws IOException {
+        while (true) {
+            if (in == null && !openNextSegment()) {
+                return null;
+            }
+            HttpRequestResponse record = readRecord();
+            if (record != null) {
+                return record;
+            }
+            closeSegment();
+        }
+    }
+
+    /**
+     * @return the segment the last record was read from.
+     */
+    public Path getCurrentSegment() {
+        return currentSegment;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+        nextSegment = segments.size();
+    }
+
+    private boolean openNextSegment() throws IOException {
+        if (nextSegment >= segments.size()) {
+            return false;
+        }
+        currentSegment = segments.get(nextSegment++);
+        DataInputStream header = new DataInputStream(new BufferedInputStream(Files.newInputStream(currentSegment), 64 * 1024));
+        try {
+            int magic = header.readInt();
+            short version = header.readShort();
+            short flags = header.readShort();
+            header.readLong();
+            if (magic != JournalFormat.MAGIC || version != JournalFormat.VERSION) {
+                throw new IOException("Not a journal segment of version " + JournalFormat.VERSION + ": " + currentSegment);
+            }
+            in = (flags & JournalFormat.FLAG_DEFLATED) != 0
+                    ? new DataInputStream(new BufferedInputStream(new InflaterInputStream(header), 64 * 1024))
+                    : header;
+        } catch (IOException e) {
+            header.close();
+            throw e instanceof EOFException ? new IOException("Truncated journal segment header: " + currentSegment, e) : e;
+        }
+        return true;
+    }
+
+    /**
+     * @return the next record in the current segment, or null at its end.
+     */
+    private HttpRequestResponse readRecord() throws IOException {
+        int length;
+        int checksum;
+        try {
+            length = in.readInt();
+            if (length == 0) {
+                return null;
+            }
+            checksum = in.readInt();
+            if (length < 0 || length > MAX_RECORD_SIZE) {
+                log.warn("Invalid record length {} in {}; skipping the rest of the segment", length, currentSegment);
+                return null;
+            }
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+            in.readFully(payload, 0, length);
+            lastLength = length;
+        } catch (EOFException e) {
+            return null;
+        }
+        crc.reset();
+        crc.update(payload, 0, length);
+        if ((int) crc.getValue() != checksum) {
+            log.warn("Checksum mismatch in {}; skipping the rest of the segment", currentSegment);
+            return null;
+        }
+        return JournalFormat.decode(ByteBuffer.wrap(payload, 0, length));
+    }
+
+    /**
+     * Reads the records at the given offsets in a segment, as found in its {@link SegmentIndex}. An uncompressed
+     * segment is read at the offsets; a compressed one is inflated up to the last of them, but the records in
+     * between are skipped without being decoded. An offset that doesn't hold a valid record ends the reading, as
+     * {@link #read()} ends a segment.
+     *
+     * @param offsets the offsets, in ascending order
+     */
+    List<HttpRequestResponse> readAt(Path segment, int[] offsets) throws IOException {
+        List<HttpRequestResponse> records = new ArrayList<>(offsets.length);
+        currentSegment = segment;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(JournalFormat.HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.remaining() < JournalFormat.HEADER_SIZE
+                    || header.getInt() != JournalFormat.MAGIC || header.getShort() != JournalFormat.VERSION) {
+                throw new IOException("Not a journal segment of version " + JournalFormat.VERSION + ": " + segment);
+            }
+            boolean deflated = (header.getShort() & JournalFormat.FLAG_DEFLATED) != 0;
+            if (deflated) {
+                channel.position(JournalFormat.HEADER_SIZE);
+                in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(Channels.newInputStream(channel)), 64 * 1024));
+            }
+            long position = JournalFormat.HEADER_SIZE;
+            ByteBuffer overhead = ByteBuffer.allocate(JournalFormat.RECORD_OVERHEAD);
+            for (int offset : offsets) {
+                HttpRequestResponse record;
+                if (deflated) {
+                    if (offset < position || !skipFully(in, offset - position)) {
+                        break;
+                    }
+                    record = readRecord();
+                } else {
+                    overhead.clear();
+                    readFully(channel, overhead, offset);
+                    record = overhead.position() < JournalFormat.RECORD_OVERHEAD
+                            ? null
+                            : readRecord(channel, offset, overhead.getInt(0), overhead.getInt(4));
+                }
+                if (record == null) {
+                    break;
+                }
+                records.add(record);
+                position = (long) offset + JournalFormat.RECORD_OVERHEAD + lastLength;
+            }
+        } finally {
+            closeSegment();
+        }
+        return records;
+    }
+
+    private HttpRequestResponse readRecord(FileChannel channel, int offset, int length, int checksum) throws IOException {
+        if (length <= 0 || length > MAX_RECORD_SIZE) {
+            log.warn("Invalid record length {} at {} in {}", length, offset, currentSegment);
+            return null;
+        }
+        if (payload.length < length) {
+            payload = new byte[Math.max(length, payload.length * 2)];
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(payload, 0, length);
+        readFully(channel, buffer, (long) offset + JournalFormat.RECORD_OVERHEAD);
+        if (buffer.hasRemaining()) {
+            return null;
+        }
+        crc.reset();
+        crc.update(payload, 0, length);
+        if ((int) crc.getValue() != checksum) {
+            log.warn("Checksum mismatch at {} in {}", offset, currentSegment);
+            return null;
+        }
+        lastLength = length;
+        return JournalFormat.decode(ByteBuffer.wrap(payload, 0, length));
+    }
+
+    private static boolean skipFully(InputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    return false;
+                }
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+        return true;
+    }
+
+    /**
+     * Reads until the buffer is full or the end of the file.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return;
+            }
+            position += read;
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        if (in != null) {
+            in.close();
+            in = null;
+        }
+    }
+
+    /**
+     * @return the journal segments in a directory, sorted by name and number.
+     */
+    public static List<Path> listSegments(Path directory) throws IOException {
+        return listSegments(directory, null);
+    }
+
+    static List<Path> listSegments(Path directory, String name) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                if ((fileName.endsWith(JournalFormat.SEGMENT_SUFFIX) || fileName.endsWith(JournalFormat.COMPRESSED_SEGMENT_SUFFIX))
+                        && fileName.lastIndexOf('-') > 0
+                        && (name == null || segmentName(file).equals(name))) {
+                    segments.add(file);
+                }
+            }
+        }
+        segments.sort(Comparator.comparing(JournalReader::segmentName).thenComparingLong(JournalReader::segmentNumber));
+        return segments;
+    }
+
+    static String segmentFileName(String name, long number, boolean compressed) {
+        return String.format("%s-%020d%s", name, number,
+                compressed ? JournalFormat.COMPRESSED_SEGMENT_SUFFIX : JournalFormat.SEGMENT_SUFFIX);
+    }
+
+    static String segmentName(Path segment) {
+        String fileName = segment.getFileName().toString();
+        return fileName.substring(0, fileName.lastIndexOf('-'));
+    }
+
+    static long segmentNumber(Path segment) {
+        String fileName = segment.getFileName().toString();
+        try {
+            return Long.parseLong(fileName.substring(fileName.lastIndexOf('-') + 1, fileName.lastIndexOf('.')));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package si.mazi.rescu.archive;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequestResponse;
+
+/**
+ * Converts journal segments to JSON, one record per line, in the shape written by
+ * {@link si.mazi.rescu.serialization.jackson.JacksonRequestResponseLogger}.
+ * <p>
+ * Usage: {@code java -cp rescu.jar:<dependencies> si.mazi.rescu.archive.JournalToJson <directory or segment>...}
+ */
+public final class JournalToJson {
+
+    private JournalToJson() throws InstantiationException {
+        throw new InstantiationException("This class is not for instantiation");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: JournalToJson <journal directory or segment file>...");
+            System.exit(2);
+        }
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        for (String arg : args) {
+            convert(Paths.get(arg), out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the records of a segment, or of all segments in a directory.
+     *
+     * @return the number of records written
+     */
+    public static long convert(Path path, Writer out) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        long count = 0;
+        try (JournalReader reader = new JournalReader(path)) {
+            HttpRequestResponse record;
+            while ((record = reader.read()) != null) {
+                mapper.writeValue(out, record);
+                out.write('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+}
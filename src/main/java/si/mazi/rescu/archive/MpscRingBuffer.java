@@ -0,0 +1,80 @@
+package si.mazi.rescu.archive;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free queue for any number of producers and a single consumer. Each slot carries a sequence
+ * number which tells producers whether the slot is free and the consumer whether it is filled, so producers only
+ * contend on claiming the next position (a single CAS) and never on the consumer.
+ */
+final class MpscRingBuffer<E> {
+
+    private final int mask;
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerPosition = new AtomicLong();
+
+    /** Only read and written by the (single) consumer. */
+    private long consumerPosition;
+
+    MpscRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        elements = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return elements.length;
+    }
+
+    /**
+     * @return false if the buffer is full.
+     */
+    boolean offer(E element) {
+        while (true) {
+            long position = producerPosition.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (producerPosition.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+            // Else another producer has claimed the position in the meantime; retry.
+        }
+    }
+
+    /**
+     * Must only be called by one thread at a time.
+     *
+     * @return the oldest element, or null if the buffer is empty.
+     */
+    E poll() {
+        long position = consumerPosition;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        E element = (E) elements[index];
+        elements[index] = null;
+        sequences.set(index, position + elements.length);
+        consumerPosition = position + 1;
+        return element;
+    }
+}
@@ -0,0 +1,17 @@
+package si.mazi.rescu.archive;
+
+/**
+ * What an {@link AsyncArchiver} does with an item archived while its buffer is full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Discard the item; see {@link AsyncArchiver#getDroppedCount()}.
+     */
+    DROP,
+
+    /**
+     * Wait until the writer has made room for the item.
+     */
+    BLOCK
+}
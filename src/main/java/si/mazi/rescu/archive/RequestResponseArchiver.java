@@ -0,0 +1,35 @@
+package si.mazi.rescu.archive;
+
+import java.io.Closeable;
+
+import si.mazi.rescu.ClientConfig;
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequest;
+import si.mazi.rescu.serialization.jackson.serializers.HttpResponse;
+
+/**
+ * Keeps a record of the requests sent and the responses received.
+ *
+ * @see ClientConfig#setRequestResponseArchiver(RequestResponseArchiver)
+ * @see ClientConfig#setErrorArchiver(RequestResponseArchiver)
+ */
+public interface RequestResponseArchiver extends Closeable {
+
+    /**
+     * Called on the thread that received the response, right after it was received (and, for the request/response
+     * archiver, mapped), so implementations should return quickly. The request and response are not modified
+     * afterwards.
+     */
+    void archive(HttpRequest request, HttpResponse response);
+
+    /**
+     * Writes out anything archived so far that is still buffered.
+     */
+    void flush();
+
+    /**
+     * Writes out anything still buffered and releases any resources; calls to {@link #archive} afterwards are
+     * ignored.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,227 @@
+package si.mazi.rescu.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * The offsets of the records in a segment by path template (see {@link
+ * si.mazi.rescu.RestMethodMetadata#getPathTemplate()}) and time bucket, the request time divided by the bucket
+ * length. A {@link JournalArchiver} adds each record as it writes it and saves the index next to the segment, as
+ * {@code <name>-<number>.rji}, when the segment is sealed. The offsets are those of the records in the segment with
+ * its records uncompressed, so they are file positions in a {@code .rjl} segment.
+ * <p>
+ * The file starts with the magic number, the format version, the bucket length in nanos and the lowest and highest
+ * request times. For each template follow the template, the number of its buckets and for each bucket the bucket
+ * number, the number of records and their offsets. A CRC32 of all that ends the file. Strings are written as in
+ * {@link JournalFormat}.
+ */
+final class SegmentIndex {
+
+    static final int MAGIC = 0x524A4958; // "RJIX"
+    static final short VERSION = 1;
+
+    private final long bucketNanos;
+    private final Map<String, TreeMap<Long, Offsets>> templates = new HashMap<>();
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+    private int size;
+
+    SegmentIndex(long bucketNanos) {
+        if (bucketNanos <= 0) {
+            throw new IllegalArgumentException("Bucket length must be positive: " + bucketNanos);
+        }
+        this.bucketNanos = bucketNanos;
+    }
+
+    void add(String pathTemplate, long time, int offset) {
+        TreeMap<Long, Offsets> buckets = templates.get(pathTemplate);
+        if (buckets == null) {
+            buckets = new TreeMap<>();
+            templates.put(pathTemplate, buckets);
+        }
+        Long bucket = Math.floorDiv(time, bucketNanos);
+        Offsets offsets = buckets.get(bucket);
+        if (offsets == null) {
+            offsets = new Offsets(4);
+            buckets.put(bucket, offsets);
+        }
+        offsets.add(offset);
+        minTime = Math.min(minTime, time);
+        maxTime = Math.max(maxTime, time);
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getMinTime() {
+        return minTime;
+    }
+
+    long getMaxTime() {
+        return maxTime;
+    }
+
+    /**
+     * @param pathTemplate the template, null for records without one
+     * @param anyTemplate whether to find the records of all templates instead
+     * @return the sorted offsets of the records with the template in the buckets overlapping the given time range;
+     * the records at the edges of the range may fall outside it.
+     */
+    int[] find(String pathTemplate, boolean anyTemplate, long fromTime, long toTime) {
+        if (size == 0 || fromTime >= toTime || maxTime < fromTime || minTime >= toTime) {
+            return new int[0];
+        }
+        Long fromBucket = Math.floorDiv(fromTime, bucketNanos);
+        Long toBucket = Math.floorDiv(toTime - 1, bucketNanos);
+        Offsets found = new Offsets(16);
+        if (anyTemplate) {
+            for (TreeMap<Long, Offsets> buckets : templates.values()) {
+                addAll(found, buckets, fromBucket, toBucket);
+            }
+        } else if (templates.containsKey(pathTemplate)) {
+            addAll(found, templates.get(pathTemplate), fromBucket, toBucket);
+        }
+        int[] offsets = Arrays.copyOf(found.values, found.size);
+        Arrays.sort(offsets);
+        return offsets;
+    }
+
+    private static void addAll(Offsets found, TreeMap<Long, Offsets> buckets, Long fromBucket, Long toBucket) {
+        for (Offsets offsets : buckets.subMap(fromBucket, true, toBucket, true).values()) {
+            for (int i = 0; i < offsets.size; i++) {
+                found.add(offsets.values[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes the index to a temporary file and moves it in place, so that a file with the index's name is complete.
+     */
+    void write(Path path) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + size * 4);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(0);
+        out.writeLong(bucketNanos);
+        out.writeLong(minTime);
+        out.writeLong(maxTime);
+        out.writeInt(templates.size());
+        for (Map.Entry<String, TreeMap<Long, Offsets>> template : templates.entrySet()) {
+            writeString(out, template.getKey());
+            out.writeInt(template.getValue().size());
+            for (Map.Entry<Long, Offsets> bucket : template.getValue().entrySet()) {
+                Offsets offsets = bucket.getValue();
+                out.writeLong(bucket.getKey());
+                out.writeInt(offsets.size);
+                for (int i = 0; i < offsets.size; i++) {
+                    out.writeInt(offsets.values[i]);
+                }
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        out.flush();
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(tmp, bytes.toByteArray());
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @throws IOException if the file is not a complete index
+     */
+    static SegmentIndex read(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        if (bytes.length < 4) {
+            throw new IOException("Truncated segment index: " + path);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (in.getInt(bytes.length - 4) != (int) crc.getValue()) {
+            throw new IOException("Checksum mismatch in segment index: " + path);
+        }
+        try {
+            if (in.getInt() != MAGIC || in.getShort() != VERSION) {
+                throw new IOException("Not a segment index of version " + VERSION + ": " + path);
+            }
+            in.getShort();
+            SegmentIndex index = new SegmentIndex(in.getLong());
+            index.minTime = in.getLong();
+            index.maxTime = in.getLong();
+            int templateCount = in.getInt();
+            for (int t = 0; t < templateCount; t++) {
+                String template = JournalFormat.getString(in);
+                int bucketCount = in.getInt();
+                TreeMap<Long, Offsets> buckets = new TreeMap<>();
+                for (int b = 0; b < bucketCount; b++) {
+                    long bucket = in.getLong();
+                    int count = in.getInt();
+                    if (count < 0 || count > in.remaining() / 4) {
+                        throw new IOException("Corrupt segment index: " + path);
+                    }
+                    Offsets offsets = new Offsets(count);
+                    for (int i = 0; i < count; i++) {
+                        offsets.add(in.getInt());
+                    }
+                    buckets.put(bucket, offsets);
+                    index.size += offsets.size;
+                }
+                index.templates.put(template, buckets);
+            }
+            return index;
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt segment index: " + path, e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    /**
+     * @return the index file of a segment, compressed or not.
+     */
+    static Path indexPath(Path segment) {
+        String fileName = segment.getFileName().toString();
+        return segment.resolveSibling(fileName.substring(0, fileName.lastIndexOf('.')) + JournalFormat.INDEX_SUFFIX);
+    }
+
+    private static final class Offsets {
+        private int[] values;
+        private int size;
+
+        Offsets(int capacity) {
+            values = new int[Math.max(capacity, 1)];
+        }
+
+        void add(int offset) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = offset;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package si.mazi.rescu.endpoints;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One of the base URLs of {@link Endpoints}, with what is known of its load, latency and health.
+ */
+public class Endpoint {
+
+    private final String baseUrl;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Set while the one call let through after the ejection time is in flight.
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    // Guarded by this.
+    private double peakEwmaNanos;
+    private long lastSampleNanos;
+    private long outcomes;
+    private int outcomeCount;
+    private int ejections;
+    private volatile long ejectedUntilNanos;
+    private volatile boolean ejected;
+    private volatile long calls;
+    private volatile long failures;
+
+    Endpoint(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * The latency, moving quickly up to slower calls and decaying slowly down to faster ones; 0 before any call ended.
+     */
+    public synchronized double getPeakEwmaNanos() {
+        return peakEwmaNanos;
+    }
+
+    /**
+     * The cost of sending a call here for the {@link EndpointSelectors#peakEwma() peak EWMA} selection: the latency
+     * times the calls in flight with this one; very large if calls are in flight before any latency is known.
+     */
+    public double getCost() {
+        double latency = getPeakEwmaNanos();
+        int pending = getInFlight();
+        if (latency == 0 && pending > 0) {
+            return Double.MAX_VALUE / 2;
+        }
+        return latency * (pending + 1);
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return true while the endpoint is left out of the selection after too many failures, until a call to it
+     * succeeds after the ejection time
+     */
+    public boolean isEjected() {
+        return ejected;
+    }
+
+    /**
+     * @return true if a call may be sent here: the endpoint isn't ejected, or its ejection time is over and it isn't
+     * being probed yet
+     */
+    boolean isAvailable(long nowNanos) {
+        return !ejected || nowNanos - ejectedUntilNanos >= 0 && !probing.get();
+    }
+
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Counts a selected call as in flight; after the ejection time, the first such call probes the endpoint.
+     *
+     * @param force whether to count the call even if another one is probing the endpoint
+     * @return false if the call wasn't counted, as another one is probing the endpoint
+     */
+    boolean started(long nowNanos, boolean force) {
+        if (ejected && nowNanos - ejectedUntilNanos >= 0 && !probing.compareAndSet(false, true) && !force) {
+            return false;
+        }
+        started();
+        return true;
+    }
+
+    /**
+     * @return true if this call got the endpoint ejected
+     */
+    synchronized boolean ended(long nowNanos, long latencyNanos, boolean failed, Endpoints settings) {
+        inFlight.decrementAndGet();
+        calls++;
+        if (lastSampleNanos == 0 || latencyNanos > peakEwmaNanos) {
+            peakEwmaNanos = latencyNanos;
+        } else {
+            double weight = Math.exp(-(nowNanos - lastSampleNanos) / (double) settings.getDecayNanos());
+            peakEwmaNanos = peakEwmaNanos * weight + latencyNanos * (1 - weight);
+        }
+        lastSampleNanos = nowNanos;
+        if (failed) {
+            failures++;
+        }
+
+        if (ejected) {
+            // Calls sent before the ejection don't count; the probe brings the endpoint back or ejects it again.
+            if (!probing.compareAndSet(true, false)) {
+                return false;
+            }
+            if (failed) {
+                eject(nowNanos, settings);
+                return true;
+            }
+            ejected = false;
+            ejections = 0;
+            return false;
+        }
+        int window = settings.getWindowSize();
+        outcomes = outcomes << 1 | (failed ? 1 : 0);
+        outcomeCount = Math.min(outcomeCount + 1, window);
+        if (!failed) {
+            ejections = 0;
+            return false;
+        }
+        long mask = window == 64 ? -1L : (1L << window) - 1;
+        int windowFailures = Long.bitCount(outcomes & mask);
+        if (outcomeCount < settings.getMinimumCalls()
+                || windowFailures < settings.getFailureRateThreshold() * outcomeCount) {
+            return false;
+        }
+        eject(nowNanos, settings);
+        return true;
+    }
+
+    private void eject(long nowNanos, Endpoints settings) {
+        long ejectionNanos = Math.min(settings.getMaxEjectionNanos(),
+                settings.getEjectionNanos() << Math.min(ejections, 30));
+        ejections++;
+        ejectedUntilNanos = nowNanos + ejectionNanos;
+        ejected = true;
+        outcomes = 0;
+        outcomeCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Endpoint{" + baseUrl + ", inFlight=" + inFlight + ", peakEwmaMillis=" + getPeakEwmaNanos() / 1e6
+                + ", ejected=" + ejected + "}";
+    }
+}
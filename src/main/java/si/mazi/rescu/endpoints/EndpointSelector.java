@@ -0,0 +1,16 @@
+package si.mazi.rescu.endpoints;
+
+import java.util.List;
+
+/**
+ * Picks the endpoint for a call.
+ *
+ * @see EndpointSelectors
+ */
+public interface EndpointSelector {
+
+    /**
+     * @param candidates the endpoints that aren't ejected, or all of them if all are; never empty
+     */
+    Endpoint select(List<Endpoint> candidates);
+}
@@ -0,0 +1,67 @@
+package si.mazi.rescu.endpoints;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The built-in {@link EndpointSelector}s.
+ */
+public final class EndpointSelectors {
+
+    private EndpointSelectors() throws InstantiationException {
+        throw new InstantiationException("This class is not for instantiation");
+    }
+
+    /**
+     * @return a selector taking the endpoints in turn
+     */
+    public static EndpointSelector roundRobin() {
+        AtomicInteger next = new AtomicInteger();
+        return candidates -> candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    /**
+     * @return a selector taking the endpoint with the fewest calls in flight; of those, the endpoints in turn
+     */
+    public static EndpointSelector leastInFlight() {
+        AtomicInteger next = new AtomicInteger();
+        return candidates -> {
+            int size = candidates.size();
+            int start = Math.floorMod(next.getAndIncrement(), size);
+            Endpoint least = null;
+            for (int i = 0; i < size; i++) {
+                Endpoint endpoint = candidates.get((start + i) % size);
+                if (least == null || endpoint.getInFlight() < least.getInFlight()) {
+                    least = endpoint;
+                }
+            }
+            return least;
+        };
+    }
+
+    /**
+     * @return a selector taking, of two endpoints drawn at random, the one with the lower
+     * {@link Endpoint#getCost() peak EWMA cost}: the latency times the calls in flight. Slow or busy endpoints get
+     * fewer calls, and drawing two rather than comparing all keeps calls from piling onto the one that looks best.
+     */
+    public static EndpointSelector peakEwma() {
+        return EndpointSelectors::selectPeakEwma;
+    }
+
+    private static Endpoint selectPeakEwma(List<Endpoint> candidates) {
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = candidates.get(first);
+        Endpoint b = candidates.get(second);
+        return a.getCost() <= b.getCost() ? a : b;
+    }
+}
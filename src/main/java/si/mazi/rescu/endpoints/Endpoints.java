@@ -0,0 +1,197 @@
+package si.mazi.rescu.endpoints;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import si.mazi.rescu.HttpStatusException;
+
+/**
+ * Equivalent base URLs of a service, over which the calls of a proxy are balanced; see
+ * {@link si.mazi.rescu.RestProxyFactory#createProxy(Class, Endpoints, si.mazi.rescu.ClientConfig,
+ * si.mazi.rescu.Interceptor...)}. Each call is sent to the endpoint picked by the {@link EndpointSelector} (by default
+ * {@link EndpointSelectors#peakEwma()}), and its invocation URL is that of the endpoint, as signed and archived.
+ * <p>
+ * An endpoint whose failures reach the failure rate threshold in its last calls is ejected, ie. left out of the
+ * selection, for the ejection time. Then a single call probes it: if that call fails too, the endpoint is ejected
+ * again at once for twice as long (up to the maximum), otherwise it's back. If all endpoints are ejected, all are
+ * selected from. Failures are connection
+ * errors, timeouts and other {@link IOException}s, and HTTP statuses of 500 and above; override
+ * {@link #isEndpointFailure} to change that.
+ */
+public class Endpoints {
+
+    private static final Logger log = LoggerFactory.getLogger(Endpoints.class);
+
+    private final List<Endpoint> endpoints;
+    private volatile EndpointSelector selector = EndpointSelectors.peakEwma();
+    private volatile int windowSize = 20;
+    private volatile int minimumCalls = 10;
+    private volatile double failureRateThreshold = 0.5;
+    private volatile long ejectionNanos = TimeUnit.SECONDS.toNanos(30);
+    private volatile long maxEjectionNanos = TimeUnit.MINUTES.toNanos(5);
+    private volatile long decayNanos = TimeUnit.SECONDS.toNanos(10);
+
+    public Endpoints(String... baseUrls) {
+        this(Arrays.asList(baseUrls));
+    }
+
+    public Endpoints(List<String> baseUrls) {
+        if (baseUrls.isEmpty()) {
+            throw new IllegalArgumentException("No base URLs");
+        }
+        List<Endpoint> list = new ArrayList<>();
+        for (String baseUrl : baseUrls) {
+            list.add(new Endpoint(baseUrl));
+        }
+        this.endpoints = Collections.unmodifiableList(list);
+    }
+
+    public Endpoints setSelector(EndpointSelector selector) {
+        this.selector = selector;
+        return this;
+    }
+
+    /**
+     * @param windowSize how many of an endpoint's last calls the failure rate is of, at most 64; 20 by default
+     */
+    public Endpoints setWindowSize(int windowSize) {
+        if (windowSize < 1 || windowSize > 64) {
+            throw new IllegalArgumentException("Window size must be 1 to 64: " + windowSize);
+        }
+        this.windowSize = windowSize;
+        return this;
+    }
+
+    /**
+     * @param minimumCalls how many calls an endpoint must have made in the window to be ejected; 10 by default
+     */
+    public Endpoints setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+        return this;
+    }
+
+    /**
+     * @param failureRateThreshold the share of failed calls in the window that ejects an endpoint; 0.5 by default
+     */
+    public Endpoints setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+        return this;
+    }
+
+    /**
+     * @param ejection how long an endpoint is first ejected for, 30 seconds by default; doubled on each ejection that
+     * follows without a successful call, up to the maximum, 5 minutes by default
+     */
+    public Endpoints setEjectionTime(long ejection, long maxEjection, TimeUnit unit) {
+        this.ejectionNanos = unit.toNanos(ejection);
+        this.maxEjectionNanos = unit.toNanos(maxEjection);
+        return this;
+    }
+
+    /**
+     * @param decay how quickly the peak EWMA latency forgets slow calls; 10 seconds by default
+     */
+    public Endpoints setDecayTime(long decay, TimeUnit unit) {
+        this.decayNanos = unit.toNanos(decay);
+        return this;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public EndpointSelector getSelector() {
+        return selector;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public long getEjectionNanos() {
+        return ejectionNanos;
+    }
+
+    public long getMaxEjectionNanos() {
+        return maxEjectionNanos;
+    }
+
+    public long getDecayNanos() {
+        return decayNanos;
+    }
+
+    /**
+     * Picks the endpoint for a call, and counts the call as in flight there until {@link #ended}.
+     */
+    public Endpoint select() {
+        while (true) {
+            long now = nanoTime();
+            int size = endpoints.size();
+            int available = 0;
+            for (int i = 0; i < size; i++) {
+                if (endpoints.get(i).isAvailable(now)) {
+                    available++;
+                }
+            }
+            List<Endpoint> candidates = endpoints;
+            if (available > 0 && available < size) {
+                candidates = new ArrayList<>(available);
+                for (int i = 0; i < size; i++) {
+                    if (endpoints.get(i).isAvailable(now)) {
+                        candidates.add(endpoints.get(i));
+                    }
+                }
+            }
+            Endpoint endpoint = selector.select(candidates);
+            // Selected again without the endpoint if another call has just started probing it.
+            if (endpoint.started(now, available == 0)) {
+                return endpoint;
+            }
+        }
+    }
+
+    /**
+     * @param failure what the call threw, or null if it returned
+     */
+    public void ended(Endpoint endpoint, long latencyNanos, Throwable failure) {
+        boolean failed = failure != null && isEndpointFailure(failure);
+        if (endpoint.ended(nanoTime(), latencyNanos, failed, this)) {
+            log.warn("Ejected {} after too many failures, the last one: {}", endpoint.getBaseUrl(), failure.toString());
+        }
+    }
+
+    /**
+     * @return true if the call failed because of the endpoint rather than the call itself; the failure's causes are
+     * looked at too, as it may be wrapped
+     */
+    protected boolean isEndpointFailure(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof HttpStatusException) {
+                return ((HttpStatusException) t).getHttpStatusCode() >= 500;
+            }
+            if (t instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long nanoTime() {
+        return System.nanoTime();
+    }
+}
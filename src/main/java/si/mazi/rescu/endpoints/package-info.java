@@ -0,0 +1,5 @@
+/**
+ * Balancing the calls of a proxy over several equivalent base URLs, with round-robin, least-in-flight or peak EWMA
+ * latency selection, and ejecting the endpoints that fail. See {@link si.mazi.rescu.endpoints.Endpoints}.
+ */
+package si.mazi.rescu.endpoints;
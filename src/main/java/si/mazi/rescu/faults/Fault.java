@@ -0,0 +1,150 @@
+package si.mazi.rescu.faults;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A failure that a {@link FaultInjectingConnectionFactory} makes a connection suffer. The waits honour the
+ * connection's read timeout the way a real socket would: a wait longer than the timeout ends in a
+ * {@link java.net.SocketTimeoutException} once the timeout has passed.
+ */
+public final class Fault {
+
+    enum Kind {
+        DELAY, STALL, RESET, TRUNCATED_GZIP, STATUS
+    }
+
+    private final Kind kind;
+    private final long minMillis;
+    private final long maxMillis;
+    private final int afterBytes;
+    private final int status;
+    private final Map<String, String> headers;
+    private final String body;
+
+    private Fault(Kind kind, long minMillis, long maxMillis, int afterBytes, int status, Map<String, String> headers,
+            String body) {
+        if (minMillis < 0 || maxMillis < minMillis) {
+            throw new IllegalArgumentException("Invalid wait: " + minMillis + " to " + maxMillis + " ms");
+        }
+        if (afterBytes < 0) {
+            throw new IllegalArgumentException("Invalid byte count: " + afterBytes);
+        }
+        this.kind = kind;
+        this.minMillis = minMillis;
+        this.maxMillis = maxMillis;
+        this.afterBytes = afterBytes;
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    /**
+     * A slow server: the response arrives the given time later than it would have.
+     */
+    public static Fault delay(long millis) {
+        return delay(millis, millis);
+    }
+
+    /**
+     * A slow server: the response arrives later than it would have, by a time drawn evenly from the range.
+     */
+    public static Fault delay(long minMillis, long maxMillis) {
+        return new Fault(Kind.DELAY, minMillis, maxMillis, 0, 0, Collections.<String, String>emptyMap(), null);
+    }
+
+    /**
+     * A stalled read: the response body stops for the given time after the given number of bytes, then goes on.
+     */
+    public static Fault stall(int afterBytes, long millis) {
+        return new Fault(Kind.STALL, millis, millis, afterBytes, 0, Collections.<String, String>emptyMap(), null);
+    }
+
+    /**
+     * A connection reset: the request isn't sent, and asking for the response throws a
+     * {@link java.net.SocketException}.
+     */
+    public static Fault reset() {
+        return new Fault(Kind.RESET, 0, 0, 0, 0, Collections.<String, String>emptyMap(), null);
+    }
+
+    /**
+     * A truncated gzip body: the server's response body is gzipped, cut off after the given number of compressed
+     * bytes and served as {@code Content-Encoding: gzip}, so that reading it fails with an {@link java.io.EOFException}.
+     */
+    public static Fault truncatedGzip(int afterBytes) {
+        return new Fault(Kind.TRUNCATED_GZIP, 0, 0, afterBytes, 0, Collections.<String, String>emptyMap(), null);
+    }
+
+    /**
+     * An error response: the request isn't sent, and the response has the given status and body (which may be null).
+     */
+    public static Fault status(int status, String body) {
+        return status(status, Collections.<String, String>emptyMap(), body);
+    }
+
+    /**
+     * An error response with the given headers: the request isn't sent, and the response has the given status, headers
+     * and body (which may be null).
+     */
+    public static Fault status(int status, Map<String, String> headers, String body) {
+        if (status < 100 || status > 599) {
+            throw new IllegalArgumentException("Invalid status: " + status);
+        }
+        return new Fault(Kind.STATUS, 0, 0, 0, status, Collections.unmodifiableMap(new LinkedHashMap<>(headers)), body);
+    }
+
+    /**
+     * A rate limit: a 429 response with a {@code Retry-After} header. Use {@link FaultRule#setBurst} to have it last
+     * for a number of calls.
+     */
+    public static Fault tooManyRequests(int retryAfterSeconds) {
+        return status(429, Collections.singletonMap("Retry-After", String.valueOf(retryAfterSeconds)),
+                "{\"error\":\"Too many requests\"}");
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the wait of a delay or stall, drawn from its range
+     */
+    long drawMillis(Random random) {
+        return minMillis == maxMillis ? minMillis : minMillis + (long) (random.nextDouble() * (maxMillis - minMillis + 1));
+    }
+
+    int getAfterBytes() {
+        return afterBytes;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    String getBody() {
+        return body;
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case DELAY:
+                return "delay " + (minMillis == maxMillis ? minMillis : minMillis + "-" + maxMillis) + " ms";
+            case STALL:
+                return "stall " + minMillis + " ms after " + afterBytes + " bytes";
+            case RESET:
+                return "reset";
+            case TRUNCATED_GZIP:
+                return "gzip truncated after " + afterBytes + " bytes";
+            default:
+                return "status " + status;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package si.mazi.rescu.faults;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import si.mazi.rescu.HttpConnectionFactory;
+import si.mazi.rescu.RestInvocation;
+
+/**
+ * Opens connections through another {@link HttpConnectionFactory} and makes some of them fail, following
+ * {@link FaultRule}s, to see how timeouts, retries and pool sizes hold up against slow or failing servers without
+ * needing one. The rules are tried in the order they were added, and the first one whose fault is drawn applies.
+ * <p>
+ * The draws come from one random generator with the given seed, in the order the connections are opened, so a
+ * single-threaded run injects the same faults each time.
+ */
+public class FaultInjectingConnectionFactory implements HttpConnectionFactory {
+
+    private final HttpConnectionFactory delegate;
+    private final List<FaultRule> rules = new CopyOnWriteArrayList<>();
+    private final Random random;
+
+    /**
+     * Injects faults into the connections to the servers.
+     */
+    public FaultInjectingConnectionFactory(long seed) {
+        this(HttpConnectionFactory.DEFAULT, seed);
+    }
+
+    public FaultInjectingConnectionFactory(HttpConnectionFactory delegate, long seed) {
+        this.delegate = delegate;
+        this.random = new Random(seed);
+    }
+
+    public FaultInjectingConnectionFactory addRule(FaultRule rule) {
+        rules.add(rule);
+        return this;
+    }
+
+    public List<FaultRule> getRules() {
+        return rules;
+    }
+
+    @Override
+    public HttpURLConnection openConnection(RestInvocation invocation, URL url, Proxy proxy) throws IOException {
+        Fault fault = null;
+        long waitMillis = 0;
+        synchronized (random) {
+            for (FaultRule rule : rules) {
+                if (!rule.matches(invocation, url)) {
+                    continue;
+                }
+                if (rule.burstLeft > 0) {
+                    rule.burstLeft--;
+                } else if (random.nextDouble() < rule.getProbability()) {
+                    rule.burstLeft = rule.getBurst() - 1;
+                } else {
+                    continue;
+                }
+                rule.injected();
+                fault = rule.getFault();
+                waitMillis = fault.drawMillis(random);
+                break;
+            }
+        }
+        HttpURLConnection connection = delegate.openConnection(invocation, url, proxy);
+        return fault == null ? connection : new FaultyConnection(connection, fault, waitMillis);
+    }
+}
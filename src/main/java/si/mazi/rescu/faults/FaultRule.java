@@ -0,0 +1,115 @@
+package si.mazi.rescu.faults;
+
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicLong;
+
+import si.mazi.rescu.RestInvocation;
+
+/**
+ * When a {@link FaultInjectingConnectionFactory} injects a {@link Fault}: into which connections, how often and for
+ * how many connections in a row. By default, into every connection.
+ */
+public class FaultRule {
+
+    private final Fault fault;
+    private volatile String methodName;
+    private volatile String path;
+    private volatile double probability = 1;
+    private volatile int burst = 1;
+
+    /** The connections still to get the fault in the current burst; guarded by the factory's lock. */
+    int burstLeft;
+    private final AtomicLong injected = new AtomicLong();
+
+    public FaultRule(Fault fault) {
+        if (fault == null) {
+            throw new NullPointerException("fault");
+        }
+        this.fault = fault;
+    }
+
+    public Fault getFault() {
+        return fault;
+    }
+
+    /**
+     * Limits the rule to the invocations of rest interface methods with the given (Java) name.
+     */
+    public FaultRule setMethodName(String methodName) {
+        this.methodName = methodName;
+        return this;
+    }
+
+    /**
+     * Limits the rule to the connections whose invocation has the given path template, eg. {@code api/{pair}/ticker},
+     * or whose url path starts with the given path, eg. {@code /api/orders}.
+     */
+    public FaultRule setPath(String path) {
+        this.path = path;
+        return this;
+    }
+
+    /**
+     * Sets the chance, from 0 to 1, that a matching connection gets the fault; default 1.
+     */
+    public FaultRule setProbability(double probability) {
+        if (!(probability >= 0 && probability <= 1)) {
+            throw new IllegalArgumentException("Probability must be from 0 to 1: " + probability);
+        }
+        this.probability = probability;
+        return this;
+    }
+
+    /**
+     * Sets how many matching connections in a row get the fault once it is drawn, eg. for a burst of 429 responses;
+     * default 1.
+     */
+    public FaultRule setBurst(int burst) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("Burst must be at least 1: " + burst);
+        }
+        this.burst = burst;
+        return this;
+    }
+
+    double getProbability() {
+        return probability;
+    }
+
+    int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @return how many connections have got the fault so far
+     */
+    public long getInjectedCount() {
+        return injected.get();
+    }
+
+    void injected() {
+        injected.incrementAndGet();
+    }
+
+    boolean matches(RestInvocation invocation, URL url) {
+        String methodName = this.methodName;
+        if (methodName != null
+                && (invocation == null || !methodName.equals(invocation.getMethodMetadata().getMethodName()))) {
+            return false;
+        }
+        String path = this.path;
+        if (path != null) {
+            boolean templateMatches = invocation != null && path.equals(invocation.getMethodMetadata().getPathTemplate());
+            if (!templateMatches && !url.getPath().startsWith(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return fault + (methodName == null ? "" : " on " + methodName) + (path == null ? "" : " at " + path)
+                + " with probability " + probability + (burst == 1 ? "" : " in bursts of " + burst);
+    }
+}
@@ -0,0 +1,508 @@
+package si.mazi.rescu.faults;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.security.Principal;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Delegates to a real connection, except where the {@link Fault} makes it fail. Resets and error statuses don't send
+ * the request: the delegate is never connected. Like {@link si.mazi.rescu.replay} connections, it is an
+ * {@link HttpsURLConnection} so that the SSL settings reach an https delegate.
+ */
+class FaultyConnection extends HttpsURLConnection {
+
+    private final HttpURLConnection delegate;
+    private final Fault fault;
+    private final long waitMillis;
+
+    private boolean responded;
+    private IOException failure;
+    private byte[] truncatedBody;
+    private List<String[]> headerFields;
+
+    FaultyConnection(HttpURLConnection delegate, Fault fault, long waitMillis) {
+        super(delegate.getURL());
+        this.delegate = delegate;
+        this.fault = fault;
+        this.waitMillis = waitMillis;
+    }
+
+    private boolean isShortCircuited() {
+        return fault.getKind() == Fault.Kind.RESET || fault.getKind() == Fault.Kind.STATUS;
+    }
+
+    /**
+     * Fails or delays the response, once; a failure is thrown again on each later attempt to read the response.
+     */
+    private void respond() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (responded) {
+            return;
+        }
+        try {
+            if (fault.getKind() == Fault.Kind.RESET) {
+                throw new SocketException("Connection reset");
+            }
+            if (fault.getKind() == Fault.Kind.DELAY) {
+                await(waitMillis);
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+        responded = true;
+        connected = true;
+    }
+
+    /**
+     * Waits as a blocked read would, until the time passes or the read timeout does.
+     */
+    private void await(long millis) throws IOException {
+        int timeout = getReadTimeout();
+        try {
+            Thread.sleep(timeout > 0 ? Math.min(millis, timeout) : millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while injecting " + fault);
+        }
+        if (timeout > 0 && millis > timeout) {
+            throw new SocketTimeoutException("Read timed out");
+        }
+    }
+
+    @Override
+    public void connect() throws IOException {
+        if (!isShortCircuited()) {
+            delegate.connect();
+        }
+        connected = true;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        return isShortCircuited() ? new ByteArrayOutputStream() : delegate.getOutputStream();
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+        respond();
+        return isShortCircuited() ? fault.getStatus() : delegate.getResponseCode();
+    }
+
+    @Override
+    public String getResponseMessage() throws IOException {
+        respond();
+        return isShortCircuited() ? null : delegate.getResponseMessage();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        respond();
+        switch (fault.getKind()) {
+            case STATUS:
+                if (fault.getStatus() >= 400) {
+                    throw fault.getStatus() == 404 || fault.getStatus() == 410
+                            ? new FileNotFoundException(url.toString())
+                            : new IOException("Server returned HTTP response code: " + fault.getStatus() + " for URL: " + url);
+                }
+                return new ByteArrayInputStream(fault.getBody() == null ? new byte[0] : fault.getBody().getBytes("UTF-8"));
+            case TRUNCATED_GZIP:
+                return truncated(false);
+            case STALL:
+                return new StallingInputStream(delegate.getInputStream());
+            default:
+                return delegate.getInputStream();
+        }
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        try {
+            respond();
+            switch (fault.getKind()) {
+                case STATUS:
+                    return fault.getStatus() < 400 || fault.getBody() == null
+                            ? null
+                            : new ByteArrayInputStream(fault.getBody().getBytes("UTF-8"));
+                case TRUNCATED_GZIP:
+                    return truncated(true);
+                case STALL:
+                    InputStream in = delegate.getErrorStream();
+                    return in == null ? null : new StallingInputStream(in);
+                default:
+                    return delegate.getErrorStream();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the response body gzipped, unless the server did, and cut off before its end
+     */
+    private InputStream truncated(boolean error) throws IOException {
+        if (truncatedBody == null) {
+            InputStream in = error ? delegate.getErrorStream() : delegate.getInputStream();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            if (in != null) {
+                try {
+                    byte[] chunk = new byte[8192];
+                    for (int read; (read = in.read(chunk)) >= 0; ) {
+                        body.write(chunk, 0, read);
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+            byte[] compressed;
+            if ("gzip".equalsIgnoreCase(delegate.getHeaderField("Content-Encoding"))) {
+                compressed = body.toByteArray();
+            } else {
+                ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+                    body.writeTo(gzip);
+                }
+                compressed = gzipped.toByteArray();
+            }
+            truncatedBody = Arrays.copyOf(compressed, Math.max(0, Math.min(fault.getAfterBytes(), compressed.length - 1)));
+        }
+        return new ByteArrayInputStream(truncatedBody);
+    }
+
+    /**
+     * Stops for the fault's wait when the given number of bytes have been read.
+     */
+    private class StallingInputStream extends FilterInputStream {
+
+        private long read;
+        private boolean stalled;
+
+        StallingInputStream(InputStream in) {
+            super(in);
+        }
+
+        private void stallIfDue() throws IOException {
+            if (!stalled && read >= fault.getAfterBytes()) {
+                stalled = true;
+                await(waitMillis);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            stallIfDue();
+            int b = super.read();
+            if (b >= 0) {
+                read++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            stallIfDue();
+            if (!stalled) {
+                len = (int) Math.min(len, fault.getAfterBytes() - read);
+            }
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                read += n;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * @return the status line and the headers of an injected status as name-value pairs, as
+     * {@link #getHeaderField(int)} numbers them
+     */
+    private List<String[]> headerFields() {
+        if (headerFields == null) {
+            List<String[]> fields = new ArrayList<>();
+            fields.add(new String[] {null, "HTTP/1.1 " + fault.getStatus()});
+            for (Map.Entry<String, String> header : fault.getHeaders().entrySet()) {
+                fields.add(new String[] {header.getKey(), header.getValue()});
+            }
+            headerFields = fields;
+        }
+        return headerFields;
+    }
+
+    @Override
+    public String getHeaderField(String name) {
+        try {
+            respond();
+        } catch (IOException e) {
+            return null;
+        }
+        if (fault.getKind() == Fault.Kind.STATUS) {
+            String value = null;
+            for (String[] field : headerFields()) {
+                if (field[0] == null ? name == null : field[0].equalsIgnoreCase(name)) {
+                    value = field[1];
+                }
+            }
+            return value;
+        }
+        if (fault.getKind() == Fault.Kind.TRUNCATED_GZIP && "Content-Encoding".equalsIgnoreCase(name)) {
+            return "gzip";
+        }
+        return delegate.getHeaderField(name);
+    }
+
+    @Override
+    public String getHeaderFieldKey(int n) {
+        try {
+            respond();
+        } catch (IOException e) {
+            return null;
+        }
+        if (fault.getKind() == Fault.Kind.STATUS) {
+            List<String[]> fields = headerFields();
+            return n >= 0 && n < fields.size() ? fields.get(n)[0] : null;
+        }
+        return delegate.getHeaderFieldKey(n);
+    }
+
+    @Override
+    public String getHeaderField(int n) {
+        try {
+            respond();
+        } catch (IOException e) {
+            return null;
+        }
+        if (fault.getKind() == Fault.Kind.STATUS) {
+            List<String[]> fields = headerFields();
+            return n >= 0 && n < fields.size() ? fields.get(n)[1] : null;
+        }
+        return delegate.getHeaderField(n);
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+        try {
+            respond();
+        } catch (IOException e) {
+            return Collections.emptyMap();
+        }
+        if (fault.getKind() == Fault.Kind.STATUS) {
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (String[] field : headerFields()) {
+                List<String> values = headers.get(field[0]);
+                if (values == null) {
+                    values = new ArrayList<>(1);
+                    headers.put(field[0], values);
+                }
+                values.add(field[1]);
+            }
+            return Collections.unmodifiableMap(headers);
+        }
+        if (fault.getKind() == Fault.Kind.TRUNCATED_GZIP) {
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> header : delegate.getHeaderFields().entrySet()) {
+                if (header.getKey() == null || !header.getKey().equalsIgnoreCase("Content-Encoding")) {
+                    headers.put(header.getKey(), header.getValue());
+                }
+            }
+            headers.put("Content-Encoding", Collections.singletonList("gzip"));
+            return Collections.unmodifiableMap(headers);
+        }
+        return delegate.getHeaderFields();
+    }
+
+    @Override
+    public void disconnect() {
+        delegate.disconnect();
+    }
+
+    @Override
+    public boolean usingProxy() {
+        return delegate.usingProxy();
+    }
+
+    @Override
+    public void setRequestMethod(String method) throws ProtocolException {
+        delegate.setRequestMethod(method);
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return delegate.getRequestMethod();
+    }
+
+    @Override
+    public void setRequestProperty(String key, String value) {
+        delegate.setRequestProperty(key, value);
+    }
+
+    @Override
+    public void addRequestProperty(String key, String value) {
+        delegate.addRequestProperty(key, value);
+    }
+
+    @Override
+    public String getRequestProperty(String key) {
+        return delegate.getRequestProperty(key);
+    }
+
+    @Override
+    public Map<String, List<String>> getRequestProperties() {
+        return delegate.getRequestProperties();
+    }
+
+    @Override
+    public void setDoOutput(boolean doOutput) {
+        delegate.setDoOutput(doOutput);
+    }
+
+    @Override
+    public boolean getDoOutput() {
+        return delegate.getDoOutput();
+    }
+
+    @Override
+    public void setDoInput(boolean doInput) {
+        delegate.setDoInput(doInput);
+    }
+
+    @Override
+    public boolean getDoInput() {
+        return delegate.getDoInput();
+    }
+
+    @Override
+    public void setUseCaches(boolean useCaches) {
+        delegate.setUseCaches(useCaches);
+    }
+
+    @Override
+    public boolean getUseCaches() {
+        return delegate.getUseCaches();
+    }
+
+    @Override
+    public void setConnectTimeout(int timeout) {
+        delegate.setConnectTimeout(timeout);
+    }
+
+    @Override
+    public int getConnectTimeout() {
+        return delegate.getConnectTimeout();
+    }
+
+    @Override
+    public void setReadTimeout(int timeout) {
+        delegate.setReadTimeout(timeout);
+    }
+
+    @Override
+    public int getReadTimeout() {
+        return delegate.getReadTimeout();
+    }
+
+    @Override
+    public void setInstanceFollowRedirects(boolean followRedirects) {
+        delegate.setInstanceFollowRedirects(followRedirects);
+    }
+
+    @Override
+    public boolean getInstanceFollowRedirects() {
+        return delegate.getInstanceFollowRedirects();
+    }
+
+    @Override
+    public void setFixedLengthStreamingMode(int contentLength) {
+        delegate.setFixedLengthStreamingMode(contentLength);
+    }
+
+    @Override
+    public void setFixedLengthStreamingMode(long contentLength) {
+        delegate.setFixedLengthStreamingMode(contentLength);
+    }
+
+    @Override
+    public void setChunkedStreamingMode(int chunkLength) {
+        delegate.setChunkedStreamingMode(chunkLength);
+    }
+
+    @Override
+    public void setSSLSocketFactory(SSLSocketFactory sf) {
+        if (delegate instanceof HttpsURLConnection) {
+            ((HttpsURLConnection) delegate).setSSLSocketFactory(sf);
+        }
+    }
+
+    @Override
+    public SSLSocketFactory getSSLSocketFactory() {
+        return delegate instanceof HttpsURLConnection ? ((HttpsURLConnection) delegate).getSSLSocketFactory() : null;
+    }
+
+    @Override
+    public void setHostnameVerifier(HostnameVerifier v) {
+        if (delegate instanceof HttpsURLConnection) {
+            ((HttpsURLConnection) delegate).setHostnameVerifier(v);
+        }
+    }
+
+    @Override
+    public HostnameVerifier getHostnameVerifier() {
+        return delegate instanceof HttpsURLConnection ? ((HttpsURLConnection) delegate).getHostnameVerifier() : null;
+    }
+
+    @Override
+    public String getCipherSuite() {
+        return https().getCipherSuite();
+    }
+
+    @Override
+    public Certificate[] getLocalCertificates() {
+        return https().getLocalCertificates();
+    }
+
+    @Override
+    public Certificate[] getServerCertificates() throws SSLPeerUnverifiedException {
+        return https().getServerCertificates();
+    }
+
+    @Override
+    public Principal getPeerPrincipal() throws SSLPeerUnverifiedException {
+        return https().getPeerPrincipal();
+    }
+
+    @Override
+    public Principal getLocalPrincipal() {
+        return https().getLocalPrincipal();
+    }
+
+    private HttpsURLConnection https() {
+        if (!(delegate instanceof HttpsURLConnection)) {
+            throw new IllegalStateException("Not an https connection: " + url);
+        }
+        return (HttpsURLConnection) delegate;
+    }
+}
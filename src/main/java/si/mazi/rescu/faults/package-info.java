@@ -0,0 +1,6 @@
+/**
+ * Injecting slow responses, stalled reads, connection resets, truncated bodies and error statuses into the connections
+ * that invocations are sent through, with {@link si.mazi.rescu.ClientConfig#setHttpConnectionFactory}, to test how a
+ * client behaves against failing servers. See {@link si.mazi.rescu.faults.FaultInjectingConnectionFactory}.
+ */
+package si.mazi.rescu.faults;
@@ -0,0 +1,80 @@
+package si.mazi.rescu.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the CPU time and the bytes allocated by the current thread between {@link #record} calls and adds them to
+ * a method's {@link MethodCosts}. A meter is used by one thread only.
+ * <p>
+ * Allocation is measured with {@code com.sun.management.ThreadMXBean} on the JVMs that have it (HotSpot and OpenJ9);
+ * elsewhere, or if either measurement is disabled in the JVM, it counts as 0.
+ */
+public final class CostMeter {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported();
+    private static final com.sun.management.ThreadMXBean ALLOCATION = allocationBean();
+
+    private final MethodCosts costs;
+    private final long threadId = Thread.currentThread().getId();
+    private long cpuNanos;
+    private long allocatedBytes;
+
+    CostMeter(MethodCosts costs) {
+        this.costs = costs;
+        cpuNanos = cpuNanos();
+        allocatedBytes = allocatedBytes(threadId);
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            if (THREADS instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREADS;
+                if (bean.isThreadAllocatedMemorySupported()) {
+                    return bean;
+                }
+            }
+        } catch (LinkageError e) {
+            // Not a HotSpot-like JVM.
+        }
+        return null;
+    }
+
+    /**
+     * @return whether the JVM measures the memory allocated by threads
+     */
+    public static boolean isAllocationMeasured() {
+        return ALLOCATION != null && ALLOCATION.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * @return whether the JVM measures the CPU time of threads
+     */
+    public static boolean isCpuTimeMeasured() {
+        return CPU_TIME && THREADS.isThreadCpuTimeEnabled();
+    }
+
+    private static long cpuNanos() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long allocatedBytes(long threadId) {
+        if (ALLOCATION == null) {
+            return 0;
+        }
+        long bytes = ALLOCATION.getThreadAllocatedBytes(threadId);
+        return bytes < 0 ? 0 : bytes;
+    }
+
+    /**
+     * Adds the CPU time and allocation since the meter was created or last recorded to the given phase.
+     */
+    public void record(Phase phase) {
+        long cpu = cpuNanos();
+        long allocated = allocatedBytes(threadId);
+        costs.add(phase, Math.max(0, cpu - cpuNanos), Math.max(0, allocated - allocatedBytes));
+        cpuNanos = cpu;
+        allocatedBytes = allocated;
+    }
+}
@@ -0,0 +1,73 @@
+package si.mazi.rescu.metrics;
+
+/**
+ * The counts of a {@link LatencyHistogram} at some point. The values are in nanoseconds; percentiles, the minimum and
+ * the maximum are given as the highest value of their bucket.
+ */
+public final class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+
+    HistogramSnapshot(long[] counts, long sum) {
+        this.counts = counts;
+        this.sum = sum;
+        long total = 0;
+        for (long bucket : counts) {
+            total += bucket;
+        }
+        this.count = total;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the mean of the exact values, or 0 if there are none
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long getMin() {
+        return getValueAtPercentile(0);
+    }
+
+    public long getMax() {
+        return getValueAtPercentile(100);
+    }
+
+    /**
+     * @param percentile from 0 to 100, eg. 99.9
+     * @return the value that the given percentage of the values are less than or equal to, or 0 if there are none
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be from 0 to 100: " + percentile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return LatencyHistogram.highestEquivalentValue(i);
+            }
+        }
+        return LatencyHistogram.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                count, getMean() / 1000, micros(50), micros(90), micros(99), micros(99.9), micros(100));
+    }
+
+    private double micros(double percentile) {
+        return getValueAtPercentile(percentile) / 1000.0;
+    }
+}
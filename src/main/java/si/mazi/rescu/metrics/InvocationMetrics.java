@@ -0,0 +1,115 @@
+package si.mazi.rescu.metrics;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import si.mazi.rescu.RestMethodMetadata;
+
+/**
+ * Counts the calls of the proxies it is {@link si.mazi.rescu.ClientConfig#setInvocationMetrics set on}, by rest
+ * interface method and host, and hands the {@link MethodMetrics} of each to its {@link MetricsExporter}s. By default
+ * they are exported to JMX.
+ * <p>
+ * Overloaded methods of an interface share their metrics, as do proxies of the same interface and host that share
+ * the {@code InvocationMetrics}. {@link #close() Close} them when they're no longer used, so that the exporters remove
+ * what they published, eg. for other {@code InvocationMetrics} of the same methods to be registered in JMX.
+ */
+public class InvocationMetrics implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(InvocationMetrics.class);
+
+    private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+    private final List<MetricsExporter> exporters;
+
+    /**
+     * Exports the metrics to the platform MBean server.
+     *
+     * @see JmxMetricsExporter
+     */
+    public InvocationMetrics() {
+        this(new JmxMetricsExporter());
+    }
+
+    /**
+     * @param exporters the exporters of the metrics, eg. adapters to a metrics library
+     */
+    public InvocationMetrics(MetricsExporter... exporters) {
+        this.exporters = Arrays.asList(exporters);
+    }
+
+    /**
+     * @return the metrics of the given method on the host of its base url, created and exported on the first call
+     */
+    public MethodMetrics register(Class<?> restInterface, RestMethodMetadata methodMetadata) {
+        String host = getHost(methodMetadata.getBaseUrl());
+        String key = restInterface.getName() + " " + methodMetadata.getMethodName() + " " + host;
+        MethodMetrics metrics = methods.get(key);
+        if (metrics == null) {
+            MethodMetrics created = new MethodMetrics(restInterface.getName(), methodMetadata.getMethodName(), host);
+            metrics = methods.putIfAbsent(key, created);
+            if (metrics == null) {
+                metrics = created;
+                for (MetricsExporter exporter : exporters) {
+                    try {
+                        exporter.methodAdded(created);
+                    } catch (RuntimeException e) {
+                        log.warn("Metrics exporter {} failed on {}", exporter, created, e);
+                    }
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * @return the metrics of the methods that have been called
+     */
+    public List<MethodMetrics> getMethods() {
+        return new ArrayList<>(methods.values());
+    }
+
+    /**
+     * @return the metrics of a method with the given name, or null if none has been called
+     */
+    public MethodMetrics get(String methodName) {
+        for (MethodMetrics method : methods.values()) {
+            if (method.getMethodName().equals(methodName)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Closes the exporters, eg. unregisters the MXBeans. The calls of the proxies that are still used are counted on.
+     */
+    @Override
+    public void close() {
+        for (MetricsExporter exporter : exporters) {
+            try {
+                exporter.close();
+            } catch (RuntimeException e) {
+                log.warn("Metrics exporter {} failed to close", exporter, e);
+            }
+        }
+    }
+
+    static String getHost(String baseUrl) {
+        try {
+            URI uri = URI.create(baseUrl);
+            if (uri.getHost() != null) {
+                return uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+            }
+        } catch (IllegalArgumentException ignored) {
+        }
+        return baseUrl;
+    }
+}
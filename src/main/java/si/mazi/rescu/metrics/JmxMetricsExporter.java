@@ -0,0 +1,80 @@
+package si.mazi.rescu.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registers each {@link MethodMetrics} as an MXBean named
+ * {@code <domain>:type=RestMethod,interface=<interface>,method=<method>,host=<host>}, in the platform MBean server
+ * unless given another.
+ */
+public class JmxMetricsExporter implements MetricsExporter {
+
+    public static final String DEFAULT_DOMAIN = "si.mazi.rescu";
+
+    private static final Logger log = LoggerFactory.getLogger(JmxMetricsExporter.class);
+
+    private final MBeanServer server;
+    private final String domain;
+    private final List<ObjectName> registered = new CopyOnWriteArrayList<>();
+
+    public JmxMetricsExporter() {
+        this(DEFAULT_DOMAIN);
+    }
+
+    public JmxMetricsExporter(String domain) {
+        this(ManagementFactory.getPlatformMBeanServer(), domain);
+    }
+
+    public JmxMetricsExporter(MBeanServer server, String domain) {
+        this.server = server;
+        this.domain = domain;
+    }
+
+    public ObjectName getObjectName(MethodMetrics metrics) throws JMException {
+        return new ObjectName(domain + ":type=RestMethod,interface=" + ObjectName.quote(metrics.getInterfaceName())
+                + ",method=" + ObjectName.quote(metrics.getMethodName()) + ",host=" + ObjectName.quote(metrics.getHost()));
+    }
+
+    @Override
+    public void methodAdded(MethodMetrics metrics) {
+        try {
+            ObjectName name = getObjectName(metrics);
+            server.registerMBean(metrics, name);
+            registered.add(name);
+        } catch (JMException e) {
+            // Most likely the same method is already registered by the metrics of another client.
+            log.warn("Failed to register the metrics of {} in JMX", metrics, e);
+        }
+    }
+
+    /**
+     * Unregisters the MXBeans, see {@link #unregister()}.
+     */
+    @Override
+    public void close() {
+        unregister();
+    }
+
+    /**
+     * Unregisters the MXBeans this has registered.
+     */
+    public void unregister() {
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                log.warn("Failed to unregister {}", name, e);
+            }
+            registered.remove(name);
+        }
+    }
+}
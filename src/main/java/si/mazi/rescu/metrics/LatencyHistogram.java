@@ -0,0 +1,81 @@
+package si.mazi.rescu.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds, with log-linear buckets in the manner of HdrHistogram: values are
+ * counted exactly up to 63 ns and with a relative error of at most 1/32 (about 3%) above that, up to 2^40 ns (about 18
+ * minutes); larger values are counted as that. Recording a value is two atomic additions, without allocation or
+ * locking.
+ * <p>
+ * Besides the {@link #snapshot() totals}, {@link #intervalSnapshot()} gives the counts since the previous interval
+ * snapshot, eg. for periodic reporting. Recording carries on meanwhile, and no values are lost between intervals.
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_HALF = 1 << (SUB_BUCKET_BITS - 1);
+    static final long MAX_VALUE = (1L << 40) - 1;
+    static final int BUCKET_COUNT = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong sum = new AtomicLong();
+
+    // The totals at the last interval snapshot, guarded by this.
+    private final long[] intervalStartCounts = new long[BUCKET_COUNT];
+    private long intervalStartSum;
+
+    public void record(long nanos) {
+        long value = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+        counts.incrementAndGet(index(value));
+        sum.addAndGet(value);
+    }
+
+    /**
+     * @return the counts of all the values recorded so far
+     */
+    public HistogramSnapshot snapshot() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return new HistogramSnapshot(snapshot, sum.get());
+    }
+
+    /**
+     * @return the counts of the values recorded since the previous call, or since the histogram was created
+     */
+    public synchronized HistogramSnapshot intervalSnapshot() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < snapshot.length; i++) {
+            long count = counts.get(i);
+            snapshot[i] = count - intervalStartCounts[i];
+            intervalStartCounts[i] = count;
+        }
+        long total = sum.get();
+        long intervalSum = total - intervalStartSum;
+        intervalStartSum = total;
+        return new HistogramSnapshot(snapshot, intervalSum);
+    }
+
+    static int index(long value) {
+        if (value < 2 * SUB_BUCKET_HALF) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+    }
+
+    static long lowestEquivalentValue(int index) {
+        if (index < 2 * SUB_BUCKET_HALF) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF - 1;
+        return (long) (index - shift * SUB_BUCKET_HALF) << shift;
+    }
+
+    static long highestEquivalentValue(int index) {
+        return index + 1 < BUCKET_COUNT ? lowestEquivalentValue(index + 1) - 1 : MAX_VALUE;
+    }
+}
@@ -0,0 +1,48 @@
+package si.mazi.rescu.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import si.mazi.rescu.RestMethodMetadata;
+
+/**
+ * Collects the per-phase latencies of the calls of the proxies it is {@link si.mazi.rescu.ClientConfig#setLatencyMetrics
+ * set on}, by rest interface method. Measuring costs about ten {@link System#nanoTime()} calls and eight histogram
+ * updates per call, well under a microsecond; without it, nothing is measured.
+ * <p>
+ * Proxies of the same interface and base url that share the metrics also share their histograms.
+ */
+public class LatencyMetrics {
+
+    private final Map<String, MethodLatencies> methods = new ConcurrentHashMap<>();
+
+    /**
+     * @return the latencies of the given method, created on the first call
+     */
+    public MethodLatencies register(RestMethodMetadata methodMetadata) {
+        String key = methodMetadata.getHttpMethod() + " " + methodMetadata.getBaseUrl() + " "
+                + methodMetadata.getPathTemplate() + " " + methodMetadata.getMethodName();
+        return methods.computeIfAbsent(key, k -> new MethodLatencies(methodMetadata));
+    }
+
+    /**
+     * @return the latencies of the methods that have been called
+     */
+    public List<MethodLatencies> getMethods() {
+        return new ArrayList<>(methods.values());
+    }
+
+    /**
+     * @return the latencies of a method with the given name, or null if none has been called
+     */
+    public MethodLatencies get(String methodName) {
+        for (MethodLatencies method : methods.values()) {
+            if (method.getMethodName().equals(methodName)) {
+                return method;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,134 @@
+package si.mazi.rescu.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import si.mazi.rescu.HttpMethod;
+import si.mazi.rescu.RestMethodMetadata;
+
+/**
+ * The CPU time and memory that the calls of one rest interface method spend in the client, by {@link Phase}: binding
+ * the arguments and signing ({@code RestInvocation.create}), writing the request body and reading the response into the
+ * return type ({@code ResponseReader.read}). Time spent waiting for the network is not counted.
+ */
+public class MethodCosts {
+
+    /**
+     * The phases that are measured.
+     */
+    public static final Phase[] PHASES = {Phase.BIND, Phase.SIGN, Phase.SERIALIZE, Phase.DESERIALIZE};
+
+    private final String methodName;
+    private final HttpMethod httpMethod;
+    private final String pathTemplate;
+    private final LongAdder[] counts = adders();
+    private final LongAdder[] cpuNanos = adders();
+    private final LongAdder[] allocatedBytes = adders();
+
+    MethodCosts(RestMethodMetadata methodMetadata) {
+        this.methodName = methodMetadata.getMethodName();
+        this.httpMethod = methodMetadata.getHttpMethod();
+        this.pathTemplate = methodMetadata.getPathTemplate();
+    }
+
+    private static LongAdder[] adders() {
+        LongAdder[] adders = new LongAdder[Phase.values().length];
+        for (Phase phase : PHASES) {
+            adders[phase.ordinal()] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * @return a meter of the current thread's costs from now on
+     */
+    public CostMeter meter() {
+        return new CostMeter(this);
+    }
+
+    void add(Phase phase, long cpu, long allocated) {
+        int i = phase.ordinal();
+        counts[i].increment();
+        cpuNanos[i].add(cpu);
+        allocatedBytes[i].add(allocated);
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public HttpMethod getHttpMethod() {
+        return httpMethod;
+    }
+
+    public String getPathTemplate() {
+        return pathTemplate;
+    }
+
+    /**
+     * @return how many times the phase was measured; calls that fail early skip the later phases
+     */
+    public long getCount(Phase phase) {
+        return adder(counts, phase).sum();
+    }
+
+    public long getCpuNanos(Phase phase) {
+        return adder(cpuNanos, phase).sum();
+    }
+
+    public long getAllocatedBytes(Phase phase) {
+        return adder(allocatedBytes, phase).sum();
+    }
+
+    /**
+     * @return the mean CPU time of the phase, or 0 if it hasn't been measured
+     */
+    public double getMeanCpuNanos(Phase phase) {
+        return mean(getCpuNanos(phase), getCount(phase));
+    }
+
+    /**
+     * @return the mean allocation of the phase, or 0 if it hasn't been measured
+     */
+    public double getMeanAllocatedBytes(Phase phase) {
+        return mean(getAllocatedBytes(phase), getCount(phase));
+    }
+
+    /**
+     * @return the sum of the phases' mean CPU times
+     */
+    public double getMeanCpuNanos() {
+        double sum = 0;
+        for (Phase phase : PHASES) {
+            sum += getMeanCpuNanos(phase);
+        }
+        return sum;
+    }
+
+    /**
+     * @return the sum of the phases' mean allocations
+     */
+    public double getMeanAllocatedBytes() {
+        double sum = 0;
+        for (Phase phase : PHASES) {
+            sum += getMeanAllocatedBytes(phase);
+        }
+        return sum;
+    }
+
+    private static LongAdder adder(LongAdder[] adders, Phase phase) {
+        LongAdder adder = adders[phase.ordinal()];
+        if (adder == null) {
+            throw new IllegalArgumentException("The costs of " + phase + " are not measured");
+        }
+        return adder;
+    }
+
+    private static double mean(long sum, long count) {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    @Override
+    public String toString() {
+        return methodName + " (" + httpMethod + " " + pathTemplate + ")";
+    }
+}
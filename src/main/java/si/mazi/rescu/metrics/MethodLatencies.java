@@ -0,0 +1,83 @@
+package si.mazi.rescu.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import si.mazi.rescu.HttpMethod;
+import si.mazi.rescu.RestMethodMetadata;
+
+/**
+ * The latency histograms of the calls of one rest interface method, one per {@link Phase}.
+ */
+public class MethodLatencies {
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final String methodName;
+    private final HttpMethod httpMethod;
+    private final String pathTemplate;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+
+    MethodLatencies(RestMethodMetadata methodMetadata) {
+        this.methodName = methodMetadata.getMethodName();
+        this.httpMethod = methodMetadata.getHttpMethod();
+        this.pathTemplate = methodMetadata.getPathTemplate();
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public HttpMethod getHttpMethod() {
+        return httpMethod;
+    }
+
+    public String getPathTemplate() {
+        return pathTemplate;
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    /**
+     * Records the time from the given {@link System#nanoTime()} to now as the given phase's latency.
+     *
+     * @return now, the start of the next phase
+     */
+    public long record(Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        histograms[phase.ordinal()].record(now - startNanos);
+        return now;
+    }
+
+    /**
+     * @see LatencyHistogram#snapshot()
+     */
+    public Map<Phase, HistogramSnapshot> snapshot() {
+        Map<Phase, HistogramSnapshot> snapshots = new EnumMap<>(Phase.class);
+        for (Phase phase : PHASES) {
+            snapshots.put(phase, getHistogram(phase).snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * @see LatencyHistogram#intervalSnapshot()
+     */
+    public Map<Phase, HistogramSnapshot> intervalSnapshot() {
+        Map<Phase, HistogramSnapshot> snapshots = new EnumMap<>(Phase.class);
+        for (Phase phase : PHASES) {
+            snapshots.put(phase, getHistogram(phase).intervalSnapshot());
+        }
+        return snapshots;
+    }
+
+    @Override
+    public String toString() {
+        return methodName + " (" + httpMethod + " " + pathTemplate + ")";
+    }
+}
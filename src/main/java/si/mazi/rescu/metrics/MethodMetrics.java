@@ -0,0 +1,176 @@
+package si.mazi.rescu.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import si.mazi.rescu.Utils;
+
+/**
+ * The counters of the calls of one rest interface method on one host: requests, calls in flight, errors, responses by
+ * status class, body sizes and the latency of whole calls. The counters are {@link LongAdder}s, so calls from many
+ * threads update them without contending; reading them sums their cells, so it is the readers (eg. a JMX client or a
+ * metrics registry polling them) that pay.
+ */
+public class MethodMetrics implements MethodMetricsMXBean {
+
+    private final String interfaceName;
+    private final String methodName;
+    private final String host;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder[] responses = new LongAdder[5];
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    MethodMetrics(String interfaceName, String methodName, String host) {
+        this.interfaceName = interfaceName;
+        this.methodName = methodName;
+        this.host = host;
+        for (int i = 0; i < responses.length; i++) {
+            responses[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Counts a call that is starting.
+     */
+    public void started() {
+        requests.increment();
+        inFlight.increment();
+    }
+
+    public void requestWritten(String requestBody) {
+        bytesOut.add(Utils.utf8Length(requestBody));
+    }
+
+    public void responseRead(int statusCode, String responseBody) {
+        int statusClass = statusCode / 100;
+        if (statusClass >= 1 && statusClass <= responses.length) {
+            responses[statusClass - 1].increment();
+        }
+        bytesIn.add(Utils.utf8Length(responseBody));
+    }
+
+    /**
+     * Counts a call that {@link #started()} as ended.
+     *
+     * @param nanos  how long the call took
+     * @param failed whether the call threw, for any reason
+     */
+    public void ended(long nanos, boolean failed) {
+        inFlight.decrement();
+        if (failed) {
+            errors.increment();
+        }
+        latency.record(nanos);
+    }
+
+    @Override
+    public String getInterfaceName() {
+        return interfaceName;
+    }
+
+    @Override
+    public String getMethodName() {
+        return methodName;
+    }
+
+    @Override
+    public String getHost() {
+        return host;
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * @param statusClass 1 to 5, eg. 5 for the 5xx responses
+     */
+    public long getResponses(int statusClass) {
+        if (statusClass < 1 || statusClass > responses.length) {
+            throw new IllegalArgumentException("Status class must be from 1 to 5: " + statusClass);
+        }
+        return responses[statusClass - 1].sum();
+    }
+
+    @Override
+    public long getResponses1xx() {
+        return getResponses(1);
+    }
+
+    @Override
+    public long getResponses2xx() {
+        return getResponses(2);
+    }
+
+    @Override
+    public long getResponses3xx() {
+        return getResponses(3);
+    }
+
+    @Override
+    public long getResponses4xx() {
+        return getResponses(4);
+    }
+
+    @Override
+    public long getResponses5xx() {
+        return getResponses(5);
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * @return the latency of whole calls, from the proxy being called to it returning or throwing
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public double getLatencyMeanMillis() {
+        return latency.snapshot().getMean() / 1e6;
+    }
+
+    @Override
+    public double getLatency50thPercentileMillis() {
+        return latency.snapshot().getValueAtPercentile(50) / 1e6;
+    }
+
+    @Override
+    public double getLatency99thPercentileMillis() {
+        return latency.snapshot().getValueAtPercentile(99) / 1e6;
+    }
+
+    @Override
+    public double getLatencyMaxMillis() {
+        return latency.snapshot().getMax() / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return interfaceName + "." + methodName + " on " + host;
+    }
+}
@@ -0,0 +1,42 @@
+package si.mazi.rescu.metrics;
+
+/**
+ * The JMX view of the {@link MethodMetrics} of a rest interface method on a host; see {@link JmxMetricsExporter}.
+ * The latencies are of whole calls, in milliseconds, since the metrics were created.
+ */
+public interface MethodMetricsMXBean {
+
+    String getInterfaceName();
+
+    String getMethodName();
+
+    String getHost();
+
+    long getRequests();
+
+    long getInFlight();
+
+    long getErrors();
+
+    long getResponses1xx();
+
+    long getResponses2xx();
+
+    long getResponses3xx();
+
+    long getResponses4xx();
+
+    long getResponses5xx();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    double getLatencyMeanMillis();
+
+    double getLatency50thPercentileMillis();
+
+    double getLatency99thPercentileMillis();
+
+    double getLatencyMaxMillis();
+}
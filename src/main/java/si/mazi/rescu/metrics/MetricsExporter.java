@@ -0,0 +1,24 @@
+package si.mazi.rescu.metrics;
+
+/**
+ * Publishes {@link MethodMetrics} to a monitoring system. The metrics are counters that are read when they are
+ * reported, so an exporter only has to register functions reading them, eg. for Micrometer:
+ * <pre>
+ * metrics -&gt; FunctionCounter.builder("rescu.requests", metrics, MethodMetrics::getRequests)
+ *         .tags("method", metrics.getMethodName(), "host", metrics.getHost()).register(registry)
+ * </pre>
+ * or a {@code Gauge} per counter for Dropwizard Metrics.
+ */
+public interface MetricsExporter {
+
+    /**
+     * Called once for each method and host, on the first call of the method there.
+     */
+    void methodAdded(MethodMetrics metrics);
+
+    /**
+     * Called when the {@link InvocationMetrics} are closed, to remove the metrics published; does nothing by default.
+     */
+    default void close() {
+    }
+}
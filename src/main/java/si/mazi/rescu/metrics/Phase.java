@@ -0,0 +1,34 @@
+package si.mazi.rescu.metrics;
+
+/**
+ * The phases of a call whose latencies are measured, in the order they happen.
+ */
+public enum Phase {
+
+    /** Binding the arguments to the query, path, form and header params and building the url. */
+    BIND,
+
+    /** Calling the {@link si.mazi.rescu.ParamsDigest}s, eg. to sign the request. */
+    SIGN,
+
+    /** Writing the request body. */
+    SERIALIZE,
+
+    /**
+     * Opening the connection and sending the request, including the request body if there is one. This is when a
+     * new connection is established; otherwise, a pooled one is reused.
+     */
+    CONNECT,
+
+    /** From the request being sent to the response status being received: mostly the server's time and the network. */
+    FIRST_BYTE,
+
+    /** Reading the response body. */
+    READ,
+
+    /** Mapping the response body to the returned object; not measured for calls that fail in it. */
+    DESERIALIZE,
+
+    /** The whole call, from the proxy being called to the result or exception being ready. */
+    TOTAL
+}
@@ -0,0 +1,7 @@
+/**
+ * Metrics of the calls of rest proxies, per rest interface method: latency histograms of the phases of calls, enabled
+ * with {@link si.mazi.rescu.ClientConfig#setLatencyMetrics}, and counters of requests, errors and bytes by host,
+ * exported to JMX or other monitoring systems and enabled with {@link si.mazi.rescu.ClientConfig#setInvocationMetrics},
+ * and the CPU time and allocation of calls, enabled with {@link si.mazi.rescu.ClientConfig#setCostMetrics}.
+ */
+package si.mazi.rescu.metrics;
@@ -0,0 +1,198 @@
+package si.mazi.rescu.oauth;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.ws.rs.FormParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import si.mazi.rescu.HmacDigest;
+import si.mazi.rescu.Params;
+import si.mazi.rescu.RestInvocation;
+
+/**
+ * Signs calls with OAuth 1.0a (RFC 5849), HMAC-SHA1, giving their {@code Authorization} header. Unlike signing with
+ * a signpost {@code OAuthConsumer}, the signature base string is built from the invocation's query and form params as
+ * they were bound, without writing and parsing the URL and body again; the consumer and token are encoded once, and
+ * the signing key is set up once in a pool of {@code Mac}s, so the signer is thread-safe and doesn't lock.
+ *
+ * @see si.mazi.rescu.ClientConfig#setOAuthSigner(OAuthSigner)
+ */
+public class OAuthSigner {
+
+    private static final String SIGNATURE_METHOD = "HMAC-SHA1";
+    private static final String VERSION = "1.0";
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final boolean[] UNRESERVED = new boolean[0x80];
+
+    static {
+        for (char c = 0; c < UNRESERVED.length; c++) {
+            UNRESERVED[c] = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                    || c == '-' || c == '.' || c == '_' || c == '~';
+        }
+    }
+
+    private final String encodedConsumerKey;
+    private final String encodedToken;
+    private final HmacDigest hmac;
+
+    /**
+     * Signs for a consumer alone, without a token (two-legged).
+     */
+    public OAuthSigner(String consumerKey, String consumerSecret) {
+        this(consumerKey, consumerSecret, null, null);
+    }
+
+    /**
+     * @param token the access token, or null to sign without one
+     * @param tokenSecret the token's secret, or null if there's no token
+     */
+    public OAuthSigner(String consumerKey, String consumerSecret, String token, String tokenSecret) {
+        this.encodedConsumerKey = percentEncode(consumerKey);
+        this.encodedToken = token == null ? null : percentEncode(token);
+        String key = percentEncode(consumerSecret) + '&' + (tokenSecret == null ? "" : percentEncode(tokenSecret));
+        this.hmac = HmacDigest.createInstance(HmacDigest.HMAC_SHA1, key.getBytes(StandardCharsets.UTF_8),
+                HmacDigest.Encoding.BASE64);
+    }
+
+    /**
+     * @return the {@code Authorization} header of the invocation, with a new nonce and the current time
+     */
+    public String authorizationHeader(RestInvocation invocation) {
+        return authorizationHeader(invocation, Long.toString(System.currentTimeMillis() / 1000), createNonce());
+    }
+
+    String authorizationHeader(RestInvocation invocation, String timestamp, String nonce) {
+        String encodedNonce = percentEncode(nonce);
+        String signature = hmac.digest(signatureBaseString(invocation, timestamp, encodedNonce));
+
+        StringBuilder header = new StringBuilder(256);
+        header.append("OAuth oauth_consumer_key=\"").append(encodedConsumerKey)
+                .append("\", oauth_nonce=\"").append(encodedNonce)
+                .append("\", oauth_signature=\"");
+        percentEncode(signature, header);
+        header.append("\", oauth_signature_method=\"").append(SIGNATURE_METHOD)
+                .append("\", oauth_timestamp=\"").append(timestamp);
+        if (encodedToken != null) {
+            header.append("\", oauth_token=\"").append(encodedToken);
+        }
+        return header.append("\", oauth_version=\"").append(VERSION).append('"').toString();
+    }
+
+    /**
+     * @param encodedNonce the nonce, percent-encoded
+     */
+    String signatureBaseString(RestInvocation invocation, String timestamp, String encodedNonce) {
+        List<String[]> params = new ArrayList<>();
+        params.add(new String[] {"oauth_consumer_key", encodedConsumerKey});
+        params.add(new String[] {"oauth_nonce", encodedNonce});
+        params.add(new String[] {"oauth_signature_method", SIGNATURE_METHOD});
+        params.add(new String[] {"oauth_timestamp", timestamp});
+        if (encodedToken != null) {
+            params.add(new String[] {"oauth_token", encodedToken});
+        }
+        params.add(new String[] {"oauth_version", VERSION});
+        addEncoded(invocation.getParamsMap().get(QueryParam.class), params);
+        String contentType = invocation.getReqContentType();
+        if (contentType != null && contentType.startsWith(MediaType.APPLICATION_FORM_URLENCODED)) {
+            addEncoded(invocation.getParamsMap().get(FormParam.class), params);
+        }
+        params.sort((a, b) -> {
+            int byName = a[0].compareTo(b[0]);
+            return byName != 0 ? byName : a[1].compareTo(b[1]);
+        });
+
+        StringBuilder normalized = new StringBuilder(256);
+        for (String[] param : params) {
+            if (normalized.length() > 0) {
+                normalized.append('&');
+            }
+            normalized.append(param[0]).append('=').append(param[1]);
+        }
+
+        StringBuilder base = new StringBuilder(normalized.length() * 3 / 2 + 128);
+        base.append(invocation.getHttpMethod().toUpperCase(Locale.ROOT)).append('&');
+        percentEncode(baseUri(invocation.getInvocationUrl()), base);
+        base.append('&');
+        percentEncode(normalized, base);
+        return base.toString();
+    }
+
+    private static void addEncoded(Params params, List<String[]> encoded) {
+        if (params != null) {
+            params.forEachParam((name, value) -> encoded.add(new String[] {percentEncode(name), percentEncode(value)}));
+        }
+    }
+
+    /**
+     * The URL without its query, with the scheme and host in lower case and without the default port.
+     */
+    static String baseUri(String url) {
+        int query = url.indexOf('?');
+        if (query >= 0) {
+            url = url.substring(0, query);
+        }
+        int authorityStart = url.indexOf("://") + 3;
+        int pathStart = url.indexOf('/', authorityStart);
+        if (pathStart < 0) {
+            pathStart = url.length();
+        }
+        String schemeAndAuthority = url.substring(0, pathStart).toLowerCase(Locale.ROOT);
+        if (schemeAndAuthority.startsWith("http://") && schemeAndAuthority.endsWith(":80")) {
+            schemeAndAuthority = schemeAndAuthority.substring(0, schemeAndAuthority.length() - 3);
+        } else if (schemeAndAuthority.startsWith("https://") && schemeAndAuthority.endsWith(":443")) {
+            schemeAndAuthority = schemeAndAuthority.substring(0, schemeAndAuthority.length() - 4);
+        }
+        String path = url.substring(pathStart);
+        return schemeAndAuthority + (path.isEmpty() ? "/" : path);
+    }
+
+    private static String createNonce() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+    }
+
+    /**
+     * @return the string percent-encoded as in RFC 3986: all but the unreserved characters, in UTF-8
+     */
+    static String percentEncode(String s) {
+        StringBuilder encoded = new StringBuilder(s.length() + 16);
+        percentEncode(s, encoded);
+        return encoded.toString();
+    }
+
+    private static void percentEncode(CharSequence s, StringBuilder out) {
+        int length = s.length();
+        int unencoded = 0;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80 && UNRESERVED[c]) {
+                continue;
+            }
+            out.append(s, unencoded, i);
+            if (c >= 0x80) {
+                // Rare: encode the rest from its UTF-8 bytes.
+                for (byte b : s.subSequence(i, length).toString().getBytes(StandardCharsets.UTF_8)) {
+                    int u = b & 0xff;
+                    if (u < 0x80 && UNRESERVED[u]) {
+                        out.append((char) u);
+                    } else {
+                        appendEncoded(u, out);
+                    }
+                }
+                return;
+            }
+            appendEncoded(c, out);
+            unencoded = i + 1;
+        }
+        out.append(s, unencoded, length);
+    }
+
+    private static void appendEncoded(int b, StringBuilder out) {
+        out.append('%').append(HEX_DIGITS[b >> 4]).append(HEX_DIGITS[b & 0xf]);
+    }
+}
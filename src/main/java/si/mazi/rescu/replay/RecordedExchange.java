@@ -0,0 +1,128 @@
+package si.mazi.rescu.replay;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HTTP exchange as recorded by {@link RecordingConnectionFactory}: the request, the response with its raw body
+ * bytes (still compressed if the server compressed it), and how long the server took. Written as one line of JSON
+ * per exchange, with the bodies in Base64.
+ */
+public class RecordedExchange {
+
+    private long time;
+    private String method;
+    private String url;
+    private String pathTemplate;
+    private Map<String, List<String>> requestHeaders;
+    private byte[] requestBody;
+    private int status;
+    private String responseMessage;
+    private Map<String, List<String>> responseHeaders;
+    private byte[] responseBody;
+    private long latencyNanos;
+
+    /**
+     * @return when the request was sent, in epoch millis
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    /**
+     * @return the path template of the invoked method, see {@link si.mazi.rescu.RestMethodMetadata#getPathTemplate()};
+     * null if the connection was not opened for a rest proxy call
+     */
+    public String getPathTemplate() {
+        return pathTemplate;
+    }
+
+    public void setPathTemplate(String pathTemplate) {
+        this.pathTemplate = pathTemplate;
+    }
+
+    public Map<String, List<String>> getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    public void setRequestHeaders(Map<String, List<String>> requestHeaders) {
+        this.requestHeaders = requestHeaders;
+    }
+
+    public byte[] getRequestBody() {
+        return requestBody;
+    }
+
+    public void setRequestBody(byte[] requestBody) {
+        this.requestBody = requestBody;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getResponseMessage() {
+        return responseMessage;
+    }
+
+    public void setResponseMessage(String responseMessage) {
+        this.responseMessage = responseMessage;
+    }
+
+    /**
+     * @return the response headers, without the status line
+     */
+    public Map<String, List<String>> getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    public void setResponseHeaders(Map<String, List<String>> responseHeaders) {
+        this.responseHeaders = responseHeaders;
+    }
+
+    /**
+     * @return the response body as received, or null if there was none
+     */
+    public byte[] getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(byte[] responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    /**
+     * @return the time from sending the request until the whole response was received
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    public void setLatencyNanos(long latencyNanos) {
+        this.latencyNanos = latencyNanos;
+    }
+}
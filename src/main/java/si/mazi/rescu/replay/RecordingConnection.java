@@ -0,0 +1,360 @@
+package si.mazi.rescu.replay;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.security.Principal;
+import java.security.cert.Certificate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Delegates to a real connection, keeping a copy of the request body and buffering the response body to record the
+ * exchange. It is an {@link HttpsURLConnection} so that the SSL settings reach an https delegate; for an http one they
+ * are ignored.
+ */
+class RecordingConnection extends HttpsURLConnection {
+
+    private final HttpURLConnection delegate;
+    private final String pathTemplate;
+    private final RecordingConnectionFactory recorder;
+    private final ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+
+    private long sentMillis;
+    private long sentNanos;
+    private Map<String, List<String>> requestHeaders;
+    private boolean captured;
+    private boolean capturedError;
+    private byte[] responseBody;
+
+    RecordingConnection(HttpURLConnection delegate, String pathTemplate, RecordingConnectionFactory recorder) {
+        super(delegate.getURL());
+        this.delegate = delegate;
+        this.pathTemplate = pathTemplate;
+        this.recorder = recorder;
+    }
+
+    /**
+     * Notes the time and the request headers, which can't be read once the delegate is connected.
+     */
+    private void sending() {
+        if (requestHeaders == null) {
+            requestHeaders = new LinkedHashMap<>(delegate.getRequestProperties());
+            sentMillis = System.currentTimeMillis();
+            sentNanos = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void connect() throws IOException {
+        sending();
+        delegate.connect();
+        connected = true;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        sending();
+        OutputStream out = delegate.getOutputStream();
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                requestBody.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                requestBody.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                out.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.close();
+            }
+        };
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+        sending();
+        return delegate.getResponseCode();
+    }
+
+    @Override
+    public String getResponseMessage() throws IOException {
+        sending();
+        return delegate.getResponseMessage();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        if (captured && capturedError) {
+            return delegate.getInputStream();
+        }
+        capture(false);
+        return responseBody == null ? null : new ByteArrayInputStream(responseBody);
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        if (captured && !capturedError) {
+            return null;
+        }
+        try {
+            capture(true);
+        } catch (IOException e) {
+            return null;
+        }
+        return responseBody == null ? null : new ByteArrayInputStream(responseBody);
+    }
+
+    private void capture(boolean error) throws IOException {
+        if (captured) {
+            return;
+        }
+        sending();
+        InputStream in = error ? delegate.getErrorStream() : delegate.getInputStream();
+        if (in != null) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try {
+                byte[] chunk = new byte[8192];
+                for (int read; (read = in.read(chunk)) >= 0; ) {
+                    body.write(chunk, 0, read);
+                }
+            } finally {
+                in.close();
+            }
+            responseBody = body.toByteArray();
+        }
+        captured = true;
+        capturedError = error;
+        recorder.record(toExchange());
+    }
+
+    private RecordedExchange toExchange() throws IOException {
+        RecordedExchange exchange = new RecordedExchange();
+        exchange.setTime(sentMillis);
+        exchange.setMethod(delegate.getRequestMethod());
+        exchange.setUrl(delegate.getURL().toString());
+        exchange.setPathTemplate(pathTemplate);
+        recorder.redact(requestHeaders);
+        exchange.setRequestHeaders(requestHeaders);
+        exchange.setRequestBody(requestBody.size() == 0 ? null : requestBody.toByteArray());
+        exchange.setStatus(delegate.getResponseCode());
+        exchange.setResponseMessage(delegate.getResponseMessage());
+        Map<String, List<String>> responseHeaders = new LinkedHashMap<>(delegate.getHeaderFields());
+        responseHeaders.remove(null);
+        exchange.setResponseHeaders(responseHeaders);
+        exchange.setResponseBody(responseBody);
+        exchange.setLatencyNanos(System.nanoTime() - sentNanos);
+        return exchange;
+    }
+
+    @Override
+    public void disconnect() {
+        delegate.disconnect();
+    }
+
+    @Override
+    public boolean usingProxy() {
+        return delegate.usingProxy();
+    }
+
+    @Override
+    public void setRequestMethod(String method) throws ProtocolException {
+        delegate.setRequestMethod(method);
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return delegate.getRequestMethod();
+    }
+
+    @Override
+    public void setRequestProperty(String key, String value) {
+        delegate.setRequestProperty(key, value);
+    }
+
+    @Override
+    public void addRequestProperty(String key, String value) {
+        delegate.addRequestProperty(key, value);
+    }
+
+    @Override
+    public String getRequestProperty(String key) {
+        return delegate.getRequestProperty(key);
+    }
+
+    @Override
+    public Map<String, List<String>> getRequestProperties() {
+        return delegate.getRequestProperties();
+    }
+
+    @Override
+    public void setDoOutput(boolean doOutput) {
+        delegate.setDoOutput(doOutput);
+    }
+
+    @Override
+    public boolean getDoOutput() {
+        return delegate.getDoOutput();
+    }
+
+    @Override
+    public void setDoInput(boolean doInput) {
+        delegate.setDoInput(doInput);
+    }
+
+    @Override
+    public boolean getDoInput() {
+        return delegate.getDoInput();
+    }
+
+    @Override
+    public void setUseCaches(boolean useCaches) {
+        delegate.setUseCaches(useCaches);
+    }
+
+    @Override
+    public boolean getUseCaches() {
+        return delegate.getUseCaches();
+    }
+
+    @Override
+    public void setConnectTimeout(int timeout) {
+        delegate.setConnectTimeout(timeout);
+    }
+
+    @Override
+    public int getConnectTimeout() {
+        return delegate.getConnectTimeout();
+    }
+
+    @Override
+    public void setReadTimeout(int timeout) {
+        delegate.setReadTimeout(timeout);
+    }
+
+    @Override
+    public int getReadTimeout() {
+        return delegate.getReadTimeout();
+    }
+
+    @Override
+    public void setInstanceFollowRedirects(boolean followRedirects) {
+        delegate.setInstanceFollowRedirects(followRedirects);
+    }
+
+    @Override
+    public boolean getInstanceFollowRedirects() {
+        return delegate.getInstanceFollowRedirects();
+    }
+
+    @Override
+    public void setFixedLengthStreamingMode(int contentLength) {
+        delegate.setFixedLengthStreamingMode(contentLength);
+    }
+
+    @Override
+    public void setFixedLengthStreamingMode(long contentLength) {
+        delegate.setFixedLengthStreamingMode(contentLength);
+    }
+
+    @Override
+    public void setChunkedStreamingMode(int chunkLength) {
+        delegate.setChunkedStreamingMode(chunkLength);
+    }
+
+    @Override
+    public String getHeaderField(String name) {
+        return delegate.getHeaderField(name);
+    }
+
+    @Override
+    public String getHeaderField(int n) {
+        return delegate.getHeaderField(n);
+    }
+
+    @Override
+    public String getHeaderFieldKey(int n) {
+        return delegate.getHeaderFieldKey(n);
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+        return delegate.getHeaderFields();
+    }
+
+    @Override
+    public void setSSLSocketFactory(SSLSocketFactory sf) {
+        if (delegate instanceof HttpsURLConnection) {
+            ((HttpsURLConnection) delegate).setSSLSocketFactory(sf);
+        }
+    }
+
+    @Override
+    public SSLSocketFactory getSSLSocketFactory() {
+        return delegate instanceof HttpsURLConnection ? ((HttpsURLConnection) delegate).getSSLSocketFactory() : null;
+    }
+
+    @Override
+    public void setHostnameVerifier(HostnameVerifier v) {
+        if (delegate instanceof HttpsURLConnection) {
+            ((HttpsURLConnection) delegate).setHostnameVerifier(v);
+        }
+    }
+
+    @Override
+    public HostnameVerifier getHostnameVerifier() {
+        return delegate instanceof HttpsURLConnection ? ((HttpsURLConnection) delegate).getHostnameVerifier() : null;
+    }
+
+    @Override
+    public String getCipherSuite() {
+        return https().getCipherSuite();
+    }
+
+    @Override
+    public Certificate[] getLocalCertificates() {
+        return https().getLocalCertificates();
+    }
+
+    @Override
+    public Certificate[] getServerCertificates() throws SSLPeerUnverifiedException {
+        return https().getServerCertificates();
+    }
+
+    @Override
+    public Principal getPeerPrincipal() throws SSLPeerUnverifiedException {
+        return https().getPeerPrincipal();
+    }
+
+    @Override
+    public Principal getLocalPrincipal() {
+        return https().getLocalPrincipal();
+    }
+
+    private HttpsURLConnection https() {
+        if (!(delegate instanceof HttpsURLConnection)) {
+            throw new IllegalStateException("Not an https connection: " + url);
+        }
+        return (HttpsURLConnection) delegate;
+    }
+}
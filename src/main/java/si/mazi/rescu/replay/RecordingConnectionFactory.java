@@ -0,0 +1,113 @@
+package si.mazi.rescu.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import si.mazi.rescu.HttpConnectionFactory;
+import si.mazi.rescu.RestInvocation;
+
+/**
+ * Sends invocations through another {@link HttpConnectionFactory} and appends each exchange to a file as a
+ * {@link RecordedExchange}, one JSON object per line, for a {@link ReplayConnectionFactory} to serve back. An exchange
+ * is recorded once its response body has been read, by the calling thread; a failure to record is logged and doesn't
+ * affect the invocation.
+ * <p>
+ * The request headers are recorded as sent, credentials included, unless they are {@link #setRedactedHeaders
+ * redacted}.
+ */
+public class RecordingConnectionFactory implements HttpConnectionFactory, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordingConnectionFactory.class);
+
+    static final List<String> REDACTED = Collections.singletonList("<redacted>");
+
+    private final HttpConnectionFactory delegate;
+    private final Writer out;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private volatile Set<String> redactedHeaders = Collections.emptySet();
+    private long recorded;
+
+    /**
+     * Records the exchanges with the servers, appending them to the file.
+     */
+    public RecordingConnectionFactory(Path file) throws IOException {
+        this(HttpConnectionFactory.DEFAULT, file);
+    }
+
+    public RecordingConnectionFactory(HttpConnectionFactory delegate, Path file) throws IOException {
+        this.delegate = delegate;
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    }
+
+    /**
+     * Sets the request headers whose values are replaced with {@code <redacted>} in the recording, eg. the api key
+     * and signature headers; the names are case-insensitive.
+     */
+    public RecordingConnectionFactory setRedactedHeaders(String... names) {
+        Set<String> redacted = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        Collections.addAll(redacted, names);
+        this.redactedHeaders = redacted;
+        return this;
+    }
+
+    @Override
+    public HttpURLConnection openConnection(RestInvocation invocation, URL url, Proxy proxy) throws IOException {
+        String pathTemplate = invocation == null ? null : invocation.getMethodMetadata().getPathTemplate();
+        return new RecordingConnection(delegate.openConnection(invocation, url, proxy), pathTemplate, this);
+    }
+
+    /**
+     * @return the number of exchanges recorded so far
+     */
+    public synchronized long getRecordedCount() {
+        return recorded;
+    }
+
+    void redact(Map<String, List<String>> headers) {
+        Set<String> redacted = redactedHeaders;
+        if (!redacted.isEmpty()) {
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                if (header.getKey() != null && redacted.contains(header.getKey())) {
+                    header.setValue(REDACTED);
+                }
+            }
+        }
+    }
+
+    synchronized void record(RecordedExchange exchange) {
+        try {
+            mapper.writeValue(out, exchange);
+            out.write('\n');
+            out.flush();
+            recorded++;
+        } catch (IOException e) {
+            log.warn("Failed to record the exchange with {}", exchange.getUrl(), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
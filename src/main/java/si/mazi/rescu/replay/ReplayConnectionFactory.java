@@ -0,0 +1,162 @@
+package si.mazi.rescu.replay;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import si.mazi.rescu.HttpConnectionFactory;
+import si.mazi.rescu.RestInvocation;
+
+/**
+ * Serves the exchanges recorded by a {@link RecordingConnectionFactory} instead of connecting to the servers, eg. to
+ * benchmark a client offline on recorded traffic. A request is matched to the recorded ones by its method, path
+ * template, url path, query parameters and body, with the parameters in any order; the host is ignored, so the
+ * recording can be replayed with another base url. Form bodies are matched by their parameters, other bodies as they
+ * are. Parameters that change with every call, such as nonces and signatures, can be {@link
+ * #ReplayConnectionFactory(Path, String...) ignored}.
+ * <p>
+ * When several recorded exchanges match, they are served in the recorded order, starting over after the last one. A
+ * request that matches none fails with an {@link IOException} when its response is read. Thread-safe.
+ */
+public class ReplayConnectionFactory implements HttpConnectionFactory {
+
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+
+    private final Set<String> ignoredParams;
+    private final Map<String, Matches> exchanges = new HashMap<>();
+    private final int exchangeCount;
+    private volatile boolean replayLatency;
+
+    /**
+     * @param file the recording
+     * @param ignoredParams the names of the query and form parameters to ignore in matching
+     */
+    public ReplayConnectionFactory(Path file, String... ignoredParams) throws IOException {
+        this.ignoredParams = new HashSet<>(Arrays.asList(ignoredParams));
+        ObjectMapper mapper = new ObjectMapper();
+        int count = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (String line; (line = in.readLine()) != null; ) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                RecordedExchange exchange = mapper.readValue(line, RecordedExchange.class);
+                String key = key(exchange.getMethod(), exchange.getPathTemplate(), new URL(exchange.getUrl()),
+                        firstValue(exchange.getRequestHeaders(), "Content-Type"), exchange.getRequestBody());
+                Matches matches = exchanges.get(key);
+                if (matches == null) {
+                    matches = new Matches();
+                    exchanges.put(key, matches);
+                }
+                matches.exchanges.add(exchange);
+                count++;
+            }
+        }
+        this.exchangeCount = count;
+    }
+
+    /**
+     * Sets whether responses are delayed by the time the server took to send them when they were recorded, measured
+     * from when the request is sent; default off, to serve them as fast as possible.
+     */
+    public ReplayConnectionFactory setReplayLatency(boolean replayLatency) {
+        this.replayLatency = replayLatency;
+        return this;
+    }
+
+    public boolean isReplayLatency() {
+        return replayLatency;
+    }
+
+    /**
+     * @return the number of exchanges in the recording
+     */
+    public int getExchangeCount() {
+        return exchangeCount;
+    }
+
+    @Override
+    public HttpURLConnection openConnection(RestInvocation invocation, URL url, Proxy proxy) {
+        String pathTemplate = invocation == null ? null : invocation.getMethodMetadata().getPathTemplate();
+        return new ReplayedConnection(url, pathTemplate, this);
+    }
+
+    /**
+     * @return the next recorded exchange matching the request, or null if there is none
+     */
+    RecordedExchange find(String method, String pathTemplate, URL url, String contentType, byte[] body) {
+        Matches matches = exchanges.get(key(method, pathTemplate, url, contentType, body));
+        if (matches == null) {
+            return null;
+        }
+        long next = matches.next.getAndIncrement();
+        return matches.exchanges.get((int) (next % matches.exchanges.size()));
+    }
+
+    String key(String method, String pathTemplate, URL url, String contentType, byte[] body) {
+        StringBuilder key = new StringBuilder()
+                .append(method).append(' ')
+                .append(pathTemplate).append(' ')
+                .append(url.getPath()).append('?');
+        appendParams(key, url.getQuery());
+        key.append(' ');
+        if (body != null) {
+            String bodyString = new String(body, StandardCharsets.UTF_8);
+            if (contentType != null && contentType.startsWith(FORM_CONTENT_TYPE)) {
+                appendParams(key, bodyString);
+            } else {
+                key.append(bodyString);
+            }
+        }
+        return key.toString();
+    }
+
+    private void appendParams(StringBuilder key, String params) {
+        if (params == null || params.isEmpty()) {
+            return;
+        }
+        List<String> kept = new ArrayList<>();
+        for (String param : params.split("&")) {
+            int eq = param.indexOf('=');
+            if (!ignoredParams.contains(eq < 0 ? param : param.substring(0, eq))) {
+                kept.add(param);
+            }
+        }
+        Collections.sort(kept);
+        for (int i = 0; i < kept.size(); i++) {
+            key.append(i == 0 ? "" : "&").append(kept.get(i));
+        }
+    }
+
+    static String firstValue(Map<String, List<String>> headers, String name) {
+        if (headers != null) {
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                if (name.equalsIgnoreCase(header.getKey()) && header.getValue() != null && !header.getValue().isEmpty()) {
+                    return header.getValue().get(0);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static final class Matches {
+        private final List<RecordedExchange> exchanges = new ArrayList<>(1);
+        private final AtomicLong next = new AtomicLong();
+    }
+}
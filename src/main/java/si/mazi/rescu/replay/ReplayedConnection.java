@@ -0,0 +1,192 @@
+package si.mazi.rescu.replay;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A connection that serves a recorded exchange, found when the response is first asked for, once the request body has
+ * been written. Like the JDK's http connections, it fails {@link #getInputStream()} for statuses from 400 up and
+ * serves their bodies from {@link #getErrorStream()}.
+ */
+class ReplayedConnection extends HttpURLConnection {
+
+    private final String pathTemplate;
+    private final ReplayConnectionFactory replay;
+    private final ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+
+    private boolean sent;
+    private long sentNanos;
+    private RecordedExchange exchange;
+    private List<String[]> headerFields;
+
+    ReplayedConnection(URL url, String pathTemplate, ReplayConnectionFactory replay) {
+        super(url);
+        this.pathTemplate = pathTemplate;
+        this.replay = replay;
+    }
+
+    private void sending() {
+        if (!sent) {
+            sent = true;
+            sentNanos = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void connect() {
+        sending();
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        sending();
+        return requestBody;
+    }
+
+    /**
+     * Finds the exchange and, if latency is replayed, waits until the recorded response would have been received.
+     */
+    private RecordedExchange respond() throws IOException {
+        if (exchange == null) {
+            sending();
+            String contentType = getRequestProperty("Content-Type");
+            byte[] body = requestBody.size() == 0 ? null : requestBody.toByteArray();
+            RecordedExchange found = replay.find(getRequestMethod(), pathTemplate, url, contentType, body);
+            if (found == null) {
+                throw new IOException("No recorded exchange for " + getRequestMethod() + " " + url
+                        + (body == null ? "" : " with body " + requestBody.toString("UTF-8")));
+            }
+            connected = true;
+            responseCode = found.getStatus();
+            responseMessage = found.getResponseMessage();
+            if (replay.isReplayLatency()) {
+                long until = sentNanos + found.getLatencyNanos();
+                for (long wait; (wait = until - System.nanoTime()) > 0; ) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            exchange = found;
+        }
+        return exchange;
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+        return respond().getStatus();
+    }
+
+    @Override
+    public String getResponseMessage() throws IOException {
+        return respond().getResponseMessage();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        RecordedExchange exchange = respond();
+        if (exchange.getStatus() >= 400) {
+            throw exchange.getStatus() == 404 || exchange.getStatus() == 410
+                    ? new FileNotFoundException(url.toString())
+                    : new IOException("Server returned HTTP response code: " + exchange.getStatus() + " for URL: " + url);
+        }
+        return body(exchange);
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        if (exchange == null || exchange.getStatus() < 400 || exchange.getResponseBody() == null) {
+            return null;
+        }
+        return body(exchange);
+    }
+
+    private static InputStream body(RecordedExchange exchange) {
+        byte[] body = exchange.getResponseBody();
+        return new ByteArrayInputStream(body == null ? new byte[0] : body);
+    }
+
+    /**
+     * @return the status line and the headers as name-value pairs, as {@link #getHeaderField(int)} numbers them
+     */
+    private List<String[]> headerFields() {
+        if (headerFields == null) {
+            try {
+                respond();
+            } catch (IOException e) {
+                return Collections.emptyList();
+            }
+            List<String[]> fields = new ArrayList<>();
+            fields.add(new String[] {null, statusLine()});
+            if (exchange.getResponseHeaders() != null) {
+                for (Map.Entry<String, List<String>> header : exchange.getResponseHeaders().entrySet()) {
+                    for (String value : header.getValue()) {
+                        fields.add(new String[] {header.getKey(), value});
+                    }
+                }
+            }
+            headerFields = fields;
+        }
+        return headerFields;
+    }
+
+    private String statusLine() {
+        return "HTTP/1.1 " + exchange.getStatus() + (exchange.getResponseMessage() == null ? "" : " " + exchange.getResponseMessage());
+    }
+
+    @Override
+    public String getHeaderField(String name) {
+        String value = null;
+        for (String[] field : headerFields()) {
+            if (field[0] == null ? name == null : field[0].equalsIgnoreCase(name)) {
+                value = field[1];
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public String getHeaderFieldKey(int n) {
+        List<String[]> fields = headerFields();
+        return n >= 0 && n < fields.size() ? fields.get(n)[0] : null;
+    }
+
+    @Override
+    public String getHeaderField(int n) {
+        List<String[]> fields = headerFields();
+        return n >= 0 && n < fields.size() ? fields.get(n)[1] : null;
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String[] field : headerFields()) {
+            List<String> values = headers.get(field[0]);
+            if (values == null) {
+                values = new ArrayList<>(1);
+                headers.put(field[0], values);
+            }
+            values.add(field[1]);
+        }
+        return Collections.unmodifiableMap(headers);
+    }
+
+    @Override
+    public void disconnect() {
+    }
+
+    @Override
+    public boolean usingProxy() {
+        return false;
+    }
+}
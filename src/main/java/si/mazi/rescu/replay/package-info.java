@@ -0,0 +1,7 @@
+/**
+ * Recording of HTTP exchanges and serving them back instead of connecting to the servers, through
+ * {@link si.mazi.rescu.ClientConfig#setHttpConnectionFactory}. Record with a
+ * {@link si.mazi.rescu.replay.RecordingConnectionFactory}, replay with a
+ * {@link si.mazi.rescu.replay.ReplayConnectionFactory}.
+ */
+package si.mazi.rescu.replay;
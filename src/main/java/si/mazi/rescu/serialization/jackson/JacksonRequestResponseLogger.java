@@ -1,59 +1,27 @@
 package si.mazi.rescu.serialization.jackson;
 
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-
 import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import si.mazi.rescu.archive.AsyncArchiver;
+import si.mazi.rescu.archive.OverflowPolicy;
 import si.mazi.rescu.serialization.jackson.serializers.HttpRequest;
 import si.mazi.rescu.serialization.jackson.serializers.HttpRequestResponse;
 import si.mazi.rescu.serialization.jackson.serializers.HttpResponse;
 
 /**
- * A logger for {@link HttpRequestResponse} items which uses a buffered writing
- * pattern to ensure logging in order of response time.
- * {@code HttpRequestResponse}s that have been buffered for longer than the
- * configured {@link #BUFFER_TIME} will be serialized and then written using the
- * provided {@link Logger}. While {@code HttpRequestResponse}s are buffering, a
- * sort order is imposed. Therefore, any {@code HttpRequestResponse}s submitted
- * for logging within each {@code BUFFER_TIME} millisecond cycle will be written
- * in order.
+ * A logger for {@link HttpRequestResponse} items which serializes them to
+ * JSON and writes them at trace level using the provided {@link Logger}, off
+ * the calling thread (see {@link AsyncArchiver}). Nothing is serialized if the
+ * logger does not have trace enabled.
  *
  * @author Matthew Downey
  *
  */
-public class JacksonRequestResponseLogger {
-
-  /**
-   * Purely internal representation of a {@link HttpRequestResponse} to be
-   * logged and the time at which it entered the
-   * {@link JacksonRequestResponseLogger#loggingBuffer}.
-   */
-  private class LogItem {
-    HttpRequestResponse requestResponse;
-    long time;
-  }
-
-  private static final Logger log = LoggerFactory.getLogger(JacksonRequestResponseLogger.class);
-
-  /**
-   * The user provided {@code Logger} to use with all logging statements.
-   */
-  private Logger logger;
-
-  /**
-   * To serialize the {@link HttpRequestResponse} objects into text for logging.
-   */
-  private ObjectMapper mapper = new ObjectMapper();
+public class JacksonRequestResponseLogger extends AsyncArchiver {
 
   /**
    * A constant used by the logger indicating that we're logging connection
@@ -62,60 +30,32 @@ public class JacksonRequestResponseLogger {
   private static final String DESCRIMINATOR = "connection";
 
   /**
-   * The amount of time (milliseconds) after which buffered outgoing logging
-   * statements will be written to the logger.
+   * The user provided {@code Logger} to use with all logging statements.
    */
-  private static final long BUFFER_TIME = 1000;
+  private final Logger logger;
 
   /**
-   * All instances share a single logging thread because the logging happens so
-   * quickly.
+   * To serialize the {@link HttpRequestResponse} objects into text for logging.
    */
-  private static final ScheduledExecutorService loggingExecutor = Executors
-      .newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("LoggingThread-%d").build());
+  private final ObjectMapper mapper = new ObjectMapper();
 
   /**
    * Allows sifting appenders to generate file names for disk output.
    */
   private final String mdcDescriminatorValue;
 
-  /**
-   * Used to check if logs are being written in order.
-   */
-  private long mostRecentLogTime = 0;
-
-  /**
-   * A sorted buffer for {@link LogItem}s to be logged.
-   */
-  private final Queue<LogItem> loggingBuffer = new PriorityQueue<>(
-      (a, b) -> (int) (a.requestResponse.getResponse().getTime() - b.requestResponse.getResponse().getTime()));
-
   public JacksonRequestResponseLogger(Logger logger) {
-    this.logger = logger;
-    this.mdcDescriminatorValue = logger.getName();
-
-    loggingExecutor.scheduleAtFixedRate(this::flushBuffer, 0, BUFFER_TIME, TimeUnit.MILLISECONDS);
+    this(logger, DEFAULT_CAPACITY, OverflowPolicy.DROP);
   }
 
   /**
-   * Write queued {@link LogItem}s that have been buffered for more than
-   * {@link #BUFFER_TIME} to the provided logger.
+   * @param capacity the maximum number of items waiting to be written; rounded
+   *          up to a power of 2
    */
-  private void flushBuffer() {
-    final long current = System.currentTimeMillis();
-    LogItem li;
-    while ((li = loggingBuffer.peek()) != null) {
-      if (current - li.time > BUFFER_TIME) {
-        try {
-          _log(loggingBuffer.poll().requestResponse);
-        } catch (JsonProcessingException e) {
-          log.error("Failed to parse JSON while logging {}", li.requestResponse);
-          e.printStackTrace();
-        }
-      } else {
-        break;
-      }
-    }
+  public JacksonRequestResponseLogger(Logger logger, int capacity, OverflowPolicy overflowPolicy) {
+    super(logger.getName(), capacity, overflowPolicy);
+    this.logger = logger;
+    this.mdcDescriminatorValue = logger.getName();
   }
 
   /**
@@ -126,10 +66,12 @@ public class JacksonRequestResponseLogger {
    * @param response
    */
   public void logRequestResponse(HttpRequest request, HttpResponse response) {
-    LogItem li = new LogItem();
-    li.requestResponse = new HttpRequestResponse(request, response);
-    li.time = System.currentTimeMillis();
-    loggingBuffer.add(li);
+    archive(request, response);
+  }
+
+  @Override
+  protected boolean isEnabled() {
+    return logger.isTraceEnabled();
   }
 
   /**
@@ -138,24 +80,9 @@ public class JacksonRequestResponseLogger {
    * @param rr
    * @throws JsonProcessingException
    */
-  private void _log(HttpRequestResponse rr) throws JsonProcessingException {
-    validateTimestamp(rr);
+  @Override
+  protected void write(HttpRequestResponse rr) throws JsonProcessingException {
     MDC.put(DESCRIMINATOR, mdcDescriminatorValue);
     logger.trace(mapper.writeValueAsString(rr));
   }
-
-  /**
-   * Verify that {@link HttpRequestResponse}s are being logged in chronological
-   * order according to the response time.
-   *
-   * @param rr
-   */
-  private void validateTimestamp(HttpRequestResponse rr) {
-    if (this.mostRecentLogTime > rr.getResponse().getTime()) {
-      log.error("Request/response being logged out of order");
-      System.err.println("Request/response being logged out of order");
-    }
-    this.mostRecentLogTime = rr.getResponse().getTime();
-  }
-
 }
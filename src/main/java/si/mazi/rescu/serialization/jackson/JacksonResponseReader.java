@@ -53,6 +53,11 @@ public class JacksonResponseReader extends ResponseReader {
         return objectMapper.readValue(httpBody, javaType);
     }
 
+    @Override
+    protected <T> T readInto(String httpBody, T target) throws IOException {
+        return objectMapper.readerForUpdating(target).readValue(httpBody);
+    }
+
     @Override
     protected RuntimeException readException(String httpBody, Class<? extends RuntimeException> exceptionType) throws IOException {
         return read(httpBody, exceptionType);
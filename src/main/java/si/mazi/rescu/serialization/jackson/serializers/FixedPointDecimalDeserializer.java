@@ -0,0 +1,46 @@
+package si.mazi.rescu.serialization.jackson.serializers;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import si.mazi.rescu.FixedPointDecimal;
+
+/**
+ * Reads a {@link FixedPointDecimal} from a JSON number or string, eg. {@code 0.015} or {@code "0.015"}, directly
+ * from the parser's character buffer, without creating an intermediate {@code String} or {@code BigDecimal}.
+ * An empty string is read as null.
+ */
+public class FixedPointDecimalDeserializer extends JsonDeserializer<FixedPointDecimal> {
+
+    @Override
+    public FixedPointDecimal deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.getCurrentToken();
+        if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_STRING) {
+            return (FixedPointDecimal) ctxt.handleUnexpectedToken(FixedPointDecimal.class, p);
+        }
+        char[] text = p.getTextCharacters();
+        int offset = p.getTextOffset();
+        int length = p.getTextLength();
+        if (token == JsonToken.VALUE_STRING) {
+            while (length > 0 && text[offset] <= ' ') {
+                offset++;
+                length--;
+            }
+            while (length > 0 && text[offset + length - 1] <= ' ') {
+                length--;
+            }
+            if (length == 0) {
+                return null;
+            }
+        }
+        try {
+            return FixedPointDecimal.parse(text, offset, length);
+        } catch (NumberFormatException e) {
+            return (FixedPointDecimal) ctxt.handleWeirdStringValue(FixedPointDecimal.class, p.getText(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package si.mazi.rescu.serialization.jackson.serializers;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import si.mazi.rescu.FixedPointDecimal;
+
+/**
+ * Writes a {@link FixedPointDecimal} as a JSON number in plain notation, or as a string if the generator has
+ * {@link JsonGenerator.Feature#WRITE_NUMBERS_AS_STRINGS} enabled. The characters are formatted into a per-thread
+ * buffer, so nothing is allocated per value.
+ */
+public class FixedPointDecimalSerializer extends JsonSerializer<FixedPointDecimal> {
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[FixedPointDecimal.MAX_CHARS]);
+
+    @Override
+    public void serialize(FixedPointDecimal value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        char[] buffer = BUFFER.get();
+        int length = value.getChars(buffer, 0);
+        if (gen.isEnabled(JsonGenerator.Feature.WRITE_NUMBERS_AS_STRINGS)) {
+            gen.writeString(buffer, 0, length);
+        } else {
+            gen.writeRawValue(buffer, 0, length);
+        }
+    }
+}
@@ -6,12 +6,15 @@ import java.util.Map;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class HttpRequest {
   private String url;
   private String method;
   private Map<String, List<String>> headers;
   private String body;
   private long time;
+  private String pathTemplate;
 
   public HttpRequest() {
   }
@@ -27,6 +30,7 @@ public class HttpRequest {
     this.headers = other.headers;
     this.body = other.body;
     this.time = other.time;
+    this.pathTemplate = other.pathTemplate;
   }
 
   public void create(String url, String method, Map<String, List<String>> headers, String body, long originTimeNanos,
@@ -78,6 +82,20 @@ public class HttpRequest {
     this.time = time;
   }
 
+  /**
+   * @return the path template of the invoked method, see {@link si.mazi.rescu.RestMethodMetadata#getPathTemplate()};
+   * kept in binary journals for their index, but not logged as JSON.
+   */
+  @JsonIgnore
+  public String getPathTemplate() {
+    return pathTemplate;
+  }
+
+  @JsonIgnore
+  public void setPathTemplate(String pathTemplate) {
+    this.pathTemplate = pathTemplate;
+  }
+
   @Override
   public String toString() {
     return ToStringBuilder.reflectionToString(this, ToStringStyle.MULTI_LINE_STYLE);
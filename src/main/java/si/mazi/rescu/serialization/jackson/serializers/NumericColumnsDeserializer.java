@@ -0,0 +1,171 @@
+package si.mazi.rescu.serialization.jackson.serializers;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.util.ClassUtil;
+
+import si.mazi.rescu.FixedPointDecimal;
+import si.mazi.rescu.NumericColumns;
+
+/**
+ * Reads an array of numeric arrays into {@link NumericColumns}, parsing each value directly from the parser's
+ * character buffer into the column arrays. When Jackson updates an existing instance (as rescu does when the
+ * instance is passed as an argument), its arrays are reused.
+ */
+public class NumericColumnsDeserializer extends JsonDeserializer<NumericColumns> implements ContextualDeserializer {
+
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Class<? extends NumericColumns> type;
+
+    public NumericColumnsDeserializer() {
+        this(NumericColumns.class);
+    }
+
+    protected NumericColumnsDeserializer(Class<? extends NumericColumns> type) {
+        this.type = type;
+    }
+
+    @Override
+    public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property) {
+        JavaType contextualType = ctxt.getContextualType();
+        if (contextualType != null && contextualType.getRawClass() != type
+                && NumericColumns.class.isAssignableFrom(contextualType.getRawClass())) {
+            //noinspection unchecked
+            return new NumericColumnsDeserializer((Class<? extends NumericColumns>) contextualType.getRawClass());
+        }
+        return this;
+    }
+
+    @Override
+    public NumericColumns deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        NumericColumns columns;
+        try {
+            columns = ClassUtil.createInstance(type, ctxt.canOverrideAccessModifiers());
+        } catch (IllegalArgumentException e) {
+            throw ctxt.instantiationException(type, e);
+        }
+        return deserialize(p, ctxt, columns);
+    }
+
+    @Override
+    public NumericColumns deserialize(JsonParser p, DeserializationContext ctxt, NumericColumns columns) throws IOException {
+        columns.clear();
+        if (p.getCurrentToken() != JsonToken.START_ARRAY) {
+            return (NumericColumns) ctxt.handleUnexpectedToken(type, p);
+        }
+        JsonToken token;
+        while ((token = p.nextToken()) == JsonToken.START_ARRAY) {
+            int row = columns.addRow();
+            int column = 0;
+            while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                if (column >= columns.getColumnCount() && columns.isAutoColumns() && row == 0) {
+                    columns.addDoubleColumn();
+                }
+                if (column < columns.getColumnCount()) {
+                    readValue(p, ctxt, token, columns, row, column);
+                } else {
+                    p.skipChildren();
+                }
+                column++;
+            }
+        }
+        if (token != JsonToken.END_ARRAY) {
+            return (NumericColumns) ctxt.handleUnexpectedToken(type, p);
+        }
+        return columns;
+    }
+
+    private void readValue(JsonParser p, DeserializationContext ctxt, JsonToken token, NumericColumns columns, int row, int column)
+            throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_STRING) {
+            throw JsonMappingException.from(p, String.format("Unexpected %s in row %d, column %d of %s", token, row, column, type.getSimpleName()));
+        }
+        char[] text = p.getTextCharacters();
+        int offset = p.getTextOffset();
+        int length = p.getTextLength();
+        if (token == JsonToken.VALUE_STRING) {
+            while (length > 0 && text[offset] <= ' ') {
+                offset++;
+                length--;
+            }
+            while (length > 0 && text[offset + length - 1] <= ' ') {
+                length--;
+            }
+            if (length == 0) {
+                return;
+            }
+        }
+        NumericColumns.ColumnType columnType = columns.getColumnType(column);
+        try {
+            if (columnType.isDouble()) {
+                columns.setDouble(row, column, parseDouble(text, offset, length));
+            } else {
+                columns.setLong(row, column, FixedPointDecimal.parseUnscaled(text, offset, length, columnType.getScale()));
+            }
+        } catch (NumberFormatException e) {
+            throw JsonMappingException.from(p, String.format("Invalid value in row %d, column %d of %s: %s",
+                    row, column, type.getSimpleName(), e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Parses a double without creating a String when the digits fit a {@code long} and the decimal exponent is small,
+     * which is the case for practically all prices and quantities; the result is then exactly as
+     * {@link Double#parseDouble} would return, as both operands of the single division or multiplication are exact.
+     */
+    static double parseDouble(char[] chars, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                if (mantissa >= (1L << 53) / 10) {
+                    return slowParseDouble(chars, offset, length);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fraction) {
+                    scale++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                // An exponent, or something invalid.
+                return slowParseDouble(chars, offset, length);
+            }
+        }
+        if (digits == 0 || scale >= DOUBLE_POWERS_OF_TEN.length) {
+            return slowParseDouble(chars, offset, length);
+        }
+        double value = scale == 0 ? mantissa : mantissa / DOUBLE_POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private static double slowParseDouble(char[] chars, int offset, int length) {
+        return Double.parseDouble(new String(chars, offset, length));
+    }
+}
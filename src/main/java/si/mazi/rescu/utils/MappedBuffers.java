@@ -0,0 +1,50 @@
+package si.mazi.rescu.utils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Releases the mapping of a {@link MappedByteBuffer} at once rather than when the buffer is garbage collected, so
+ * that the file can be truncated or deleted, which Windows refuses while it's mapped. Uses
+ * {@code sun.misc.Unsafe.invokeCleaner} on Java 9 and later, and the buffer's cleaner on Java 8; if neither is
+ * accessible, the mapping is left to the garbage collector.
+ */
+public final class MappedBuffers {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedBuffers.class);
+
+    private MappedBuffers() throws InstantiationException {
+        throw new InstantiationException("This class is not for instantiation");
+    }
+
+    /**
+     * The buffer must not be used afterwards, nor any of its duplicates or slices.
+     */
+    public static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner;
+            try {
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (NoSuchMethodException e) {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+                return;
+            }
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Could not unmap a buffer, leaving it to the garbage collector: {}", e.toString());
+        }
+    }
+}
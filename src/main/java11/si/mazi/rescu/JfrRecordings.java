@@ -0,0 +1,94 @@
+package si.mazi.rescu;
+
+import si.mazi.rescu.metrics.Phase;
+
+/**
+ * Starts the {@link RestInvocationEvent}s of calls; loaded by {@link FlightRecording}.
+ */
+class JfrRecordings implements FlightRecording.Factory {
+
+    @Override
+    public FlightRecording start(RestMethodMetadata methodMetadata) {
+        RestInvocationEvent event = new RestInvocationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        event.method = methodMetadata.getMethodName();
+        event.httpMethod = String.valueOf(methodMetadata.getHttpMethod());
+        event.pathTemplate = methodMetadata.getPathTemplate();
+        return new JfrRecording(event);
+    }
+
+    private static final class JfrRecording extends FlightRecording {
+
+        private final RestInvocationEvent event;
+        // The sizes are only counted for the events that are committed.
+        private String requestBody;
+        private String responseBody;
+
+        private JfrRecording(RestInvocationEvent event) {
+            this.event = event;
+        }
+
+        @Override
+        void locked(long nanos) {
+            event.lockWait = nanos;
+        }
+
+        @Override
+        void phase(Phase phase, long nanos) {
+            switch (phase) {
+                case BIND:
+                    event.bind = nanos;
+                    break;
+                case SIGN:
+                    event.sign = nanos;
+                    break;
+                case SERIALIZE:
+                    event.serialize = nanos;
+                    break;
+                case CONNECT:
+                    event.connect = nanos;
+                    break;
+                case FIRST_BYTE:
+                    event.firstByte = nanos;
+                    break;
+                case READ:
+                    event.read = nanos;
+                    break;
+                case DESERIALIZE:
+                    event.deserialize = nanos;
+                    break;
+                default:
+                    // the event's own duration
+            }
+        }
+
+        @Override
+        void requestBody(String body) {
+            requestBody = body;
+        }
+
+        @Override
+        void response(InvocationResult result) {
+            event.status = result.getStatusCode();
+            responseBody = result.getHttpBody();
+        }
+
+        @Override
+        void failed(Throwable failure) {
+            event.failure = failure.getClass().getName();
+        }
+
+        @Override
+        void end() {
+            event.end();
+            if (event.shouldCommit()) {
+                event.bytesOut = Utils.utf8Length(requestBody);
+                event.bytesIn = Utils.utf8Length(responseBody);
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package si.mazi.rescu;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A call of a rest proxy, from the proxy being called to the result being ready; see {@link FlightRecording}.
+ */
+@Name("rescu.Invocation")
+@Label("REST Invocation")
+@Category("rescu")
+@Description("A call of a rescu rest proxy, with the times of its phases")
+@StackTrace(false)
+class RestInvocationEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("HTTP Method")
+    String httpMethod;
+
+    @Label("Path Template")
+    String pathTemplate;
+
+    @Label("Status")
+    @Description("The HTTP status of the response, or 0 if there was none")
+    int status;
+
+    @Label("Bytes Out")
+    @Description("The size of the request body in UTF-8")
+    @DataAmount
+    long bytesOut;
+
+    @Label("Bytes In")
+    @Description("The size of the response body in UTF-8, uncompressed")
+    @DataAmount
+    long bytesIn;
+
+    @Label("Lock Wait")
+    @Description("The time spent waiting for the lock of the call's SynchronizedValueFactory, eg. a nonce factory")
+    @Timespan
+    long lockWait;
+
+    @Label("Bind")
+    @Timespan
+    long bind;
+
+    @Label("Sign")
+    @Timespan
+    long sign;
+
+    @Label("Serialize")
+    @Timespan
+    long serialize;
+
+    @Label("Connect")
+    @Timespan
+    long connect;
+
+    @Label("First Byte")
+    @Timespan
+    long firstByte;
+
+    @Label("Read")
+    @Timespan
+    long read;
+
+    @Label("Deserialize")
+    @Timespan
+    long deserialize;
+
+    @Label("Failure")
+    @Description("The class of the exception the call failed with")
+    String failure;
+}
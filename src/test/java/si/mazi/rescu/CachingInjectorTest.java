@@ -0,0 +1,176 @@
+package si.mazi.rescu;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+
+import org.testng.annotations.Test;
+
+import si.mazi.rescu.InjectableParametersMapper.InjectableParametersBuilder;
+import si.mazi.rescu.InjectableParametersMapper.Injector;
+
+public class CachingInjectorTest {
+
+    @Path("api")
+    @InjectableParam(name = "token", type = String.class, annotations = HeaderParam.class)
+    public interface TokenService extends RestInterface {
+
+        @GET
+        @Path("balance")
+        String balance();
+    }
+
+    private static class TokenInjector implements Injector<String> {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile boolean failing;
+
+        @Override
+        @HeaderParam("token")
+        public String get() {
+            if (failing) {
+                throw new IllegalStateException("Token service down");
+            }
+            return "token-" + calls.incrementAndGet();
+        }
+    }
+
+    private static class FakeClockInjector<T> extends CachingInjector<T> {
+        long now;
+
+        FakeClockInjector(Injector<T> delegate, long ttl, TimeUnit unit) {
+            super(delegate, ttl, unit);
+        }
+
+        @Override
+        long nanoTime() {
+            return now;
+        }
+    }
+
+    @Test
+    public void testCachesForTheTimeToLive() {
+        TokenInjector tokens = new TokenInjector();
+        FakeClockInjector<String> injector = new FakeClockInjector<>(tokens, 10, TimeUnit.SECONDS);
+        injector.setRefreshAhead(0, TimeUnit.SECONDS);
+
+        assertThat(injector.get()).isEqualTo("token-1");
+        injector.now += TimeUnit.SECONDS.toNanos(9);
+        assertThat(injector.get()).isEqualTo("token-1");
+        injector.now += TimeUnit.SECONDS.toNanos(1);
+        assertThat(injector.get()).isEqualTo("token-2");
+
+        injector.invalidate();
+        assertThat(injector.get()).isEqualTo("token-3");
+    }
+
+    @Test
+    public void testRefreshesAhead() {
+        TokenInjector tokens = new TokenInjector();
+        Queue<Runnable> scheduled = new ArrayDeque<>();
+        FakeClockInjector<String> injector = new FakeClockInjector<>(tokens, 10, TimeUnit.SECONDS);
+        injector.setRefreshAhead(2, TimeUnit.SECONDS).setRefreshExecutor(scheduled::add);
+
+        assertThat(injector.get()).isEqualTo("token-1");
+        injector.now += TimeUnit.SECONDS.toNanos(8);
+        // Due: the cached value is returned, and a single refresh scheduled.
+        assertThat(injector.get()).isEqualTo("token-1");
+        assertThat(injector.get()).isEqualTo("token-1");
+        assertThat(scheduled).hasSize(1);
+
+        scheduled.poll().run();
+        assertThat(injector.get()).isEqualTo("token-2");
+        assertThat(scheduled).isEmpty();
+
+        // A failed refresh keeps the cached value, and is retried.
+        injector.now += TimeUnit.SECONDS.toNanos(9);
+        tokens.failing = true;
+        assertThat(injector.get()).isEqualTo("token-2");
+        scheduled.poll().run();
+        assertThat(injector.get()).isEqualTo("token-2");
+        tokens.failing = false;
+        scheduled.poll().run();
+        assertThat(injector.get()).isEqualTo("token-3");
+    }
+
+    @Test
+    public void testRefreshesAheadOnTheDefaultThread() throws Exception {
+        CountDownLatch refreshed = new CountDownLatch(2);
+        CachingInjector<Integer> injector = new CachingInjector<>(new Injector<Integer>() {
+            final AtomicInteger calls = new AtomicInteger();
+
+            @Override
+            public Integer get() {
+                refreshed.countDown();
+                return calls.incrementAndGet();
+            }
+        }, 1, TimeUnit.HOURS).setRefreshAhead(3599, TimeUnit.SECONDS);
+
+        assertThat(injector.get()).isEqualTo(1);
+        Thread.sleep(1100);
+        assertThat(injector.get()).isEqualTo(1);
+        assertThat(refreshed.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 50 && injector.get() == 1; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(injector.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        CachingInjector<Integer> injector = new CachingInjector<>(() -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 42;
+        }, 1, TimeUnit.MINUTES);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(injector::get));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Integer> result : results) {
+                assertThat(result.get()).isEqualTo(42);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInjectsWithTheDelegatesAnnotations() {
+        TokenInjector tokens = new TokenInjector();
+        InjectableParametersMapper<TokenService> mapper = new InjectableParametersBuilder<>(TokenService.class)
+                .add("token", new CachingInjector<>(tokens, 1, TimeUnit.MINUTES))
+                .build();
+
+        Annotation[] annotations = mapper.getAnnotations("token");
+        assertThat(annotations).hasSize(1);
+        assertThat(((HeaderParam) annotations[0]).value()).isEqualTo("token");
+        assertThat(mapper.getParam("token")).isEqualTo("token-1");
+        assertThat(mapper.getParam("token")).isEqualTo("token-1");
+    }
+}
@@ -0,0 +1,193 @@
+package si.mazi.rescu;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.FormParam;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import si.mazi.rescu.InjectableParametersMapper.InjectableParametersBuilder;
+import si.mazi.rescu.InjectableParametersMapper.Injector;
+
+public class CredentialPoolTest {
+
+    @Path("api")
+    @Produces(MediaType.TEXT_PLAIN)
+    @InjectableParam(name = "Key", type = String.class, annotations = HeaderParam.class)
+    @InjectableParam(name = "nonce", type = SynchronizedValueFactory.class, annotations = FormParam.class)
+    @InjectableParam(name = "Sign", type = ParamsDigest.class, annotations = HeaderParam.class)
+    public interface ExchangeService extends RestInterface {
+
+        @POST
+        @Path("balance")
+        String balance() throws IOException;
+    }
+
+    private LoopbackServer server;
+    private final List<String> received = new ArrayList<>();
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        received.clear();
+        server = new LoopbackServer(this::handle);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        server.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = LoopbackServer.drain(exchange);
+        String request = exchange.getRequestHeaders().getFirst("Key") + " " + body + " "
+                + exchange.getRequestHeaders().getFirst("Sign");
+        synchronized (received) {
+            received.add(request);
+        }
+        LoopbackServer.respond(exchange, 200, "ok");
+    }
+
+    @Test
+    public void testSpreadsCallsOverKeys() throws Exception {
+        CredentialPool pool = new CredentialPool(1, 2);
+        Map<String, HmacDigest> digests = new HashMap<>();
+        for (String key : new String[] {"key-a", "key-b", "key-c"}) {
+            HmacDigest digest = HmacDigest.sha256Hex(("secret-of-" + key).getBytes(StandardCharsets.UTF_8));
+            digests.put(key, digest);
+            pool.add(key, digest, new CounterNonceFactory(1));
+        }
+        InjectableParametersMapper<ExchangeService> injectors = new InjectableParametersBuilder<>(ExchangeService.class)
+                .add("Key", new Injector<String>() {
+                    @Override
+                    @HeaderParam("Key")
+                    public String get() {
+                        return pool.current().getApiKey();
+                    }
+                })
+                .add("nonce", new Injector<SynchronizedValueFactory<?>>() {
+                    @Override
+                    @FormParam("nonce")
+                    public SynchronizedValueFactory<?> get() {
+                        return pool.current().getNonceFactory();
+                    }
+                })
+                .add("Sign", new Injector<ParamsDigest>() {
+                    @Override
+                    @HeaderParam("Sign")
+                    public ParamsDigest get() {
+                        return pool.digest();
+                    }
+                })
+                .build();
+        ExchangeService service = RestProxyFactory.createProxy(ExchangeService.class,
+                server.getBaseUrl(), LoopbackServer.newClientConfig(), null, null, injectors, null, pool);
+
+        for (int i = 0; i < 6; i++) {
+            assertThat(service.balance()).isEqualTo("ok");
+        }
+
+        assertThat(received).hasSize(6);
+        Map<String, List<String>> nonces = new HashMap<>();
+        for (String request : received) {
+            String[] parts = request.split(" ");
+            assertThat(parts[2]).isEqualTo(digests.get(parts[0]).digest(parts[1]));
+            nonces.computeIfAbsent(parts[0], k -> new ArrayList<>()).add(parts[1]);
+        }
+        // Each key has had its burst, with its own nonces.
+        assertThat(nonces).hasSize(3);
+        for (List<String> keyNonces : nonces.values()) {
+            assertThat(keyNonces).containsExactly("nonce=1", "nonce=2");
+        }
+        for (CredentialPool.Credential credential : pool.getCredentials()) {
+            assertThat(credential.getCalls()).isEqualTo(2);
+            assertThat(credential.getInFlight()).isZero();
+        }
+    }
+
+    @Test
+    public void testPicksTheLeastLoadedKey() throws Exception {
+        FakeClockPool pool = new FakeClockPool(10, 2);
+        CredentialPool.Credential a = pool.add("a", null, null);
+        CredentialPool.Credential b = pool.add("b", null, null);
+
+        assertThat(pool.acquire()).isSameAs(a);
+        // b has more tokens left.
+        assertThat(pool.acquire()).isSameAs(b);
+        // As many tokens left, but fewer calls in flight.
+        b.release();
+        assertThat(pool.acquire()).isSameAs(b);
+        assertThat(pool.acquire()).isSameAs(a);
+        assertThat(a.getInFlight()).isEqualTo(2);
+        assertThat(b.getInFlight()).isEqualTo(1);
+
+        // Refilled to the burst at most.
+        pool.now += 10_000_000_000L;
+        pool.acquire();
+        assertThat(a.getTokens() + b.getTokens()).isEqualTo(3.0);
+        assertThat(pool.waited).isZero();
+    }
+
+    @Test
+    public void testWaitsForRefill() throws Exception {
+        FakeClockPool pool = new FakeClockPool(10, 1);
+        CredentialPool.Credential a = pool.add("a", null, null);
+        CredentialPool.Credential b = pool.add("b", null, null);
+
+        pool.acquire();
+        pool.acquire();
+        assertThat(pool.waited).isZero();
+
+        pool.now += 50_000_000;
+        CredentialPool.Credential third = pool.acquire();
+        // Half a token left on each, so half of a 100ms refill to wait for.
+        assertThat(pool.waited).isEqualTo(50_000_000);
+        assertThat(third.getWaitedNanos()).isEqualTo(50_000_000);
+        assertThat(third.getTokens()).isCloseTo(-0.5, offset(1e-9));
+
+        // The other key is picked next, having a deficit of only half a token.
+        CredentialPool.Credential fourth = pool.acquire();
+        assertThat(fourth).isNotSameAs(third).isIn(a, b);
+        assertThat(a.getCalls() + b.getCalls()).isEqualTo(4);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testNoCurrentOutsideCall() {
+        new CredentialPool(1, 1).current();
+    }
+
+    private static class FakeClockPool extends CredentialPool {
+        long now = 1_000_000_000L;
+        long waited;
+
+        FakeClockPool(double permitsPerSecond, int burst) {
+            super(permitsPerSecond, burst);
+        }
+
+        @Override
+        long nanoTime() {
+            return now;
+        }
+
+        @Override
+        void await(long nanos) {
+            waited += nanos;
+        }
+    }
+}
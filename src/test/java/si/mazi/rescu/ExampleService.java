@@ -159,6 +159,10 @@ public interface ExampleService extends RestInterface {
 	@Path("500")
 	Object test500() throws IOException;
 
+	@GET
+	@Path("candles")
+	NumericColumns getCandles(@QueryParam("pair") String pair, NumericColumns into) throws IOException;
+
 	@GET
 	@Path("invocationAwareException")
 	Object invocationAwareException() throws ExampleInvocationAwareException;
@@ -0,0 +1,119 @@
+package si.mazi.rescu;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class FixedPointDecimalTest {
+
+    @Test
+    public void testParse() throws Exception {
+        assertParsed("0", 0, 0);
+        assertParsed("-0", 0, 0);
+        assertParsed("12", 12, 0);
+        assertParsed("+12", 12, 0);
+        assertParsed("-0.015", -15, 3);
+        assertParsed("1.50", 150, 2);
+        assertParsed(".5", 5, 1);
+        assertParsed("1.", 1, 0);
+        assertParsed("0.000000000000000001", 1, 18);
+        assertParsed("1.5E-3", 15, 4);
+        assertParsed("1.5e2", 150, 0);
+        assertParsed("1.50E+2", 150, 0);
+        assertParsed("9223372036854775807", Long.MAX_VALUE, 0);
+        assertParsed("-9223372036854775808", Long.MIN_VALUE, 0);
+        assertParsed("-92233720368547758.08", Long.MIN_VALUE, 2);
+    }
+
+    @Test
+    public void testParseDropsTrailingZerosThatDontFit() throws Exception {
+        assertParsed("1.00000000000000000000000", 1000000000000000000L, 18);
+        assertParsed("10.00000000000000000000000", 1000000000000000000L, 17);
+        assertParsed("0.1000000000000000000000000000", 100000000000000000L, 18);
+    }
+
+    @Test
+    public void testParseRange() throws Exception {
+        char[] chars = "[\"64123.45\",\"0.5\"]".toCharArray();
+        assertThat(FixedPointDecimal.parse(chars, 2, 8)).isEqualTo(FixedPointDecimal.valueOf(6412345, 2));
+        assertThat(FixedPointDecimal.parse(chars, 13, 3)).isEqualTo(FixedPointDecimal.valueOf(5, 1));
+    }
+
+    @Test
+    public void testParseRejectsInvalidOrTooLarge() throws Exception {
+        for (String s : Arrays.asList("", "-", ".", "1.2.3", "1e", "e5", "1,5", "abc", " 1", "1E2.5",
+                "9223372036854775808", "-9223372036854775809", "0.0000000000000000001", "1E19", "1E100000")) {
+            try {
+                FixedPointDecimal.parse(s);
+                fail("Expected NumberFormatException for '" + s + "'");
+            } catch (NumberFormatException expected) {
+                // ok
+            }
+        }
+    }
+
+    @Test
+    public void testToString() throws Exception {
+        for (String s : Arrays.asList("0", "12", "-0.015", "1.50", "0.000000000000000001", "-9.223372036854775808",
+                "9223372036854775807", "64123.45")) {
+            assertThat(FixedPointDecimal.parse(s).toString()).isEqualTo(s);
+        }
+        assertThat(FixedPointDecimal.parse("1.5E-3").toString()).isEqualTo("0.0015");
+        assertThat(FixedPointDecimal.valueOf(Long.MIN_VALUE, 18).toString()).isEqualTo("-9.223372036854775808");
+    }
+
+    @Test
+    public void testBigDecimalConversion() throws Exception {
+        for (String s : Arrays.asList("0", "-0.015", "1.50", "9223372036854775807", "0.000000000000000001")) {
+            BigDecimal bigDecimal = new BigDecimal(s);
+            assertThat(FixedPointDecimal.parse(s).toBigDecimal()).isEqualTo(bigDecimal);
+            assertThat(FixedPointDecimal.valueOf(bigDecimal)).isEqualTo(FixedPointDecimal.parse(s));
+        }
+        assertThat(FixedPointDecimal.valueOf(new BigDecimal("1E+3")).toString()).isEqualTo("1000");
+        assertThat(FixedPointDecimal.valueOf(new BigDecimal("1.000000000000000000000")).toString()).isEqualTo("1");
+        try {
+            FixedPointDecimal.valueOf(new BigDecimal("9223372036854775808"));
+            fail("Expected NumberFormatException");
+        } catch (NumberFormatException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testNumberValues() throws Exception {
+        assertThat(FixedPointDecimal.parse("64123.45").doubleValue()).isEqualTo(64123.45);
+        assertThat(FixedPointDecimal.parse("-0.1").doubleValue()).isEqualTo(-0.1);
+        assertThat(FixedPointDecimal.valueOf(Long.MAX_VALUE, 3).doubleValue()).isEqualTo(new BigDecimal("9223372036854775.807").doubleValue());
+        assertThat(FixedPointDecimal.parse("-12.99").longValue()).isEqualTo(-12);
+        assertThat(FixedPointDecimal.parse("12.99").intValue()).isEqualTo(12);
+    }
+
+    @Test
+    public void testCompareAndEquals() throws Exception {
+        List<String> ordered = Arrays.asList("-9223372036854775808", "-1.5", "-0.000000000000000001", "0", "0.1",
+                "0.15", "1", "9.223372036854775807", "100", "9223372036854775807");
+        for (int i = 0; i < ordered.size(); i++) {
+            for (int j = 0; j < ordered.size(); j++) {
+                FixedPointDecimal a = FixedPointDecimal.parse(ordered.get(i));
+                FixedPointDecimal b = FixedPointDecimal.parse(ordered.get(j));
+                assertThat(Integer.signum(a.compareTo(b))).as(a + " vs " + b).isEqualTo(Integer.compare(i, j));
+            }
+        }
+        assertThat(FixedPointDecimal.parse("1.5")).isEqualTo(FixedPointDecimal.parse("1.50"));
+        assertThat(FixedPointDecimal.parse("1.5").hashCode()).isEqualTo(FixedPointDecimal.parse("1.50").hashCode());
+        assertThat(FixedPointDecimal.parse("150").hashCode()).isEqualTo(FixedPointDecimal.parse("150.000").hashCode());
+        assertThat(FixedPointDecimal.parse("0").hashCode()).isEqualTo(FixedPointDecimal.parse("0.00").hashCode());
+        assertThat(FixedPointDecimal.parse("1.5")).isNotEqualTo(FixedPointDecimal.parse("1.51"));
+    }
+
+    private static void assertParsed(String s, long unscaledValue, int scale) {
+        FixedPointDecimal parsed = FixedPointDecimal.parse(s);
+        assertThat(parsed.getUnscaledValue()).as(s).isEqualTo(unscaledValue);
+        assertThat(parsed.getScale()).as(s).isEqualTo(scale);
+    }
+}
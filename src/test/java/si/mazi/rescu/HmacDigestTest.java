@@ -0,0 +1,128 @@
+package si.mazi.rescu;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.testng.annotations.Test;
+
+import net.iharder.Base64;
+
+public class HmacDigestTest {
+
+    private static final byte[] KEY = "a-secret-key-of-some-length".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testRfc4231Vector() {
+        // RFC 4231, test case 2.
+        byte[] key = "Jefe".getBytes(StandardCharsets.UTF_8);
+        String data = "what do ya want for nothing?";
+
+        assertThat(HmacDigest.sha256Hex(key).digest(data))
+                .isEqualTo("5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843");
+        assertThat(HmacDigest.sha384Hex(key).digest(data))
+                .isEqualTo("af45d2e376484031617f78d2b58a6b1b9c7ef464f5a01b47e42ec3736322445e8e2240ca5e69e2c78b3239ecfab21649");
+        assertThat(HmacDigest.sha512Hex(key).digest(data))
+                .isEqualTo("164b7a7bfcf819e2e395fbe73b56e0a387bd64222e831fd610270cd7ea2505549758bf75c05a994a6d034f65f8f0e6fdcaeab1a34d4a6b4b636e070a38bce737");
+    }
+
+    @Test
+    public void testMatchesMac() throws Exception {
+        String[] messages = {
+                "",
+                "nonce=1328626350245256&amount=1.5",
+                "café € 🚀 and an unpaired \ud83d surrogate",
+                longMessage(5000)
+        };
+        for (String algorithm : new String[] {HmacDigest.HMAC_SHA256, HmacDigest.HMAC_SHA384, HmacDigest.HMAC_SHA512}) {
+            for (String message : messages) {
+                byte[] expected = mac(algorithm, message);
+                assertThat(HmacDigest.createInstance(algorithm, KEY, HmacDigest.Encoding.BASE64).digest(message))
+                        .isEqualTo(Base64.encodeBytes(expected));
+                assertThat(HmacDigest.createInstance(algorithm, KEY, HmacDigest.Encoding.HEX).digest(message))
+                        .isEqualTo(hex(expected));
+            }
+        }
+    }
+
+    @Test
+    public void testReusesAcrossCalls() throws Exception {
+        HmacDigest digest = HmacDigest.sha256Base64(KEY);
+        for (int i = 0; i < 3; i++) {
+            assertThat(digest.digest("a")).isEqualTo(Base64.encodeBytes(mac(HmacDigest.HMAC_SHA256, "a")));
+            assertThat(digest.digest("b")).isEqualTo(Base64.encodeBytes(mac(HmacDigest.HMAC_SHA256, "b")));
+        }
+    }
+
+    @Test
+    public void testThreadSafety() throws Exception {
+        HmacDigest digest = HmacDigest.sha512Hex(KEY);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 32; t++) {
+                int thread = t;
+                results.add(executor.submit((Callable<Boolean>) () -> {
+                    for (int i = 0; i < 200; i++) {
+                        String message = "nonce=" + thread + "-" + i;
+                        if (!digest.digest(message).equals(hex(mac(HmacDigest.HMAC_SHA512, message)))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPoolSize() {
+        assertThat(HmacDigest.poolSize(1)).isEqualTo(2);
+        assertThat(HmacDigest.poolSize(3)).isEqualTo(8);
+        assertThat(HmacDigest.poolSize(8)).isEqualTo(16);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownAlgorithm() {
+        HmacDigest.createInstance("HmacNone", KEY, HmacDigest.Encoding.HEX);
+    }
+
+    private static String longMessage(int length) {
+        Random random = new Random(1);
+        StringBuilder message = new StringBuilder();
+        while (message.length() < length) {
+            // Mostly ASCII, with some multi-byte chars.
+            message.append(random.nextInt(10) == 0 ? 'š' : (char) ('a' + random.nextInt(26)));
+        }
+        return message.toString();
+    }
+
+    private static byte[] mac(String algorithm, String message) throws Exception {
+        Mac mac = Mac.getInstance(algorithm);
+        mac.init(new SecretKeySpec(KEY, algorithm));
+        return mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,204 @@
+package si.mazi.rescu;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+public class InvocationListenerTest {
+
+    @Path("api")
+    @Produces(MediaType.TEXT_PLAIN)
+    public interface ListenedService extends RestInterface {
+
+        @POST
+        @Path("order")
+        @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+        String order(@FormParam("amount") String amount) throws IOException;
+
+        @GET
+        @Path("missing")
+        String missing() throws IOException;
+    }
+
+    private LoopbackServer server;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        server = new LoopbackServer(this::handle);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        server.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        LoopbackServer.drain(exchange);
+        LoopbackServer.respond(exchange, exchange.getRequestURI().getPath().endsWith("/missing") ? 404 : 200, "ok");
+    }
+
+    @Test
+    public void testReceivesEventsInOrder() throws IOException {
+        RecordingListener listener = new RecordingListener();
+        ListenedService service = proxy(listener);
+
+        assertThat(service.order("1.5")).isEqualTo("ok");
+
+        assertThat(listener.events).containsExactly("invocationStarted order", "invocationCreated api/order",
+                "requestBodyWritten amount=1.5", "connected POST", "responseReceived 200", "responseRead",
+                "responseMapped", "invocationEnded");
+        for (int i = 1; i < listener.times.size(); i++) {
+            assertThat(listener.times.get(i)).isGreaterThanOrEqualTo(listener.times.get(i - 1));
+        }
+    }
+
+    @Test
+    public void testReceivesFailures() {
+        RecordingListener listener = new RecordingListener();
+        ListenedService service = proxy(listener);
+
+        try {
+            service.missing();
+            fail("Expected a 404");
+        } catch (IOException expected) {
+        }
+
+        assertThat(listener.events).containsExactly("invocationStarted missing", "invocationCreated api/missing",
+                "requestBodyWritten ", "connected GET", "responseReceived 404", "responseRead",
+                "invocationFailed HttpStatusIOException", "invocationEnded");
+    }
+
+    @Test
+    public void testReceivesFailuresToSend() {
+        server.close();
+        RecordingListener listener = new RecordingListener();
+        ListenedService service = proxy(listener);
+
+        try {
+            service.order("1.5");
+            fail("Expected the connection to be refused");
+        } catch (IOException expected) {
+        }
+
+        assertThat(listener.events).hasSize(5);
+        assertThat(listener.events.get(3)).startsWith("invocationFailed ");
+        assertThat(listener.events.get(4)).isEqualTo("invocationEnded");
+    }
+
+    @Test
+    public void testFailureToConnectIsHandledAsWhenNotListened() {
+        server.close();
+        RecordingListener listener = new RecordingListener();
+        for (ClientConfig config : new ClientConfig[] {LoopbackServer.newClientConfig(),
+                LoopbackServer.newClientConfig().addInvocationListener(listener)}) {
+            config.setWrapUnexpectedExceptions(true);
+            try {
+                server.createProxy(ListenedService.class, config).missing();
+                fail("Expected the connection to be refused");
+            } catch (Exception e) {
+                assertThat(e).isInstanceOf(AwareException.class);
+                assertThat(e.getCause()).isInstanceOf(ConnectException.class);
+                assertThat(((AwareException) e).getInvocation().getInvocationUrl()).isEqualTo(server.getBaseUrl() + "/api/missing");
+            }
+        }
+
+        assertThat(listener.events).containsExactly("invocationStarted missing", "invocationCreated api/missing",
+                "requestBodyWritten ", "invocationFailed ConnectException", "invocationEnded");
+    }
+
+    @Test
+    public void testIgnoresFailingListeners() throws IOException {
+        RecordingListener listener = new RecordingListener();
+        ClientConfig config = LoopbackServer.newClientConfig()
+                .addInvocationListener(new InvocationListener() {
+                    @Override
+                    public void invocationCreated(RestInvocation invocation, long nanoTime) {
+                        throw new IllegalStateException("Listener bug");
+                    }
+                })
+                .addInvocationListener(listener);
+        ListenedService service = server.createProxy(ListenedService.class, config);
+
+        assertThat(service.order("2")).isEqualTo("ok");
+        assertThat(listener.events).hasSize(8);
+    }
+
+    private ListenedService proxy(InvocationListener listener) {
+        return server.createProxy(ListenedService.class, LoopbackServer.newClientConfig().addInvocationListener(listener));
+    }
+
+    private static class RecordingListener implements InvocationListener {
+
+        private final List<String> events = new ArrayList<>();
+        private final List<Long> times = new ArrayList<>();
+
+        private synchronized void event(String event, long nanoTime) {
+            events.add(event);
+            times.add(nanoTime);
+        }
+
+        @Override
+        public void invocationStarted(RestMethodMetadata methodMetadata, long nanoTime) {
+            event("invocationStarted " + methodMetadata.getMethodName(), nanoTime);
+        }
+
+        @Override
+        public void invocationCreated(RestInvocation invocation, long nanoTime) {
+            event("invocationCreated " + invocation.getMethodMetadata().getPathTemplate(), nanoTime);
+        }
+
+        @Override
+        public void requestBodyWritten(RestInvocation invocation, long nanoTime) {
+            event("requestBodyWritten " + invocation.getRequestBody(), nanoTime);
+        }
+
+        @Override
+        public void connected(RestInvocation invocation, HttpURLConnection connection, long nanoTime) {
+            event("connected " + connection.getRequestMethod(), nanoTime);
+        }
+
+        @Override
+        public void responseReceived(RestInvocation invocation, int statusCode, long nanoTime) {
+            event("responseReceived " + statusCode, nanoTime);
+        }
+
+        @Override
+        public void responseRead(RestInvocation invocation, long nanoTime) {
+            event("responseRead", nanoTime);
+        }
+
+        @Override
+        public void responseMapped(RestInvocation invocation, long nanoTime) {
+            event("responseMapped", nanoTime);
+        }
+
+        @Override
+        public void invocationFailed(RestInvocation invocation, Throwable failure, long nanoTime) {
+            event("invocationFailed " + failure.getClass().getSimpleName(), nanoTime);
+        }
+
+        @Override
+        public void invocationEnded(RestInvocation invocation, long nanoTime) {
+            event("invocationEnded", nanoTime);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package si.mazi.rescu;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process HTTP server on a free port of the loopback interface, passing every request to a handler, for tests
+ * that call a real server through a proxy.
+ */
+public class LoopbackServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final int port;
+    private boolean closed;
+
+    public LoopbackServer(HttpHandler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", handler);
+        server.start();
+        port = server.getAddress().getPort();
+    }
+
+    /**
+     * @return a client config that invokes on the calling thread, so that a call is done when the proxy returns.
+     */
+    public static ClientConfig newClientConfig() {
+        ClientConfig config = new ClientConfig();
+        config.setInvocationExecutor(InvocationExecutors.callerThread());
+        return config;
+    }
+
+    /**
+     * @return a proxy of the interface calling this server.
+     */
+    public <I extends RestInterface> I createProxy(Class<I> restInterface, ClientConfig config) {
+        return RestProxyFactory.createProxy(restInterface, getBaseUrl(), config, null, null, null, null);
+    }
+
+    /**
+     * Reads the request body to its end.
+     *
+     * @return the body, decoded as UTF-8
+     */
+    public static String drain(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[1024];
+            for (int n; (n = in.read(buffer)) >= 0; ) {
+                body.write(buffer, 0, n);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sends the response, with the body encoded as UTF-8 and any headers set on the exchange before.
+     */
+    public static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] response = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + getPort();
+    }
+
+    /**
+     * @return the port, also after the server is closed
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Stops the server at once; calls made afterwards are refused. May be called more than once.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            server.stop(0);
+        }
+    }
+}
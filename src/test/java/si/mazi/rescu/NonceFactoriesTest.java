@@ -0,0 +1,172 @@
+package si.mazi.rescu;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class NonceFactoriesTest {
+
+    private Path file;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        file = Files.createTempFile("nonces", ".bin");
+        Files.delete(file);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testCounter() throws Exception {
+        CounterNonceFactory factory = new CounterNonceFactory(100);
+        assertThat(factory.createValue()).isEqualTo(100L);
+        assertThat(factory.createValue()).isEqualTo(101L);
+
+        assertUniqueAndIncreasing(factory);
+    }
+
+    @Test
+    public void testTimeNeverRepeats() throws Exception {
+        long[] now = {1000};
+        TimeNonceFactory factory = new TimeNonceFactory(10) {
+            @Override
+            long currentTimeMillis() {
+                return now[0];
+            }
+        };
+
+        assertThat(factory.createValue()).isEqualTo(10000L);
+        assertThat(factory.createValue()).isEqualTo(10001L);
+        now[0] = 1001;
+        assertThat(factory.createValue()).isEqualTo(10010L);
+        now[0] = 900;
+        assertThat(factory.createValue()).isEqualTo(10011L);
+
+        assertUniqueAndIncreasing(new TimeNonceFactory());
+    }
+
+    @Test
+    public void testPersistentCarriesOnOverRestarts() throws Exception {
+        // Never closed: as if the process crashed.
+        PersistentNonceFactory crashed = new PersistentNonceFactory(file, 1, 10);
+        for (long i = 1; i <= 25; i++) {
+            assertThat(crashed.createValue()).isEqualTo(i);
+        }
+        long last = crashed.createValue();
+
+        try (PersistentNonceFactory factory = new PersistentNonceFactory(file, 1, 10)) {
+            assertThat(factory.createValue()).isGreaterThan(last).isLessThanOrEqualTo(last + 10);
+            for (int i = 0; i < 15; i++) {
+                last = factory.createValue();
+            }
+        }
+        try (PersistentNonceFactory factory = new PersistentNonceFactory(file, 1, 10)) {
+            assertThat(factory.createValue()).isGreaterThan(last);
+        }
+    }
+
+    @Test
+    public void testPersistentStartsAtInitialValueIfLarger() throws Exception {
+        try (PersistentNonceFactory factory = new PersistentNonceFactory(file, 1, 10)) {
+            factory.createValue();
+        }
+        try (PersistentNonceFactory factory = new PersistentNonceFactory(file, 5000, 10)) {
+            assertThat(factory.createValue()).isEqualTo(5000L);
+        }
+    }
+
+    @Test
+    public void testPersistentSurvivesTornWrite() throws Exception {
+        try (PersistentNonceFactory factory = new PersistentNonceFactory(file, 1, 10)) {
+            for (long i = 1; i <= 10; i++) {
+                assertThat(factory.createValue()).isEqualTo(i);
+            }
+        }
+        // The block up to 11 is in slot 1; tear the next reservation, into slot 0, halfway.
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(0);
+            raf.writeLong(21);
+        }
+        try (PersistentNonceFactory factory = new PersistentNonceFactory(file, 1, 10)) {
+            assertThat(factory.createValue()).isEqualTo(11L);
+        }
+    }
+
+    @Test
+    public void testPersistentStartsOverIfFirstReserveWasLost() throws Exception {
+        // As left by a crash after the file was created and mapped, before the first reserve was forced.
+        Files.write(file, new byte[32]);
+        try (PersistentNonceFactory factory = new PersistentNonceFactory(file, 100, 10)) {
+            assertThat(factory.createValue()).isEqualTo(100L);
+        }
+        try (PersistentNonceFactory factory = new PersistentNonceFactory(file, 1, 10)) {
+            assertThat(factory.createValue()).isEqualTo(110L);
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testPersistentRejectsForeignFile() throws Exception {
+        Files.write(file, "not a nonce file, no".getBytes());
+        new PersistentNonceFactory(file).close();
+    }
+
+    @Test
+    public void testPersistentUnderThreads() throws Exception {
+        try (PersistentNonceFactory factory = new PersistentNonceFactory(file, 1, 100)) {
+            assertUniqueAndIncreasing(factory);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testPersistentClosed() throws Exception {
+        PersistentNonceFactory factory = new PersistentNonceFactory(file);
+        factory.close();
+        factory.createValue();
+    }
+
+    /** Each thread sees increasing nonces, and no nonce is seen twice. */
+    private static void assertUniqueAndIncreasing(SynchronizedValueFactory<Long> factory) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit((Callable<List<Long>>) () -> {
+                    List<Long> values = new ArrayList<>();
+                    for (int i = 0; i < 5000; i++) {
+                        values.add(factory.createValue());
+                    }
+                    return values;
+                }));
+            }
+            Set<Long> seen = new HashSet<>();
+            for (Future<List<Long>> result : results) {
+                List<Long> values = result.get();
+                for (int i = 1; i < values.size(); i++) {
+                    assertThat(values.get(i)).isGreaterThan(values.get(i - 1));
+                }
+                seen.addAll(values);
+            }
+            assertThat(seen).hasSize(8 * 5000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
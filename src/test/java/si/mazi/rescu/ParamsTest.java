@@ -40,6 +40,14 @@ public class ParamsTest  {
                 "1,0.00000043");
     }
 
+    @Test
+    public void testFixedPointDecimalToString() throws Exception {
+        Assert.assertEquals(
+                Params.of().toString(Arrays.asList(FixedPointDecimal.parse("1E+2"), FixedPointDecimal.parse("0.00000043"))),
+                "100,0.00000043");
+        Assert.assertEquals(Params.of("price", FixedPointDecimal.valueOf(-12345, 3)).asQueryString(), "price=-12.345");
+    }
+
     @Test
     public void shouldSensiblySerializeIterableWithNullElement() throws Exception {
         HashMap<String, String> expected = new HashMap<String, String>() {{ put("key", "null"); }};
@@ -57,11 +57,14 @@ import org.testng.internal.collections.Pair;
 
 import com.google.common.collect.ImmutableMap;
 
+import si.mazi.rescu.archive.ArchivePolicy;
+import si.mazi.rescu.archive.RequestResponseArchiver;
 import si.mazi.rescu.dto.DummyAccountInfo;
 import si.mazi.rescu.dto.DummyTicker;
 import si.mazi.rescu.dto.GenericResult;
 import si.mazi.rescu.dto.Order;
 import si.mazi.rescu.serialization.jackson.serializers.HttpRequest;
+import si.mazi.rescu.serialization.jackson.serializers.HttpResponse;
 
 
 /**
@@ -178,6 +181,112 @@ public class RestInvocationHandlerTest {
 		Assert.assertEquals(testHandler.getInvocation().getRequestBody(), "{\"username\":\"mm\",\"currency\":\"USD\",\"amount_int\":3}");
 	}
 
+	@Test
+	public void testCallerThreadExecutor() throws Exception {
+		ClientConfig config = new ClientConfig();
+		config.setInvocationExecutor(InvocationExecutors.callerThread());
+		final List<Thread> receivingThreads = new ArrayList<>();
+		TestRestInvocationHandler testHandler = new TestRestInvocationHandler(ExampleService.class, config, "{\"result\":\"ok\"}", 200) {
+			@Override
+			protected Object receiveAndMap(RestInvocation invocation, HttpURLConnection connection, HttpResponse response) throws IOException {
+				receivingThreads.add(Thread.currentThread());
+				return super.receiveAndMap(invocation, connection, response);
+			}
+		};
+		ExampleService proxy = RestProxyFactory.createProxy(ExampleService.class, testHandler);
+
+		proxy.testJsonBody(new DummyAccountInfo("mm", "USD", 3));
+		assertThat(receivingThreads).containsExactly(Thread.currentThread());
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testCallsReceiveAndMapOverriddenByMetadata() throws Exception {
+		final List<String> received = new ArrayList<>();
+		TestRestInvocationHandler testHandler = new TestRestInvocationHandler(ExampleService.class, null, "{\"result\":\"ok\"}", 200) {
+			@Override
+			protected Object receiveAndMap(RestMethodMetadata methodMetadata, HttpURLConnection connection, HttpResponse response) throws IOException {
+				received.add(methodMetadata.getMethodName());
+				return super.receiveAndMap(methodMetadata, connection, response);
+			}
+		};
+		ExampleService proxy = RestProxyFactory.createProxy(ExampleService.class, testHandler);
+
+		proxy.testJsonBody(new DummyAccountInfo("mm", "USD", 3));
+		assertThat(received).containsExactly("testJsonBody");
+	}
+
+	@Test
+	public void testHooksGetRequestAndResponseWhenNotArchived() throws Exception {
+		final List<Object> passed = new ArrayList<>();
+		TestRestInvocationHandler testHandler = new TestRestInvocationHandler(ExampleService.class, null, "{\"result\":\"ok\"}", 200) {
+			@Override
+			protected HttpURLConnection invokeHttp(RestInvocation invocation, HttpRequest request) {
+				request.create(invocation.getInvocationUrl(), "POST", null, invocation.getRequestBody(), 0, 0);
+				passed.add(request);
+				return super.invokeHttp(invocation, request);
+			}
+
+			@Override
+			protected Object receiveAndMap(RestInvocation invocation, HttpURLConnection connection, HttpResponse response) throws IOException {
+				response.create(getResponseStatusCode(), getResponseBody(), 0, 0);
+				passed.add(response);
+				return super.receiveAndMap(invocation, connection, response);
+			}
+		};
+		ExampleService proxy = RestProxyFactory.createProxy(ExampleService.class, testHandler);
+
+		proxy.testJsonBody(new DummyAccountInfo("mm", "USD", 3));
+		assertThat(passed).hasSize(2);
+		assertThat(((HttpRequest) passed.get(0)).getBody()).isEqualTo(testHandler.getInvocation().getRequestBody());
+		assertThat(((HttpResponse) passed.get(1)).getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	public void testNumericColumnsResponseTarget() throws Exception {
+		String body = "[[1700000000000,\"64000.5\",\"1.25\"],[1700000060000,\"64010\",\"0.5\"]]";
+		TestRestInvocationHandler testHandler = new TestRestInvocationHandler(ExampleService.class, null, body, 200);
+		ExampleService proxy = RestProxyFactory.createProxy(ExampleService.class, testHandler);
+		NumericColumns candles = new NumericColumns(NumericColumns.ColumnType.LONG,
+				NumericColumns.ColumnType.fixedPoint(2), NumericColumns.ColumnType.DOUBLE);
+
+		NumericColumns returned = proxy.getCandles("BTCUSD", candles);
+		long[] timestamps = candles.getLongColumn(0);
+
+		assertThat(returned).isSameAs(candles);
+		assertThat(testHandler.getInvocation().getUnannanotatedParams()).isEmpty();
+		assertThat(testHandler.getInvocation().getInvocationUrl()).isEqualTo("https://example.com/api/{version}/candles?pair=BTCUSD");
+		assertThat(candles.getRowCount()).isEqualTo(2);
+		assertThat(candles.getLong(1, 0)).isEqualTo(1700000060000L);
+		assertThat(candles.getLongColumn(1)[0]).isEqualTo(6400050);
+		assertThat(candles.getDouble(0, 2)).isEqualTo(1.25);
+
+		// Read into the same arrays again.
+		proxy.getCandles("BTCUSD", candles);
+		assertThat(candles.getRowCount()).isEqualTo(2);
+		assertThat(candles.getLongColumn(0)).isSameAs(timestamps);
+
+		NumericColumns created = proxy.getCandles("BTCUSD", null);
+		assertThat(created.getColumnCount()).isEqualTo(3);
+		assertThat(created.getDouble(1, 1)).isEqualTo(64010.0);
+	}
+
+	@Test
+	public void testNullNumericColumnsResponseTarget() throws Exception {
+		String body = "[[1700000000000,\"64000.5\"],[1700000060000,\"64010\"]]";
+		TestRestInvocationHandler testHandler = new TestRestInvocationHandler(ExampleService.class, null, body, 200);
+		ExampleService proxy = RestProxyFactory.createProxy(ExampleService.class, testHandler);
+
+		NumericColumns created = proxy.getCandles("BTCUSD", null);
+
+		// The null target is still the target, not a body.
+		assertThat(testHandler.getInvocation().getUnannanotatedParams()).isEmpty();
+		assertThat(testHandler.getInvocation().getResponseTarget()).isNull();
+		assertThat(testHandler.getInvocation().getRequestBody()).isNullOrEmpty();
+		assertThat(created.getRowCount()).isEqualTo(2);
+		assertThat(created.getDouble(1, 1)).isEqualTo(64010.0);
+	}
+
 	@Test
 	public void testRootPathService() throws Exception {
 
@@ -380,6 +489,63 @@ public class RestInvocationHandlerTest {
 		}
 	}
 
+	@Test
+	public void testArchivePolicy() throws Exception {
+		CountingArchiver archived = new CountingArchiver();
+		CountingArchiver errors = new CountingArchiver();
+		ClientConfig config = new ClientConfig();
+		config.setRequestResponseArchiver(archived);
+		config.setErrorArchiver(errors);
+		ArchivePolicy policy = new ArchivePolicy().setSampleRate(0).setSampleRate("getString", 1);
+		config.setArchivePolicy(policy);
+
+		RestProxyFactory.createProxy(ExampleService.class, new TestRestInvocationHandler(ExampleService.class, config, "ok", 200))
+				.getString();
+		assertThat(archived.count).isEqualTo(1);
+
+		policy.setSampleRate("getString", 0);
+		RestProxyFactory.createProxy(ExampleService.class, new TestRestInvocationHandler(ExampleService.class, config, "ok", 200))
+				.getString();
+		assertThat(archived.count).isEqualTo(1);
+
+		// Errors are archived regardless of the sample rates...
+		ExampleService failing = RestProxyFactory.createProxy(ExampleService.class,
+				new TestRestInvocationHandler(ExampleService.class, config, null, 500));
+		try {
+			failing.test500();
+			Assert.fail();
+		} catch (HttpStatusIOException expected) {
+		}
+		assertThat(errors.count).isEqualTo(1);
+
+		// ...unless configured otherwise.
+		policy.setArchiveErrors(false);
+		try {
+			failing.test500();
+			Assert.fail();
+		} catch (HttpStatusIOException expected) {
+		}
+		assertThat(errors.count).isEqualTo(1);
+		assertThat(archived.count).isEqualTo(1);
+	}
+
+	private static class CountingArchiver implements RequestResponseArchiver {
+		int count;
+
+		@Override
+		public void archive(HttpRequest request, HttpResponse response) {
+			count++;
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
 	@Test
 	public void testEquals() throws Exception {
 		ExampleService service = RestProxyFactory.createProxy(ExampleService.class, "http://example.com");
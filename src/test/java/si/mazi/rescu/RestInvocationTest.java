@@ -87,6 +87,17 @@ public class RestInvocationTest {
         assertEquals(invocation.getParamValue(FormParam.class, "nonce"), nonce);
     }
 
+    @Test
+    public void testPathTemplate() {
+        RestMethodMetadata metadata = new RestMethodMetadata(String.class, HttpMethod.GET,
+                "http://example.com", "/api/", "{version}/ticker",
+                RuntimeException.class, MediaType.APPLICATION_FORM_URLENCODED, MediaType.APPLICATION_JSON, null,
+                new HashMap<Class<? extends Annotation>, Annotation>(),
+                new Annotation[][] {});
+
+        assertEquals(metadata.getPathTemplate(), "/api/{version}/ticker");
+    }
+
     @Test
     public void testFormPostCollectionDefault() throws Exception {
         TestRestInvocationHandler testHandler = new TestRestInvocationHandler(ExampleService.class, new ClientConfig(), null, 200);
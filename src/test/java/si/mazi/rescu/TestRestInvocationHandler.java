@@ -23,7 +23,6 @@
 
 package si.mazi.rescu;
 
-import java.io.IOException;
 import java.net.HttpURLConnection;
 
 import si.mazi.rescu.serialization.jackson.serializers.HttpRequest;
@@ -55,9 +54,8 @@ class TestRestInvocationHandler extends RestInvocationHandler {
 	}
 
 	@Override
-	protected Object receiveAndMap(RestMethodMetadata methodMetadata, HttpURLConnection connection, HttpResponse response) throws IOException {
-		InvocationResult invocationResult = new InvocationResult(getResponseBody(), getResponseStatusCode());
-		return mapInvocationResult(invocationResult, methodMetadata);
+	protected InvocationResult receive(HttpURLConnection connection, HttpResponse response) {
+		return new InvocationResult(getResponseBody(), getResponseStatusCode());
 	}
 
 	public RestInvocation getInvocation() {
@@ -0,0 +1,85 @@
+package si.mazi.rescu.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequest;
+import si.mazi.rescu.serialization.jackson.serializers.HttpResponse;
+
+public class ArchivePolicyTest {
+
+    @Test
+    public void testArchivesAllByDefault() {
+        ArchivePolicy policy = new ArchivePolicy();
+        HttpRequest request = request("body");
+        policy.trim(request);
+
+        assertThat(policy.isSampled("any")).isTrue();
+        assertThat(policy.isArchiveErrors()).isTrue();
+        assertThat(request.getBody()).isEqualTo("body");
+        assertThat(request.getHeaders()).containsOnlyKeys("Content-Type", "Key", "Sign");
+    }
+
+    @Test
+    public void testSamplesPerMethod() {
+        ArchivePolicy policy = new ArchivePolicy().setSampleRate(0.25).setSampleRate("placeOrder", 1).setSampleRate("getDepth", 0);
+
+        int sampled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(policy.isSampled("placeOrder")).isTrue();
+            assertThat(policy.isSampled("getDepth")).isFalse();
+            if (policy.isSampled("getTicker")) {
+                sampled++;
+            }
+        }
+        assertThat(sampled).isBetween(2000, 3000);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsInvalidRate() {
+        new ArchivePolicy().setSampleRate("getTicker", 1.5);
+    }
+
+    @Test
+    public void testTruncatesBodies() {
+        ArchivePolicy policy = new ArchivePolicy().setMaxBodyLength(10);
+        HttpRequest request = request("abcdefghijklmnopqrstuvwxyz");
+        HttpResponse response = new HttpResponse(200, "0123456789", 0, 0);
+        policy.trim(request);
+        policy.trim(response);
+
+        assertThat(request.getBody()).isEqualTo("abcde...[16 chars truncated]...vwxyz");
+        assertThat(response.getBody()).isEqualTo("0123456789");
+    }
+
+    @Test
+    public void testDoesNotSplitSurrogatePairs() {
+        ArchivePolicy policy = new ArchivePolicy().setMaxBodyLength(4);
+
+        assertThat(policy.truncate("a😀bcde😀")).isEqualTo("a...[6 chars truncated]...😀");
+    }
+
+    @Test
+    public void testKeepsAllowedHeaders() {
+        ArchivePolicy policy = new ArchivePolicy().setHeaderAllowlist("content-type", "X-Missing");
+        HttpRequest request = request("body");
+        policy.trim(request);
+
+        assertThat(request.getHeaders()).containsOnlyKeys("Content-Type");
+    }
+
+    private static HttpRequest request(String body) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", Collections.singletonList("application/x-www-form-urlencoded"));
+        headers.put("Key", Collections.singletonList("api-key"));
+        headers.put("Sign", Arrays.asList("signature"));
+        return new HttpRequest("https://example.com/api", "POST", headers, body, 0, 0);
+    }
+}
@@ -0,0 +1,232 @@
+package si.mazi.rescu.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequest;
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequestResponse;
+import si.mazi.rescu.serialization.jackson.serializers.HttpResponse;
+
+public class JournalArchiverTest {
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("rescu-journal");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Collections.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        JournalArchiver archiver = new JournalArchiver(directory);
+        HttpRequest withTemplate = request(1);
+        withTemplate.setPathTemplate("/api/{id}");
+        archiver.archive(withTemplate, response(1));
+        HttpRequest nulls = new HttpRequest();
+        nulls.setUrl("https://example.com/nulls");
+        HttpResponse nullBody = new HttpResponse();
+        nullBody.setTime(2000);
+        archiver.archive(nulls, nullBody);
+        archiver.close();
+
+        List<HttpRequestResponse> records = readAll(directory);
+        assertThat(records).hasSize(2);
+        assertSameJson(records.get(0), new HttpRequestResponse(request(1), response(1)));
+        assertSameJson(records.get(1), new HttpRequestResponse(nulls, nullBody));
+        assertThat(records.get(0).getRequest().getBody()).isEqualTo("amount=1&note=čudno €");
+        assertThat(records.get(0).getRequest().getPathTemplate()).isEqualTo("/api/{id}");
+        assertThat(records.get(1).getRequest().getPathTemplate()).isNull();
+        // Truncated to the written records rather than left at the default segment size.
+        Path segment = JournalReader.listSegments(directory).get(0);
+        assertThat(Files.size(segment)).isLessThan(1024);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer lastLength = ByteBuffer.allocate(4);
+            channel.read(lastLength, Files.size(segment) - 4);
+            assertThat(lastLength.getInt(0)).isNotZero();
+        }
+    }
+
+    @Test
+    public void testSyncsLastBatchWhenIdle() throws Exception {
+        List<Integer> forced = Collections.synchronizedList(new ArrayList<>());
+        JournalArchiver archiver = new JournalArchiver(directory, new JournalOptions().setSyncIntervalMillis(50)) {
+            @Override
+            void force(MappedByteBuffer segment) {
+                forced.add(segment.position());
+                super.force(segment);
+            }
+        };
+        archiver.archive(request(0), response(0));
+        // Nothing archived after it: the writer still forces it once the interval has passed.
+        for (int i = 0; i < 200 && forced.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(forced).hasSize(1);
+        archiver.close();
+        assertThat(forced).hasSize(1);
+        assertTimes(readAll(directory), 1);
+    }
+
+    @Test
+    public void testRotatesSegments() throws Exception {
+        JournalArchiver archiver = new JournalArchiver(directory, new JournalOptions().setSegmentSize(4096));
+        for (int i = 0; i < 200; i++) {
+            archiver.archive(request(i), response(i));
+        }
+        archiver.close();
+
+        assertThat(JournalReader.listSegments(directory).size()).isGreaterThan(5);
+        assertTimes(readAll(directory), 200);
+    }
+
+    @Test
+    public void testCompressesSegments() throws Exception {
+        JournalArchiver archiver = new JournalArchiver(directory,
+                new JournalOptions().setSegmentSize(8192).setCompressSegments(true));
+        for (int i = 0; i < 200; i++) {
+            archiver.archive(request(i), response(i));
+        }
+        archiver.close();
+
+        List<Path> segments = JournalReader.listSegments(directory);
+        assertThat(segments).isNotEmpty();
+        for (Path segment : segments) {
+            assertThat(segment.toString()).endsWith(".rjz");
+        }
+        assertTimes(readAll(directory), 200);
+    }
+
+    @Test
+    public void testRecordLargerThanSegment() throws Exception {
+        JournalArchiver archiver = new JournalArchiver(directory, new JournalOptions().setSegmentSize(1024));
+        HttpResponse large = response(1);
+        char[] body = new char[10_000];
+        Arrays.fill(body, 'x');
+        large.setBody(new String(body));
+        archiver.archive(request(0), response(0));
+        archiver.archive(request(1), large);
+        archiver.archive(request(2), response(2));
+        archiver.close();
+
+        List<HttpRequestResponse> records = readAll(directory);
+        assertTimes(records, 3);
+        assertThat(records.get(1).getResponse().getBody()).isEqualTo(large.getBody());
+    }
+
+    @Test
+    public void testNewArchiverStartsNewSegment() throws Exception {
+        JournalArchiver first = new JournalArchiver(directory);
+        first.archive(request(0), response(0));
+        first.close();
+        JournalArchiver second = new JournalArchiver(directory);
+        second.archive(request(1), response(1));
+        second.close();
+
+        assertThat(JournalReader.listSegments(directory)).hasSize(2);
+        assertTimes(readAll(directory), 2);
+    }
+
+    @Test
+    public void testStopsAtTornRecord() throws Exception {
+        JournalArchiver archiver = new JournalArchiver(directory, new JournalOptions().setSegmentSize(4096));
+        archiver.archive(request(0), response(0));
+        archiver.archive(request(1), response(1));
+        archiver.close();
+        Path segment = JournalReader.listSegments(directory).get(0);
+        // Corrupt the second record's payload, as an interrupted write would leave it.
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer firstLength = ByteBuffer.allocate(4);
+            channel.read(firstLength, JournalFormat.HEADER_SIZE);
+            long secondPayload = JournalFormat.HEADER_SIZE + 2 * JournalFormat.RECORD_OVERHEAD + firstLength.getInt(0);
+            channel.write(ByteBuffer.wrap(new byte[] {42, 42}), secondPayload + 20);
+        }
+
+        assertTimes(readAll(directory), 1);
+    }
+
+    @Test
+    public void testConvertsToJson() throws Exception {
+        JournalArchiver archiver = new JournalArchiver(directory, new JournalOptions().setCompressSegments(true));
+        archiver.archive(request(1), response(1));
+        archiver.archive(request(2), response(2));
+        archiver.close();
+
+        StringWriter json = new StringWriter();
+        assertThat(JournalToJson.convert(directory, json)).isEqualTo(2);
+
+        ObjectMapper mapper = new ObjectMapper();
+        String[] lines = json.toString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(mapper.readTree(lines[1])).isEqualTo(
+                mapper.readTree(mapper.writeValueAsString(new HttpRequestResponse(request(2), response(2)))));
+    }
+
+    private static List<HttpRequestResponse> readAll(Path path) throws IOException {
+        List<HttpRequestResponse> records = new ArrayList<>();
+        try (JournalReader reader = new JournalReader(path)) {
+            HttpRequestResponse record;
+            while ((record = reader.read()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private static void assertTimes(List<HttpRequestResponse> records, int count) {
+        assertThat(records).hasSize(count);
+        for (int i = 0; i < count; i++) {
+            assertThat(records.get(i).getResponse().getTime()).isEqualTo(1000L + i);
+            assertThat(records.get(i).getRequest().getUrl()).isEqualTo("https://example.com/api/" + i);
+        }
+    }
+
+    private static void assertSameJson(HttpRequestResponse actual, HttpRequestResponse expected) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        assertThat(mapper.writeValueAsString(actual)).isEqualTo(mapper.writeValueAsString(expected));
+    }
+
+    private static HttpRequest request(int i) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", Collections.singletonList("application/x-www-form-urlencoded"));
+        headers.put("X-Many", Arrays.asList("a", "b"));
+        HttpRequest request = new HttpRequest("https://example.com/api/" + i, "POST", headers, "amount=" + i + "&note=čudno €", 0, 0);
+        request.setTime(500L + i);
+        return request;
+    }
+
+    private static HttpResponse response(int i) {
+        HttpResponse response = new HttpResponse();
+        response.setStatus(200 + i % 300);
+        response.setBody("{\"id\":" + i + ",\"price\":\"1234.5678\"}");
+        response.setTime(1000L + i);
+        return response;
+    }
+}
@@ -0,0 +1,179 @@
+package si.mazi.rescu.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequest;
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequestResponse;
+import si.mazi.rescu.serialization.jackson.serializers.HttpResponse;
+
+public class JournalQueryTest {
+
+    private static final String[] TEMPLATES = {"/api/ticker", "/api/orders/{id}", null};
+    private static final int RECORDS = 600;
+    private static final long SECOND = 1_000_000_000L;
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("rescu-journal-query");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Collections.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testFindsByTemplateAndTime() throws Exception {
+        archive(new JournalOptions().setSegmentSize(16 * 1024).setIndexBucketMillis(10_000));
+        // In the first segment, but in a bucket before the queried time: reading the whole segment would stop there.
+        corruptRecord(85);
+
+        JournalQuery query = new JournalQuery(directory)
+                .setPathTemplate("/api/orders/{id}")
+                .setFromTime(95 * SECOND)
+                .setToTime(205 * SECOND);
+        List<HttpRequestResponse> found = query.list();
+
+        assertThat(ids(found)).isEqualTo(expectedIds("/api/orders/{id}", 95, 205));
+        assertThat(ids(readAll())).doesNotContain(95, 96, 97);
+    }
+
+    @Test
+    public void testFindsInCompressedSegments() throws Exception {
+        archive(new JournalOptions().setSegmentSize(16 * 1024).setCompressSegments(true).setIndexBucketMillis(10_000));
+        // Segments outside the queried time are not even opened.
+        List<Path> segments = JournalReader.listSegments(directory);
+        Files.write(segments.get(0), new byte[] {1, 2, 3, 4, 5});
+        Files.write(segments.get(segments.size() - 1), new byte[] {1, 2, 3, 4, 5});
+
+        JournalQuery query = new JournalQuery(directory).setFromTime(300 * SECOND).setToTime(330 * SECOND);
+        List<HttpRequestResponse> found = query.list();
+
+        assertThat(ids(found)).isEqualTo(expectedIds(null, 300, 330));
+    }
+
+    @Test
+    public void testFindsRecordsWithoutTemplate() throws Exception {
+        archive(new JournalOptions().setSegmentSize(16 * 1024));
+
+        List<HttpRequestResponse> found = new JournalQuery(directory).setPathTemplate(null).list();
+
+        assertThat(ids(found)).isEqualTo(expectedIds("", Long.MIN_VALUE / SECOND, Long.MAX_VALUE / SECOND));
+    }
+
+    @Test
+    public void testReadsSegmentsWithoutIndex() throws Exception {
+        archive(new JournalOptions().setSegmentSize(16 * 1024).setIndexBucketMillis(10_000));
+        Path unindexed = JournalReader.listSegments(directory).get(1);
+        Files.delete(SegmentIndex.indexPath(unindexed));
+        Path corrupt = JournalReader.listSegments(directory).get(2);
+        Files.write(SegmentIndex.indexPath(corrupt), new byte[] {1, 2, 3, 4, 5});
+
+        JournalQuery query = new JournalQuery(directory).setPathTemplate("/api/ticker");
+        List<HttpRequestResponse> found = query.list();
+
+        assertThat(ids(found)).isEqualTo(expectedIds("/api/ticker", Long.MIN_VALUE / SECOND, Long.MAX_VALUE / SECOND));
+    }
+
+    @Test
+    public void testWithoutIndexes() throws Exception {
+        archive(new JournalOptions().setSegmentSize(16 * 1024).setIndexBucketMillis(0));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.noneMatch(p -> p.toString().endsWith(JournalFormat.INDEX_SUFFIX))).isTrue();
+        }
+
+        JournalQuery query = new JournalQuery(directory).setPathTemplate("/api/ticker").setFromTime(0).setToTime(50 * SECOND);
+        List<HttpRequestResponse> found = query.list();
+
+        assertThat(ids(found)).isEqualTo(expectedIds("/api/ticker", 0, 50));
+    }
+
+    /**
+     * Archives one record a second, cycling through the templates.
+     */
+    private void archive(JournalOptions options) throws IOException {
+        JournalArchiver archiver = new JournalArchiver(directory, options);
+        for (int i = 0; i < RECORDS; i++) {
+            HttpRequest request = new HttpRequest();
+            request.setUrl("https://example.com/" + i);
+            request.setPathTemplate(TEMPLATES[i % TEMPLATES.length]);
+            request.setTime(i * SECOND);
+            HttpResponse response = new HttpResponse();
+            response.setBody("{\"id\":" + i + ",\"price\":\"1234.5678\"}");
+            response.setTime(i * SECOND + 1000);
+            archiver.archive(request, response);
+        }
+        archiver.close();
+        assertThat(JournalReader.listSegments(directory).size()).isGreaterThan(3);
+    }
+
+    /**
+     * Changes the url of the record with the given id in its uncompressed segment, so that it fails its checksum.
+     */
+    private void corruptRecord(int id) throws IOException {
+        byte[] url = ("https://example.com/" + id).getBytes(StandardCharsets.UTF_8);
+        for (Path segment : JournalReader.listSegments(directory)) {
+            byte[] bytes = Files.readAllBytes(segment);
+            for (int i = 0; i + url.length < bytes.length; i++) {
+                if (Arrays.equals(Arrays.copyOfRange(bytes, i, i + url.length), url) && !Character.isDigit(bytes[i + url.length])) {
+                    bytes[i] = 'x';
+                    Files.write(segment, bytes);
+                    return;
+                }
+            }
+        }
+        throw new AssertionError("No record " + id);
+    }
+
+    private List<HttpRequestResponse> readAll() throws IOException {
+        List<HttpRequestResponse> records = new ArrayList<>();
+        try (JournalReader reader = new JournalReader(directory)) {
+            HttpRequestResponse record;
+            while ((record = reader.read()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @param template the template, "" for records without one, or null for all
+     */
+    private static List<Integer> expectedIds(String template, long fromSecond, long toSecond) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < RECORDS; i++) {
+            String t = TEMPLATES[i % TEMPLATES.length];
+            if (i >= fromSecond && i < toSecond && (template == null || template.equals(t == null ? "" : t))) {
+                ids.add(i);
+            }
+        }
+        return ids;
+    }
+
+    private static List<Integer> ids(List<HttpRequestResponse> records) {
+        List<Integer> ids = new ArrayList<>();
+        for (HttpRequestResponse record : records) {
+            String url = record.getRequest().getUrl();
+            ids.add(Integer.parseInt(url.substring(url.lastIndexOf('/') + 1)));
+        }
+        return ids;
+    }
+}
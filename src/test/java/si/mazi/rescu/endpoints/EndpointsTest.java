@@ -0,0 +1,346 @@
+package si.mazi.rescu.endpoints;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.IOException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+
+import si.mazi.rescu.ClientConfig;
+import si.mazi.rescu.HttpStatusIOException;
+import si.mazi.rescu.InvocationResult;
+import si.mazi.rescu.LoopbackServer;
+import si.mazi.rescu.ParamsDigest;
+import si.mazi.rescu.RestInterface;
+import si.mazi.rescu.RestProxyFactory;
+import si.mazi.rescu.metrics.InvocationMetrics;
+import si.mazi.rescu.metrics.LatencyMetrics;
+import si.mazi.rescu.metrics.MethodLatencies;
+import si.mazi.rescu.metrics.MethodMetrics;
+import si.mazi.rescu.metrics.MetricsExporter;
+import si.mazi.rescu.metrics.Phase;
+
+public class EndpointsTest {
+
+    @Path("api")
+    @Produces(MediaType.TEXT_PLAIN)
+    public interface TickerService extends RestInterface {
+
+        @GET
+        @Path("ticker")
+        String ticker(@HeaderParam("Sign") ParamsDigest sign) throws IOException;
+    }
+
+    private final List<LoopbackServer> servers = new ArrayList<>();
+
+    @AfterMethod
+    public void tearDown() {
+        for (LoopbackServer server : servers) {
+            server.close();
+        }
+        servers.clear();
+    }
+
+    private String start(String name, int status, List<String> received) throws IOException {
+        LoopbackServer server = new LoopbackServer(exchange -> {
+            synchronized (received) {
+                received.add(name + " " + exchange.getRequestURI());
+            }
+            LoopbackServer.respond(exchange, status, name);
+        });
+        servers.add(server);
+        return server.getBaseUrl();
+    }
+
+    @Test
+    public void testCallsGoToTheSelectedEndpoints() throws Exception {
+        List<String> received = new ArrayList<>();
+        String a = start("a", 200, received);
+        String b = start("b", 503, received);
+        Endpoints endpoints = new Endpoints(a, b)
+                .setSelector(EndpointSelectors.roundRobin())
+                .setWindowSize(2)
+                .setMinimumCalls(2);
+        TickerService service = RestProxyFactory.createProxy(TickerService.class, endpoints, LoopbackServer.newClientConfig());
+        List<String> invocationUrls = new ArrayList<>();
+        ParamsDigest sign = invocation -> {
+            invocationUrls.add(invocation.getInvocationUrl());
+            assertThat(invocation.getBaseUrl()).isIn(a, b);
+            return "signed";
+        };
+
+        List<String> results = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            try {
+                results.add(service.ticker(sign));
+            } catch (HttpStatusIOException e) {
+                results.add(e.getHttpStatusCode() + "");
+            }
+        }
+
+        // b is ejected after failing both of its calls in the window, and a takes all calls until it's back.
+        assertThat(results).containsExactly("a", "503", "a", "503", "a", "a");
+        assertThat(invocationUrls).containsExactly(a + "/api/ticker", b + "/api/ticker", a + "/api/ticker",
+                b + "/api/ticker", a + "/api/ticker", a + "/api/ticker");
+        assertThat(received).containsExactly("a /api/ticker", "b /api/ticker", "a /api/ticker", "b /api/ticker",
+                "a /api/ticker", "a /api/ticker");
+        Endpoint second = endpoints.getEndpoints().get(1);
+        assertThat(second.isEjected()).isTrue();
+        assertThat(second.getCalls()).isEqualTo(2);
+        assertThat(second.getFailures()).isEqualTo(2);
+        assertThat(endpoints.getEndpoints().get(0).getInFlight()).isZero();
+    }
+
+    @Test
+    public void testFailureToAwaitTheResponseIsPassedOn() throws Exception {
+        String a = start("a", 200, new ArrayList<>());
+        List<Throwable> failures = new ArrayList<>();
+        Endpoints endpoints = new Endpoints(a) {
+            @Override
+            public void ended(Endpoint endpoint, long latencyNanos, Throwable failure) {
+                failures.add(failure);
+                super.ended(endpoint, latencyNanos, failure);
+            }
+        };
+        ClientConfig config = new ClientConfig();
+        // The response is never handled, and waiting for it is interrupted.
+        config.setInvocationExecutor(command -> Thread.currentThread().interrupt());
+        TickerService service = RestProxyFactory.createProxy(TickerService.class, endpoints, config);
+
+        try {
+            service.ticker(invocation -> "signed");
+            fail("Expected the wait to be interrupted");
+        } catch (UndeclaredThrowableException e) {
+            assertThat(e.getCause()).isInstanceOf(InterruptedException.class);
+        } finally {
+            Thread.interrupted();
+        }
+        assertThat(failures).hasSize(1);
+        assertThat(failures.get(0)).isInstanceOf(InterruptedException.class);
+        assertThat(endpoints.getEndpoints().get(0).getInFlight()).isZero();
+    }
+
+    @Test
+    public void testMetricsAreOfTheSelectedEndpoint() throws Exception {
+        List<String> received = new ArrayList<>();
+        String a = start("a", 200, received);
+        String b = start("b", 200, received);
+        ClientConfig config = LoopbackServer.newClientConfig();
+        InvocationMetrics metrics = new InvocationMetrics(new MetricsExporter[0]);
+        LatencyMetrics latencies = new LatencyMetrics();
+        config.setInvocationMetrics(metrics);
+        config.setLatencyMetrics(latencies);
+        Endpoints endpoints = new Endpoints(a, b).setSelector(EndpointSelectors.roundRobin());
+        TickerService service = RestProxyFactory.createProxy(TickerService.class, endpoints, config);
+
+        for (int i = 0; i < 3; i++) {
+            service.ticker(invocation -> "signed");
+        }
+
+        Map<String, Long> requestsByHost = new HashMap<>();
+        for (MethodMetrics method : metrics.getMethods()) {
+            assertThat(method.getInFlight()).isZero();
+            requestsByHost.put(method.getHost(), method.getRequests());
+        }
+        assertThat(requestsByHost).containsOnly(entry(a.substring("http://".length()), 2L),
+                entry(b.substring("http://".length()), 1L));
+        List<Long> totals = new ArrayList<>();
+        for (MethodLatencies method : latencies.getMethods()) {
+            totals.add(method.getHistogram(Phase.TOTAL).snapshot().getCount());
+        }
+        assertThat(totals).containsOnly(2L, 1L).hasSize(2);
+    }
+
+    @Test
+    public void testRoundRobinAndLeastInFlight() {
+        Endpoints endpoints = new Endpoints("a", "b", "c").setSelector(EndpointSelectors.roundRobin());
+        List<String> selected = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            selected.add(endpoints.select().getBaseUrl());
+        }
+        assertThat(selected).containsExactly("a", "b", "c", "a", "b", "c");
+
+        endpoints = new Endpoints("a", "b", "c").setSelector(EndpointSelectors.leastInFlight());
+        Endpoint first = endpoints.select();
+        Endpoint second = endpoints.select();
+        Endpoint third = endpoints.select();
+        assertThat(first).isNotSameAs(second).isNotSameAs(third);
+        assertThat(second).isNotSameAs(third);
+        endpoints.ended(second, 1000, null);
+        assertThat(endpoints.select()).isSameAs(second);
+        assertThat(second.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPeakEwmaPrefersTheFasterEndpoint() {
+        FakeClockEndpoints endpoints = new FakeClockEndpoints("fast", "slow");
+        endpoints.setDecayTime(1, TimeUnit.SECONDS);
+        Endpoint fast = endpoints.getEndpoints().get(0);
+        Endpoint slow = endpoints.getEndpoints().get(1);
+        call(endpoints, fast, 10_000_000, null);
+        call(endpoints, slow, 100_000_000, null);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(selectAndEnd(endpoints, 10_000_000, null)).isSameAs(fast);
+        }
+        // Several calls in flight make the fast endpoint costlier than the idle slow one.
+        for (int i = 0; i < 10; i++) {
+            fast.started();
+        }
+        assertThat(endpoints.select()).isSameAs(slow);
+
+        // A slow call counts at once, and is forgotten gradually.
+        call(endpoints, fast, 200_000_000, null);
+        assertThat(fast.getPeakEwmaNanos()).isEqualTo(200_000_000);
+        endpoints.now += 1_000_000_000;
+        call(endpoints, fast, 10_000_000, null);
+        assertThat(fast.getPeakEwmaNanos()).isBetween(70_000_000.0, 90_000_000.0);
+    }
+
+    @Test
+    public void testEjectsFailingEndpointForLongerEachTime() {
+        FakeClockEndpoints endpoints = new FakeClockEndpoints("a", "b");
+        endpoints.setSelector(candidates -> candidates.get(0))
+                .setWindowSize(4)
+                .setMinimumCalls(4)
+                .setFailureRateThreshold(0.5)
+                .setEjectionTime(1, 3, TimeUnit.SECONDS);
+        Endpoint a = endpoints.getEndpoints().get(0);
+        IOException refused = new IOException("Connection refused");
+
+        call(endpoints, a, 1000, null);
+        call(endpoints, a, 1000, refused);
+        call(endpoints, a, 1000, null);
+        assertThat(a.isEjected()).isFalse();
+        // Two failures in the last four calls.
+        call(endpoints, a, 1000, refused);
+        assertThat(a.isEjected()).isTrue();
+        assertThat(endpoints.select().getBaseUrl()).isEqualTo("b");
+
+        endpoints.now += 1_000_000_000;
+        // A single call probes the endpoint, and the others go elsewhere meanwhile.
+        assertThat(endpoints.select()).isSameAs(a);
+        assertThat(selectAndEnd(endpoints, 1000, null).getBaseUrl()).isEqualTo("b");
+        // The probe failed too: ejected again at once, for twice as long.
+        end(endpoints, a, 1000, refused);
+        assertThat(a.isEjected()).isTrue();
+        endpoints.now += 1_999_999_999;
+        assertThat(selectAndEnd(endpoints, 1000, null).getBaseUrl()).isEqualTo("b");
+        endpoints.now += 1;
+        assertThat(selectAndEnd(endpoints, 1000, refused)).isSameAs(a);
+        // Calls sent before the ejection don't end it.
+        for (int i = 0; i < 3; i++) {
+            call(endpoints, a, 1000, null);
+        }
+        assertThat(a.isEjected()).isTrue();
+        // Up to the maximum.
+        endpoints.now += 2_999_990_000L;
+        assertThat(selectAndEnd(endpoints, 1000, null).getBaseUrl()).isEqualTo("b");
+        endpoints.now += 10_000;
+        assertThat(selectAndEnd(endpoints, 1000, null)).isSameAs(a);
+        assertThat(a.isEjected()).isFalse();
+
+        // Back with the first ejection time, after a full window of calls.
+        for (int i = 0; i < 3; i++) {
+            assertThat(selectAndEnd(endpoints, 1000, refused)).isSameAs(a);
+        }
+        assertThat(a.isEjected()).isFalse();
+        assertThat(selectAndEnd(endpoints, 1000, refused)).isSameAs(a);
+        assertThat(a.isEjected()).isTrue();
+        endpoints.now += 999_999_999;
+        assertThat(a.isAvailable(endpoints.now)).isFalse();
+        assertThat(a.getCalls()).isEqualTo(14);
+        assertThat(a.getFailures()).isEqualTo(8);
+        assertThat(a.getInFlight()).isZero();
+    }
+
+    @Test
+    public void testClientErrorsDontEject() {
+        FakeClockEndpoints endpoints = new FakeClockEndpoints("a", "b");
+        endpoints.setSelector(candidates -> candidates.get(0))
+                .setWindowSize(2)
+                .setMinimumCalls(2)
+                .setFailureRateThreshold(1);
+        Endpoint a = endpoints.getEndpoints().get(0);
+
+        for (int i = 0; i < 4; i++) {
+            call(endpoints, a, 1000, new HttpStatusIOException("Bad request", new InvocationResult("", 400)));
+            call(endpoints, a, 1000, new IllegalArgumentException("Unexpected response"));
+        }
+        assertThat(a.isEjected()).isFalse();
+        assertThat(a.getFailures()).isZero();
+
+        call(endpoints, a, 1000, new HttpStatusIOException("Unavailable", new InvocationResult("", 503)));
+        call(endpoints, a, 1000, new RuntimeException(new IOException("Read timed out")));
+        assertThat(a.isEjected()).isTrue();
+    }
+
+    @Test
+    public void testAllEjectedStillSelects() {
+        FakeClockEndpoints endpoints = new FakeClockEndpoints("a", "b");
+        endpoints.setSelector(EndpointSelectors.roundRobin()).setWindowSize(1).setMinimumCalls(1);
+        for (Endpoint endpoint : endpoints.getEndpoints()) {
+            call(endpoints, endpoint, 1000, new IOException("Connection refused"));
+            assertThat(endpoint.isEjected()).isTrue();
+        }
+        assertThat(endpoints.select()).isIn(endpoints.getEndpoints());
+    }
+
+    @Test
+    public void testRejectsBadSettings() {
+        try {
+            new Endpoints();
+            fail("Expected an exception");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new Endpoints("a").setWindowSize(65);
+            fail("Expected an exception");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static Endpoint call(FakeClockEndpoints endpoints, Endpoint endpoint, long latencyNanos, Throwable failure) {
+        endpoint.started();
+        return end(endpoints, endpoint, latencyNanos, failure);
+    }
+
+    private static Endpoint selectAndEnd(FakeClockEndpoints endpoints, long latencyNanos, Throwable failure) {
+        return end(endpoints, endpoints.select(), latencyNanos, failure);
+    }
+
+    private static Endpoint end(FakeClockEndpoints endpoints, Endpoint endpoint, long latencyNanos, Throwable failure) {
+        endpoints.now += latencyNanos;
+        endpoints.ended(endpoint, latencyNanos, failure);
+        return endpoint;
+    }
+
+    private static class FakeClockEndpoints extends Endpoints {
+        long now = 1_000_000_000L;
+
+        FakeClockEndpoints(String... baseUrls) {
+            super(baseUrls);
+        }
+
+        @Override
+        long nanoTime() {
+            return now;
+        }
+    }
+}
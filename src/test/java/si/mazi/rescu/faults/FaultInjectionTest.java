@@ -0,0 +1,191 @@
+package si.mazi.rescu.faults;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import si.mazi.rescu.ClientConfig;
+import si.mazi.rescu.HttpStatusIOException;
+import si.mazi.rescu.LoopbackServer;
+import si.mazi.rescu.RestInterface;
+
+public class FaultInjectionTest {
+
+    @Path("api")
+    @Produces(MediaType.TEXT_PLAIN)
+    public interface ExchangeService extends RestInterface {
+
+        @GET
+        @Path("ticker/{pair}")
+        String ticker(@PathParam("pair") String pair) throws IOException;
+
+        @GET
+        @Path("orders")
+        String orders() throws IOException;
+    }
+
+    private static final String BODY = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    private LoopbackServer server;
+    private final AtomicInteger served = new AtomicInteger();
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        served.set(0);
+        server = new LoopbackServer(this::handle);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        server.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        served.incrementAndGet();
+        exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+        LoopbackServer.respond(exchange, 200, BODY);
+    }
+
+    private ExchangeService proxy(FaultInjectingConnectionFactory faults, int readTimeoutMillis) {
+        ClientConfig config = LoopbackServer.newClientConfig();
+        config.setHttpConnectionFactory(faults);
+        config.setHttpReadTimeout(readTimeoutMillis);
+        return server.createProxy(ExchangeService.class, config);
+    }
+
+    @Test
+    public void testDelaysAndTimesOut() throws Exception {
+        FaultInjectingConnectionFactory faults = new FaultInjectingConnectionFactory(1)
+                .addRule(new FaultRule(Fault.delay(100)).setMethodName("ticker"))
+                .addRule(new FaultRule(Fault.delay(5000)).setPath("/api/orders"));
+        ExchangeService service = proxy(faults, 1000);
+
+        long start = System.nanoTime();
+        assertThat(service.ticker("btc_usd")).isEqualTo(BODY);
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(100_000_000L);
+
+        start = System.nanoTime();
+        try {
+            service.orders();
+            fail("Expected a timeout");
+        } catch (SocketTimeoutException expected) {
+        }
+        assertThat(System.nanoTime() - start).isBetween(1_000_000_000L, 4_000_000_000L);
+    }
+
+    @Test
+    public void testStallsReads() throws Exception {
+        FaultInjectingConnectionFactory faults = new FaultInjectingConnectionFactory(1)
+                .addRule(new FaultRule(Fault.stall(10, 300)));
+
+        long start = System.nanoTime();
+        assertThat(proxy(faults, 0).ticker("btc_usd")).isEqualTo(BODY);
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(300_000_000L);
+
+        try {
+            proxy(faults, 100).ticker("btc_usd");
+            fail("Expected a timeout");
+        } catch (SocketTimeoutException expected) {
+        }
+    }
+
+    @Test
+    public void testResetsWithoutSending() throws Exception {
+        FaultInjectingConnectionFactory faults = new FaultInjectingConnectionFactory(1)
+                .addRule(new FaultRule(Fault.reset()).setPath("api/ticker/{pair}"));
+        ExchangeService service = proxy(faults, 0);
+
+        try {
+            service.ticker("btc_usd");
+            fail("Expected a reset");
+        } catch (SocketException expected) {
+            assertThat(expected.getMessage()).isEqualTo("Connection reset");
+        }
+        assertThat(service.orders()).isEqualTo(BODY);
+        assertThat(served.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testTruncatesGzip() throws Exception {
+        FaultInjectingConnectionFactory faults = new FaultInjectingConnectionFactory(1)
+                .addRule(new FaultRule(Fault.truncatedGzip(20)));
+
+        try {
+            proxy(faults, 0).ticker("btc_usd");
+            fail("Expected a truncated body");
+        } catch (EOFException expected) {
+        }
+    }
+
+    @Test
+    public void testInjectsRateLimitBursts() throws Exception {
+        FaultRule rateLimit = new FaultRule(Fault.tooManyRequests(2)).setProbability(0.1).setBurst(5);
+        ExchangeService service = proxy(new FaultInjectingConnectionFactory(7).addRule(rateLimit), 0);
+
+        List<Integer> statuses = call(service, 200);
+        assertThat(statuses).contains(200, 429);
+        assertThat(rateLimit.getInjectedCount()).isEqualTo(statuses.stream().filter(s -> s == 429).count());
+        assertThat((long) served.get()).isEqualTo(statuses.stream().filter(s -> s == 200).count());
+        // Every burst lasts 5 calls, unless it runs into the next one or the end.
+        int run = 0;
+        for (int i = 0; i < statuses.size(); i++) {
+            if (statuses.get(i) == 429) {
+                run++;
+            } else {
+                assertThat(run == 0 || run % 5 == 0).as("burst of " + run + " ending at " + i).isTrue();
+                run = 0;
+            }
+        }
+
+        // The same seed injects the same faults.
+        assertThat(call(proxy(new FaultInjectingConnectionFactory(7)
+                .addRule(new FaultRule(Fault.tooManyRequests(2)).setProbability(0.1).setBurst(5)), 0), 200))
+                .isEqualTo(statuses);
+    }
+
+    @Test
+    public void testRetryAfterHeader() throws Exception {
+        ExchangeService service = proxy(new FaultInjectingConnectionFactory(1)
+                .addRule(new FaultRule(Fault.tooManyRequests(30))), 0);
+        try {
+            service.ticker("btc_usd");
+            fail("Expected a 429");
+        } catch (HttpStatusIOException e) {
+            assertThat(e.getHttpStatusCode()).isEqualTo(429);
+            assertThat(e.getResponseHeaders().get("Retry-After")).containsExactly("30");
+            assertThat(e.getHttpBody()).contains("Too many requests");
+        }
+    }
+
+    private static List<Integer> call(ExchangeService service, int times) throws IOException {
+        List<Integer> statuses = new ArrayList<>();
+        for (int i = 0; i < times; i++) {
+            try {
+                service.ticker("btc_usd");
+                statuses.add(200);
+            } catch (HttpStatusIOException e) {
+                statuses.add(e.getHttpStatusCode());
+            }
+        }
+        return statuses;
+    }
+}
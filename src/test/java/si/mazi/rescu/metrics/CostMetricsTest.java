@@ -0,0 +1,126 @@
+package si.mazi.rescu.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import si.mazi.rescu.ClientConfig;
+import si.mazi.rescu.LoopbackServer;
+import si.mazi.rescu.RestInterface;
+import si.mazi.rescu.RestMethodMetadata;
+
+public class CostMetricsTest {
+
+    @Path("api")
+    @Produces(MediaType.APPLICATION_JSON)
+    public interface MeteredService extends RestInterface {
+
+        @GET
+        @Path("small")
+        List<Map<String, Object>> small() throws IOException;
+
+        @GET
+        @Path("large")
+        List<Map<String, Object>> large() throws IOException;
+    }
+
+    private static final int LARGE_ENTRIES = 5000;
+
+    private LoopbackServer server;
+    private MeteredService service;
+    private CostMetrics costs;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        server = new LoopbackServer(this::handle);
+        costs = new CostMetrics();
+        ClientConfig config = LoopbackServer.newClientConfig();
+        config.setCostMetrics(costs);
+        service = server.createProxy(MeteredService.class, config);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        server.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        LoopbackServer.drain(exchange);
+        int entries = exchange.getRequestURI().getPath().endsWith("/large") ? LARGE_ENTRIES : 1;
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < entries; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"price\":\"123.45\",\"side\":\"buy\"}");
+        }
+        exchange.getResponseHeaders().add("Content-Type", MediaType.APPLICATION_JSON);
+        LoopbackServer.respond(exchange, 200, json.append(']').toString());
+    }
+
+    @Test
+    public void testRanksMethodsByAllocation() throws IOException {
+        if (!CostMeter.isAllocationMeasured()) {
+            throw new SkipException("This JVM doesn't measure thread allocation");
+        }
+        for (int i = 0; i < 3; i++) {
+            assertThat(service.small()).hasSize(1);
+            assertThat(service.large()).hasSize(LARGE_ENTRIES);
+        }
+
+        List<MethodCosts> ranked = costs.rank(CostMetrics.BY_ALLOCATION);
+        assertThat(ranked).hasSize(2);
+        MethodCosts large = ranked.get(0);
+        MethodCosts small = ranked.get(1);
+        assertThat(large.getMethodName()).isEqualTo("large");
+        for (Phase phase : MethodCosts.PHASES) {
+            assertThat(large.getCount(phase)).isEqualTo(3);
+        }
+        // Each of the 5000 maps takes more than 100 bytes.
+        assertThat(large.getMeanAllocatedBytes(Phase.DESERIALIZE)).isGreaterThan(LARGE_ENTRIES * 100);
+        // The first call of each also builds its deserializers, so the small one isn't far behind.
+        assertThat(small.getMeanAllocatedBytes(Phase.DESERIALIZE)).isLessThan(large.getMeanAllocatedBytes(Phase.DESERIALIZE));
+        assertThat(large.getMeanAllocatedBytes()).isGreaterThan(large.getMeanAllocatedBytes(Phase.DESERIALIZE));
+
+        String report = costs.report();
+        assertThat(report.indexOf("large (GET api/large)")).isLessThan(report.indexOf("small (GET api/small)"));
+    }
+
+    @Test
+    public void testMetersTheCurrentThread() throws Exception {
+        if (!CostMeter.isAllocationMeasured() || !CostMeter.isCpuTimeMeasured()) {
+            throw new SkipException("This JVM doesn't measure thread allocation or CPU time");
+        }
+        Method method = MeteredService.class.getMethod("small");
+        MethodCosts costs = new CostMetrics().register(RestMethodMetadata.create(method, "http://localhost", "api", null));
+
+        CostMeter meter = costs.meter();
+        byte[][] garbage = new byte[16][];
+        for (int i = 0; i < garbage.length; i++) {
+            garbage[i] = new byte[64 * 1024];
+        }
+        long spin = 0;
+        for (long start = System.nanoTime(); System.nanoTime() - start < 20_000_000; ) {
+            spin++;
+        }
+        meter.record(Phase.SERIALIZE);
+
+        assertThat(spin).isPositive();
+        assertThat(costs.getAllocatedBytes(Phase.SERIALIZE)).isGreaterThanOrEqualTo(garbage.length * 64 * 1024);
+        assertThat(costs.getCpuNanos(Phase.SERIALIZE)).isGreaterThan(5_000_000);
+        assertThat(costs.getCount(Phase.SERIALIZE)).isEqualTo(1);
+        assertThat(costs.getCount(Phase.DESERIALIZE)).isEqualTo(0);
+    }
+}
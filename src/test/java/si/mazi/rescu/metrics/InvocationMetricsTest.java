@@ -0,0 +1,178 @@
+package si.mazi.rescu.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import si.mazi.rescu.ClientConfig;
+import si.mazi.rescu.LoopbackServer;
+import si.mazi.rescu.RestInterface;
+import si.mazi.rescu.RestProxyFactory;
+
+public class InvocationMetricsTest {
+
+    @Path("api")
+    @Produces(MediaType.TEXT_PLAIN)
+    public interface CountedService extends RestInterface {
+
+        @POST
+        @Path("order")
+        @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+        String order(@FormParam("amount") String amount) throws IOException;
+
+        @GET
+        @Path("missing")
+        String missing() throws IOException;
+    }
+
+    private LoopbackServer server;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        server = new LoopbackServer(this::handle);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        server.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        LoopbackServer.drain(exchange);
+        LoopbackServer.respond(exchange, exchange.getRequestURI().getPath().endsWith("/missing") ? 404 : 200, "ok");
+    }
+
+    private static CountedService proxy(InvocationMetrics metrics, String baseUrl) {
+        ClientConfig config = LoopbackServer.newClientConfig();
+        config.setInvocationMetrics(metrics);
+        return RestProxyFactory.createProxy(CountedService.class, baseUrl, config, null, null, null, null);
+    }
+
+    @Test
+    public void testCountsCalls() throws IOException {
+        InvocationMetrics metrics = new InvocationMetrics(new MetricsExporter[0]);
+        CountedService service = proxy(metrics, server.getBaseUrl());
+
+        service.order("1.5");
+        service.order("20");
+        try {
+            service.missing();
+            fail("Expected a 404");
+        } catch (IOException expected) {
+        }
+
+        MethodMetrics order = metrics.get("order");
+        assertThat(order.getInterfaceName()).isEqualTo(CountedService.class.getName());
+        assertThat(order.getHost()).isEqualTo("127.0.0.1:" + server.getPort());
+        assertThat(order.getRequests()).isEqualTo(2);
+        assertThat(order.getInFlight()).isEqualTo(0);
+        assertThat(order.getErrors()).isEqualTo(0);
+        assertThat(order.getResponses2xx()).isEqualTo(2);
+        assertThat(order.getBytesOut()).isEqualTo("amount=1.5".length() + "amount=20".length());
+        assertThat(order.getBytesIn()).isEqualTo(4);
+        assertThat(order.getLatency().snapshot().getCount()).isEqualTo(2);
+
+        MethodMetrics missing = metrics.get("missing");
+        assertThat(missing.getRequests()).isEqualTo(1);
+        assertThat(missing.getErrors()).isEqualTo(1);
+        assertThat(missing.getResponses4xx()).isEqualTo(1);
+        assertThat(missing.getResponses2xx()).isEqualTo(0);
+        assertThat(missing.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCountsFailuresToSend() {
+        server.close();
+        InvocationMetrics metrics = new InvocationMetrics(new MetricsExporter[0]);
+        CountedService service = proxy(metrics, server.getBaseUrl());
+
+        try {
+            service.order("1.5");
+            fail("Expected the connection to be refused");
+        } catch (IOException expected) {
+        }
+
+        MethodMetrics order = metrics.get("order");
+        assertThat(order.getRequests()).isEqualTo(1);
+        assertThat(order.getErrors()).isEqualTo(1);
+        assertThat(order.getInFlight()).isEqualTo(0);
+        for (int statusClass = 1; statusClass <= 5; statusClass++) {
+            assertThat(order.getResponses(statusClass)).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testExportsEachMethodOnce() throws IOException {
+        List<MethodMetrics> exported = new ArrayList<>();
+        InvocationMetrics metrics = new InvocationMetrics(exported::add);
+
+        proxy(metrics, server.getBaseUrl()).order("1");
+        proxy(metrics, server.getBaseUrl()).order("2");
+        proxy(metrics, "http://localhost:" + server.getPort()).order("3");
+
+        assertThat(exported).hasSize(2);
+        assertThat(exported.get(0).getRequests()).isEqualTo(2);
+        assertThat(exported.get(1).getHost()).isEqualTo("localhost:" + server.getPort());
+    }
+
+    @Test
+    public void testExportsToJmx() throws Exception {
+        JmxMetricsExporter exporter = new JmxMetricsExporter("si.mazi.rescu.test");
+        CountedService service = proxy(new InvocationMetrics(exporter), server.getBaseUrl());
+        try {
+            service.order("1");
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            List<ObjectName> names = new ArrayList<>(server.queryNames(new ObjectName("si.mazi.rescu.test:type=RestMethod,*"), null));
+            assertThat(names).hasSize(1);
+            assertThat(names.get(0).getKeyProperty("method")).isEqualTo("\"order\"");
+            assertThat(server.getAttribute(names.get(0), "Requests")).isEqualTo(1L);
+            assertThat(server.getAttribute(names.get(0), "Responses2xx")).isEqualTo(1L);
+            assertThat((Double) server.getAttribute(names.get(0), "LatencyMaxMillis")).isGreaterThan(0.0);
+        } finally {
+            exporter.unregister();
+        }
+        assertThat(ManagementFactory.getPlatformMBeanServer()
+                .queryNames(new ObjectName("si.mazi.rescu.test:type=RestMethod,*"), null)).isEmpty();
+    }
+
+    @Test
+    public void testCloseUnregistersFromJmx() throws Exception {
+        ObjectName pattern = new ObjectName(JmxMetricsExporter.DEFAULT_DOMAIN + ":type=RestMethod,interface="
+                + ObjectName.quote(CountedService.class.getName()) + ",*");
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (int i = 0; i < 2; i++) {
+            InvocationMetrics metrics = new InvocationMetrics();
+            try {
+                proxy(metrics, server.getBaseUrl()).order("1");
+                // Registered again by the second metrics once the first are closed.
+                assertThat(mBeanServer.queryNames(pattern, null)).hasSize(1);
+                assertThat(mBeanServer.getAttribute(mBeanServer.queryNames(pattern, null).iterator().next(), "Requests"))
+                        .isEqualTo(1L);
+            } finally {
+                metrics.close();
+            }
+            assertThat(mBeanServer.queryNames(pattern, null)).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package si.mazi.rescu.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsCoverValuesContinuously() {
+        for (int index = 0; index < LatencyHistogram.BUCKET_COUNT; index++) {
+            long low = LatencyHistogram.lowestEquivalentValue(index);
+            long high = LatencyHistogram.highestEquivalentValue(index);
+            assertThat(LatencyHistogram.index(low)).isEqualTo(index);
+            assertThat(LatencyHistogram.index(high)).isEqualTo(index);
+            assertThat(high - low).isLessThanOrEqualTo(Math.max(0, low / 32));
+            if (index + 1 < LatencyHistogram.BUCKET_COUNT) {
+                assertThat(LatencyHistogram.lowestEquivalentValue(index + 1)).isEqualTo(high + 1);
+            }
+        }
+        assertThat(LatencyHistogram.highestEquivalentValue(LatencyHistogram.BUCKET_COUNT - 1)).isEqualTo(LatencyHistogram.MAX_VALUE);
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount()).isEqualTo(10_000);
+        assertThat(snapshot.getMean()).isEqualTo(5_000_500.0);
+        assertThat((double) snapshot.getMin()).isCloseTo(1_000, within(1_000 / 32.0));
+        assertThat((double) snapshot.getValueAtPercentile(50)).isCloseTo(5_000_000, within(5_000_000 / 32.0));
+        assertThat((double) snapshot.getValueAtPercentile(99.9)).isCloseTo(9_990_000, within(9_990_000 / 32.0));
+        assertThat((double) snapshot.getMax()).isCloseTo(10_000_000, within(10_000_000 / 32.0));
+        assertThat(snapshot.getValueAtPercentile(50)).isGreaterThanOrEqualTo(5_000_000);
+    }
+
+    @Test
+    public void testClampsValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getMin()).isEqualTo(0);
+        assertThat(snapshot.getMax()).isEqualTo(LatencyHistogram.MAX_VALUE);
+    }
+
+    @Test
+    public void testIntervalSnapshots() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        histogram.record(20);
+        assertThat(histogram.intervalSnapshot().getCount()).isEqualTo(2);
+
+        histogram.record(1_000_000);
+        HistogramSnapshot interval = histogram.intervalSnapshot();
+        assertThat(interval.getCount()).isEqualTo(1);
+        assertThat(interval.getMean()).isEqualTo(1_000_000.0);
+        assertThat(interval.getMin()).isGreaterThan(20);
+
+        assertThat(histogram.intervalSnapshot().getCount()).isZero();
+        assertThat(histogram.intervalSnapshot().getValueAtPercentile(99)).isZero();
+        assertThat(histogram.snapshot().getCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        long intervals = 0;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                intervals += histogram.intervalSnapshot().getCount();
+            }
+        }
+        intervals += histogram.intervalSnapshot().getCount();
+
+        assertThat(intervals).isEqualTo(400_000);
+        assertThat(histogram.snapshot().getCount()).isEqualTo(400_000);
+    }
+}
@@ -0,0 +1,103 @@
+package si.mazi.rescu.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.Map;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import si.mazi.rescu.ClientConfig;
+import si.mazi.rescu.LoopbackServer;
+import si.mazi.rescu.ParamsDigest;
+import si.mazi.rescu.RestInterface;
+
+public class LatencyMetricsTest {
+
+    @Path("api")
+    @Produces(MediaType.TEXT_PLAIN)
+    public interface TimedService extends RestInterface {
+
+        @GET
+        @Path("slow")
+        String slow() throws IOException;
+
+        @POST
+        @Path("order")
+        @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+        String order(@FormParam("amount") String amount, @HeaderParam("Sign") ParamsDigest signer) throws IOException;
+    }
+
+    private static final long SERVER_DELAY_MILLIS = 50;
+
+    private LoopbackServer server;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        server = new LoopbackServer(this::handle);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        server.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        LoopbackServer.drain(exchange);
+        if (exchange.getRequestURI().getPath().endsWith("/slow")) {
+            try {
+                Thread.sleep(SERVER_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        LoopbackServer.respond(exchange, 200, "ok");
+    }
+
+    @Test
+    public void testMeasuresPhases() throws IOException {
+        LatencyMetrics metrics = new LatencyMetrics();
+        ClientConfig config = LoopbackServer.newClientConfig();
+        config.setLatencyMetrics(metrics);
+        TimedService service = server.createProxy(TimedService.class, config);
+
+        assertThat(service.slow()).isEqualTo("ok");
+        for (int i = 0; i < 3; i++) {
+            assertThat(service.order("1.5", invocation -> "signature")).isEqualTo("ok");
+        }
+
+        assertThat(metrics.getMethods()).hasSize(2);
+        MethodLatencies slow = metrics.get("slow");
+        assertThat(slow.getPathTemplate()).isEqualTo("api/slow");
+        Map<Phase, HistogramSnapshot> slowPhases = slow.snapshot();
+        for (Phase phase : Phase.values()) {
+            assertThat(slowPhases.get(phase).getCount()).as(phase.name()).isEqualTo(1);
+        }
+        long serverDelay = SERVER_DELAY_MILLIS * 1_000_000;
+        assertThat(slowPhases.get(Phase.FIRST_BYTE).getMax()).isGreaterThanOrEqualTo(serverDelay);
+        assertThat(slowPhases.get(Phase.READ).getMax()).isLessThan(serverDelay);
+        assertThat(slowPhases.get(Phase.TOTAL).getMax()).isGreaterThanOrEqualTo(slowPhases.get(Phase.FIRST_BYTE).getMax());
+
+        MethodLatencies order = metrics.get("order");
+        Map<Phase, HistogramSnapshot> orderPhases = order.intervalSnapshot();
+        assertThat(orderPhases.get(Phase.SIGN).getCount()).isEqualTo(3);
+        assertThat(orderPhases.get(Phase.TOTAL).getCount()).isEqualTo(3);
+
+        service.order("2", invocation -> "signature");
+        assertThat(order.intervalSnapshot().get(Phase.TOTAL).getCount()).isEqualTo(1);
+        assertThat(order.snapshot().get(Phase.TOTAL).getCount()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,178 @@
+package si.mazi.rescu.oauth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import si.mazi.rescu.ClientConfig;
+import si.mazi.rescu.HttpMethod;
+import si.mazi.rescu.LoopbackServer;
+import si.mazi.rescu.Params;
+import si.mazi.rescu.RestInterface;
+import si.mazi.rescu.RestInvocation;
+import si.mazi.rescu.RestMethodMetadata;
+
+public class OAuthSignerTest {
+
+    @Path("1.1")
+    @Produces(MediaType.TEXT_PLAIN)
+    public interface StatusService extends RestInterface {
+
+        @POST
+        @Path("statuses/update.json")
+        @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+        String update(@QueryParam("include_entities") boolean includeEntities, @FormParam("status") String status)
+                throws IOException;
+
+        @GET
+        @Path("statuses/home_timeline.json")
+        String timeline(@QueryParam("count") int count, @QueryParam("since_id") String sinceId) throws IOException;
+    }
+
+    // From Twitter's "Creating a signature" documentation.
+    private static final String CONSUMER_KEY = "xvz1evFS4wEEPTGEFPHBog";
+    private static final String CONSUMER_SECRET = "kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw";
+    private static final String TOKEN = "370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb";
+    private static final String TOKEN_SECRET = "LswwdoUaIvS8ltyTt5jkRh4J50vUPVVHtR2YPi5kE";
+    private static final String STATUS = "Hello Ladies + Gentlemen, a signed OAuth request!";
+
+    @Test
+    public void testTwitterVector() {
+        Map<Class<? extends Annotation>, Params> paramsMap = new HashMap<>();
+        paramsMap.put(QueryParam.class, Params.of("include_entities", true));
+        paramsMap.put(FormParam.class, Params.of("status", STATUS));
+        RestMethodMetadata metadata = new RestMethodMetadata(String.class, HttpMethod.POST,
+                "https://api.twitter.com", "/1.1", "statuses/update.json", RuntimeException.class,
+                MediaType.APPLICATION_FORM_URLENCODED, MediaType.APPLICATION_JSON, "update",
+                new HashMap<>(), new Annotation[][] {});
+        RestInvocation invocation = new RestInvocation(paramsMap, Collections.emptyList(), metadata,
+                "statuses/update.json", "https://api.twitter.com/1.1/statuses/update.json?include_entities=true",
+                "include_entities=true", "/1.1/statuses/update.json", null);
+        OAuthSigner signer = new OAuthSigner(CONSUMER_KEY, CONSUMER_SECRET, TOKEN, TOKEN_SECRET);
+        String nonce = "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg";
+
+        assertThat(signer.signatureBaseString(invocation, "1318622958", nonce)).isEqualTo("POST&"
+                + "https%3A%2F%2Fapi.twitter.com%2F1.1%2Fstatuses%2Fupdate.json&"
+                + "include_entities%3Dtrue%26oauth_consumer_key%3Dxvz1evFS4wEEPTGEFPHBog%26oauth_nonce%3D"
+                + "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg%26oauth_signature_method%3DHMAC-SHA1%26"
+                + "oauth_timestamp%3D1318622958%26oauth_token%3D370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb"
+                + "%26oauth_version%3D1.0%26status%3DHello%2520Ladies%2520%252B%2520Gentlemen%252C%2520a%2520"
+                + "signed%2520OAuth%2520request%2521");
+        assertThat(signer.authorizationHeader(invocation, "1318622958", nonce)).isEqualTo("OAuth "
+                + "oauth_consumer_key=\"xvz1evFS4wEEPTGEFPHBog\", "
+                + "oauth_nonce=\"kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg\", "
+                + "oauth_signature=\"hCtSmYh%2BiHYCEqBWrE7C7hYmtUk%3D\", "
+                + "oauth_signature_method=\"HMAC-SHA1\", "
+                + "oauth_timestamp=\"1318622958\", "
+                + "oauth_token=\"370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb\", "
+                + "oauth_version=\"1.0\"");
+    }
+
+    @Test
+    public void testPercentEncode() {
+        assertThat(OAuthSigner.percentEncode("Ladies + Gentlemen")).isEqualTo("Ladies%20%2B%20Gentlemen");
+        assertThat(OAuthSigner.percentEncode("An encoded string!")).isEqualTo("An%20encoded%20string%21");
+        assertThat(OAuthSigner.percentEncode("Dogs, Cats & Mice")).isEqualTo("Dogs%2C%20Cats%20%26%20Mice");
+        assertThat(OAuthSigner.percentEncode("a-b.c_d~e*")).isEqualTo("a-b.c_d~e%2A");
+        assertThat(OAuthSigner.percentEncode("☃ snow")).isEqualTo("%E2%98%83%20snow");
+    }
+
+    @Test
+    public void testBaseUri() {
+        assertThat(OAuthSigner.baseUri("HTTP://Example.COM:80/r%20v/X?id=123")).isEqualTo("http://example.com/r%20v/X");
+        assertThat(OAuthSigner.baseUri("https://www.example.net:8080/?q=1")).isEqualTo("https://www.example.net:8080/");
+        assertThat(OAuthSigner.baseUri("https://api.example.com:443")).isEqualTo("https://api.example.com/");
+    }
+
+    @Test
+    public void testSignsProxyCalls() throws Exception {
+        List<String[]> requests = new ArrayList<>();
+        try (LoopbackServer server = new LoopbackServer(exchange -> handle(exchange, requests))) {
+            ClientConfig config = LoopbackServer.newClientConfig();
+            config.setOAuthSigner(new OAuthSigner(CONSUMER_KEY, CONSUMER_SECRET, TOKEN, TOKEN_SECRET));
+            StatusService service = server.createProxy(StatusService.class, config);
+
+            service.update(true, STATUS);
+            service.timeline(5, "a b~c");
+            config.setOAuthSigner(null);
+
+            assertThat(requests).hasSize(2);
+            for (String[] request : requests) {
+                assertThat(request[4]).contains("oauth_signature=\"" + expectedSignature(request) + "\"");
+            }
+        }
+    }
+
+    private static void handle(HttpExchange exchange, List<String[]> requests) throws IOException {
+        String body = LoopbackServer.drain(exchange);
+        requests.add(new String[] {
+                exchange.getRequestMethod(),
+                "http://" + exchange.getRequestHeaders().getFirst("Host") + exchange.getRequestURI().getRawPath(),
+                exchange.getRequestURI().getRawQuery(),
+                body,
+                exchange.getRequestHeaders().getFirst("Authorization")});
+        LoopbackServer.respond(exchange, 200, "ok");
+    }
+
+    /**
+     * Signs the request as received, independently of {@link OAuthSigner}, with the nonce and timestamp it was sent.
+     */
+    private static String expectedSignature(String[] request) throws Exception {
+        String authorization = request[4];
+        assertThat(authorization).startsWith("OAuth ");
+        Map<String, String> params = new TreeMap<>();
+        for (String part : authorization.substring("OAuth ".length()).split(", ")) {
+            String[] nameValue = part.split("=", 2);
+            params.put(nameValue[0], URLDecoder.decode(nameValue[1].replace("\"", ""), "UTF-8"));
+        }
+        params.remove("oauth_signature");
+        for (String query : new String[] {request[2], request[3]}) {
+            if (query != null && !query.isEmpty()) {
+                for (String pair : query.split("&")) {
+                    String[] nameValue = pair.split("=", 2);
+                    params.put(URLDecoder.decode(nameValue[0], "UTF-8"), URLDecoder.decode(nameValue[1], "UTF-8"));
+                }
+            }
+        }
+        StringBuilder normalized = new StringBuilder();
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            normalized.append(normalized.length() == 0 ? "" : "&")
+                    .append(encode(param.getKey())).append('=').append(encode(param.getValue()));
+        }
+        String base = request[0] + "&" + encode(request[1]) + "&" + encode(normalized.toString());
+        Mac mac = Mac.getInstance("HmacSHA1");
+        String key = encode(CONSUMER_SECRET) + "&" + encode(TOKEN_SECRET);
+        mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA1"));
+        return encode(Base64.getEncoder().encodeToString(mac.doFinal(base.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static String encode(String s) throws Exception {
+        return URLEncoder.encode(s, "UTF-8").replace("+", "%20").replace("*", "%2A").replace("%7E", "~");
+    }
+}
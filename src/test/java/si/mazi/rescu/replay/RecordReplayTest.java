@@ -0,0 +1,181 @@
+package si.mazi.rescu.replay;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+
+import si.mazi.rescu.ClientConfig;
+import si.mazi.rescu.HttpStatusIOException;
+import si.mazi.rescu.LoopbackServer;
+import si.mazi.rescu.RestInterface;
+import si.mazi.rescu.RestProxyFactory;
+
+public class RecordReplayTest {
+
+    @Path("api")
+    @Produces(MediaType.TEXT_PLAIN)
+    public interface ExchangeService extends RestInterface {
+
+        @GET
+        @Path("ticker/{pair}")
+        String ticker(@PathParam("pair") String pair, @QueryParam("depth") int depth, @QueryParam("nonce") long nonce) throws IOException;
+
+        @POST
+        @Path("order")
+        @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+        String order(@HeaderParam("Key") String key, @FormParam("amount") String amount, @FormParam("nonce") long nonce);
+
+        @GET
+        @Path("missing")
+        String missing() throws IOException;
+    }
+
+    private static final int LATENCY_MILLIS = 150;
+
+    private LoopbackServer server;
+    private final AtomicInteger served = new AtomicInteger();
+    private java.nio.file.Path recording;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        recording = Files.createTempFile("rescu-recording", ".jsonl");
+        served.set(0);
+        server = new LoopbackServer(this::handle);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        server.close();
+        Files.deleteIfExists(recording);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String requestBody = LoopbackServer.drain(exchange);
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/slow")) {
+            try {
+                Thread.sleep(LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        int status = path.endsWith("/missing") ? 404 : 200;
+        String response = "#" + served.incrementAndGet() + " " + exchange.getRequestMethod() + " " + path + " "
+                + requestBody;
+        exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+        exchange.getResponseHeaders().add("X-Served", String.valueOf(served.get()));
+        LoopbackServer.respond(exchange, status, response);
+    }
+
+    @Test
+    public void testRecordsAndReplays() throws Exception {
+        List<String> recorded = record();
+
+        server.close();
+        ReplayConnectionFactory replay = new ReplayConnectionFactory(recording, "nonce");
+        assertThat(replay.getExchangeCount()).isEqualTo(5);
+        ExchangeService service = proxy(replay, "http://replay.invalid");
+
+        assertThat(service.ticker("btc_usd", 5, 1001)).isEqualTo(recorded.get(0));
+        assertThat(service.ticker("eth_usd", 5, 1002)).isEqualTo(recorded.get(1));
+        assertThat(service.order("k", "1.5", 1003)).isEqualTo(recorded.get(2));
+        // The exchanges matching a request are served in turn.
+        assertThat(service.ticker("btc_usd", 5, 1004)).isEqualTo(recorded.get(3));
+        assertThat(service.ticker("btc_usd", 5, 1005)).isEqualTo(recorded.get(0));
+        try {
+            service.missing();
+            fail("Expected the recorded 404");
+        } catch (HttpStatusIOException e) {
+            assertThat(e.getHttpStatusCode()).isEqualTo(404);
+        }
+        try {
+            service.ticker("btc_usd", 6, 1006);
+            fail("Expected no recorded exchange");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("No recorded exchange");
+        }
+    }
+
+    @Test
+    public void testRecordsExchange() throws Exception {
+        try (RecordingConnectionFactory recorder = new RecordingConnectionFactory(recording).setRedactedHeaders("key")) {
+            proxy(recorder, server.getBaseUrl()).order("secret", "2", 7);
+            assertThat(recorder.getRecordedCount()).isEqualTo(1);
+        }
+
+        RecordedExchange exchange = new ObjectMapper().readValue(Files.readAllLines(recording).get(0), RecordedExchange.class);
+        assertThat(exchange.getMethod()).isEqualTo("POST");
+        assertThat(exchange.getPathTemplate()).isEqualTo("api/order");
+        assertThat(exchange.getUrl()).isEqualTo(server.getBaseUrl() + "/api/order");
+        assertThat(new String(exchange.getRequestBody(), StandardCharsets.UTF_8)).isEqualTo("amount=2&nonce=7");
+        assertThat(exchange.getRequestHeaders().get("Key")).containsExactly("<redacted>");
+        assertThat(exchange.getStatus()).isEqualTo(200);
+        assertThat(exchange.getResponseHeaders().get("X-served")).containsExactly("1");
+        assertThat(new String(exchange.getResponseBody(), StandardCharsets.UTF_8)).isEqualTo("#1 POST /api/order amount=2&nonce=7");
+        assertThat(exchange.getLatencyNanos()).isPositive();
+    }
+
+    @Test
+    public void testReplaysLatency() throws Exception {
+        try (RecordingConnectionFactory recorder = new RecordingConnectionFactory(recording)) {
+            proxy(recorder, server.getBaseUrl()).ticker("slow", 1, 1);
+        }
+        ReplayConnectionFactory replay = new ReplayConnectionFactory(recording, "nonce");
+
+        long start = System.nanoTime();
+        proxy(replay, server.getBaseUrl()).ticker("slow", 1, 2);
+        assertThat(System.nanoTime() - start).isLessThan(LATENCY_MILLIS * 1_000_000L);
+
+        replay.setReplayLatency(true);
+        start = System.nanoTime();
+        proxy(replay, server.getBaseUrl()).ticker("slow", 1, 3);
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(LATENCY_MILLIS * 1_000_000L);
+    }
+
+    private List<String> record() throws IOException {
+        try (RecordingConnectionFactory recorder = new RecordingConnectionFactory(recording)) {
+            ExchangeService service = proxy(recorder, server.getBaseUrl());
+            List<String> responses = new ArrayList<>();
+            responses.add(service.ticker("btc_usd", 5, 1));
+            responses.add(service.ticker("eth_usd", 5, 2));
+            responses.add(service.order("k", "1.5", 3));
+            responses.add(service.ticker("btc_usd", 5, 4));
+            try {
+                service.missing();
+            } catch (IOException expected) {
+            }
+            assertThat(recorder.getRecordedCount()).isEqualTo(5);
+            return responses;
+        }
+    }
+
+    private static ExchangeService proxy(si.mazi.rescu.HttpConnectionFactory connectionFactory, String baseUrl) {
+        ClientConfig config = LoopbackServer.newClientConfig();
+        config.setHttpConnectionFactory(connectionFactory);
+        return RestProxyFactory.createProxy(ExchangeService.class, baseUrl, config, null, null, null, null);
+    }
+}
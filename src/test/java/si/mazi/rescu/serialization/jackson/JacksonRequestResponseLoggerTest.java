@@ -0,0 +1,194 @@
+package si.mazi.rescu.serialization.jackson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import si.mazi.rescu.archive.OverflowPolicy;
+import si.mazi.rescu.serialization.jackson.serializers.HttpRequest;
+import si.mazi.rescu.serialization.jackson.serializers.HttpResponse;
+
+public class JacksonRequestResponseLoggerTest {
+
+    private final List<String> written = Collections.synchronizedList(new ArrayList<>());
+    private CountDownLatch writing;
+    private CountDownLatch release;
+    private volatile boolean traceEnabled;
+    private Logger logger;
+
+    @BeforeMethod
+    public void setUp() {
+        written.clear();
+        writing = new CountDownLatch(1);
+        release = new CountDownLatch(0);
+        traceEnabled = true;
+        // A proxy rather than a mock, as Mockito's class generation doesn't work on recent JDKs.
+        logger = (Logger) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Logger.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+            case "getName":
+                return "test";
+            case "isTraceEnabled":
+                return traceEnabled;
+            case "trace":
+                writing.countDown();
+                release.await();
+                written.add((String) args[0]);
+                return null;
+            default:
+                return method.getReturnType() == boolean.class ? false : null;
+            }
+        });
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    public void testWritesInOrder() throws Exception {
+        JacksonRequestResponseLogger archiver = new JacksonRequestResponseLogger(logger);
+        for (int i = 0; i < 1000; i++) {
+            archiver.logRequestResponse(request(i), response(i));
+        }
+        archiver.flush();
+
+        assertThat(written).hasSize(1000);
+        ObjectMapper mapper = new ObjectMapper();
+        for (int i = 0; i < 1000; i++) {
+            JsonNode item = mapper.readTree(written.get(i));
+            assertThat(item.get("response").get("time").asLong()).isEqualTo(i);
+            assertThat(item.get("request").get("url").asText()).isEqualTo("https://example.com/" + i);
+        }
+        assertThat(archiver.getDroppedCount()).isZero();
+    }
+
+    @Test
+    public void testKeepsArchiveOrderAcrossThreads() throws Exception {
+        JacksonRequestResponseLogger archiver = new JacksonRequestResponseLogger(logger);
+        blockWriter(archiver);
+
+        // Responses out of order, as of concurrent threads, while the writer is busy: written as they were archived,
+        // wherever the batches start.
+        archiver.logRequestResponse(request(3), response(3));
+        archiver.logRequestResponse(request(1), response(1));
+        archiver.logRequestResponse(request(2), response(2));
+        release.countDown();
+        archiver.flush();
+
+        assertThat(written).hasSize(4);
+        ObjectMapper mapper = new ObjectMapper();
+        List<Long> times = new ArrayList<>();
+        for (String item : written) {
+            times.add(mapper.readTree(item).get("response").get("time").asLong());
+        }
+        assertThat(times).containsExactly(0L, 3L, 1L, 2L);
+    }
+
+    @Test
+    public void testDropsWhenFull() throws Exception {
+        JacksonRequestResponseLogger archiver = new JacksonRequestResponseLogger(logger, 4, OverflowPolicy.DROP);
+        blockWriter(archiver);
+
+        for (int i = 1; i <= 6; i++) {
+            archiver.logRequestResponse(request(i), response(i));
+        }
+        assertThat(archiver.getDroppedCount()).isEqualTo(2);
+
+        release.countDown();
+        archiver.flush();
+        assertThat(written).hasSize(5);
+    }
+
+    @Test
+    public void testBlocksWhenFull() throws Exception {
+        JacksonRequestResponseLogger archiver = new JacksonRequestResponseLogger(logger, 4, OverflowPolicy.BLOCK);
+        blockWriter(archiver);
+        for (int i = 1; i <= 4; i++) {
+            archiver.logRequestResponse(request(i), response(i));
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> blocked = executor.submit(() -> archiver.logRequestResponse(request(5), response(5)));
+            try {
+                blocked.get(200, TimeUnit.MILLISECONDS);
+                throw new AssertionError("Should have waited for the writer");
+            } catch (TimeoutException expected) {
+                // ok
+            }
+
+            release.countDown();
+            blocked.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        archiver.flush();
+        assertThat(written).hasSize(6);
+        assertThat(archiver.getDroppedCount()).isZero();
+    }
+
+    @Test
+    public void testDropsAfterClose() throws Exception {
+        JacksonRequestResponseLogger archiver = new JacksonRequestResponseLogger(logger);
+        archiver.logRequestResponse(request(1), response(1));
+        archiver.close();
+        archiver.logRequestResponse(request(2), response(2));
+        archiver.flush();
+
+        assertThat(written).hasSize(1);
+        assertThat(archiver.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testNothingSerializedWithoutTrace() throws Exception {
+        traceEnabled = false;
+        JacksonRequestResponseLogger archiver = new JacksonRequestResponseLogger(logger);
+        archiver.logRequestResponse(request(1), response(1));
+        archiver.flush();
+
+        assertThat(written).isEmpty();
+    }
+
+    /**
+     * Lets the writer thread take one item and wait in the logger until {@link #release} is counted down.
+     */
+    private void blockWriter(JacksonRequestResponseLogger archiver) throws InterruptedException {
+        release = new CountDownLatch(1);
+        archiver.logRequestResponse(request(0), response(0));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static HttpRequest request(int i) {
+        HttpRequest request = new HttpRequest();
+        request.setUrl("https://example.com/" + i);
+        request.setMethod("GET");
+        request.setTime(i);
+        return request;
+    }
+
+    private static HttpResponse response(int i) {
+        HttpResponse response = new HttpResponse();
+        response.setStatus(200);
+        response.setBody("{}");
+        response.setTime(i);
+        return response;
+    }
+}
@@ -0,0 +1,74 @@
+package si.mazi.rescu.serialization.jackson.serializers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.annotations.Test;
+
+import si.mazi.rescu.FixedPointDecimal;
+
+public class FixedPointDecimalDeserializerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void shouldReadNumbersAndStrings() throws Exception {
+        List<FixedPointDecimal> values = mapper.readValue("[0.015, \"64123.45\", 12, \" -1.50 \", 1.5E-3, \"\", null]",
+                new TypeReference<List<FixedPointDecimal>>() { });
+
+        assertThat(values).containsExactly(
+                FixedPointDecimal.valueOf(15, 3),
+                FixedPointDecimal.valueOf(6412345, 2),
+                FixedPointDecimal.valueOf(12),
+                FixedPointDecimal.valueOf(-150, 2),
+                FixedPointDecimal.valueOf(15, 4),
+                null,
+                null);
+        assertThat(values.get(3).getScale()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldReadFields() throws Exception {
+        Level level = mapper.readValue("{\"price\":\"64123.45\",\"quantity\":0.5}", Level.class);
+
+        assertThat(level.price).isEqualTo(FixedPointDecimal.parse("64123.45"));
+        assertThat(level.quantity).isEqualTo(FixedPointDecimal.parse("0.5"));
+    }
+
+    @Test(expectedExceptions = JsonMappingException.class)
+    public void shouldRejectInvalidString() throws Exception {
+        mapper.readValue("{\"price\":\"abc\"}", Level.class);
+    }
+
+    @Test(expectedExceptions = JsonMappingException.class)
+    public void shouldRejectTooLargeNumber() throws Exception {
+        mapper.readValue("{\"price\":123456789012345678901234567890}", Level.class);
+    }
+
+    @Test(expectedExceptions = JsonMappingException.class)
+    public void shouldRejectObject() throws Exception {
+        mapper.readValue("{\"price\":{}}", Level.class);
+    }
+
+    @Test
+    public void shouldWriteNumbers() throws Exception {
+        Level level = new Level();
+        level.price = FixedPointDecimal.parse("-0.0015");
+        level.quantity = FixedPointDecimal.valueOf(Long.MIN_VALUE, 18);
+
+        assertThat(mapper.writeValueAsString(level)).isEqualTo("{\"price\":-0.0015,\"quantity\":-9.223372036854775808}");
+        assertThat(new ObjectMapper().configure(JsonGenerator.Feature.WRITE_NUMBERS_AS_STRINGS, true).writeValueAsString(level))
+                .isEqualTo("{\"price\":\"-0.0015\",\"quantity\":\"-9.223372036854775808\"}");
+        assertThat(mapper.readValue(mapper.writeValueAsString(level), Level.class).price).isEqualTo(level.price);
+    }
+
+    static class Level {
+        public FixedPointDecimal price;
+        public FixedPointDecimal quantity;
+    }
+}
@@ -0,0 +1,112 @@
+package si.mazi.rescu.serialization.jackson.serializers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.annotations.Test;
+
+import si.mazi.rescu.NumericColumns;
+import si.mazi.rescu.NumericColumns.ColumnType;
+
+public class NumericColumnsDeserializerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void shouldReadTypedColumns() throws Exception {
+        NumericColumns candles = new NumericColumns(ColumnType.LONG, ColumnType.fixedPoint(8), ColumnType.DOUBLE);
+
+        mapper.readerForUpdating(candles).readValue(
+                "[[1700000000000, \"64000.12\", 1.5E-3, \"ignored\"], [1700000060000, 0.00000001, \"12\"], [1700000120000], [null, \" \", null]]");
+
+        assertThat(candles.getRowCount()).isEqualTo(4);
+        assertThat(candles.getLongColumn(0)).startsWith(1700000000000L, 1700000060000L, 1700000120000L, 0L);
+        assertThat(candles.getLongColumn(1)).startsWith(6400012000000L, 1L, 0L, 0L);
+        assertThat(candles.getDoubleColumn(2)[0]).isEqualTo(0.0015);
+        assertThat(candles.getDoubleColumn(2)[1]).isEqualTo(12.0);
+        assertThat(candles.getDoubleColumn(2)[2]).isNaN();
+        assertThat(candles.getDoubleColumn(2)[3]).isNaN();
+        assertThat(candles.getDouble(0, 1)).isEqualTo(64000.12);
+    }
+
+    @Test
+    public void shouldCreateColumnsFromFirstRow() throws Exception {
+        NumericColumns book = mapper.readValue("[[\"64000.5\", \"0.25\"], [\"63999\", \"1\", \"extra\"], [\"63998.75\"]]", NumericColumns.class);
+
+        assertThat(book.isAutoColumns()).isTrue();
+        assertThat(book.getColumnCount()).isEqualTo(2);
+        assertThat(book.getRowCount()).isEqualTo(3);
+        assertThat(book.getDoubleColumn(0)).startsWith(64000.5, 63999.0, 63998.75);
+        assertThat(book.getDouble(1, 1)).isEqualTo(1.0);
+        assertThat(book.getDouble(2, 1)).isNaN();
+
+        mapper.readerForUpdating(book).readValue("[[1, 2, 3]]");
+        assertThat(book.getColumnCount()).isEqualTo(3);
+        assertThat(book.getRowCount()).isEqualTo(1);
+        assertThat(book.getDouble(0, 2)).isEqualTo(3.0);
+    }
+
+    @Test
+    public void shouldReuseArrays() throws Exception {
+        NumericColumns columns = new NumericColumns(ColumnType.LONG, ColumnType.DOUBLE);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            json.append(i > 0 ? "," : "").append('[').append(i).append(',').append(i).append(".5]");
+        }
+        String body = json.append(']').toString();
+
+        mapper.readerForUpdating(columns).readValue(body);
+        long[] longs = columns.getLongColumn(0);
+        double[] doubles = columns.getDoubleColumn(1);
+        mapper.readerForUpdating(columns).readValue(body);
+
+        assertThat(columns.getRowCount()).isEqualTo(1000);
+        assertThat(columns.getLongColumn(0)).isSameAs(longs);
+        assertThat(columns.getDoubleColumn(1)).isSameAs(doubles);
+        assertThat(columns.getDouble(999, 1)).isEqualTo(999.5);
+    }
+
+    @Test
+    public void shouldCreateSubclass() throws Exception {
+        Container container = mapper.readValue("{\"candles\":[[1, \"2.5\"]]}", Container.class);
+
+        assertThat(container.candles).isInstanceOf(Candles.class);
+        assertThat(container.candles.getLong(0, 0)).isEqualTo(1);
+        assertThat(container.candles.getLong(0, 1)).isEqualTo(250);
+    }
+
+    @Test(expectedExceptions = JsonMappingException.class)
+    public void shouldRejectTooManyFractionDigits() throws Exception {
+        mapper.readValue("[[1, \"2.555\"]]", Candles.class);
+    }
+
+    @Test(expectedExceptions = JsonMappingException.class)
+    public void shouldRejectNonArray() throws Exception {
+        mapper.readValue("{\"a\": 1}", NumericColumns.class);
+    }
+
+    @Test(expectedExceptions = JsonMappingException.class)
+    public void shouldRejectNestedValue() throws Exception {
+        mapper.readValue("[[1, [2]]]", Candles.class);
+    }
+
+    @Test
+    public void shouldParseDoublesExactly() throws Exception {
+        for (String s : new String[] {"0", "-0.1", "64000.12", "0.000000012345", "123456789012345678901234567890", "1e-7",
+                "9007199254740993", "0.30000000000000004", "-1.7976931348623157E308"}) {
+            char[] chars = ("[" + s + "]").toCharArray();
+            assertThat(NumericColumnsDeserializer.parseDouble(chars, 1, s.length())).as(s).isEqualTo(Double.parseDouble(s));
+        }
+    }
+
+    public static class Candles extends NumericColumns {
+        public Candles() {
+            super(ColumnType.LONG, ColumnType.fixedPoint(2));
+        }
+    }
+
+    static class Container {
+        public Candles candles;
+    }
+}
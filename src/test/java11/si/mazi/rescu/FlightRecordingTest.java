@@ -0,0 +1,117 @@
+package si.mazi.rescu;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightRecordingTest {
+
+    @Path("api")
+    @Produces(MediaType.TEXT_PLAIN)
+    public interface RecordedService extends RestInterface {
+
+        @POST
+        @Path("order")
+        @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+        String order(@FormParam("amount") String amount) throws IOException;
+    }
+
+    private static final String RESPONSE = "accepted: €";
+
+    private LoopbackServer server;
+    private RecordedService service;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        server = new LoopbackServer(this::handle);
+        service = server.createProxy(RecordedService.class, LoopbackServer.newClientConfig());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        server.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        LoopbackServer.drain(exchange);
+        exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+        LoopbackServer.respond(exchange, 201, RESPONSE);
+    }
+
+    @Test
+    public void testRecordsInvocations() throws Exception {
+        java.nio.file.Path file = Files.createTempFile("rescu", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("rescu.Invocation");
+            recording.start();
+            assertThat(service.order("1.5")).isEqualTo(RESPONSE);
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertThat(events).hasSize(1);
+            RecordedEvent event = events.get(0);
+            assertThat(event.getEventType().getName()).isEqualTo("rescu.Invocation");
+            assertThat(event.getString("method")).isEqualTo("order");
+            assertThat(event.getString("httpMethod")).isEqualTo("POST");
+            assertThat(event.getString("pathTemplate")).isEqualTo("api/order");
+            assertThat(event.getInt("status")).isEqualTo(201);
+            assertThat(event.getLong("bytesOut")).isEqualTo("amount=1.5".length());
+            assertThat(event.getLong("bytesIn")).isEqualTo(RESPONSE.getBytes(StandardCharsets.UTF_8).length);
+            assertThat(event.getString("failure")).isNull();
+            Duration phases = event.getDuration("lockWait").plus(event.getDuration("bind")).plus(event.getDuration("sign"))
+                    .plus(event.getDuration("serialize")).plus(event.getDuration("connect"))
+                    .plus(event.getDuration("firstByte")).plus(event.getDuration("read"))
+                    .plus(event.getDuration("deserialize"));
+            assertThat(event.getDuration("firstByte")).isGreaterThan(Duration.ZERO);
+            assertThat(phases).isLessThanOrEqualTo(event.getDuration());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testAppliesThreshold() throws Exception {
+        java.nio.file.Path file = Files.createTempFile("rescu", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("rescu.Invocation").withThreshold(Duration.ofHours(1));
+            recording.start();
+            service.order("1.5");
+            recording.stop();
+            recording.dump(file);
+
+            assertThat(RecordingFile.readAllEvents(file)).isEmpty();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testStartsNothingWhenNotRecording() throws Exception {
+        RestMethodMetadata metadata = RestMethodMetadata.create(RecordedService.class.getMethod("order", String.class),
+                "http://localhost", "api", null);
+
+        assertThat(FlightRecording.start(metadata)).isNull();
+    }
+}